@@ -0,0 +1,82 @@
+package com.mservicetech.openapi.codegen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Command line entry point of the {@link ValidatorCodeGenerator}, run in the generate-sources phase of a build.
+ *
+ * <pre>
+ * java -cp ... com.mservicetech.openapi.codegen.CodegenTool --spec src/main/resources/openapi.yaml
+ *     --package com.example.api --class PetstoreSpec --output target/generated-sources/openapi
+ * </pre>
+ *
+ * The exit code is 0 when the sources are written and 2 for a usage or read error.
+ */
+public class CodegenTool {
+    static final int EXIT_GENERATED = 0;
+    static final int EXIT_ERROR = 2;
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        String spec = null;
+        String packageName = null;
+        String className = null;
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--spec":
+                        spec = args[++i];
+                        break;
+                    case "--package":
+                        packageName = args[++i];
+                        break;
+                    case "--class":
+                        className = args[++i];
+                        break;
+                    case "--output":
+                        output = args[++i];
+                        break;
+                    case "--help":
+                        usage(out);
+                        return EXIT_GENERATED;
+                    default:
+                        usage(err);
+                        return EXIT_ERROR;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            usage(err);
+            return EXIT_ERROR;
+        }
+        if (spec == null || packageName == null || className == null || output == null) {
+            usage(err);
+            return EXIT_ERROR;
+        }
+
+        try {
+            Path specFile = Paths.get(spec);
+            ValidatorCodeGenerator generator = new ValidatorCodeGenerator(
+                    new String(Files.readAllBytes(specFile), StandardCharsets.UTF_8), specFile.getFileName().toString());
+            List<Path> files = generator.generate(packageName, className, Paths.get(output));
+            out.println("Generated " + files.size() + " sources for " + specFile + " in " + output);
+            return EXIT_GENERATED;
+        } catch (IOException | RuntimeException e) {
+            err.println("Code generation failed: " + e);
+            return EXIT_ERROR;
+        }
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("Usage: CodegenTool --spec <openapi.yaml> --package <package> --class <ClassName> --output <directory>");
+    }
+}
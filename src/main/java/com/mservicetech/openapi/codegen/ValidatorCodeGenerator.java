@@ -0,0 +1,225 @@
+package com.mservicetech.openapi.codegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mservicetech.openapi.validation.CompiledSpec;
+import com.mservicetech.openapi.validation.SchemaCompiler;
+import com.networknt.jsonoverlay.Overlay;
+import com.networknt.oas.model.MediaType;
+import com.networknt.oas.model.OpenApi3;
+import com.networknt.oas.model.Operation;
+import com.networknt.oas.model.Path;
+import com.networknt.oas.model.RequestBody;
+import com.networknt.oas.model.Response;
+import com.networknt.oas.model.Schema;
+import com.networknt.oas.model.impl.OpenApi3Impl;
+import com.networknt.oas.model.impl.RequestBodyImpl;
+import com.networknt.oas.model.impl.SchemaImpl;
+import com.networknt.openapi.ApiNormalisedPath;
+import com.networknt.openapi.NormalisedPath;
+import com.networknt.openapi.OpenApiHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.mservicetech.openapi.validation.SchemaCompiler.literal;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generate the Java sources of a {@link CompiledSpec} during the build, so that a service with a fixed spec does
+ * not parse YAML or compile schemas at runtime.
+ * <p>
+ * The generated factory holds the spec as json, a router with one comparison per path segment and the compiled
+ * schemas of the request and response bodies of every operation, one class per schema. Schemas with keywords
+ * the {@link SchemaCompiler} does not support are left to the generic engine at runtime.
+ */
+public class ValidatorCodeGenerator {
+    /** characters per string literal of the spec, well below the constant pool limit of 65535 bytes */
+    private static final int SPEC_CHUNK = 8192;
+
+    private final String source;
+    private final OpenApi3 openApi3;
+    private final String basePath;
+
+    /**
+     * @param spec the specification, yaml or json
+     * @param source name of the spec in the generated comments, e.g. "openapi.yaml"
+     */
+    public ValidatorCodeGenerator(String spec, String source) {
+        OpenApiHelper helper = new OpenApiHelper(requireNonNull(spec, "spec cannot be null"));
+        this.openApi3 = helper.openApi3;
+        this.basePath = helper.basePath;
+        this.source = source;
+    }
+
+    /**
+     * Write the sources into their package directory.
+     *
+     * @param packageName package of the generated classes
+     * @param className simple name of the factory
+     * @param outputDirectory root of the generated sources, e.g. target/generated-sources/openapi
+     * @return the written files
+     * @throws IOException if a file cannot be written
+     */
+    public List<java.nio.file.Path> generate(String packageName, String className, java.nio.file.Path outputDirectory) throws IOException {
+        java.nio.file.Path directory = outputDirectory.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(directory);
+        List<java.nio.file.Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : generateSources(packageName, className).entrySet()) {
+            java.nio.file.Path file = directory.resolve(source.getKey() + ".java");
+            Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * @param packageName package of the generated classes
+     * @param className simple name of the factory
+     * @return the sources by simple class name, the factory first
+     */
+    public Map<String, String> generateSources(String packageName, String className) throws IOException {
+        JsonNode specJson = Overlay.toJson((OpenApi3Impl) openApi3);
+        JsonNode components = specJson.get("components");
+
+        // the schemas by location, a schema shared by several bodies with a $ref is compiled once
+        Map<String, String> schemaClasses = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(className, null);
+        for (Schema schema : bodySchemas()) {
+            String location = Overlay.of((SchemaImpl) schema).getPathFromRoot();
+            JsonNode node = Overlay.toJson((SchemaImpl) schema);
+            if (schemaClasses.containsKey(location) || !node.isObject()) {
+                continue;
+            }
+            String schemaClass = className + "Schema" + schemaClasses.size();
+            try {
+                sources.put(schemaClass, SchemaCompiler.generateSource(packageName, schemaClass, true, node, components));
+                schemaClasses.put(location, schemaClass);
+            } catch (SchemaCompiler.UnsupportedSchemaException e) {
+                // validated by the generic engine
+            }
+        }
+        sources.put(className, factory(packageName, className, new ObjectMapper().writeValueAsString(specJson), schemaClasses));
+        return sources;
+    }
+
+    private List<Schema> bodySchemas() {
+        List<Schema> schemas = new ArrayList<>();
+        for (Path path : openApi3.getPaths().values()) {
+            for (Operation operation : path.getOperations().values()) {
+                RequestBody requestBody = operation.getRequestBody();
+                if (requestBody != null && Overlay.isPresent((RequestBodyImpl) requestBody)) {
+                    MediaType json = requestBody.getContentMediaType("application/json");
+                    if (json != null && json.getSchema() != null) {
+                        schemas.add(json.getSchema());
+                    }
+                }
+                for (Response response : operation.getResponses().values()) {
+                    for (MediaType mediaType : response.getContentMediaTypes().values()) {
+                        if (mediaType.getSchema() != null) {
+                            schemas.add(mediaType.getSchema());
+                        }
+                    }
+                }
+            }
+        }
+        return schemas;
+    }
+
+    private String factory(String packageName, String className, String spec, Map<String, String> schemaClasses) {
+        StringBuilder b = new StringBuilder();
+        b.append("package ").append(packageName).append(";\n\n")
+                .append("import com.mservicetech.openapi.validation.CompiledSchema;\n")
+                .append("import com.mservicetech.openapi.validation.CompiledSpec;\n\n")
+                .append("import java.util.List;\n\n")
+                .append("/**\n")
+                .append(" * Generated from ").append(source == null ? "the specification" : source.replace("*/", "*\\/"))
+                .append(" by ").append(ValidatorCodeGenerator.class.getSimpleName()).append(", do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(className).append(" implements CompiledSpec {\n");
+        int index = 0;
+        for (String schemaClass : schemaClasses.values()) {
+            b.append("    private static final CompiledSchema SCHEMA_").append(index++).append(" = new ").append(schemaClass).append("();\n");
+        }
+        if (!schemaClasses.isEmpty()) {
+            b.append('\n');
+        }
+
+        b.append("    @Override\n")
+                .append("    public String getSpec() {\n")
+                .append("        return new StringBuilder(").append(spec.length()).append(")\n");
+        for (int start = 0; start < spec.length(); start += SPEC_CHUNK) {
+            b.append("                .append(").append(literal(spec.substring(start, Math.min(spec.length(), start + SPEC_CHUNK)))).append(")\n");
+        }
+        b.append("                .toString();\n")
+                .append("    }\n\n");
+
+        router(b);
+
+        b.append("\n    @Override\n")
+                .append("    public CompiledSchema getSchema(String location) {\n")
+                .append("        switch (location) {\n");
+        index = 0;
+        for (String location : schemaClasses.keySet()) {
+            b.append("            case ").append(literal(location)).append(":\n")
+                    .append("                return SCHEMA_").append(index++).append(";\n");
+        }
+        b.append("            default:\n")
+                .append("                return null;\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+        return b.toString();
+    }
+
+    /**
+     * The paths with the same number of segments are compared in the order of the spec, the first match wins
+     * like in {@link OpenApiHelper#findMatchingApiPath(NormalisedPath)}.
+     */
+    private void router(StringBuilder b) {
+        Map<Integer, List<NormalisedPath>> bySize = new TreeMap<>();
+        for (String path : openApi3.getPaths().keySet()) {
+            NormalisedPath normalised = new ApiNormalisedPath(path, basePath);
+            bySize.computeIfAbsent(normalised.parts().size(), s -> new ArrayList<>()).add(normalised);
+        }
+        b.append("    @Override\n")
+                .append("    public String findPath(List<String> parts) {\n")
+                .append("        switch (parts.size()) {\n");
+        for (Map.Entry<Integer, List<NormalisedPath>> entry : bySize.entrySet()) {
+            b.append("            case ").append(entry.getKey()).append(":\n");
+            boolean matchesAll = false;
+            for (NormalisedPath path : entry.getValue()) {
+                List<String> conditions = new ArrayList<>();
+                for (int i = 0; i < path.parts().size(); i++) {
+                    if (!path.isParam(i)) {
+                        conditions.add("parts.get(" + i + ").equalsIgnoreCase(" + literal(path.part(i)) + ")");
+                    }
+                }
+                if (conditions.isEmpty()) {
+                    // every segment is a parameter, the paths after it are never matched
+                    b.append("                return ").append(literal(path.original())).append(";\n");
+                    matchesAll = true;
+                    break;
+                }
+                b.append("                if (").append(String.join("\n                        && ", conditions)).append(") {\n")
+                        .append("                    return ").append(literal(path.original())).append(";\n")
+                        .append("                }\n");
+            }
+            if (!matchesAll) {
+                b.append("                break;\n");
+            }
+        }
+        b.append("            default:\n")
+                .append("                break;\n")
+                .append("        }\n")
+                .append("        return null;\n")
+                .append("    }\n");
+    }
+}
@@ -0,0 +1,50 @@
+package com.mservicetech.openapi.common;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A map of headers looked up ignoring case, see {@link ParameterSource#ofHeaders(Map)}. A name is looked up as it is
+ * declared, then in lower case, as most maps hold the names in one of these forms. The index of the lower case names
+ * is only built when both miss, at most once per message.
+ */
+final class HeaderMapSource implements ParameterSource {
+    private final Map<String, ?> headers;
+    private Map<String, Object> index;
+
+    HeaderMapSource(Map<String, ?> headers) {
+        this.headers = headers;
+    }
+
+    @Override
+    public Object get(String name) {
+        Object value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        String lowerCase = name.toLowerCase(Locale.ROOT);
+        if (!lowerCase.equals(name)) {
+            value = headers.get(lowerCase);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (index == null) {
+            Map<String, Object> names = new HashMap<>();
+            for (Map.Entry<String, ?> entry : headers.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    // of two names that differ in case only, the first one is kept
+                    names.putIfAbsent(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+                }
+            }
+            index = names;
+        }
+        return index.get(lowerCase);
+    }
+
+    @Override
+    public Iterable<String> getNames() {
+        return headers.keySet();
+    }
+}
@@ -0,0 +1,69 @@
+package com.mservicetech.openapi.common;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The parameters of one location of a request or a response, looked up by name. A server integration can implement
+ * it over its native structure, e.g. {@code nettyHeaders::get}, so the values are read in place instead of being
+ * copied into a map for every request.
+ * <p>
+ * Header names are case-insensitive: a source of headers looks them up ignoring case, as the header structures of
+ * servers do. A map is adapted with {@link #of(Map)} or, for headers, {@link #ofHeaders(Map)}.
+ */
+@FunctionalInterface
+public interface ParameterSource {
+
+    /**
+     * @param name the name of a parameter
+     * @return the value, a String or a collection of Strings for a repeated parameter; null if it is absent
+     */
+    Object get(String name);
+
+    /**
+     * The names of the parameters present, only needed for the query parameters of {@code deepObject} style,
+     * whose names are not known in advance. None by default.
+     *
+     * @return the names of the parameters
+     */
+    default Iterable<String> getNames() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @param parameters the parameters, null for none
+     * @return a source that reads the map, null if the map is null
+     */
+    static ParameterSource of(Map<String, ?> parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        return new ParameterSource() {
+            @Override
+            public Object get(String name) {
+                return parameters.get(name);
+            }
+
+            @Override
+            public Iterable<String> getNames() {
+                return parameters.keySet();
+            }
+        };
+    }
+
+    /**
+     * Adapt a map of headers. A name is first looked up as it is declared, then in lower case; when both miss, the
+     * map is indexed by the lower case names, once, and the name is looked up in the index. A map sorted with
+     * {@link String#CASE_INSENSITIVE_ORDER} already ignores case and is read as it is.
+     *
+     * @param headers the headers, null for none
+     * @return a source that reads the map ignoring the case of the names, null if the map is null
+     */
+    static ParameterSource ofHeaders(Map<String, ?> headers) {
+        if (headers instanceof SortedMap && ((SortedMap<String, ?>) headers).comparator() == String.CASE_INSENSITIVE_ORDER) {
+            return of(headers);
+        }
+        return headers == null ? null : new HeaderMapSource(headers);
+    }
+}
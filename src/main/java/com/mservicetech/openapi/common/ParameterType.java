@@ -6,12 +6,25 @@ import java.util.HashMap;
 import java.util.Map;
 
 public enum ParameterType {
-	PATH,
-	QUERY,
-	HEADER,
-	COOKIE;
+	PATH("path"),
+	QUERY("query"),
+	HEADER("header"),
+	COOKIE("cookie");
 	
 	private static Map<String, ParameterType> lookup = new HashMap<>();
+
+	private final String in;
+
+	ParameterType(String in) {
+		this.in = in;
+	}
+
+	/**
+	 * @return the value of the "in" field of the parameter object, e.g. "query"
+	 */
+	public String getIn() {
+		return in;
+	}
 	
 	static {
 		for (ParameterType type: ParameterType.values()) {
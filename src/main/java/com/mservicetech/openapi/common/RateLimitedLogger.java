@@ -0,0 +1,85 @@
+package com.mservicetech.openapi.common;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wrap a SLF4J logger so that at most one message is written per interval.
+ *
+ * Used for internal errors that can be triggered by request traffic: a flood of bad requests must not turn
+ * into a flood of log writes. Messages dropped inside an interval are counted and reported with the next
+ * message that is written.
+ */
+public class RateLimitedLogger {
+    public static final long DEFAULT_INTERVAL_MILLIS = 10_000;
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final AtomicLong nextLogTime;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLogger(Logger logger) {
+        this(logger, DEFAULT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public RateLimitedLogger(Logger logger, long interval, TimeUnit unit) {
+        this.logger = logger;
+        this.intervalNanos = unit.toNanos(interval);
+        this.nextLogTime = new AtomicLong(System.nanoTime());
+    }
+
+    public void warn(String format, Object... args) {
+        if (logger.isWarnEnabled() && acquire()) {
+            long count = suppressed.getAndSet(0);
+            logger.warn(withSuppressed(format, count), withSuppressed(args, count));
+        }
+    }
+
+    public void error(String format, Object... args) {
+        if (logger.isErrorEnabled() && acquire()) {
+            long count = suppressed.getAndSet(0);
+            logger.error(withSuppressed(format, count), withSuppressed(args, count));
+        }
+    }
+
+    /**
+     * @return number of messages dropped since the last message was written
+     */
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    private boolean acquire() {
+        long now = System.nanoTime();
+        long next = nextLogTime.get();
+        if (now - next >= 0 && nextLogTime.compareAndSet(next, now + intervalNanos)) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    private String withSuppressed(String format, long count) {
+        return count > 0 ? format + " ({} similar messages suppressed)" : format;
+    }
+
+    private Object[] withSuppressed(Object[] args, long count) {
+        if (count == 0) {
+            return args;
+        }
+        // keep a trailing throwable last so SLF4J still prints it as the exception
+        Object[] result = new Object[args.length + 1];
+        int last = args.length - 1;
+        if (last >= 0 && args[last] instanceof Throwable) {
+            System.arraycopy(args, 0, result, 0, last);
+            result[last] = count;
+            result[last + 1] = args[last];
+        } else {
+            System.arraycopy(args, 0, result, 0, args.length);
+            result[args.length] = count;
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mservicetech.openapi.common;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -8,10 +9,17 @@ import com.fasterxml.jackson.databind.JsonNode;
 public class RequestEntity {
 
     Map<String, ?> pathParameters;
+    ParameterSource pathSource;
     Map<String, ?> queryParameters;
+    ParameterSource querySource;
+    String queryString;
     Map<String, ?> headerParameters;
+    ParameterSource headerSource;
     Map<String, ?> cookieParameters;
+    ParameterSource cookieSource;
+    String cookieHeader;
     String requestBody;
+    InputStream requestBodyStream;
     String contentType;
 
     public Map<String, ?> getPathParameters() {
@@ -20,6 +28,21 @@ public class RequestEntity {
 
     public void setPathParameters(Map<String, ?> pathParameters) {
         this.pathParameters = pathParameters;
+        this.pathSource = ParameterSource.of(pathParameters);
+    }
+
+    public ParameterSource getPathSource() {
+        return pathSource;
+    }
+
+    /**
+     * Set the path parameters as a source the validator reads in place, e.g. over the native structure of a server.
+     *
+     * @param pathSource the path parameters, null for none
+     */
+    public void setPathSource(ParameterSource pathSource) {
+        this.pathSource = pathSource;
+        this.pathParameters = null;
     }
 
 
@@ -29,14 +52,63 @@ public class RequestEntity {
 
     public void setQueryParameters(Map<String, ?> queryParameters) {
         this.queryParameters = queryParameters;
+        this.querySource = ParameterSource.of(queryParameters);
+    }
+
+    public ParameterSource getQuerySource() {
+        return querySource;
+    }
+
+    /**
+     * Set the query parameters as a source the validator reads in place, e.g. over the native structure of a server.
+     *
+     * @param querySource the query parameters, null for none
+     */
+    public void setQuerySource(ParameterSource querySource) {
+        this.querySource = querySource;
+        this.queryParameters = null;
+    }
+
+    public String getQueryString() {
+        return queryString;
+    }
+
+    /**
+     * Set the raw query string of the request, e.g. {@code limit=10&names=Max%2CLuna}, in place of the query
+     * parameters. Only the parameters the operation declares are decoded. Ignored if the query parameters are set.
+     *
+     * @param queryString the query string, without the leading '?'
+     */
+    public void setQueryString(String queryString) {
+        this.queryString = queryString;
     }
 
     public Map<String, ?> getHeaderParameters() {
         return headerParameters;
     }
 
+    /**
+     * Set the header parameters. The names are looked up ignoring case, as RFC 7230 defines them.
+     *
+     * @param headerParameters the header parameters
+     */
     public void setHeaderParameters(Map<String, ?> headerParameters) {
         this.headerParameters = headerParameters;
+        this.headerSource = ParameterSource.ofHeaders(headerParameters);
+    }
+
+    public ParameterSource getHeaderSource() {
+        return headerSource;
+    }
+
+    /**
+     * Set the header parameters as a source the validator reads in place, e.g. over the native structure of a server.
+     *
+     * @param headerSource the header parameters, null for none
+     */
+    public void setHeaderSource(ParameterSource headerSource) {
+        this.headerSource = headerSource;
+        this.headerParameters = null;
     }
 
     public Map<String, ?> getCookieParameters() {
@@ -45,6 +117,35 @@ public class RequestEntity {
 
     public void setCookieParameters(Map<String, ?> cookieParameters) {
         this.cookieParameters = cookieParameters;
+        this.cookieSource = ParameterSource.of(cookieParameters);
+    }
+
+    public ParameterSource getCookieSource() {
+        return cookieSource;
+    }
+
+    /**
+     * Set the cookie parameters as a source the validator reads in place, e.g. over the native structure of a server.
+     *
+     * @param cookieSource the cookie parameters, null for none
+     */
+    public void setCookieSource(ParameterSource cookieSource) {
+        this.cookieSource = cookieSource;
+        this.cookieParameters = null;
+    }
+
+    public String getCookieHeader() {
+        return cookieHeader;
+    }
+
+    /**
+     * Set the raw Cookie header of the request, e.g. {@code sid=31d4; lang=en}, in place of the cookie parameters.
+     * Only the cookies the operation declares are read. Ignored if the cookie parameters are set.
+     *
+     * @param cookieHeader the value of the Cookie header
+     */
+    public void setCookieHeader(String cookieHeader) {
+        this.cookieHeader = cookieHeader;
     }
 
     public String getRequestBody() {
@@ -59,6 +160,21 @@ public class RequestEntity {
         this.requestBody = requestBody.toPrettyString();
     }
 
+    public InputStream getRequestBodyStream() {
+        return requestBodyStream;
+    }
+
+    /**
+     * Set the request body as a stream, for a {@code multipart/form-data} body that is validated while it is read
+     * and never held in memory. The validator reads the stream up to the close delimiter, or up to the first error
+     * once the report is full, and does not close it. Ignored for the other media types.
+     *
+     * @param requestBodyStream the request body
+     */
+    public void setRequestBodyStream(InputStream requestBodyStream) {
+        this.requestBodyStream = requestBodyStream;
+    }
+
     public String getContentType() {
         return contentType;
     }
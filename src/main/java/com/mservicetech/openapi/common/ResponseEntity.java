@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 public class ResponseEntity {
 
     Map<String, ?> headers;
+    ParameterSource headerSource;
     String content;
     String contentType;
 
@@ -16,6 +17,22 @@ public class ResponseEntity {
 
     public void setHeaders(Map<String, ?> headers) {
         this.headers = headers;
+        this.headerSource = ParameterSource.ofHeaders(headers);
+    }
+
+    public ParameterSource getHeaderSource() {
+        return headerSource;
+    }
+
+    /**
+     * Set the headers as a source the validator reads in place, e.g. over the native headers of a server. The
+     * source looks the names up ignoring case.
+     *
+     * @param headerSource the headers, null for none
+     */
+    public void setHeaderSource(ParameterSource headerSource) {
+        this.headerSource = headerSource;
+        this.headers = null;
     }
 
     public String getContent() {
@@ -0,0 +1,473 @@
+package com.mservicetech.openapi.format;
+
+/**
+ * Scanners for the common OpenAPI formats. Each scanner reads the value once, character by character, and neither
+ * allocates nor throws: no regex, no parsing into a date or an address.
+ * <p>
+ * The formats follow the JSON schema specification: {@code date-time} and {@code date} are RFC 3339 date-times and
+ * full-dates, {@code uuid} is RFC 4122, {@code ipv4} a dotted quad without leading zeros, {@code ipv6} RFC 4291
+ * without a zone, {@code email} an RFC 5321 mailbox and {@code int32}/{@code int64} an integer literal within the
+ * range of the type.
+ */
+public final class Formats {
+    public static final String DATE_TIME = "date-time";
+    public static final String DATE = "date";
+    public static final String UUID = "uuid";
+    public static final String IPV4 = "ipv4";
+    public static final String IPV6 = "ipv6";
+    public static final String EMAIL = "email";
+    public static final String INT32 = "int32";
+    public static final String INT64 = "int64";
+
+    private static final String INT32_MAX = "2147483647";
+    private static final String INT64_MAX = "9223372036854775807";
+    private static final int MAX_LOCAL_PART = 64;
+    private static final int MAX_DOMAIN = 255;
+    private static final int MAX_LABEL = 63;
+
+    private Formats() {
+    }
+
+    /**
+     * @param format the value of a format keyword
+     * @return true if the format has a scanner
+     */
+    public static boolean isSupported(String format) {
+        if (format == null) {
+            return false;
+        }
+        switch (format) {
+            case DATE_TIME:
+            case DATE:
+            case UUID:
+            case IPV4:
+            case IPV6:
+            case EMAIL:
+            case INT32:
+            case INT64:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param format the value of a format keyword
+     * @param value the value to check
+     * @return true if the value has the format, or if the format has no scanner
+     */
+    public static boolean matches(String format, CharSequence value) {
+        switch (format) {
+            case DATE_TIME:
+                return isDateTime(value);
+            case DATE:
+                return isDate(value);
+            case UUID:
+                return isUuid(value);
+            case IPV4:
+                return isIpv4(value);
+            case IPV6:
+                return isIpv6(value);
+            case EMAIL:
+                return isEmail(value);
+            case INT32:
+                return isInt32(value);
+            case INT64:
+                return isInt64(value);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * An RFC 3339 date-time, e.g. {@code 2024-02-29T13:45:00.123+01:00}. The separator may be {@code T},
+     * {@code t} or a space. A leap second is accepted at 23:59:60 UTC.
+     */
+    public static boolean isDateTime(CharSequence s) {
+        // full-date "T" HH:MM:SS, then the optional fraction and the offset
+        if (s.length() < 20 || !isDate(s, 0)) {
+            return false;
+        }
+        char separator = s.charAt(10);
+        if (separator != 'T' && separator != 't' && separator != ' ') {
+            return false;
+        }
+        int hour = twoDigits(s, 11);
+        int minute = twoDigits(s, 14);
+        int second = twoDigits(s, 17);
+        if (hour < 0 || hour > 23 || s.charAt(13) != ':' || minute < 0 || minute > 59 || s.charAt(16) != ':'
+                || second < 0 || second > 60) {
+            return false;
+        }
+        int i = 19;
+        int length = s.length();
+        if (s.charAt(i) == '.') {
+            int start = ++i;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == start || i == length) {
+                return false;
+            }
+        }
+        char zone = s.charAt(i);
+        int offset;
+        if (zone == 'Z' || zone == 'z') {
+            if (i + 1 != length) {
+                return false;
+            }
+            offset = 0;
+        } else if (zone == '+' || zone == '-') {
+            if (i + 6 != length || s.charAt(i + 3) != ':') {
+                return false;
+            }
+            int offsetHour = twoDigits(s, i + 1);
+            int offsetMinute = twoDigits(s, i + 4);
+            if (offsetHour < 0 || offsetHour > 23 || offsetMinute < 0 || offsetMinute > 59) {
+                return false;
+            }
+            offset = (zone == '+' ? 1 : -1) * (offsetHour * 60 + offsetMinute);
+        } else {
+            return false;
+        }
+        // the last minute of the day in UTC
+        return second < 60 || Math.floorMod(hour * 60 + minute - offset, 1440) == 1439;
+    }
+
+    /**
+     * An RFC 3339 full-date, e.g. {@code 2024-02-29}.
+     */
+    public static boolean isDate(CharSequence s) {
+        return s.length() == 10 && isDate(s, 0);
+    }
+
+    private static boolean isDate(CharSequence s, int i) {
+        int century = twoDigits(s, i);
+        int yearOfCentury = twoDigits(s, i + 2);
+        if (century < 0 || yearOfCentury < 0 || s.charAt(i + 4) != '-' || s.charAt(i + 7) != '-') {
+            return false;
+        }
+        int month = twoDigits(s, i + 5);
+        int day = twoDigits(s, i + 8);
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        switch (month) {
+            case 2:
+                boolean leap = yearOfCentury == 0 ? century % 4 == 0 : yearOfCentury % 4 == 0;
+                return day <= (leap ? 29 : 28);
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return day <= 30;
+            default:
+                return day <= 31;
+        }
+    }
+
+    /**
+     * An RFC 4122 uuid in its string form, e.g. {@code f81d4fae-7dec-11d0-a765-00a0c91e6bf6}, in either case.
+     */
+    public static boolean isUuid(CharSequence s) {
+        if (s.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = s.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (hexValue(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A dotted quad, e.g. {@code 192.168.0.1}. A part with a leading zero is rejected, it would be read as octal
+     * by some parsers.
+     */
+    public static boolean isIpv4(CharSequence s) {
+        return ipv4End(s, 0) == s.length();
+    }
+
+    /**
+     * @return the end of the dotted quad that starts at the index, -1 if there is none
+     */
+    private static int ipv4End(CharSequence s, int i) {
+        int length = s.length();
+        for (int part = 0; part < 4; part++) {
+            if (part > 0) {
+                if (i >= length || s.charAt(i) != '.') {
+                    return -1;
+                }
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            while (i < length && i - start < 3 && isDigit(s.charAt(i))) {
+                value = value * 10 + s.charAt(i) - '0';
+                i++;
+            }
+            if (i == start || value > 255 || (s.charAt(start) == '0' && i - start > 1)) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * An RFC 4291 address, e.g. {@code 2001:db8::ff00:42:8329} or {@code ::ffff:192.0.2.128}.
+     */
+    public static boolean isIpv6(CharSequence s) {
+        return isIpv6(s, 0, s.length());
+    }
+
+    private static boolean isIpv6(CharSequence s, int i, int end) {
+        // the number of 16 bit groups, an embedded ipv4 address counts as two
+        int groups = 0;
+        boolean compressed = false;
+        if (end - i >= 2 && s.charAt(i) == ':' && s.charAt(i + 1) == ':') {
+            compressed = true;
+            i += 2;
+            if (i == end) {
+                return true;
+            }
+        } else if (i < end && s.charAt(i) == ':') {
+            return false;
+        }
+        while (true) {
+            int start = i;
+            while (i < end && i - start < 4 && hexValue(s.charAt(i)) >= 0) {
+                i++;
+            }
+            if (i < end && s.charAt(i) == '.') {
+                // the last 32 bits in the dotted quad form
+                if (i == start || ipv4End(s, start) != end) {
+                    return false;
+                }
+                groups += 2;
+                break;
+            }
+            if (i == start) {
+                return false;
+            }
+            groups++;
+            if (i == end) {
+                break;
+            }
+            if (s.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < end && s.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+                if (i == end) {
+                    break;
+                }
+            } else if (i == end) {
+                return false;
+            }
+        }
+        return compressed ? groups < 8 : groups == 8;
+    }
+
+    /**
+     * An RFC 5321 mailbox: a dot-atom or a quoted local part, then a domain name or an address literal such as
+     * {@code [192.0.2.1]} or {@code [IPv6:2001:db8::1]}. Internationalized addresses are {@code idn-email}.
+     */
+    public static boolean isEmail(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        if (length > 0 && s.charAt(0) == '"') {
+            i = 1;
+            while (i < length && s.charAt(i) != '"') {
+                char c = s.charAt(i);
+                if (c == '\\') {
+                    i++;
+                    if (i == length || s.charAt(i) < 0x20 || s.charAt(i) > 0x7e) {
+                        return false;
+                    }
+                } else if (c < 0x20 || c > 0x7e) {
+                    return false;
+                }
+                i++;
+            }
+            if (i == length) {
+                return false;
+            }
+            i++;
+        } else {
+            boolean atomStart = true;
+            while (i < length && s.charAt(i) != '@') {
+                char c = s.charAt(i);
+                if (c == '.') {
+                    if (atomStart) {
+                        return false;
+                    }
+                    atomStart = true;
+                } else if (isAtext(c)) {
+                    atomStart = false;
+                } else {
+                    return false;
+                }
+                i++;
+            }
+            if (atomStart) {
+                return false;
+            }
+        }
+        if (i > MAX_LOCAL_PART || i == length || s.charAt(i) != '@') {
+            return false;
+        }
+        int domain = i + 1;
+        if (length - domain > MAX_DOMAIN) {
+            return false;
+        }
+        if (domain < length && s.charAt(domain) == '[') {
+            if (s.charAt(length - 1) != ']') {
+                return false;
+            }
+            if (startsWith(s, domain + 1, "IPv6:")) {
+                return isIpv6(s, domain + 6, length - 1);
+            }
+            return ipv4End(s, domain + 1) == length - 1;
+        }
+        return isDomain(s, domain, length);
+    }
+
+    private static boolean isDomain(CharSequence s, int i, int end) {
+        int labelStart = i;
+        for (; i <= end; i++) {
+            char c = i == end ? '.' : s.charAt(i);
+            if (c == '.') {
+                // a label has letters, digits and hyphens, and neither starts nor ends with a hyphen
+                if (i == labelStart || i - labelStart > MAX_LABEL || s.charAt(labelStart) == '-' || s.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else if (!(isDigit(c) || (c | 0x20) >= 'a' && (c | 0x20) <= 'z' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAtext(char c) {
+        if (isDigit(c) || (c | 0x20) >= 'a' && (c | 0x20) <= 'z') {
+            return true;
+        }
+        switch (c) {
+            case '!': case '#': case '$': case '%': case '&': case '\'': case '*': case '+': case '-': case '/':
+            case '=': case '?': case '^': case '_': case '`': case '{': case '|': case '}': case '~':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * An integer literal within the range of a 32 bit integer, with an optional sign.
+     */
+    public static boolean isInt32(CharSequence s) {
+        return isInteger(s, INT32_MAX);
+    }
+
+    /**
+     * An integer literal within the range of a 64 bit integer, with an optional sign.
+     */
+    public static boolean isInt64(CharSequence s) {
+        return isInteger(s, INT64_MAX);
+    }
+
+    /**
+     * Compare the digits with the maximum instead of accumulating the value, so there is no overflow to detect.
+     */
+    private static boolean isInteger(CharSequence s, String max) {
+        int length = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            i = 1;
+        }
+        if (i == length) {
+            return false;
+        }
+        while (i < length - 1 && s.charAt(i) == '0') {
+            i++;
+        }
+        int digits = length - i;
+        if (digits > max.length()) {
+            return false;
+        }
+        int comparison = digits < max.length() ? -1 : 0;
+        for (int j = 0; i < length; i++, j++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return false;
+            }
+            if (comparison == 0) {
+                comparison = Character.compare(c, max.charAt(j));
+            }
+        }
+        // the minimum is one more than the maximum negated
+        return comparison <= 0 || negative && comparison == 1 && isMinimum(s, length - digits, max);
+    }
+
+    private static boolean isMinimum(CharSequence s, int start, String max) {
+        // the maximum of both types ends with 7, the minimum with 8
+        for (int j = 0; j < max.length() - 1; j++) {
+            if (s.charAt(start + j) != max.charAt(j)) {
+                return false;
+            }
+        }
+        return s.charAt(start + max.length() - 1) == max.charAt(max.length() - 1) + 1;
+    }
+
+    private static boolean startsWith(CharSequence s, int i, String prefix) {
+        if (s.length() - i < prefix.length()) {
+            return false;
+        }
+        for (int j = 0; j < prefix.length(); j++) {
+            if (s.charAt(i + j) != prefix.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the value of two decimal digits, -1 if they are not digits
+     */
+    private static int twoDigits(CharSequence s, int i) {
+        char high = s.charAt(i);
+        char low = s.charAt(i + 1);
+        if (!isDigit(high) || !isDigit(low)) {
+            return -1;
+        }
+        return (high - '0') * 10 + low - '0';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        char lower = (char) (c | 0x20);
+        if (lower >= 'a' && lower <= 'f') {
+            return lower - 'a' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mservicetech.openapi.generator;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.common.ResponseEntity;
+
+/**
+ * A generated request and response of one operation.
+ */
+public class GeneratedExchange {
+    private final String method;
+    private final String pathTemplate;
+    private final String requestURI;
+    private final RequestEntity request;
+    private final String statusCode;
+    private final ResponseEntity response;
+    private final String mutation;
+    private final boolean responseMutated;
+
+    GeneratedExchange(String method, String pathTemplate, String requestURI, RequestEntity request,
+                      String statusCode, ResponseEntity response, String mutation, boolean responseMutated) {
+        this.method = method;
+        this.pathTemplate = pathTemplate;
+        this.requestURI = requestURI;
+        this.request = request;
+        this.statusCode = statusCode;
+        this.response = response;
+        this.mutation = mutation;
+        this.responseMutated = responseMutated;
+    }
+
+    /**
+     * @return the http method in lower case, e.g. "get"
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the path of the specification, e.g. "/pets/{petId}"
+     */
+    public String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    /**
+     * @return the path with the generated path parameters, e.g. "/pets/x7Rk"
+     */
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    public RequestEntity getRequest() {
+        return request;
+    }
+
+    public String getStatusCode() {
+        return statusCode;
+    }
+
+    public ResponseEntity getResponse() {
+        return response;
+    }
+
+    /**
+     * @return true if no mutation was applied, so request and response are valid
+     */
+    public boolean isValid() {
+        return mutation == null;
+    }
+
+    /**
+     * @return a description of the mutation that made the exchange invalid, null if valid
+     */
+    public String getMutation() {
+        return mutation;
+    }
+
+    /**
+     * @return true if the mutation applies to the response rather than the request
+     */
+    public boolean isResponseMutated() {
+        return responseMutated;
+    }
+
+    @Override
+    public String toString() {
+        return method.toUpperCase() + " " + requestURI + (mutation == null ? "" : " [" + mutation + "]");
+    }
+}
@@ -0,0 +1,91 @@
+package com.mservicetech.openapi.generator;
+
+/**
+ * Knobs of the {@link PayloadGenerator}. The same options and seed always produce the same payloads.
+ */
+public class GeneratorOptions {
+    private long seed;
+    private int maxArrayLength = 5;
+    private int maxDepth = 5;
+    private int maxStringLength = 12;
+    private double optionalRate = 0.5;
+    private double mutationRate;
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getMaxArrayLength() {
+        return maxArrayLength;
+    }
+
+    /**
+     * @param maxArrayLength the maximum number of array items, unless the schema requires more; 5 by default
+     */
+    public void setMaxArrayLength(int maxArrayLength) {
+        this.maxArrayLength = requireNotNegative(maxArrayLength, "maxArrayLength");
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param maxDepth the nesting depth below which only required properties and the minimum number of items are
+     *                 generated; 5 by default
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = requireNotNegative(maxDepth, "maxDepth");
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * @param maxStringLength the maximum length of a string, unless the schema requires more; 12 by default
+     */
+    public void setMaxStringLength(int maxStringLength) {
+        this.maxStringLength = requireNotNegative(maxStringLength, "maxStringLength");
+    }
+
+    public double getOptionalRate() {
+        return optionalRate;
+    }
+
+    /**
+     * @param optionalRate the probability an optional parameter or property is present; 0.5 by default
+     */
+    public void setOptionalRate(double optionalRate) {
+        this.optionalRate = requireRate(optionalRate, "optionalRate");
+    }
+
+    public double getMutationRate() {
+        return mutationRate;
+    }
+
+    /**
+     * @param mutationRate the probability an exchange is made invalid by one mutation; 0 by default
+     */
+    public void setMutationRate(double mutationRate) {
+        this.mutationRate = requireRate(mutationRate, "mutationRate");
+    }
+
+    private static int requireNotNegative(int value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " cannot be negative");
+        }
+        return value;
+    }
+
+    private static double requireRate(double rate, String name) {
+        if (!(rate >= 0.0 && rate <= 1.0)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,596 @@
+package com.mservicetech.openapi.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mservicetech.openapi.common.ParameterType;
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.common.ResponseEntity;
+import com.networknt.jsonoverlay.Overlay;
+import com.networknt.oas.model.Header;
+import com.networknt.oas.model.MediaType;
+import com.networknt.oas.model.OpenApi3;
+import com.networknt.oas.model.Operation;
+import com.networknt.oas.model.Parameter;
+import com.networknt.oas.model.Path;
+import com.networknt.oas.model.RequestBody;
+import com.networknt.oas.model.Response;
+import com.networknt.oas.model.Schema;
+import com.networknt.oas.model.impl.RequestBodyImpl;
+import com.networknt.oas.model.impl.ResponseImpl;
+import com.networknt.oas.model.impl.SchemaImpl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generate requests and responses for the operations of a specification, for benchmarks and load tests.
+ * <p>
+ * Values are generated from the schemas of the parameters, request bodies, response headers and response bodies,
+ * within their type, enum, length, range and format constraints. A pattern is only honoured through the example
+ * or default of the schema. With a mutation rate, an exchange is made invalid by one mutation of its request or
+ * response, e.g. a missing required parameter or a property of the wrong type.
+ * <p>
+ * The generator is deterministic: the same specification, options and seed always give the same exchanges. It is
+ * not thread safe.
+ */
+public class PayloadGenerator {
+    private static final String APPLICATION_JSON = "application/json";
+    private static final char[] ALPHANUMERIC = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+    /** depth beyond the configured maximum at which required recursive properties are cut */
+    private static final int HARD_DEPTH_MARGIN = 20;
+
+    private final OpenApi3 openApi3;
+    private final GeneratorOptions options;
+    private final SplittableRandom random;
+    private final List<String[]> operations = new ArrayList<>();
+    private final JsonNodeFactory nodes = JsonNodeFactory.instance;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private int nextOperation;
+
+    /**
+     * @param openApi3 the specification, e.g. {@code openApiValidator.openApiHelper.openApi3}
+     * @param options the generator options
+     */
+    public PayloadGenerator(OpenApi3 openApi3, GeneratorOptions options) {
+        this.openApi3 = requireNonNull(openApi3, "openApi3 cannot be null");
+        this.options = requireNonNull(options, "options cannot be null");
+        this.random = new SplittableRandom(options.getSeed());
+        for (Map.Entry<String, Path> path : openApi3.getPaths().entrySet()) {
+            for (String method : path.getValue().getOperations().keySet()) {
+                operations.add(new String[]{path.getKey(), method.toLowerCase()});
+            }
+        }
+    }
+
+    /**
+     * Generate exchanges for the operations of the specification in turn.
+     *
+     * @param count the number of exchanges
+     * @return the exchanges
+     */
+    public List<GeneratedExchange> generate(int count) {
+        List<GeneratedExchange> exchanges = new ArrayList<>(count);
+        if (operations.isEmpty()) {
+            return exchanges;
+        }
+        for (int i = 0; i < count; i++) {
+            String[] operation = operations.get(nextOperation);
+            nextOperation = (nextOperation + 1) % operations.size();
+            exchanges.add(generate(operation[1], operation[0]));
+        }
+        return exchanges;
+    }
+
+    /**
+     * Generate an exchange of one operation.
+     *
+     * @param method the http method
+     * @param pathTemplate the path of the specification, e.g. "/pets/{petId}"
+     * @return the exchange
+     */
+    public GeneratedExchange generate(String method, String pathTemplate) {
+        Path path = openApi3.getPath(pathTemplate);
+        Operation operation = path == null ? null : path.getOperations().get(method.toLowerCase());
+        if (operation == null) {
+            throw new IllegalArgumentException("No operation " + method + " " + pathTemplate);
+        }
+        boolean mutate = random.nextDouble() < options.getMutationRate();
+
+        Map<ParameterType, Map<String, Object>> values = new LinkedHashMap<>();
+        for (ParameterType type : ParameterType.values()) {
+            values.put(type, new LinkedHashMap<>());
+        }
+        List<Parameter> parameters = parameters(path, operation);
+        for (Parameter parameter : parameters) {
+            ParameterType type = typeOf(parameter);
+            if (type == ParameterType.PATH || Boolean.TRUE.equals(parameter.getRequired()) || random.nextDouble() < options.getOptionalRate()) {
+                values.get(type).put(parameter.getName(), encode(parameter, generateParameterValue(parameter)));
+            }
+        }
+
+        Schema requestSchema = null;
+        boolean bodyRequired = false;
+        JsonNode requestBody = null;
+        RequestBody specBody = operation.getRequestBody();
+        if (specBody != null && Overlay.isPresent((RequestBodyImpl) specBody)) {
+            MediaType mediaType = specBody.getContentMediaType(APPLICATION_JSON);
+            requestSchema = mediaType == null ? null : mediaType.getSchema();
+            bodyRequired = Boolean.TRUE.equals(specBody.getRequired());
+            if (present(requestSchema) && (bodyRequired || random.nextDouble() < options.getOptionalRate())) {
+                requestBody = generateValue(requestSchema, 1);
+            }
+        }
+
+        String statusCode = statusCode(operation);
+        Response response = operation.getResponse(statusCode);
+        if (response == null || !Overlay.isPresent((ResponseImpl) response)) {
+            response = operation.getResponse("default");
+        }
+        Map<String, Object> responseHeaders = new LinkedHashMap<>();
+        JsonNode responseBody = null;
+        Schema responseSchema = null;
+        if (response != null) {
+            for (Map.Entry<String, Header> header : response.getHeaders().entrySet()) {
+                Schema schema = header.getValue().getSchema();
+                if (!"Content-Type".equalsIgnoreCase(header.getKey()) && present(schema)
+                        && (Boolean.TRUE.equals(header.getValue().getRequired()) || random.nextDouble() < options.getOptionalRate())) {
+                    responseHeaders.put(header.getKey(), toParameterValue(generateValue(schema, 1)));
+                }
+            }
+            MediaType mediaType = response.getContentMediaType(APPLICATION_JSON);
+            responseSchema = mediaType == null ? null : mediaType.getSchema();
+            if (present(responseSchema)) {
+                responseBody = generateValue(responseSchema, 1);
+            }
+        }
+
+        String mutation = null;
+        boolean responseMutated = false;
+        if (mutate) {
+            List<Mutation> mutations = new ArrayList<>();
+            parameterMutations(parameters, values, mutations);
+            if (requestBody != null && bodyRequired) {
+                mutations.add(new Mutation("remove required request body", body -> null, false));
+            }
+            bodyMutations("request body", requestBody, requestSchema, mutations, false);
+            bodyMutations("response body", responseBody, responseSchema, mutations, true);
+            if (!mutations.isEmpty()) {
+                Mutation chosen = mutations.get(random.nextInt(mutations.size()));
+                mutation = chosen.description;
+                responseMutated = chosen.response;
+                if (chosen.response) {
+                    responseBody = chosen.apply.apply(responseBody);
+                } else {
+                    requestBody = chosen.apply.apply(requestBody);
+                }
+            }
+        }
+
+        RequestEntity request = new RequestEntity();
+        request.setPathParameters(values.get(ParameterType.PATH));
+        request.setQueryParameters(values.get(ParameterType.QUERY));
+        request.setHeaderParameters(values.get(ParameterType.HEADER));
+        request.setCookieParameters(values.get(ParameterType.COOKIE));
+        if (requestBody != null) {
+            request.setContentType(APPLICATION_JSON);
+            request.setRequestBody(requestBody.toString());
+        }
+        ResponseEntity responseEntity = new ResponseEntity();
+        responseEntity.setHeaders(responseHeaders);
+        if (responseBody != null) {
+            responseEntity.setContentType(APPLICATION_JSON);
+            responseEntity.setContent(responseBody.toString());
+        }
+        return new GeneratedExchange(method.toLowerCase(), pathTemplate, requestURI(pathTemplate, values.get(ParameterType.PATH)),
+                request, statusCode, responseEntity, mutation, responseMutated);
+    }
+
+    /**
+     * Generate a valid instance of a schema.
+     *
+     * @param schema the schema
+     * @return the instance
+     */
+    public JsonNode generateValue(Schema schema) {
+        return generateValue(schema, 1);
+    }
+
+    private JsonNode generateValue(Schema schema, int depth) {
+        if (!present(schema)) {
+            return nodes.textNode(string(1, options.getMaxStringLength()));
+        }
+        List<Object> enums = schema.getEnums();
+        if (!enums.isEmpty()) {
+            return objectMapper.valueToTree(enums.get(random.nextInt(enums.size())));
+        }
+        if (!schema.getAllOfSchemas().isEmpty()) {
+            ObjectNode merged = nodes.objectNode();
+            for (Schema part : schema.getAllOfSchemas()) {
+                JsonNode value = generateValue(part, depth);
+                if (value.isObject()) {
+                    merged.setAll((ObjectNode) value);
+                }
+            }
+            generateProperties(merged, schema, depth);
+            return merged;
+        }
+        List<Schema> alternatives = !schema.getOneOfSchemas().isEmpty() ? schema.getOneOfSchemas() : schema.getAnyOfSchemas();
+        if (!alternatives.isEmpty()) {
+            return generateValue(alternatives.get(random.nextInt(alternatives.size())), depth);
+        }
+        if (schema.getPattern() != null) {
+            Object sample = schema.getExample() != null ? schema.getExample() : schema.getDefault();
+            if (sample != null) {
+                return objectMapper.valueToTree(sample);
+            }
+        }
+        switch (typeOf(schema)) {
+            case "object":
+                ObjectNode object = nodes.objectNode();
+                generateProperties(object, schema, depth);
+                return object;
+            case "array":
+                ArrayNode array = nodes.arrayNode();
+                int minItems = schema.getMinItems() == null ? 0 : schema.getMinItems();
+                int length = depth > options.getMaxDepth() ? minItems : between(minItems, limit(schema.getMaxItems(), options.getMaxArrayLength(), minItems));
+                boolean unique = Boolean.TRUE.equals(schema.getUniqueItems());
+                for (int attempts = 0; array.size() < length && attempts < length * 3 + 3; attempts++) {
+                    JsonNode item = generateValue(schema.getItemsSchema(), depth + 1);
+                    if (!unique || !contains(array, item)) {
+                        array.add(item);
+                    }
+                }
+                return array;
+            case "integer":
+                return nodes.numberNode(generateInteger(schema));
+            case "number":
+                return nodes.numberNode(generateNumber(schema));
+            case "boolean":
+                return nodes.booleanNode(random.nextBoolean());
+            default:
+                return nodes.textNode(generateString(schema));
+        }
+    }
+
+    private void generateProperties(ObjectNode object, Schema schema, int depth) {
+        List<String> required = schema.getRequiredFields();
+        if (depth > options.getMaxDepth() + HARD_DEPTH_MARGIN) {
+            return;
+        }
+        for (Map.Entry<String, Schema> property : schema.getProperties().entrySet()) {
+            if (required.contains(property.getKey())
+                    || (depth <= options.getMaxDepth() && random.nextDouble() < options.getOptionalRate())) {
+                object.set(property.getKey(), generateValue(property.getValue(), depth + 1));
+            }
+        }
+        for (String name : required) {
+            if (!object.has(name)) {
+                object.put(name, string(1, options.getMaxStringLength()));
+            }
+        }
+    }
+
+    private long generateInteger(Schema schema) {
+        long min = schema.getMinimum() == null ? Long.MIN_VALUE : schema.getMinimum().longValue() + (schema.isExclusiveMinimum() ? 1 : 0);
+        long max = schema.getMaximum() == null ? Long.MAX_VALUE : schema.getMaximum().longValue() - (schema.isExclusiveMaximum() ? 1 : 0);
+        if (min == Long.MIN_VALUE) {
+            min = max == Long.MAX_VALUE ? 0 : max - 1000;
+        }
+        if (max == Long.MAX_VALUE || max - min > 1000 || max - min < 0) {
+            max = Math.max(min, Math.min(max, min + 1000));
+        }
+        if ("int32".equals(schema.getFormat())) {
+            min = Math.max(min, Integer.MIN_VALUE);
+            max = Math.min(max, Integer.MAX_VALUE);
+        }
+        long value = min + random.nextLong(max - min + 1);
+        if (schema.getMultipleOf() != null && schema.getMultipleOf().longValue() > 0) {
+            long multiple = schema.getMultipleOf().longValue();
+            long candidate = Math.floorDiv(value, multiple) * multiple;
+            value = candidate >= min ? candidate : candidate + multiple;
+        }
+        return value;
+    }
+
+    private BigDecimal generateNumber(Schema schema) {
+        double min = schema.getMinimum() == null ? 0 : schema.getMinimum().doubleValue();
+        double max = schema.getMaximum() == null ? min + 1000 : schema.getMaximum().doubleValue();
+        if (schema.getMinimum() == null && schema.getMaximum() != null) {
+            min = max - 1000;
+        }
+        if (schema.getMultipleOf() != null && schema.getMultipleOf().doubleValue() > 0) {
+            BigDecimal multiple = new BigDecimal(schema.getMultipleOf().toString());
+            long low = (long) Math.ceil(min / multiple.doubleValue());
+            long high = (long) Math.floor(max / multiple.doubleValue());
+            if (schema.isExclusiveMinimum() && low * multiple.doubleValue() <= min) low++;
+            if (schema.isExclusiveMaximum() && high * multiple.doubleValue() >= max) high--;
+            return multiple.multiply(BigDecimal.valueOf(low + (high > low ? random.nextLong(high - low + 1) : 0)));
+        }
+        // two decimals, strictly inside the range so exclusive bounds hold
+        double span = Math.max(max - min, 0);
+        BigDecimal value = BigDecimal.valueOf(min + span * (0.01 + 0.98 * random.nextDouble())).setScale(2, RoundingMode.HALF_UP);
+        if (value.doubleValue() <= min && (schema.isExclusiveMinimum() || value.doubleValue() < min)
+                || value.doubleValue() >= max && (schema.isExclusiveMaximum() || value.doubleValue() > max)) {
+            value = BigDecimal.valueOf(min + span / 2);
+        }
+        return value;
+    }
+
+    private String generateString(Schema schema) {
+        String format = schema.getFormat();
+        if (format != null) {
+            switch (format) {
+                case "date":
+                    return date().toString();
+                case "date-time":
+                    return String.format("%sT%02d:%02d:%02dZ", date(), random.nextInt(24), random.nextInt(60), random.nextInt(60));
+                case "uuid":
+                    return new UUID(random.nextLong(), random.nextLong()).toString();
+                case "email":
+                    return string(1, 10) + "@example.com";
+                case "uri":
+                case "url":
+                    return "https://example.com/" + string(1, 10);
+                case "ipv4":
+                    return random.nextInt(1, 256) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(1, 256);
+                case "byte":
+                    byte[] bytes = new byte[between(1, Math.max(1, options.getMaxStringLength()))];
+                    random.nextBytes(bytes);
+                    return Base64.getEncoder().encodeToString(bytes);
+                default:
+                    break;
+            }
+        }
+        int minLength = schema.getMinLength() == null ? 1 : schema.getMinLength();
+        return string(minLength, limit(schema.getMaxLength(), options.getMaxStringLength(), minLength));
+    }
+
+    private LocalDate date() {
+        return LocalDate.of(2000, 1, 1).plusDays(random.nextInt(10_000));
+    }
+
+    private String string(int minLength, int maxLength) {
+        int length = between(minLength, maxLength);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHANUMERIC[random.nextInt(ALPHANUMERIC.length)];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return the smaller of the schema maximum and the option, but at least the schema minimum
+     */
+    private static int limit(Integer schemaMax, int optionMax, int schemaMin) {
+        int max = schemaMax == null ? optionMax : Math.min(schemaMax, optionMax);
+        return Math.max(max, schemaMin);
+    }
+
+    private int between(int min, int max) {
+        return max <= min ? min : min + random.nextInt(max - min + 1);
+    }
+
+    private static boolean contains(ArrayNode array, JsonNode item) {
+        for (JsonNode existing : array) {
+            if (existing.equals(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JsonNode generateParameterValue(Parameter parameter) {
+        JsonNode value = generateValue(parameter.getSchema(), 1);
+        // an empty delimited list is not an empty array once split, keep one item
+        if (value.isArray() && value.size() == 0) {
+            ((ArrayNode) value).add(generateValue(parameter.getSchema().getItemsSchema(), 2));
+        }
+        return value;
+    }
+
+    /**
+     * Serialize a parameter value the way the validator expects it: query arrays and objects that are not
+     * exploded as a delimited string, other containers as lists and maps of strings, scalars as strings.
+     */
+    private Object encode(Parameter parameter, JsonNode value) {
+        if ((value.isArray() || value.isObject()) && typeOf(parameter) == ParameterType.QUERY && !parameter.isExplode()) {
+            String style = parameter.getStyle() == null ? "form" : parameter.getStyle();
+            String delimiter = "spaceDelimited".equals(style) ? " " : "pipeDelimited".equals(style) ? "|" : "form".equals(style) ? "," : null;
+            if (delimiter != null && (value.isArray() || "form".equals(style))) {
+                List<String> parts = new ArrayList<>();
+                if (value.isArray()) {
+                    value.forEach(item -> parts.add(item.asText()));
+                } else {
+                    value.fields().forEachRemaining(field -> {
+                        parts.add(field.getKey());
+                        parts.add(field.getValue().asText());
+                    });
+                }
+                return String.join(delimiter, parts);
+            }
+        }
+        return toParameterValue(value);
+    }
+
+    private Object toParameterValue(JsonNode value) {
+        if (value.isArray()) {
+            List<Object> list = new ArrayList<>();
+            value.forEach(item -> list.add(toParameterValue(item)));
+            return list;
+        }
+        if (value.isObject()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            value.fields().forEachRemaining(field -> map.put(field.getKey(), toParameterValue(field.getValue())));
+            return map;
+        }
+        return value.asText();
+    }
+
+    private void parameterMutations(List<Parameter> parameters, Map<ParameterType, Map<String, Object>> values, List<Mutation> mutations) {
+        for (Parameter parameter : parameters) {
+            ParameterType type = typeOf(parameter);
+            Map<String, Object> target = values.get(type);
+            String name = parameter.getName();
+            String label = type.getIn() + " parameter " + name;
+            if (Boolean.TRUE.equals(parameter.getRequired()) && type != ParameterType.PATH) {
+                mutations.add(new Mutation("remove required " + label, body -> {
+                    target.remove(name);
+                    return body;
+                }, false));
+            }
+            Schema schema = parameter.getSchema();
+            if (!present(schema) || !schema.getEnums().isEmpty()) {
+                continue;
+            }
+            String schemaType = typeOf(schema);
+            if ("integer".equals(schemaType) || "number".equals(schemaType) || "boolean".equals(schemaType)) {
+                mutations.add(new Mutation("invalid type of " + label, body -> {
+                    target.put(name, "x" + string(1, 4));
+                    return body;
+                }, false));
+            } else if ("string".equals(schemaType) && schema.getMaxLength() != null && schema.getFormat() == null) {
+                int length = schema.getMaxLength() + 1;
+                mutations.add(new Mutation("too long " + label, body -> {
+                    target.put(name, string(length, length));
+                    return body;
+                }, false));
+            }
+        }
+    }
+
+    /**
+     * Mutations of the root object of a body, or of the first item when the body is an array of objects.
+     */
+    private void bodyMutations(String label, JsonNode body, Schema schema, List<Mutation> mutations, boolean response) {
+        if (body == null || !present(schema)) {
+            return;
+        }
+        Schema objectSchema = schema;
+        Function<JsonNode, ObjectNode> target = node -> (ObjectNode) node;
+        if (body.isArray()) {
+            if (body.size() == 0 || !body.get(0).isObject()) {
+                return;
+            }
+            objectSchema = schema.getItemsSchema();
+            target = node -> (ObjectNode) node.get(0);
+            label = label + " item 0";
+        }
+        if (!body.isArray() && !body.isObject() || !present(objectSchema)) {
+            return;
+        }
+        Function<JsonNode, ObjectNode> object = target;
+        for (String name : objectSchema.getRequiredFields()) {
+            mutations.add(new Mutation("remove required " + label + " property " + name, node -> {
+                object.apply(node).remove(name);
+                return node;
+            }, response));
+        }
+        for (Map.Entry<String, Schema> property : objectSchema.getProperties().entrySet()) {
+            String name = property.getKey();
+            if (!object.apply(body).has(name) || property.getValue().getType() == null || !property.getValue().getEnums().isEmpty()
+                    || !property.getValue().getAllOfSchemas().isEmpty() || !property.getValue().getOneOfSchemas().isEmpty()
+                    || !property.getValue().getAnyOfSchemas().isEmpty() || Boolean.TRUE.equals(property.getValue().getNullable())) {
+                continue;
+            }
+            JsonNode wrong = "string".equals(typeOf(property.getValue())) ? nodes.numberNode(random.nextInt(1000)) : nodes.textNode("x" + string(1, 4));
+            mutations.add(new Mutation("invalid type of " + label + " property " + name, node -> {
+                object.apply(node).set(name, wrong);
+                return node;
+            }, response));
+        }
+    }
+
+    private static List<Parameter> parameters(Path path, Operation operation) {
+        Map<String, Parameter> merged = new LinkedHashMap<>();
+        for (Parameter parameter : path.getParameters()) {
+            merged.put(parameter.getIn() + ":" + parameter.getName(), parameter);
+        }
+        // operation level parameters override path level ones
+        for (Parameter parameter : operation.getParameters()) {
+            merged.put(parameter.getIn() + ":" + parameter.getName(), parameter);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static String statusCode(Operation operation) {
+        String first = null;
+        for (String code : operation.getResponses().keySet()) {
+            if (code.length() == 3 && Character.isDigit(code.charAt(0))) {
+                if (code.charAt(0) == '2') {
+                    return code;
+                }
+                if (first == null) {
+                    first = code;
+                }
+            }
+        }
+        return first == null ? "200" : first;
+    }
+
+    private static String requestURI(String pathTemplate, Map<String, Object> pathValues) {
+        StringBuilder uri = new StringBuilder(pathTemplate.length());
+        int pos = 0;
+        while (pos < pathTemplate.length()) {
+            int open = pathTemplate.indexOf('{', pos);
+            int close = open < 0 ? -1 : pathTemplate.indexOf('}', open);
+            if (close < 0) {
+                uri.append(pathTemplate, pos, pathTemplate.length());
+                break;
+            }
+            uri.append(pathTemplate, pos, open);
+            Object value = pathValues.get(pathTemplate.substring(open + 1, close));
+            uri.append(value == null ? "" : value);
+            pos = close + 1;
+        }
+        return uri.toString();
+    }
+
+    private static ParameterType typeOf(Parameter parameter) {
+        for (ParameterType type : ParameterType.values()) {
+            if (ParameterType.is(parameter.getIn(), type)) {
+                return type;
+            }
+        }
+        return ParameterType.QUERY;
+    }
+
+    private static String typeOf(Schema schema) {
+        if (schema.getType() != null) {
+            return schema.getType();
+        }
+        if (!schema.getProperties().isEmpty()) {
+            return "object";
+        }
+        return present(schema.getItemsSchema()) ? "array" : "string";
+    }
+
+    private static boolean present(Schema schema) {
+        return schema != null && Overlay.isPresent((SchemaImpl) schema);
+    }
+
+    private static final class Mutation {
+        final String description;
+        final Function<JsonNode, JsonNode> apply;
+        final boolean response;
+
+        Mutation(String description, Function<JsonNode, JsonNode> apply, boolean response) {
+            this.description = description;
+            this.apply = apply;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mservicetech.openapi.regex;
+
+import com.mservicetech.openapi.common.RateLimitedLogger;
+import org.slf4j.LoggerFactory;
+
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Pattern} search that is stopped when it has read more characters than its budget. The matcher reads
+ * the input through a counting view, so every backtracking step is counted.
+ */
+final class BudgetedRegex implements Regex {
+    private static final RateLimitedLogger logger = new RateLimitedLogger(LoggerFactory.getLogger(BudgetedRegex.class));
+
+    private final Pattern pattern;
+    private final long maxSteps;
+
+    BudgetedRegex(Pattern pattern, long maxSteps) {
+        this.pattern = pattern;
+        this.maxSteps = maxSteps;
+    }
+
+    @Override
+    public boolean find(CharSequence input) {
+        try {
+            return pattern.matcher(new Budget(input, maxSteps)).find();
+        } catch (BudgetExceededException e) {
+            logger.warn("Pattern '{}' exceeded {} steps on a value of {} characters, the value is rejected",
+                    pattern.pattern(), maxSteps, input.length());
+            return false;
+        }
+    }
+
+    private static final class Budget implements CharSequence {
+        private final CharSequence input;
+        private long remaining;
+
+        Budget(CharSequence input, long steps) {
+            this.input = input;
+            this.remaining = steps;
+        }
+
+        @Override
+        public int length() {
+            return input.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (--remaining < 0) {
+                throw BudgetExceededException.INSTANCE;
+            }
+            return input.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return input.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return input.toString();
+        }
+    }
+
+    /**
+     * Thrown from inside the matcher; shared and without a stack trace, it carries no state.
+     */
+    private static final class BudgetExceededException extends RuntimeException {
+        static final BudgetExceededException INSTANCE = new BudgetExceededException();
+
+        private BudgetExceededException() {
+            super("regex step budget exceeded", null, false, false);
+        }
+    }
+}
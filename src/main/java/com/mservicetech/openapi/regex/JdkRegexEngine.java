@@ -0,0 +1,16 @@
+package com.mservicetech.openapi.regex;
+
+import java.util.regex.Pattern;
+
+/**
+ * The backtracking {@link Pattern} of the JDK, as used by the schema engine. The time of a search is not bounded.
+ */
+public class JdkRegexEngine implements RegexEngine {
+    public static final JdkRegexEngine INSTANCE = new JdkRegexEngine();
+
+    @Override
+    public Regex compile(String pattern) {
+        Pattern compiled = Pattern.compile(pattern);
+        return input -> compiled.matcher(input).find();
+    }
+}
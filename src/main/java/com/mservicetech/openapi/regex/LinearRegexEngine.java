@@ -0,0 +1,49 @@
+package com.mservicetech.openapi.regex;
+
+import java.util.regex.Pattern;
+
+/**
+ * A regex engine whose search time does not depend on how the pattern backtracks.
+ * <p>
+ * Patterns made of literals, character classes, {@code .}, groups, alternation, the quantifiers and the {@code ^}
+ * and {@code $} anchors are compiled to an automaton that is run over the input once, so a search takes time
+ * linear in the length of the input whatever the pattern. The matches are the same as with {@link Pattern}.
+ * <p>
+ * The other patterns, e.g. with back references, lookaround or flags, are run by {@link Pattern} with a budget of
+ * steps per search. A search over the budget fails closed: the value does not match the pattern.
+ */
+public class LinearRegexEngine implements RegexEngine {
+    /** characters read by the backtracking matcher in one search, a few milliseconds */
+    public static final long DEFAULT_MAX_STEPS = 1_000_000;
+
+    private final long maxSteps;
+
+    public LinearRegexEngine() {
+        this(DEFAULT_MAX_STEPS);
+    }
+
+    /**
+     * @param maxSteps characters the backtracking matcher may read in one search of a pattern that is not
+     *                 compiled to an automaton
+     */
+    public LinearRegexEngine(long maxSteps) {
+        if (maxSteps <= 0) {
+            throw new IllegalArgumentException("maxSteps must be positive");
+        }
+        this.maxSteps = maxSteps;
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    @Override
+    public Regex compile(String pattern) {
+        try {
+            return NfaCompiler.compile(pattern);
+        } catch (NfaCompiler.UnsupportedPatternException e) {
+            // also reached for an invalid pattern, Pattern.compile reports the syntax error
+            return new BudgetedRegex(Pattern.compile(pattern), maxSteps);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.mservicetech.openapi.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parse the subset of the {@link java.util.regex.Pattern} syntax that an automaton can match and compile it to an
+ * {@link NfaRegex} program.
+ * <p>
+ * The subset is literals, {@code .}, character classes with ranges and the {@code \d \w \s} escapes, capturing
+ * and non-capturing groups, alternation, the greedy and lazy quantifiers and the {@code ^} and {@code $} anchors.
+ * Anything else, including a syntax error, throws {@link UnsupportedPatternException} and is left to
+ * {@link java.util.regex.Pattern}.
+ */
+final class NfaCompiler {
+    /** instructions of a program, bounds the expansion of counted repetitions */
+    static final int MAX_INSTRUCTIONS = 10_000;
+
+    private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+    private static final int[] DIGIT = {'0', '9'};
+    private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+
+    private final String pattern;
+    private int pos;
+
+    private final List<Integer> ops = new ArrayList<>();
+    private final List<Integer> args = new ArrayList<>();
+    private final List<Integer> args2 = new ArrayList<>();
+    private final List<int[]> classes = new ArrayList<>();
+
+    private NfaCompiler(String pattern) {
+        this.pattern = pattern;
+    }
+
+    static NfaRegex compile(String pattern) {
+        NfaCompiler compiler = new NfaCompiler(pattern);
+        Node root = compiler.alternation();
+        if (compiler.pos < pattern.length()) {
+            // an unbalanced ')'
+            throw new UnsupportedPatternException(pattern);
+        }
+        compiler.emit(root);
+        compiler.add(NfaRegex.MATCH, 0, 0);
+        int size = compiler.ops.size();
+        int[] ops = new int[size];
+        int[] args = new int[size];
+        int[] args2 = new int[size];
+        for (int i = 0; i < size; i++) {
+            ops[i] = compiler.ops.get(i);
+            args[i] = compiler.args.get(i);
+            args2[i] = compiler.args2.get(i);
+        }
+        return new NfaRegex(pattern, ops, args, args2, compiler.classes.toArray(new int[0][]));
+    }
+
+    // ---- parser
+
+    private Node alternation() {
+        List<Node> branches = new ArrayList<>();
+        branches.add(concatenation());
+        while (peek() == '|') {
+            pos++;
+            branches.add(concatenation());
+        }
+        return branches.size() == 1 ? branches.get(0) : new Node(Node.ALT, branches);
+    }
+
+    private Node concatenation() {
+        List<Node> items = new ArrayList<>();
+        while (pos < pattern.length() && peek() != '|' && peek() != ')') {
+            items.add(repetition());
+        }
+        return items.size() == 1 ? items.get(0) : new Node(Node.CAT, items);
+    }
+
+    private Node repetition() {
+        Node atom = atom();
+        int min;
+        int max;
+        switch (peek()) {
+            case '*':
+                min = 0;
+                max = -1;
+                pos++;
+                break;
+            case '+':
+                min = 1;
+                max = -1;
+                pos++;
+                break;
+            case '?':
+                min = 0;
+                max = 1;
+                pos++;
+                break;
+            case '{':
+                pos++;
+                min = number();
+                max = min;
+                if (peek() == ',') {
+                    pos++;
+                    max = peek() == '}' ? -1 : number();
+                }
+                if (peek() != '}' || (max >= 0 && max < min)) {
+                    throw unsupported();
+                }
+                pos++;
+                break;
+            default:
+                return atom;
+        }
+        if (atom.kind == Node.BOL || atom.kind == Node.EOL) {
+            throw unsupported();
+        }
+        if (peek() == '?') {
+            // lazy, the same matches for a search
+            pos++;
+        } else if (peek() == '+') {
+            // possessive
+            throw unsupported();
+        }
+        if (peek() == '*' || peek() == '+' || peek() == '?' || peek() == '{') {
+            throw unsupported();
+        }
+        Node repeat = new Node(Node.REPEAT, List.of(atom));
+        repeat.min = min;
+        repeat.max = max;
+        return repeat;
+    }
+
+    private int number() {
+        int start = pos;
+        long value = 0;
+        while (pos < pattern.length() && pattern.charAt(pos) >= '0' && pattern.charAt(pos) <= '9') {
+            value = value * 10 + (pattern.charAt(pos++) - '0');
+            if (value > MAX_INSTRUCTIONS) {
+                throw unsupported();
+            }
+        }
+        if (pos == start) {
+            throw unsupported();
+        }
+        return (int) value;
+    }
+
+    private Node atom() {
+        int c = pattern.codePointAt(pos);
+        pos += Character.charCount(c);
+        switch (c) {
+            case '(':
+                if (peek() == '?') {
+                    if (pos + 1 < pattern.length() && pattern.charAt(pos + 1) == ':') {
+                        pos += 2;
+                    } else {
+                        // lookaround, flags, named and atomic groups
+                        throw unsupported();
+                    }
+                }
+                Node group = alternation();
+                if (peek() != ')') {
+                    throw unsupported();
+                }
+                pos++;
+                return group;
+            case '[':
+                return characterClass();
+            case '.':
+                return new Node(Node.ANY);
+            case '^':
+                return new Node(Node.BOL);
+            case '$':
+                return new Node(Node.EOL);
+            case '\\':
+                int[] ranges = escape();
+                return ranges.length == 2 && ranges[0] == ranges[1] ? literal(ranges[0]) : set(ranges, false);
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw unsupported();
+            default:
+                return literal(c);
+        }
+    }
+
+    private Node characterClass() {
+        boolean negated = false;
+        if (peek() == '^') {
+            negated = true;
+            pos++;
+        }
+        if (peek() == ']') {
+            throw unsupported();
+        }
+        List<int[]> parts = new ArrayList<>();
+        while (true) {
+            if (pos >= pattern.length()) {
+                throw unsupported();
+            }
+            int c = pattern.codePointAt(pos);
+            if (c == ']') {
+                pos++;
+                break;
+            }
+            if (c == '[' || (c == '&' && pos + 1 < pattern.length() && pattern.charAt(pos + 1) == '&')) {
+                // union and intersection of classes
+                throw unsupported();
+            }
+            pos += Character.charCount(c);
+            int[] low = c == '\\' ? escape() : new int[]{c, c};
+            if (peek() == '-' && pos + 1 < pattern.length() && pattern.charAt(pos + 1) != ']') {
+                if (low.length != 2 || low[0] != low[1]) {
+                    throw unsupported();
+                }
+                pos++;
+                int h = pattern.codePointAt(pos);
+                pos += Character.charCount(h);
+                int[] high = h == '\\' ? escape() : new int[]{h, h};
+                if (high.length != 2 || high[0] != high[1] || high[0] < low[0] || h == '[') {
+                    throw unsupported();
+                }
+                parts.add(new int[]{low[0], high[0]});
+            } else {
+                parts.add(low);
+            }
+        }
+        return set(union(parts), negated);
+    }
+
+    /**
+     * @return the ranges of the escape after the backslash, a single code point for a literal
+     */
+    private int[] escape() {
+        if (pos >= pattern.length()) {
+            throw unsupported();
+        }
+        int c = pattern.codePointAt(pos);
+        pos += Character.charCount(c);
+        switch (c) {
+            case 'd':
+                return DIGIT;
+            case 'D':
+                return complement(DIGIT);
+            case 'w':
+                return WORD;
+            case 'W':
+                return complement(WORD);
+            case 's':
+                return SPACE;
+            case 'S':
+                return complement(SPACE);
+            case 't':
+                return new int[]{'\t', '\t'};
+            case 'n':
+                return new int[]{'\n', '\n'};
+            case 'r':
+                return new int[]{'\r', '\r'};
+            case 'f':
+                return new int[]{'\f', '\f'};
+            case 'a':
+                return new int[]{7, 7};
+            case 'e':
+                return new int[]{27, 27};
+            case 'x':
+                return single(hex(2));
+            case 'u':
+                return single(hex(4));
+            default:
+                if (c < 128 && !Character.isLetterOrDigit(c)) {
+                    return single(c);
+                }
+                // back references, word boundaries, unicode classes, quoting...
+                throw unsupported();
+        }
+    }
+
+    private int hex(int digits) {
+        if (pos + digits > pattern.length()) {
+            throw unsupported();
+        }
+        int value = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = Character.digit(pattern.charAt(pos++), 16);
+            if (digit < 0) {
+                throw unsupported();
+            }
+            value = value * 16 + digit;
+        }
+        if (Character.isSurrogate((char) value)) {
+            // \\uD83D\\uDE00 is a pair in Pattern
+            throw unsupported();
+        }
+        return value;
+    }
+
+    private static int[] single(int c) {
+        return new int[]{c, c};
+    }
+
+    private static Node literal(int c) {
+        Node node = new Node(Node.LITERAL);
+        node.min = c;
+        return node;
+    }
+
+    private static Node set(int[] ranges, boolean negated) {
+        Node node = new Node(Node.SET);
+        node.ranges = negated ? complement(ranges) : ranges;
+        return node;
+    }
+
+    /**
+     * @return the sorted, disjoint ranges covering all the given ranges
+     */
+    private static int[] union(List<int[]> parts) {
+        List<int[]> ranges = new ArrayList<>();
+        for (int[] part : parts) {
+            for (int i = 0; i < part.length; i += 2) {
+                ranges.add(new int[]{part[i], part[i + 1]});
+            }
+        }
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<Integer> merged = new ArrayList<>();
+        for (int[] range : ranges) {
+            int last = merged.size() - 1;
+            if (!merged.isEmpty() && range[0] <= merged.get(last) + 1) {
+                merged.set(last, Math.max(merged.get(last), range[1]));
+            } else {
+                merged.add(range[0]);
+                merged.add(range[1]);
+            }
+        }
+        return merged.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] complement(int[] ranges) {
+        List<Integer> result = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                result.add(next);
+                result.add(ranges[i] - 1);
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= MAX_CODE_POINT) {
+            result.add(next);
+            result.add(MAX_CODE_POINT);
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int peek() {
+        return pos < pattern.length() ? pattern.charAt(pos) : -1;
+    }
+
+    private UnsupportedPatternException unsupported() {
+        return new UnsupportedPatternException(pattern);
+    }
+
+    // ---- code generation
+
+    private void emit(Node node) {
+        switch (node.kind) {
+            case Node.LITERAL:
+                add(NfaRegex.CHAR, node.min, 0);
+                break;
+            case Node.SET:
+                classes.add(node.ranges);
+                add(NfaRegex.CLASS, classes.size() - 1, 0);
+                break;
+            case Node.ANY:
+                add(NfaRegex.ANY, 0, 0);
+                break;
+            case Node.BOL:
+                add(NfaRegex.BOL, 0, 0);
+                break;
+            case Node.EOL:
+                add(NfaRegex.EOL, 0, 0);
+                break;
+            case Node.CAT:
+                for (Node child : node.children) {
+                    emit(child);
+                }
+                break;
+            case Node.ALT:
+                List<Integer> jumps = new ArrayList<>();
+                for (int i = 0; i < node.children.size(); i++) {
+                    if (i < node.children.size() - 1) {
+                        int split = add(NfaRegex.SPLIT, 0, 0);
+                        args.set(split, split + 1);
+                        emit(node.children.get(i));
+                        jumps.add(add(NfaRegex.JMP, 0, 0));
+                        args2.set(split, ops.size());
+                    } else {
+                        emit(node.children.get(i));
+                    }
+                }
+                for (int jump : jumps) {
+                    args.set(jump, ops.size());
+                }
+                break;
+            case Node.REPEAT:
+                repeat(node);
+                break;
+            default:
+                // an empty concatenation matches the empty string
+                break;
+        }
+    }
+
+    private void repeat(Node node) {
+        Node child = node.children.get(0);
+        for (int i = 0; i < node.min; i++) {
+            emit(child);
+        }
+        if (node.max < 0) {
+            int split = add(NfaRegex.SPLIT, 0, 0);
+            args.set(split, split + 1);
+            emit(child);
+            add(NfaRegex.JMP, split, 0);
+            args2.set(split, ops.size());
+            return;
+        }
+        List<Integer> splits = new ArrayList<>();
+        for (int i = node.min; i < node.max; i++) {
+            int split = add(NfaRegex.SPLIT, 0, 0);
+            args.set(split, split + 1);
+            splits.add(split);
+            emit(child);
+        }
+        for (int split : splits) {
+            args2.set(split, ops.size());
+        }
+    }
+
+    private int add(int op, int arg, int arg2) {
+        if (ops.size() >= MAX_INSTRUCTIONS) {
+            throw unsupported();
+        }
+        ops.add(op);
+        args.add(arg);
+        args2.add(arg2);
+        return ops.size() - 1;
+    }
+
+    private static final class Node {
+        static final int LITERAL = 0;
+        static final int SET = 1;
+        static final int ANY = 2;
+        static final int BOL = 3;
+        static final int EOL = 4;
+        static final int CAT = 5;
+        static final int ALT = 6;
+        static final int REPEAT = 7;
+
+        final int kind;
+        final List<Node> children;
+        /** the code point of a literal, the minimum of a repetition */
+        int min;
+        /** the maximum of a repetition, -1 if unbounded */
+        int max;
+        int[] ranges;
+
+        Node(int kind) {
+            this(kind, List.of());
+        }
+
+        Node(int kind, List<Node> children) {
+            this.kind = kind;
+            this.children = children;
+        }
+    }
+
+    /**
+     * The pattern uses a construct the automaton does not implement.
+     */
+    static final class UnsupportedPatternException extends RuntimeException {
+        UnsupportedPatternException(String pattern) {
+            super(pattern, null, false, false);
+        }
+    }
+}
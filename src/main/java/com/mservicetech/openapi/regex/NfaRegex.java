@@ -0,0 +1,202 @@
+package com.mservicetech.openapi.regex;
+
+/**
+ * A pattern compiled to a Thompson automaton. The search keeps the set of active states and reads each code point
+ * of the input once, so it takes time proportional to the length of the input times the size of the program and
+ * never backtracks.
+ */
+final class NfaRegex implements Regex {
+    static final int CHAR = 0;
+    static final int CLASS = 1;
+    static final int ANY = 2;
+    static final int SPLIT = 3;
+    static final int JMP = 4;
+    static final int BOL = 5;
+    static final int EOL = 6;
+    static final int MATCH = 7;
+
+    private final String pattern;
+    private final int[] ops;
+    /** the code point of CHAR, the class of CLASS, the first target of SPLIT and the target of JMP */
+    private final int[] args;
+    /** the second target of SPLIT */
+    private final int[] args2;
+    /** sorted inclusive ranges of code points */
+    private final int[][] classes;
+
+    NfaRegex(String pattern, int[] ops, int[] args, int[] args2, int[][] classes) {
+        this.pattern = pattern;
+        this.ops = ops;
+        this.args = args;
+        this.args2 = args2;
+        this.classes = classes;
+    }
+
+    @Override
+    public boolean find(CharSequence input) {
+        int size = ops.length;
+        int length = input.length();
+        Threads current = new Threads(size);
+        Threads next = new Threads(size);
+        // every state is visited once and pushes at most two successors
+        int[] stack = new int[2 * size + 1];
+        int position = 0;
+        while (true) {
+            // a thread starts at every position, the pattern is not anchored
+            if (add(current, 0, position, input, stack)) {
+                return true;
+            }
+            if (position >= length || current.count == 0 && ops[0] == BOL) {
+                return false;
+            }
+            int c = Character.codePointAt(input, position);
+            int after = position + Character.charCount(c);
+            next.clear();
+            for (int i = 0; i < current.count; i++) {
+                int pc = current.pcs[i];
+                boolean step;
+                switch (ops[pc]) {
+                    case CHAR:
+                        step = c == args[pc];
+                        break;
+                    case CLASS:
+                        step = contains(classes[args[pc]], c);
+                        break;
+                    case ANY:
+                        step = !isLineTerminator(c);
+                        break;
+                    default:
+                        step = false;
+                        break;
+                }
+                if (step && add(next, pc + 1, after, input, stack)) {
+                    return true;
+                }
+            }
+            Threads swap = current;
+            current = next;
+            next = swap;
+            position = after;
+        }
+    }
+
+    /**
+     * Add the state and the states reachable from it without reading a code point.
+     *
+     * @return true if the match state is reached
+     */
+    private boolean add(Threads threads, int start, int position, CharSequence input, int[] stack) {
+        int top = 0;
+        stack[top++] = start;
+        while (top > 0) {
+            int pc = stack[--top];
+            if (!threads.mark(pc)) {
+                continue;
+            }
+            switch (ops[pc]) {
+                case MATCH:
+                    return true;
+                case JMP:
+                    stack[top++] = args[pc];
+                    break;
+                case SPLIT:
+                    stack[top++] = args2[pc];
+                    stack[top++] = args[pc];
+                    break;
+                case BOL:
+                    if (position == 0) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                case EOL:
+                    if (isEnd(input, position)) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                default:
+                    threads.add(pc);
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The {@code $} of {@link java.util.regex.Pattern} without the MULTILINE flag: the end of the input or before
+     * a line terminator that ends it.
+     */
+    private static boolean isEnd(CharSequence input, int position) {
+        int length = input.length();
+        if (position == length) {
+            return true;
+        }
+        if (position == length - 2) {
+            return input.charAt(position) == '\r' && input.charAt(position + 1) == '\n';
+        }
+        if (position == length - 1) {
+            char c = input.charAt(position);
+            if (c == '\n') {
+                // not between \r and \n
+                return position == 0 || input.charAt(position - 1) != '\r';
+            }
+            return isLineTerminator(c);
+        }
+        return false;
+    }
+
+    private static boolean isLineTerminator(int c) {
+        return c == '\n' || c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029;
+    }
+
+    private static boolean contains(int[] ranges, int c) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (c < ranges[i]) {
+                return false;
+            }
+            if (c <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * The active states of one position, in a sparse set so that clearing it is free.
+     */
+    private static final class Threads {
+        final int[] pcs;
+        final int[] generation;
+        int count;
+        int current = 1;
+
+        Threads(int size) {
+            pcs = new int[size];
+            generation = new int[size];
+        }
+
+        /**
+         * @return false if the state was already visited at this position
+         */
+        boolean mark(int pc) {
+            if (generation[pc] == current) {
+                return false;
+            }
+            generation[pc] = current;
+            return true;
+        }
+
+        void add(int pc) {
+            pcs[count++] = pc;
+        }
+
+        void clear() {
+            count = 0;
+            current++;
+        }
+    }
+}
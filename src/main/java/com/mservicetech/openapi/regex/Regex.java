@@ -0,0 +1,15 @@
+package com.mservicetech.openapi.regex;
+
+/**
+ * A compiled regular expression.
+ */
+public interface Regex {
+
+    /**
+     * Search the input like {@link java.util.regex.Matcher#find()}; a schema pattern is not anchored.
+     *
+     * @param input the value to search
+     * @return true if the pattern matches somewhere in the input
+     */
+    boolean find(CharSequence input);
+}
@@ -0,0 +1,20 @@
+package com.mservicetech.openapi.regex;
+
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles the {@code pattern} keywords of the schemas. A pattern is compiled once per schema, when the schema is
+ * first used, and the compiled {@link Regex} is shared by every validation of the schema.
+ *
+ * @see JdkRegexEngine
+ * @see LinearRegexEngine
+ */
+public interface RegexEngine {
+
+    /**
+     * @param pattern the value of a {@code pattern} keyword, in the syntax of {@link java.util.regex.Pattern}
+     * @return the compiled pattern, safe to use from several threads
+     * @throws PatternSyntaxException if the pattern is not a valid regular expression
+     */
+    Regex compile(String pattern);
+}
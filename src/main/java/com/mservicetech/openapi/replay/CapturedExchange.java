@@ -0,0 +1,238 @@
+package com.mservicetech.openapi.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.common.ResponseEntity;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One recorded request and, if captured, its response.
+ * <p>
+ * An NDJSON capture holds one exchange per line:
+ * <pre>
+ * {"method":"POST","url":"/v1/pets?dryRun=true","headers":{"Content-Type":"application/json"},"cookies":{},
+ *  "body":{"id":1,"name":"cat"},"status":201,"responseHeaders":{},"responseBody":null}
+ * </pre>
+ * Bodies are either a JSON value or a string. A HAR capture is read from its log entries.
+ */
+class CapturedExchange {
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    String method;
+    String path;
+    final Map<String, Object> query = new HashMap<>();
+    final Map<String, String> headers = new HashMap<>();
+    final Map<String, String> cookies = new HashMap<>();
+    String requestContentType;
+    String requestBody;
+    /** null when the response was not captured */
+    String status;
+    final Map<String, String> responseHeaders = new HashMap<>();
+    String responseContentType;
+    String responseBody;
+
+    static CapturedExchange fromNdjson(JsonNode record) {
+        CapturedExchange exchange = new CapturedExchange();
+        exchange.method = text(record.get("method"));
+        exchange.setUrl(text(record.get("url")));
+        copyObject(record.get("headers"), exchange.headers);
+        copyObject(record.get("cookies"), exchange.cookies);
+        exchange.requestContentType = findIgnoreCase(exchange.headers, CONTENT_TYPE);
+        exchange.requestBody = body(record.get("body"));
+        JsonNode status = record.get("status");
+        if (status != null && !status.isNull()) {
+            exchange.status = status.asText();
+            copyObject(record.get("responseHeaders"), exchange.responseHeaders);
+            exchange.responseContentType = findIgnoreCase(exchange.responseHeaders, CONTENT_TYPE);
+            exchange.responseBody = body(record.get("responseBody"));
+        }
+        exchange.parseCookieHeader();
+        return exchange;
+    }
+
+    static CapturedExchange fromHar(JsonNode entry) {
+        CapturedExchange exchange = new CapturedExchange();
+        JsonNode request = entry.path("request");
+        exchange.method = text(request.get("method"));
+        exchange.setUrl(text(request.get("url")));
+        copyNameValues(request.get("headers"), exchange.headers);
+        copyNameValues(request.get("cookies"), exchange.cookies);
+        JsonNode postData = request.get("postData");
+        if (postData != null) {
+            exchange.requestContentType = text(postData.get("mimeType"));
+            exchange.requestBody = text(postData.get("text"));
+        }
+        if (exchange.requestContentType == null) {
+            exchange.requestContentType = findIgnoreCase(exchange.headers, CONTENT_TYPE);
+        }
+        JsonNode response = entry.path("response");
+        // HAR uses status 0 for a response that was not received
+        if (response.path("status").asInt() > 0) {
+            exchange.status = response.get("status").asText();
+            copyNameValues(response.get("headers"), exchange.responseHeaders);
+            JsonNode content = response.path("content");
+            exchange.responseContentType = text(content.get("mimeType"));
+            String text = text(content.get("text"));
+            if (text != null && "base64".equals(text(content.get("encoding")))) {
+                text = new String(Base64.getMimeDecoder().decode(text), StandardCharsets.UTF_8);
+            }
+            exchange.responseBody = text == null || text.isEmpty() ? null : text;
+        }
+        if (exchange.cookies.isEmpty()) {
+            exchange.parseCookieHeader();
+        }
+        return exchange;
+    }
+
+    boolean hasResponse() {
+        return status != null;
+    }
+
+    RequestEntity toRequestEntity() {
+        RequestEntity entity = new RequestEntity();
+        entity.setQueryParameters(query);
+        entity.setHeaderParameters(headers);
+        entity.setCookieParameters(cookies);
+        entity.setContentType(requestContentType);
+        entity.setRequestBody(requestBody);
+        return entity;
+    }
+
+    ResponseEntity toResponseEntity() {
+        ResponseEntity entity = new ResponseEntity();
+        entity.setHeaders(responseHeaders);
+        entity.setContentType(responseContentType);
+        entity.setContent(responseBody);
+        return entity;
+    }
+
+    /**
+     * Split an absolute or relative url into the path and the decoded query parameters. A repeated query
+     * parameter becomes a list.
+     */
+    private void setUrl(String url) {
+        if (url == null) {
+            return;
+        }
+        int start = 0;
+        int scheme = url.indexOf("://");
+        if (scheme > 0) {
+            start = url.indexOf('/', scheme + 3);
+            if (start < 0) {
+                path = "/";
+                return;
+            }
+        }
+        int fragment = url.indexOf('#', start);
+        int end = fragment < 0 ? url.length() : fragment;
+        int question = url.indexOf('?', start);
+        if (question < 0 || question > end) {
+            path = url.substring(start, end);
+            return;
+        }
+        path = url.substring(start, question);
+        int pos = question + 1;
+        while (pos < end) {
+            int amp = url.indexOf('&', pos);
+            int pairEnd = amp < 0 || amp > end ? end : amp;
+            if (pairEnd > pos) {
+                int eq = url.indexOf('=', pos);
+                String name;
+                String value;
+                if (eq < 0 || eq > pairEnd) {
+                    name = decode(url.substring(pos, pairEnd));
+                    value = "";
+                } else {
+                    name = decode(url.substring(pos, eq));
+                    value = decode(url.substring(eq + 1, pairEnd));
+                }
+                addQuery(name, value);
+            }
+            pos = pairEnd + 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addQuery(String name, String value) {
+        Object existing = query.get(name);
+        if (existing == null) {
+            query.put(name, value);
+        } else if (existing instanceof List) {
+            ((List<Object>) existing).add(value);
+        } else {
+            List<Object> values = new ArrayList<>();
+            values.add(existing);
+            values.add(value);
+            query.put(name, values);
+        }
+    }
+
+    private void parseCookieHeader() {
+        if (!cookies.isEmpty()) {
+            return;
+        }
+        String header = findIgnoreCase(headers, "Cookie");
+        if (header == null) {
+            return;
+        }
+        for (String pair : header.split(";")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                cookies.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+            }
+        }
+    }
+
+    private static String decode(String value) {
+        return value.indexOf('%') < 0 && value.indexOf('+') < 0 ? value : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String findIgnoreCase(Map<String, String> map, String name) {
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static String body(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return node.isTextual() ? node.textValue() : node.toString();
+    }
+
+    private static void copyObject(JsonNode node, Map<String, String> target) {
+        if (node != null && node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                target.put(field.getKey(), field.getValue().asText());
+            }
+        }
+    }
+
+    private static void copyNameValues(JsonNode node, Map<String, String> target) {
+        if (node != null && node.isArray()) {
+            for (JsonNode pair : node) {
+                String name = text(pair.get("name"));
+                if (name != null) {
+                    target.put(name, pair.path("value").asText());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.mservicetech.openapi.replay;
+
+import com.mservicetech.openapi.validation.ErrorDetail;
+import com.mservicetech.openapi.validation.ValidationError;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a replay, updated concurrently by the replay workers.
+ */
+public class ReplayStatistics {
+    /** operation key of the exchanges whose path and method are not in the specification */
+    public static final String UNMATCHED = "(unmatched)";
+
+    private final Map<String, OperationStatistics> operations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errorCodes = new ConcurrentHashMap<>();
+    private final LongAdder exchanges = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder parseErrors = new LongAdder();
+
+    void recordRequest(String operation, ValidationError error) {
+        exchanges.increment();
+        OperationStatistics statistics = operation(operation);
+        statistics.requests.increment();
+        if (error != null) {
+            statistics.requestFailures.increment();
+            errorCodes.computeIfAbsent(error.getCode(), c -> new LongAdder()).increment();
+        }
+    }
+
+    void recordResponse(String operation, ValidationError error) {
+        OperationStatistics statistics = operation(operation);
+        statistics.responses.increment();
+        if (error != null) {
+            statistics.responseFailures.increment();
+            errorCodes.computeIfAbsent(error.getCode(), c -> new LongAdder()).increment();
+        }
+    }
+
+    void recordBytes(long count) {
+        bytes.add(count);
+    }
+
+    void recordParseError() {
+        parseErrors.increment();
+    }
+
+    private OperationStatistics operation(String operation) {
+        return operations.computeIfAbsent(operation, o -> new OperationStatistics());
+    }
+
+    public long getExchanges() {
+        return exchanges.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    /**
+     * @return number of failed request and response validations
+     */
+    public long getFailures() {
+        long failures = 0;
+        for (OperationStatistics statistics : operations.values()) {
+            failures += statistics.getRequestFailures() + statistics.getResponseFailures();
+        }
+        return failures;
+    }
+
+    /**
+     * @return the statistics by operation key, e.g. "GET /pets/{petId}", sorted by key
+     */
+    public Map<String, OperationStatistics> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    /**
+     * @param limit maximum number of codes
+     * @return the most frequent error codes with their count, most frequent first
+     */
+    public List<Map.Entry<String, Long>> getTopErrorCodes(int limit) {
+        List<Map.Entry<String, Long>> codes = new ArrayList<>();
+        errorCodes.forEach((code, count) -> codes.add(Map.entry(code, count.sum())));
+        codes.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return codes.size() > limit ? codes.subList(0, limit) : codes;
+    }
+
+    /**
+     * Print the summary, the per operation counts and the top error codes.
+     *
+     * @param out the stream to print to
+     * @param elapsedNanos the duration of the replay
+     */
+    public void print(PrintStream out, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        double megabytes = getBytes() / (1024.0 * 1024.0);
+        out.println(String.format(Locale.ROOT, "Replayed %d exchanges (%.1f MB) in %.2f s: %.0f exchanges/s, %.1f MB/s",
+                getExchanges(), megabytes, seconds, getExchanges() / seconds, megabytes / seconds));
+        if (getParseErrors() > 0) {
+            out.println("Unreadable records: " + getParseErrors());
+        }
+        out.println();
+        out.println(String.format(Locale.ROOT, "%-48s %10s %10s %10s %10s", "Operation", "Requests", "Failed", "Responses", "Failed"));
+        getOperations().forEach((operation, statistics) -> out.println(String.format(Locale.ROOT, "%-48s %10d %10d %10d %10d",
+                operation, statistics.getRequests(), statistics.getRequestFailures(),
+                statistics.getResponses(), statistics.getResponseFailures())));
+        List<Map.Entry<String, Long>> codes = getTopErrorCodes(10);
+        if (!codes.isEmpty()) {
+            out.println();
+            out.println("Top error codes:");
+            for (Map.Entry<String, Long> code : codes) {
+                out.println(String.format(Locale.ROOT, "  %-10s %-40s %10d", code.getKey(),
+                        new ValidationError(code.getKey(), ErrorDetail.CODE_ONLY).getMessage(), code.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Counters of one operation.
+     */
+    public static final class OperationStatistics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder requestFailures = new LongAdder();
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder responseFailures = new LongAdder();
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getRequestFailures() {
+            return requestFailures.sum();
+        }
+
+        public long getResponses() {
+            return responses.sum();
+        }
+
+        public long getResponseFailures() {
+            return responseFailures.sum();
+        }
+    }
+}
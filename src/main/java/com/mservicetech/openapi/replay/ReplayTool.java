@@ -0,0 +1,82 @@
+package com.mservicetech.openapi.replay;
+
+import com.mservicetech.openapi.validation.ErrorDetail;
+import com.mservicetech.openapi.validation.OpenApiValidator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line entry point to check recorded traffic against a specification before it is deployed.
+ *
+ * <pre>
+ * java -cp ... com.mservicetech.openapi.replay.ReplayTool --spec openapi.yaml [--threads 8] capture.ndjson traffic.har
+ * </pre>
+ *
+ * The exit code is 0 when every exchange is valid, 1 when a validation failed and 2 for a usage or read error.
+ */
+public class ReplayTool {
+    static final int EXIT_VALID = 0;
+    static final int EXIT_INVALID = 1;
+    static final int EXIT_ERROR = 2;
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        String spec = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--spec":
+                        spec = args[++i];
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--help":
+                        usage(out);
+                        return EXIT_VALID;
+                    default:
+                        files.add(Paths.get(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            usage(err);
+            return EXIT_ERROR;
+        }
+        if (spec == null || files.isEmpty() || threads < 1) {
+            usage(err);
+            return EXIT_ERROR;
+        }
+
+        try {
+            OpenApiValidator validator;
+            try (InputStream in = Files.newInputStream(Paths.get(spec))) {
+                validator = new OpenApiValidator(in);
+            }
+            // only the error codes are counted, descriptions are never formatted
+            validator.setErrorDetail(ErrorDetail.CODE_ONLY);
+            long start = System.nanoTime();
+            ReplayStatistics statistics = new ReplayValidator(validator, threads).replay(files);
+            statistics.print(out, System.nanoTime() - start);
+            return statistics.getFailures() == 0 && statistics.getParseErrors() == 0 ? EXIT_VALID : EXIT_INVALID;
+        } catch (IOException e) {
+            err.println("Replay failed: " + e);
+            return EXIT_ERROR;
+        }
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("Usage: ReplayTool --spec <openapi.yaml> [--threads <n>] <capture.ndjson|capture.har>...");
+    }
+}
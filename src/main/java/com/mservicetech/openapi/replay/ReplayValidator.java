@@ -0,0 +1,281 @@
+package com.mservicetech.openapi.replay;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.mservicetech.openapi.common.RateLimitedLogger;
+import com.mservicetech.openapi.validation.OpenApiValidator;
+import com.mservicetech.openapi.validation.ValidationError;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Replay recorded traffic through an {@link OpenApiValidator} on all cores.
+ * <p>
+ * Capture files are memory mapped. An NDJSON file is split into chunks at line boundaries and every worker parses
+ * and validates its own chunk, so parsing scales with the cores as well. A HAR file is a single JSON document: it
+ * is streamed by one thread and its entries are validated by the workers in batches.
+ */
+public class ReplayValidator {
+    private static final RateLimitedLogger logger = new RateLimitedLogger(LoggerFactory.getLogger(ReplayValidator.class));
+    static final long CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final int HAR_BATCH_SIZE = 256;
+
+    private final OpenApiValidator validator;
+    private final int threads;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long chunkSize = CHUNK_SIZE;
+
+    /**
+     * @param validator the validator of the specification to check the traffic against
+     * @param threads the number of worker threads
+     */
+    public ReplayValidator(OpenApiValidator validator, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.validator = requireNonNull(validator, "validator cannot be null");
+        this.threads = threads;
+    }
+
+    void setChunkSize(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Validate every exchange of the capture files.
+     *
+     * @param files NDJSON files, or HAR files with the .har extension
+     * @return the statistics of the replay
+     * @throws IOException if a file cannot be read
+     */
+    public ReplayStatistics replay(List<Path> files) throws IOException {
+        ReplayStatistics statistics = new ReplayStatistics();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "openapi-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Path file : files) {
+                if (file.getFileName().toString().toLowerCase().endsWith(".har")) {
+                    replayHar(file, executor, statistics, tasks);
+                } else {
+                    replayNdjson(file, executor, statistics, tasks);
+                }
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Replay failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return statistics;
+    }
+
+    private void replayNdjson(Path file, ExecutorService executor, ReplayStatistics statistics, List<Future<?>> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = lineStart(channel, Math.min(start + chunkSize, size));
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("Line longer than 2GB in " + file);
+                }
+                long chunkStart = start;
+                tasks.add(executor.submit(() -> replayLines(file, chunkStart, end, statistics)));
+                start = end;
+            }
+        }
+    }
+
+    /**
+     * @return the position of the first line starting at or after the position
+     */
+    static long lineStart(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position >= size || position == 0) {
+            return Math.min(position, size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        // the line starts after the last newline before the position
+        long pos = position - 1;
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private void replayLines(Path file, long start, long end, ReplayStatistics statistics) {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        statistics.recordBytes(end - start);
+        byte[] line = new byte[4096];
+        int limit = mapped.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && mapped.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int length = lineEnd - lineStart;
+            if (length > 0 && !isBlank(mapped, lineStart, lineEnd)) {
+                if (line.length < length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                ByteBuffer slice = mapped.duplicate();
+                slice.position(lineStart);
+                slice.get(line, 0, length);
+                JsonNode record = null;
+                try {
+                    record = objectMapper.readTree(line, 0, length);
+                } catch (IOException e) {
+                    statistics.recordParseError();
+                    logger.warn("Unreadable record in {} at {}: {}", file, start + lineStart, e.toString());
+                }
+                if (record != null && record.isObject()) {
+                    validate(CapturedExchange.fromNdjson(record), statistics);
+                } else if (record != null) {
+                    statistics.recordParseError();
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void replayHar(Path file, ExecutorService executor, ReplayStatistics statistics, List<Future<?>> tasks) throws IOException {
+        // bounds the entries parsed ahead of the workers
+        Semaphore inFlight = new Semaphore(threads * 2);
+        try (InputStream in = mappedStream(file); JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            statistics.recordBytes(Files.size(file));
+            if (!seekEntries(parser)) {
+                throw new IOException("No log.entries array in " + file);
+            }
+            List<JsonNode> batch = new ArrayList<>(HAR_BATCH_SIZE);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(parser.readValueAsTree());
+                if (batch.size() == HAR_BATCH_SIZE) {
+                    tasks.add(submitBatch(batch, executor, statistics, inFlight));
+                    batch = new ArrayList<>(HAR_BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                tasks.add(submitBatch(batch, executor, statistics, inFlight));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay interrupted", e);
+        }
+    }
+
+    private Future<?> submitBatch(List<JsonNode> batch, ExecutorService executor, ReplayStatistics statistics, Semaphore inFlight)
+            throws InterruptedException {
+        inFlight.acquire();
+        return executor.submit(() -> {
+            try {
+                for (JsonNode entry : batch) {
+                    validate(CapturedExchange.fromHar(entry), statistics);
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Move the parser to the start of the log.entries array.
+     */
+    private static boolean seekEntries(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.FIELD_NAME && "entries".equals(parser.currentName())
+                    && parser.getParsingContext().getParent() != null
+                    && "log".equals(parser.getParsingContext().getParent().getCurrentName())) {
+                return parser.nextToken() == JsonToken.START_ARRAY;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A stream over the file mapped in regions of at most 1GB.
+     */
+    private static InputStream mappedStream(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<InputStream> regions = new ArrayList<>();
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += 1L << 30) {
+                long length = Math.min(1L << 30, size - pos);
+                regions.add(new ByteBufferBackedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, pos, length)));
+            }
+            return new SequenceInputStream(Collections.enumeration(regions));
+        }
+    }
+
+    void validate(CapturedExchange exchange, ReplayStatistics statistics) {
+        String key = exchange.method == null ? null : validator.getOperationKey(exchange.path, exchange.method);
+        String operation = key == null ? ReplayStatistics.UNMATCHED : key;
+        // the path parameters are captured by the validator when it matches the path
+        ValidationError requestError = validator.validateRequest(exchange.path, exchange.method, exchange.toRequestEntity());
+        statistics.recordRequest(operation, requestError);
+        if (key != null && exchange.hasResponse()) {
+            ValidationError responseError = validator.validateResponse(exchange.path, exchange.method, exchange.status, exchange.toResponseEntity());
+            statistics.recordResponse(operation, responseError);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.mservicetech.openapi.validation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Order of the request checks of one operation, adapted to the traffic it sees.
+ * <p>
+ * Every stage of every request records that it ran, whether it failed and how long it took; the counters are
+ * striped so concurrent requests do not contend on them. Only the recompute of the order is sampled: on a random
+ * sample of the requests the stages are sorted by failure rate divided by average cost, so cheap checks that
+ * often fail run first and an invalid request is rejected with the least work. This is the classic optimal order for a sequence of independent
+ * tests. A valid request still runs every stage.
+ * <p>
+ * Rates and costs are exponentially weighted over the recompute windows so the order follows a change of
+ * traffic.
+ */
+class AdaptiveStageOrder {
+    /** recompute the order on average once every 1024 recorded requests */
+    static final int RECOMPUTE_MASK = 1023;
+    /** weight of the latest window in the moving averages */
+    static final double WEIGHT = 0.3;
+
+    private final Statistics[] statistics = new Statistics[ValidationStage.values().length];
+    private volatile ValidationStage[] order = ValidationStage.DEFAULT_ORDER;
+
+    AdaptiveStageOrder() {
+        for (int i = 0; i < statistics.length; i++) {
+            statistics[i] = new Statistics();
+        }
+    }
+
+    /**
+     * @return the current order, the array must not be modified
+     */
+    ValidationStage[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Record one run of a stage.
+     *
+     * @param stage the stage
+     * @param nanos time spent in the stage
+     * @param failed true if the stage reported an error
+     */
+    void record(ValidationStage stage, long nanos, boolean failed) {
+        Statistics s = statistics[stage.ordinal()];
+        s.count.increment();
+        s.nanos.add(nanos);
+        if (failed) {
+            s.failures.increment();
+        }
+    }
+
+    /**
+     * Called once per validated request; recomputes the order on a random sample of the calls so the hot path
+     * shares no request counter. The stage statistics themselves are recorded for every request.
+     */
+    void requestCompleted() {
+        if ((ThreadLocalRandom.current().nextInt() & RECOMPUTE_MASK) == 0) {
+            recompute();
+        }
+    }
+
+    synchronized void recompute() {
+        for (Statistics s : statistics) {
+            s.update();
+        }
+        ValidationStage[] next = ValidationStage.DEFAULT_ORDER.clone();
+        // stable sort: stages without data or with equal scores keep the default order
+        Arrays.sort(next, Comparator.comparingDouble((ValidationStage stage) -> statistics[stage.ordinal()].score()).reversed());
+        order = next;
+    }
+
+    double getFailureRate(ValidationStage stage) {
+        return statistics[stage.ordinal()].failureRate;
+    }
+
+    double getAverageNanos(ValidationStage stage) {
+        return statistics[stage.ordinal()].averageNanos;
+    }
+
+    private static final class Statistics {
+        final LongAdder count = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        // guarded by the enclosing recompute()
+        long lastCount;
+        long lastFailures;
+        long lastNanos;
+        boolean measured;
+        double failureRate;
+        double averageNanos;
+
+        void update() {
+            long currentCount = count.sum();
+            long currentFailures = failures.sum();
+            long currentNanos = nanos.sum();
+            long runs = currentCount - lastCount;
+            if (runs > 0) {
+                double rate = (double) (currentFailures - lastFailures) / runs;
+                double cost = (double) (currentNanos - lastNanos) / runs;
+                if (measured) {
+                    failureRate = WEIGHT * rate + (1 - WEIGHT) * failureRate;
+                    averageNanos = WEIGHT * cost + (1 - WEIGHT) * averageNanos;
+                } else {
+                    failureRate = rate;
+                    averageNanos = cost;
+                    measured = true;
+                }
+            }
+            lastCount = currentCount;
+            lastFailures = currentFailures;
+            lastNanos = currentNanos;
+        }
+
+        double score() {
+            return measured ? failureRate / Math.max(averageNanos, 1d) : 0d;
+        }
+    }
+}
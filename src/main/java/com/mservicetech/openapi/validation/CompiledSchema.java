@@ -0,0 +1,171 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonNodePath;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Base class of the validators generated by {@link SchemaCompiler}. A generated validator only answers whether a
+ * value is valid and where the first check failed; the messages of an invalid value come from the generic engine.
+ * <p>
+ * The class is public for the sources generated at build time, it is not meant to be extended by hand.
+ */
+public abstract class CompiledSchema {
+
+    /**
+     * @param node the value to validate
+     * @param failure filled with the keyword and the location of the first failed check
+     * @return true if the value is valid
+     */
+    public abstract boolean validate(JsonNode node, Failure failure);
+
+    /**
+     * Same as the "integer" type of the generic engine: a floating point value without a fraction is an integer.
+     */
+    protected static boolean isIntegral(JsonNode node) {
+        if (node.isIntegralNumber()) {
+            return true;
+        }
+        if (node.isBigDecimal()) {
+            return node.decimalValue().signum() == 0 || node.decimalValue().stripTrailingZeros().scale() <= 0;
+        }
+        if (node.isFloatingPointNumber()) {
+            double value = node.doubleValue();
+            return !Double.isInfinite(value) && value == Math.rint(value);
+        }
+        return false;
+    }
+
+    /**
+     * Keyword and location of the first failed check. The location is collected while the generated methods
+     * return, so a valid value never builds it.
+     */
+    public static final class Failure {
+        private final boolean formatAssertions;
+        private String keyword;
+        private ArrayDeque<Object> path;
+        private String variant;
+        private int variantDepth;
+
+        public Failure() {
+            this(false);
+        }
+
+        /**
+         * @param formatAssertions true if the formats with a scanner are asserted
+         */
+        public Failure(boolean formatAssertions) {
+            this.formatAssertions = formatAssertions;
+        }
+
+        public boolean isFormatAssertions() {
+            return formatAssertions;
+        }
+
+        public boolean fail(String keyword) {
+            this.keyword = keyword;
+            return false;
+        }
+
+        public boolean at(String property) {
+            path().addFirst(property);
+            return false;
+        }
+
+        public boolean at(int index) {
+            path().addFirst(index);
+            return false;
+        }
+
+        /**
+         * Record the branch a discriminator selected, called when the value is invalid against it. The innermost
+         * branch is kept.
+         *
+         * @param ref the $ref of the branch
+         * @return false
+         */
+        public boolean variant(String ref) {
+            if (variant == null) {
+                variant = ref;
+                variantDepth = path == null ? 0 : path.size();
+            }
+            return false;
+        }
+
+        /**
+         * Forget the failures of the branches of a oneOf or an anyOf that were only tried.
+         */
+        public void clear() {
+            keyword = null;
+            variant = null;
+            if (path != null) {
+                path.clear();
+            }
+        }
+
+        private ArrayDeque<Object> path() {
+            if (path == null) {
+                path = new ArrayDeque<>();
+            }
+            return path;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        /**
+         * @param root the location of the validated value
+         * @return the location of the value that failed the check
+         */
+        public JsonNodePath location(JsonNodePath root) {
+            return location(root, path == null ? 0 : path.size());
+        }
+
+        /**
+         * @return the $ref of the branch selected by a discriminator the value is invalid against, null if the
+         * failure is not in such a branch
+         */
+        public String getVariant() {
+            return variant;
+        }
+
+        /**
+         * @param root the location of the validated value
+         * @return the location of the value validated against the {@link #getVariant() variant}
+         */
+        public JsonNodePath variantLocation(JsonNodePath root) {
+            return location(root, path == null ? 0 : path.size() - variantDepth);
+        }
+
+        /**
+         * @param root the validated value
+         * @return the value validated against the {@link #getVariant() variant}
+         */
+        public JsonNode variantNode(JsonNode root) {
+            JsonNode node = root;
+            if (path != null) {
+                Iterator<Object> segments = path.iterator();
+                for (int i = path.size() - variantDepth; i > 0; i--) {
+                    Object segment = segments.next();
+                    node = segment instanceof Integer ? node.get((Integer) segment) : node.get((String) segment);
+                }
+            }
+            return node;
+        }
+
+        private JsonNodePath location(JsonNodePath root, int segments) {
+            JsonNodePath location = root;
+            if (path != null) {
+                Iterator<Object> it = path.iterator();
+                for (int i = segments; i > 0; i--) {
+                    Object segment = it.next();
+                    location = segment instanceof Integer ? location.append((Integer) segment) : location.append((String) segment);
+                }
+            }
+            return location;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mservicetech.openapi.validation;
+
+import java.util.List;
+
+/**
+ * A specification compiled at build time by the {@code com.mservicetech.openapi.codegen} generator, loaded with
+ * {@link OpenApiValidator#OpenApiValidator(CompiledSpec)} in place of the spec file.
+ */
+public interface CompiledSpec {
+
+    /**
+     * @return the specification as json
+     */
+    String getSpec();
+
+    /**
+     * Match a request path against the paths of the specification, with the same rules as the runtime matching.
+     *
+     * @param parts the segments of the request path, without the base path
+     * @return the path of the specification, e.g. "/pets/{petId}"; null if no path matches
+     */
+    String findPath(List<String> parts);
+
+    /**
+     * @param location json pointer of a schema from the root of the specification,
+     *                 e.g. "/components/schemas/Pet"
+     * @return the compiled schema, null if the schema was not compiled
+     */
+    CompiledSchema getSchema(String location);
+}
@@ -0,0 +1,129 @@
+package com.mservicetech.openapi.validation;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A media type parsed from a Content-Type, e.g. {@code application/problem+json; charset=utf-8}: the parameters
+ * are dropped and the names are in lower case. The parsed values of the Content-Types seen are kept, so a request
+ * parses its Content-Type with one map lookup.
+ */
+final class ContentType {
+    static final ContentType JSON = parse("application/json");
+
+    /** Content-Types may carry a boundary or other varying parameters, the cache stops growing at this size */
+    private static final int CACHE_LIMIT = 256;
+    private static final Map<String, ContentType> CACHE = new ConcurrentHashMap<>();
+
+    private final String mediaType;
+    private final String type;
+    /** the type of the structured syntax suffix, e.g. application/json for application/problem+json; may be null */
+    private final String suffixType;
+    private final boolean json;
+
+    private ContentType(String mediaType, String type, String suffixType, boolean json) {
+        this.mediaType = mediaType;
+        this.type = type;
+        this.suffixType = suffixType;
+        this.json = json;
+    }
+
+    /**
+     * @param contentType the value of a Content-Type header
+     * @return the parsed media type
+     */
+    static ContentType of(String contentType) {
+        ContentType parsed = CACHE.get(contentType);
+        if (parsed == null) {
+            parsed = parse(contentType);
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.put(contentType, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    static ContentType parse(String contentType) {
+        int semicolon = contentType.indexOf(';');
+        String mediaType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+        int slash = mediaType.indexOf('/');
+        String type = slash < 0 ? mediaType : mediaType.substring(0, slash);
+        String subtype = slash < 0 ? "" : mediaType.substring(slash + 1);
+        int plus = subtype.lastIndexOf('+');
+        String suffix = plus < 0 ? null : subtype.substring(plus + 1);
+        return new ContentType(mediaType, type, suffix == null ? null : type + "/" + suffix,
+                "json".equals(subtype) || "json".equals(suffix));
+    }
+
+    /**
+     * @param value the value of a header with parameters, e.g. {@code multipart/form-data; boundary="x"} or
+     *              {@code form-data; name="file"; filename="a.png"}
+     * @param name the name of the parameter, compared ignoring case
+     * @return the value of the parameter, unquoted; null if the header does not have it
+     */
+    static String getParameter(String value, String name) {
+        int length = value.length();
+        int pos = value.indexOf(';');
+        while (pos >= 0 && pos < length) {
+            int start = pos + 1;
+            int semicolon = value.indexOf(';', start);
+            int eq = value.indexOf('=', start);
+            if (eq < 0 || (semicolon >= 0 && semicolon < eq)) {
+                // a parameter without a value
+                pos = semicolon;
+                continue;
+            }
+            boolean match = value.substring(start, eq).trim().equalsIgnoreCase(name);
+            int valueStart = eq + 1;
+            while (valueStart < length && value.charAt(valueStart) == ' ') {
+                valueStart++;
+            }
+            if (valueStart < length && value.charAt(valueStart) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                int i = valueStart + 1;
+                for (; i < length && value.charAt(i) != '"'; i++) {
+                    if (value.charAt(i) == '\\' && i + 1 < length) {
+                        i++;
+                    }
+                    quoted.append(value.charAt(i));
+                }
+                if (match) {
+                    return quoted.toString();
+                }
+                pos = value.indexOf(';', i);
+            } else {
+                if (match) {
+                    return value.substring(valueStart, semicolon < 0 ? length : semicolon).trim();
+                }
+                pos = semicolon;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the type and subtype, e.g. "application/problem+json"
+     */
+    String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return the type, e.g. "application"
+     */
+    String getType() {
+        return type;
+    }
+
+    String getSuffixType() {
+        return suffixType;
+    }
+
+    /**
+     * @return true for application/json and the media types with a +json suffix
+     */
+    boolean isJson() {
+        return json;
+    }
+}
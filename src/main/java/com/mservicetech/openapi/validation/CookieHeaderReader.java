@@ -0,0 +1,86 @@
+package com.mservicetech.openapi.validation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read the cookies an operation declares from a raw {@code Cookie} header, e.g. {@code sid=31d4; lang=en}. The
+ * names are compared in place and the scan stops once every declared cookie is found, so the other cookies of a
+ * large header are neither copied nor collected.
+ * <p>
+ * The value of a cookie is taken as it is sent, without decoding. When a name is repeated the first value is
+ * kept, as the most specific cookie comes first.
+ */
+final class CookieHeaderReader {
+    private final String[] names;
+
+    /**
+     * @param names the names of the declared cookies
+     */
+    CookieHeaderReader(List<String> names) {
+        this.names = names.stream().distinct().toArray(String[]::new);
+    }
+
+    /**
+     * @param header the value of the Cookie header
+     * @return the declared cookies of the header
+     */
+    Map<String, String> read(String header) {
+        Map<String, String> cookies = new HashMap<>();
+        int length = header.length();
+        int pos = 0;
+        while (pos < length && cookies.size() < names.length) {
+            int semicolon = header.indexOf(';', pos);
+            int pairEnd = semicolon < 0 ? length : semicolon;
+            int eq = indexOf(header, '=', pos, pairEnd);
+            if (eq < pairEnd) {
+                int nameStart = skipSpaces(header, pos, eq);
+                int nameEnd = trimSpaces(header, nameStart, eq);
+                String name = declaredName(header, nameStart, nameEnd);
+                if (name != null && !cookies.containsKey(name)) {
+                    int valueStart = skipSpaces(header, eq + 1, pairEnd);
+                    cookies.put(name, header.substring(valueStart, trimSpaces(header, valueStart, pairEnd)));
+                }
+            }
+            pos = pairEnd + 1;
+        }
+        return cookies;
+    }
+
+    private String declaredName(String header, int start, int end) {
+        for (String name : names) {
+            if (name.length() == end - start && header.regionMatches(start, name, 0, name.length())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the position of the char between start and end, end if it is not there; the search never runs past
+     * the pair, so a header of names without values is read in linear time
+     */
+    private static int indexOf(String s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int skipSpaces(String s, int start, int end) {
+        while (start < end && s.charAt(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(String s, int start, int end) {
+        while (end > start && s.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mservicetech.openapi.validation;
+
+/**
+ * How much detail is kept for a validation error.
+ *
+ * The detail is chosen on the {@link OpenApiValidator}; a gateway that only needs the error code to answer with
+ * 400 can use {@link #CODE_ONLY} so that rejected requests never pay for message formatting.
+ */
+public enum ErrorDetail {
+    /**
+     * Only the error code is kept. The status code and message are taken from the status config when asked,
+     * the description is never formatted.
+     */
+    CODE_ONLY,
+    /**
+     * The error code and raw arguments are kept. Schema errors are described by instance location and keyword
+     * only, e.g. "$.id: required", without formatting the schema validator message.
+     */
+    SUMMARY,
+    /**
+     * The error code and raw arguments are kept and the full description is formatted when asked.
+     */
+    FULL
+}
@@ -0,0 +1,92 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mservicetech.openapi.format.Formats;
+import com.networknt.schema.BaseJsonValidator;
+import com.networknt.schema.ExecutionContext;
+import com.networknt.schema.Format;
+import com.networknt.schema.FormatKeyword;
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonValidator;
+import com.networknt.schema.SchemaLocation;
+import com.networknt.schema.ValidationContext;
+import com.networknt.schema.ValidationMessage;
+import com.networknt.schema.ValidatorTypeCode;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code format} keyword of the schema engine, asserted with the scanners of {@link Formats}. The formats
+ * without a scanner are left to the keyword of the engine and stay annotations. {@code int32} and {@code int64}
+ * check the range of a number, or of an integer string where the config is type loose; the other formats check
+ * strings.
+ */
+final class FormatAssertionKeyword extends FormatKeyword {
+
+    FormatAssertionKeyword(Map<String, Format> formats) {
+        super(formats);
+    }
+
+    @Override
+    public JsonValidator newValidator(SchemaLocation schemaLocation, JsonNodePath evaluationPath, JsonNode schemaNode,
+                                      JsonSchema parentSchema, ValidationContext validationContext) {
+        if (!schemaNode.isTextual() || !Formats.isSupported(schemaNode.textValue())) {
+            return super.newValidator(schemaLocation, evaluationPath, schemaNode, parentSchema, validationContext);
+        }
+        return new FormatValidator(schemaLocation, evaluationPath, schemaNode, parentSchema, validationContext);
+    }
+
+    private static final class FormatValidator extends BaseJsonValidator {
+        private final String format;
+        private final boolean integer;
+
+        FormatValidator(SchemaLocation schemaLocation, JsonNodePath evaluationPath, JsonNode schemaNode, JsonSchema parentSchema,
+                        ValidationContext validationContext) {
+            super(schemaLocation, evaluationPath, schemaNode, parentSchema, ValidatorTypeCode.FORMAT, validationContext);
+            this.format = schemaNode.textValue();
+            this.integer = Formats.INT32.equals(format) || Formats.INT64.equals(format);
+        }
+
+        @Override
+        public Set<ValidationMessage> validate(ExecutionContext executionContext, JsonNode node, JsonNode rootNode, JsonNodePath instanceLocation) {
+            if (isValid(node)) {
+                return Collections.emptySet();
+            }
+            // the messages of the formats the engine knows, a generic one for the integers
+            return Collections.singleton(message().instanceNode(node).instanceLocation(instanceLocation)
+                    .messageKey(integer ? "format" : "format." + format)
+                    .locale(executionContext.getExecutionConfig().getLocale())
+                    .failFast(executionContext.isFailFast())
+                    .arguments(format, integer ? "must be a valid " + format.substring(3) + " bit integer" : "", node.asText())
+                    .build());
+        }
+
+        private boolean isValid(JsonNode node) {
+            if (integer) {
+                if (node.isNumber()) {
+                    return Formats.INT32.equals(format) ? node.canConvertToInt() : node.canConvertToLong();
+                }
+                // an integer string where the type is loose, e.g. a parameter; the type keyword reports the others
+                return !node.isTextual() || !validationContext.getConfig().isTypeLoose() || !isIntegerLiteral(node.textValue())
+                        || Formats.matches(format, node.textValue());
+            }
+            return !node.isTextual() || Formats.matches(format, node.textValue());
+        }
+
+        private static boolean isIntegerLiteral(String s) {
+            int start = !s.isEmpty() && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+            if (start == s.length()) {
+                return false;
+            }
+            for (int i = start; i < s.length(); i++) {
+                if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.core.StreamReadConstraints;
+
+/**
+ * Single pass, allocation free check that a text is a well-formed JSON object or array.
+ * <p>
+ * The check runs before the body is handed to Jackson so that malformed input is rejected with a boolean
+ * instead of a parser exception. It follows the grammar accepted by the default ObjectMapper: no comments,
+ * no leading zeros, no unescaped control characters inside strings, and content after the root value is
+ * ignored. Nesting depth and number length are bounded by the Jackson stream read constraints.
+ */
+final class JsonSyntax {
+
+    private JsonSyntax() {
+    }
+
+    /**
+     * @param text the trimmed body
+     * @return true if the text starts with a well-formed JSON object or array
+     */
+    static boolean isWellFormed(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return false;
+        }
+        char first = text.charAt(0);
+        if (first != '{' && first != '[') {
+            return false;
+        }
+        return new Scanner(text).scanRoot();
+    }
+
+    private static final class Scanner {
+        private final CharSequence text;
+        private final int length;
+        private final int maxDepth;
+        private final int maxNumberLength;
+        private int pos;
+
+        Scanner(CharSequence text) {
+            StreamReadConstraints constraints = StreamReadConstraints.defaults();
+            this.text = text;
+            this.length = text.length();
+            this.maxDepth = constraints.getMaxNestingDepth();
+            this.maxNumberLength = constraints.getMaxNumberLength();
+        }
+
+        /**
+         * Iterative scan of the root container; the only state kept per level is whether it is an object,
+         * stored in a bit set so deep nesting never recurses.
+         */
+        boolean scanRoot() {
+            long[] objectLevels = new long[1];
+            int depth = 0;
+            // true when a value is expected next (after '[', ':' or ',')
+            boolean expectValue = true;
+            while (true) {
+                skipWhitespace();
+                if (pos >= length) {
+                    return false;
+                }
+                char c = text.charAt(pos);
+                if (expectValue) {
+                    if (c == '{' || c == '[') {
+                        if (++depth > maxDepth) {
+                            return false;
+                        }
+                        if ((depth >> 6) >= objectLevels.length) {
+                            long[] grown = new long[objectLevels.length * 2];
+                            System.arraycopy(objectLevels, 0, grown, 0, objectLevels.length);
+                            objectLevels = grown;
+                        }
+                        pos++;
+                        skipWhitespace();
+                        if (c == '{') {
+                            objectLevels[depth >> 6] |= 1L << depth;
+                            if (pos < length && text.charAt(pos) == '}') {
+                                pos++;
+                                depth--;
+                                expectValue = false;
+                            } else if (!scanMember()) {
+                                return false;
+                            }
+                        } else {
+                            objectLevels[depth >> 6] &= ~(1L << depth);
+                            if (pos < length && text.charAt(pos) == ']') {
+                                pos++;
+                                depth--;
+                                expectValue = false;
+                            }
+                        }
+                        if (depth == 0) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    if (!scanScalar()) {
+                        return false;
+                    }
+                    expectValue = false;
+                    continue;
+                }
+                boolean inObject = (objectLevels[depth >> 6] & (1L << depth)) != 0;
+                pos++;
+                if (c == ',') {
+                    if (inObject) {
+                        skipWhitespace();
+                        if (!scanMember()) {
+                            return false;
+                        }
+                    }
+                    expectValue = true;
+                } else if ((c == '}' && inObject) || (c == ']' && !inObject)) {
+                    if (--depth == 0) {
+                        return true;
+                    }
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Scan an object member name and the following colon.
+         */
+        private boolean scanMember() {
+            if (pos >= length || text.charAt(pos) != '"' || !scanString()) {
+                return false;
+            }
+            skipWhitespace();
+            if (pos >= length || text.charAt(pos) != ':') {
+                return false;
+            }
+            pos++;
+            return true;
+        }
+
+        private boolean scanScalar() {
+            char c = text.charAt(pos);
+            switch (c) {
+                case '"':
+                    return scanString();
+                case 't':
+                    return scanLiteral("true");
+                case 'f':
+                    return scanLiteral("false");
+                case 'n':
+                    return scanLiteral("null");
+                default:
+                    return scanNumber();
+            }
+        }
+
+        private boolean scanString() {
+            pos++;
+            while (pos < length) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return true;
+                }
+                if (c < 0x20) {
+                    return false;
+                }
+                if (c == '\\') {
+                    if (pos >= length) {
+                        return false;
+                    }
+                    char e = text.charAt(pos++);
+                    switch (e) {
+                        case '"': case '\\': case '/': case 'b': case 'f': case 'n': case 'r': case 't':
+                            break;
+                        case 'u':
+                            if (pos + 4 > length) {
+                                return false;
+                            }
+                            for (int i = 0; i < 4; i++) {
+                                if (Character.digit(text.charAt(pos++), 16) < 0) {
+                                    return false;
+                                }
+                            }
+                            break;
+                        default:
+                            return false;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean scanLiteral(String literal) {
+            int end = pos + literal.length();
+            if (end > length) {
+                return false;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (text.charAt(pos + i) != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            pos = end;
+            return true;
+        }
+
+        private boolean scanNumber() {
+            int start = pos;
+            if (text.charAt(pos) == '-') {
+                pos++;
+            }
+            if (pos >= length) {
+                return false;
+            }
+            char c = text.charAt(pos);
+            if (c == '0') {
+                pos++;
+            } else if (c >= '1' && c <= '9') {
+                skipDigits();
+            } else {
+                return false;
+            }
+            if (pos < length && text.charAt(pos) == '.') {
+                pos++;
+                if (skipDigits() == 0) {
+                    return false;
+                }
+            }
+            if (pos < length && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+                pos++;
+                if (pos < length && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+                    pos++;
+                }
+                if (skipDigits() == 0) {
+                    return false;
+                }
+            }
+            return pos - start <= maxNumberLength;
+        }
+
+        private int skipDigits() {
+            int start = pos;
+            while (pos < length) {
+                char c = text.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                pos++;
+            }
+            return pos - start;
+        }
+
+        private void skipWhitespace() {
+            while (pos < length) {
+                char c = text.charAt(pos);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.mservicetech.openapi.validation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Shed optional validation work when the service is under pressure.
+ * <p>
+ * The pressure is either the average validation latency of the last interval divided by a latency objective, or
+ * the process CPU load divided by a maximum load. Once per interval the controller steps one
+ * {@link ValidationLevel} down when the pressure is above 1, and one level up when the pressure the level above
+ * would have is below the recovery ratio.
+ * <p>
+ * Shedding work lowers the pressure it is measured by, so the pressure of a shed level alone would restore the
+ * level one interval later, and shed it again the interval after. The controller therefore learns what a step
+ * saves: the pressure of the interval before a step divided by the pressure of the interval after it. The pressure
+ * of the current level times that ratio is the pressure the level above would have, and the level is only
+ * restored once that is below the recovery ratio, so it holds under a steady overload.
+ * <p>
+ * There is no background thread: the validator reports every validation and the first report after the interval
+ * re-evaluates the level.
+ */
+public class LoadController {
+    private static final Logger logger = LoggerFactory.getLogger(LoadController.class);
+    private static final ValidationLevel[] LEVELS = ValidationLevel.values();
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 1_000;
+    public static final double DEFAULT_RECOVERY_RATIO = 0.7;
+
+    private final long latencyObjectiveNanos;
+    private final DoubleSupplier cpuLoad;
+    private final double maxCpuLoad;
+    private volatile long intervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_INTERVAL_MILLIS);
+    private volatile double recoveryRatio = DEFAULT_RECOVERY_RATIO;
+    private volatile ValidationLevel level = ValidationLevel.FULL;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicLong nextEvaluation;
+    // guarded by evaluate()
+    private long lastCount;
+    private long lastNanos;
+    private double lastPressure;
+    /** by level, the pressure of the level divided by the pressure of the level below it; 1 until measured */
+    private final double[] stepRatios = new double[LEVELS.length];
+    /** the pressure that shed the current level, NaN once the ratio of the step is measured */
+    private double shedPressure = Double.NaN;
+
+    LoadController(long latencyObjectiveNanos, DoubleSupplier cpuLoad, double maxCpuLoad) {
+        this.latencyObjectiveNanos = latencyObjectiveNanos;
+        this.cpuLoad = cpuLoad;
+        this.maxCpuLoad = maxCpuLoad;
+        this.nextEvaluation = new AtomicLong(System.nanoTime() + intervalNanos);
+        Arrays.fill(stepRatios, 1.0);
+    }
+
+    /**
+     * Shed work when the average validation latency exceeds an objective.
+     *
+     * @param latencyObjective the objective for the average time spent validating a request or a response
+     * @param unit the unit of the objective
+     * @return the controller
+     */
+    public static LoadController latency(long latencyObjective, TimeUnit unit) {
+        if (latencyObjective <= 0) {
+            throw new IllegalArgumentException("latencyObjective must be positive");
+        }
+        return new LoadController(unit.toNanos(latencyObjective), null, 0);
+    }
+
+    /**
+     * Shed work when the CPU load of the process exceeds a maximum.
+     *
+     * The load is read from the com.sun.management extension of the OperatingSystemMXBean. On a JVM without the
+     * extension the controller stays at {@link ValidationLevel#FULL}.
+     *
+     * @param maxCpuLoad the maximum process CPU load, between 0 and 1
+     * @return the controller
+     */
+    public static LoadController cpuLoad(double maxCpuLoad) {
+        if (!(maxCpuLoad > 0.0 && maxCpuLoad <= 1.0)) {
+            throw new IllegalArgumentException("maxCpuLoad must be between 0 and 1");
+        }
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        DoubleSupplier load;
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) bean;
+            load = os::getProcessCpuLoad;
+        } else {
+            logger.warn("Process CPU load is not available, validation work will not be shed");
+            load = () -> 0.0;
+        }
+        return new LoadController(0, load, maxCpuLoad);
+    }
+
+    /**
+     * @return the current level
+     */
+    public ValidationLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the pressure measured at the last evaluation, 1 is the objective
+     */
+    public synchronized double getPressure() {
+        return lastPressure;
+    }
+
+    public long getInterval(TimeUnit unit) {
+        return unit.convert(intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param interval how often the level is evaluated, 1 second by default
+     * @param unit the unit of the interval
+     */
+    public void setInterval(long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    public double getRecoveryRatio() {
+        return recoveryRatio;
+    }
+
+    /**
+     * @param recoveryRatio the pressure below which a level is restored, between 0 and 1; 0.7 by default
+     */
+    public void setRecoveryRatio(double recoveryRatio) {
+        if (!(recoveryRatio >= 0.0 && recoveryRatio < 1.0)) {
+            throw new IllegalArgumentException("recoveryRatio must be at least 0 and below 1");
+        }
+        this.recoveryRatio = recoveryRatio;
+    }
+
+    /**
+     * Report one validation and re-evaluate the level when the interval has passed.
+     *
+     * @param startNanos the {@link System#nanoTime()} when the validation started
+     */
+    void record(long startNanos) {
+        long now = System.nanoTime();
+        if (cpuLoad == null) {
+            count.increment();
+            nanos.add(now - startNanos);
+        }
+        long next = nextEvaluation.get();
+        if (now - next >= 0 && nextEvaluation.compareAndSet(next, now + intervalNanos)) {
+            evaluate();
+        }
+    }
+
+    synchronized void evaluate() {
+        double pressure;
+        if (cpuLoad == null) {
+            long currentCount = count.sum();
+            long currentNanos = nanos.sum();
+            long runs = currentCount - lastCount;
+            pressure = runs == 0 ? 0.0 : (double) (currentNanos - lastNanos) / runs / latencyObjectiveNanos;
+            lastCount = currentCount;
+            lastNanos = currentNanos;
+        } else {
+            // a negative load means the value is not available yet
+            pressure = Math.max(cpuLoad.getAsDouble(), 0.0) / maxCpuLoad;
+        }
+        lastPressure = pressure;
+        ValidationLevel current = level;
+        if (!Double.isNaN(shedPressure) && pressure > 0.0) {
+            // the first interval at a shed level measures what the step saved
+            stepRatios[current.ordinal() - 1] = Math.max(1.0, shedPressure / pressure);
+            shedPressure = Double.NaN;
+        }
+        if (pressure > 1.0 && current.ordinal() < LEVELS.length - 1) {
+            level = LEVELS[current.ordinal() + 1];
+            shedPressure = pressure;
+            logger.info("Validation pressure {}, level lowered to {}", pressure, level);
+        } else if (current.ordinal() > 0 && pressure * stepRatios[current.ordinal() - 1] < recoveryRatio) {
+            level = LEVELS[current.ordinal() - 1];
+            shedPressure = Double.NaN;
+            logger.info("Validation pressure {}, level restored to {}", pressure, level);
+        }
+    }
+}
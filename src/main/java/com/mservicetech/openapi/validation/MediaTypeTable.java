@@ -0,0 +1,139 @@
+package com.mservicetech.openapi.validation;
+
+import com.networknt.jsonoverlay.Overlay;
+import com.networknt.oas.model.EncodingProperty;
+import com.networknt.oas.model.MediaType;
+import com.networknt.oas.model.Schema;
+import com.networknt.oas.model.impl.SchemaImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The media types of a {@code content} of the specification, parsed once. A Content-Type is matched with the most
+ * specific media type: the same media type, then the media type of its structured syntax suffix, e.g.
+ * {@code application/json} for {@code application/problem+json}, then {@code type/*}, then {@code *}{@code /*}.
+ * Parameters such as {@code charset} are ignored on both sides.
+ */
+final class MediaTypeTable {
+    private final Map<String, Match> mediaTypes = new HashMap<>();
+    /** the matches of type/*, by type */
+    private final Map<String, Match> ranges = new HashMap<>();
+    private Match any;
+
+    MediaTypeTable(Map<String, MediaType> content) {
+        for (Map.Entry<String, MediaType> entry : content.entrySet()) {
+            ContentType key = ContentType.parse(entry.getKey());
+            Match match = new Match(entry.getKey(), entry.getValue());
+            if (key.getMediaType().equals("*/*")) {
+                any = match;
+            } else if (key.getMediaType().equals(key.getType() + "/*")) {
+                ranges.put(key.getType(), match);
+            } else {
+                mediaTypes.put(key.getMediaType(), match);
+            }
+        }
+    }
+
+    /**
+     * @param contentType the Content-Type of a message
+     * @return the declared media type of the Content-Type, null if none matches
+     */
+    Match resolve(ContentType contentType) {
+        Match match = mediaTypes.get(contentType.getMediaType());
+        if (match == null && contentType.getSuffixType() != null) {
+            match = mediaTypes.get(contentType.getSuffixType());
+        }
+        if (match == null) {
+            match = ranges.get(contentType.getType());
+        }
+        return match == null ? any : match;
+    }
+
+    /**
+     * @return the schema of the matching media type, null if none matches or it has no schema
+     */
+    Schema getSchema(ContentType contentType) {
+        Match match = resolve(contentType);
+        return match == null ? null : match.schema;
+    }
+
+    /**
+     * @return the parts of a multipart body of the matching media type, null if none matches or it has no schema
+     */
+    MultipartForm getMultipartForm(ContentType contentType) {
+        Match match = resolve(contentType);
+        return match == null ? null : match.getMultipartForm();
+    }
+
+    /**
+     * @return the properties of a form body of the matching media type, null if none matches or it has no schema
+     */
+    UrlEncodedForm getUrlEncodedForm(ContentType contentType) {
+        Match match = resolve(contentType);
+        return match == null ? null : match.getUrlEncodedForm();
+    }
+
+    /**
+     * @param schemas the schemas of the media types are added to it, except those of multipart bodies, whose parts
+     *                are validated one by one
+     */
+    void addSchemas(Collection<Schema> schemas) {
+        List<Match> matches = new ArrayList<>(mediaTypes.values());
+        matches.addAll(ranges.values());
+        if (any != null) {
+            matches.add(any);
+        }
+        for (Match match : matches) {
+            if (match.schema != null && !match.mediaType.regionMatches(true, 0, "multipart/", 0, 10)) {
+                schemas.add(match.schema);
+            }
+        }
+    }
+
+    /**
+     * A declared media type.
+     */
+    static final class Match {
+        final String mediaType;
+        /** null if the media type has no schema */
+        final Schema schema;
+        private final Map<String, EncodingProperty> encodings;
+        private volatile MultipartForm multipartForm;
+        private volatile UrlEncodedForm urlEncodedForm;
+
+        private Match(String mediaType, MediaType content) {
+            Schema schema = content.getSchema();
+            this.mediaType = mediaType;
+            this.schema = schema == null || Overlay.toJson((SchemaImpl) schema).isMissingNode() ? null : schema;
+            this.encodings = content.getEncodingProperties();
+        }
+
+        /**
+         * @return the parts of a multipart body, worked out when first asked for; null if there is no schema
+         */
+        MultipartForm getMultipartForm() {
+            MultipartForm result = multipartForm;
+            if (result == null && schema != null) {
+                result = new MultipartForm(schema, encodings);
+                multipartForm = result;
+            }
+            return result;
+        }
+
+        /**
+         * @return the properties of a form body, worked out when first asked for; null if there is no schema
+         */
+        UrlEncodedForm getUrlEncodedForm() {
+            UrlEncodedForm result = urlEncodedForm;
+            if (result == null && schema != null) {
+                result = new UrlEncodedForm(schema, encodings);
+                urlEncodedForm = result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mservicetech.openapi.validation;
+
+import com.networknt.oas.model.EncodingProperty;
+import com.networknt.oas.model.Schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a {@code multipart/form-data} body, worked out once from the object schema of the media type and its
+ * {@code encoding}. A part is named after a property of the schema; the parts of an array property are its items.
+ */
+final class MultipartForm {
+    private final Map<String, Field> fields = new HashMap<>();
+    private final List<String> requiredFields;
+    private final boolean additionalProperties;
+
+    /**
+     * @param schema the schema of the media type
+     * @param encodings the encoding of the media type, by property name
+     */
+    MultipartForm(Schema schema, Map<String, EncodingProperty> encodings) {
+        for (Map.Entry<String, Schema> property : schema.getProperties().entrySet()) {
+            EncodingProperty encoding = encodings.get(property.getKey());
+            fields.put(property.getKey(), new Field(property.getKey(), property.getValue(),
+                    encoding == null ? null : encoding.getContentType()));
+        }
+        List<String> required = schema.getRequiredFields();
+        this.requiredFields = required.isEmpty() ? Collections.emptyList() : new ArrayList<>(required);
+        this.additionalProperties = !Boolean.FALSE.equals(schema.getAdditionalProperties());
+    }
+
+    /**
+     * @param name the name of a part
+     * @return the declared property of the part, null if it is not declared
+     */
+    Field getField(String name) {
+        return fields.get(name);
+    }
+
+    List<String> getRequiredFields() {
+        return requiredFields;
+    }
+
+    /**
+     * @return false if the schema does not allow parts that are not declared
+     */
+    boolean isAdditionalProperties() {
+        return additionalProperties;
+    }
+
+    /**
+     * A property of the form, with the schema each of its parts is validated against.
+     */
+    static final class Field {
+        final String name;
+        /** the schema of one part: the items of an array property */
+        final Schema schema;
+        final boolean array;
+        /** a file, only its size and Content-Type are checked */
+        final boolean binary;
+        /** the part is json unless its Content-Type says otherwise */
+        final boolean json;
+        /** the Content-Types of the encoding, empty if any is accepted */
+        private final List<ContentType> contentTypes;
+
+        private Field(String name, Schema schema, String contentTypes) {
+            this.name = name;
+            this.array = "array".equals(schema.getType()) && schema.getItemsSchema() != null;
+            this.schema = array ? schema.getItemsSchema() : schema;
+            this.binary = "string".equals(this.schema.getType()) && "binary".equals(this.schema.getFormat());
+            this.json = "object".equals(this.schema.getType()) || "array".equals(this.schema.getType());
+            List<ContentType> types = new ArrayList<>();
+            if (contentTypes != null) {
+                for (String contentType : contentTypes.split(",")) {
+                    if (!contentType.trim().isEmpty()) {
+                        types.add(ContentType.parse(contentType));
+                    }
+                }
+            }
+            this.contentTypes = types.isEmpty() ? Collections.emptyList() : types;
+        }
+
+        /**
+         * @param contentType the Content-Type of a part
+         * @return true if the encoding of the property allows it, e.g. {@code image/png} for {@code image/*}
+         */
+        boolean accepts(ContentType contentType) {
+            if (contentTypes.isEmpty()) {
+                return true;
+            }
+            for (ContentType accepted : contentTypes) {
+                String mediaType = accepted.getMediaType();
+                if (mediaType.equals("*/*") || mediaType.equals(contentType.getMediaType())
+                        || (mediaType.equals(accepted.getType() + "/*") && accepted.getType().equals(contentType.getType()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.mservicetech.openapi.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read the parts of a {@code multipart/form-data} body from a stream, as RFC 7578 and RFC 2046 define them. The
+ * body is read through one fixed buffer: a part is either drained, counting its bytes, or read up to a limit, so the
+ * memory used does not depend on the size of the upload.
+ * <p>
+ * The preamble before the first delimiter and the epilogue after the close delimiter are skipped. A body that ends
+ * before the close delimiter, or a part whose headers do not fit into the buffer, is malformed.
+ */
+final class MultipartReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_HEADERS = 64;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    /** no delimiter starts before this position of the buffer */
+    private int scanned;
+    private boolean partEnded;
+    private boolean closed;
+    private Map<String, String> headers;
+
+    /**
+     * @param in the body
+     * @param boundary the boundary parameter of the Content-Type
+     */
+    MultipartReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // the first delimiter is not preceded by a line break, the reader starts as if it were
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Move to the next part, skipping what is left of the current one.
+     *
+     * @return false after the close delimiter
+     * @throws IOException if the body cannot be read or is malformed
+     */
+    boolean next() throws IOException {
+        if (closed) {
+            return false;
+        }
+        skip();
+        ensure(2);
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            closed = true;
+            return false;
+        }
+        // transport padding may follow the boundary
+        while (buffer[pos] == ' ' || buffer[pos] == '\t') {
+            pos++;
+            ensure(2);
+        }
+        if (buffer[pos] != '\r' || buffer[pos + 1] != '\n') {
+            throw new IOException("Malformed multipart delimiter");
+        }
+        pos += 2;
+        headers = readHeaders();
+        partEnded = false;
+        return true;
+    }
+
+    /**
+     * @param name the name of a header in lower case
+     * @return the value of the header of the current part, null if it is absent
+     */
+    String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * @return the name of the current part from its Content-Disposition, null if it has none
+     */
+    String getName() {
+        String disposition = headers.get("content-disposition");
+        return disposition == null ? null : ContentType.getParameter(disposition, "name");
+    }
+
+    /**
+     * @return the file name of the current part from its Content-Disposition, null if it has none
+     */
+    String getFileName() {
+        String disposition = headers.get("content-disposition");
+        return disposition == null ? null : ContentType.getParameter(disposition, "filename");
+    }
+
+    /**
+     * @return the Content-Type of the current part, null if it has none
+     */
+    String getContentType() {
+        return headers.get("content-type");
+    }
+
+    /**
+     * Read the content of the current part.
+     *
+     * @return the number of bytes read, -1 at the end of the part
+     * @throws IOException if the body cannot be read or is malformed
+     */
+    int read(byte[] b, int off, int len) throws IOException {
+        if (partEnded) {
+            return -1;
+        }
+        while (true) {
+            int found = indexOfDelimiter();
+            int available = (found < 0 ? scanned : found) - pos;
+            if (available > 0) {
+                int n = Math.min(len, available);
+                System.arraycopy(buffer, pos, b, off, n);
+                pos += n;
+                return n;
+            }
+            if (found >= 0) {
+                pos += delimiter.length;
+                partEnded = true;
+                return -1;
+            }
+            if (eof) {
+                throw new IOException("Multipart body ends before its close delimiter");
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Skip what is left of the current part.
+     *
+     * @return the number of bytes skipped
+     * @throws IOException if the body cannot be read or is malformed
+     */
+    long skip() throws IOException {
+        long skipped = 0;
+        while (!partEnded) {
+            int found = indexOfDelimiter();
+            int available = (found < 0 ? scanned : found) - pos;
+            if (available > 0) {
+                pos += available;
+                skipped += available;
+            } else if (found >= 0) {
+                pos += delimiter.length;
+                partEnded = true;
+            } else if (eof) {
+                throw new IOException("Multipart body ends before its close delimiter");
+            } else {
+                fill();
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Read what is left of the current part, at most {@code max} bytes.
+     *
+     * @return the content, null if it is longer than {@code max}; the part is skipped then
+     * @throws IOException if the body cannot be read or is malformed
+     */
+    byte[] readFully(int max) throws IOException {
+        byte[] content = new byte[Math.min(max, 256)];
+        int length = 0;
+        while (true) {
+            if (length == content.length) {
+                if (length == max) {
+                    // one more byte tells whether the part fits
+                    if (read(new byte[1], 0, 1) < 0) {
+                        return content;
+                    }
+                    skip();
+                    return null;
+                }
+                byte[] grown = new byte[(int) Math.min(max, length * 2L)];
+                System.arraycopy(content, 0, grown, 0, length);
+                content = grown;
+            }
+            int n = read(content, length, content.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        if (length == content.length) {
+            return content;
+        }
+        byte[] trimmed = new byte[length];
+        System.arraycopy(content, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    /**
+     * Find the delimiter in the buffer, from where the last search stopped. When it is not found, everything but
+     * the last bytes that may start a delimiter is known to be content.
+     *
+     * @return the position of the delimiter, -1 if it is not in the buffer
+     */
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        for (int i = Math.max(pos, scanned); i <= last; i++) {
+            if (buffer[i] == '\r' && matches(i)) {
+                scanned = i;
+                return i;
+            }
+        }
+        scanned = Math.max(pos, last + 1);
+        return -1;
+    }
+
+    private boolean matches(int at) {
+        for (int j = 1; j < delimiter.length; j++) {
+            if (buffer[at + j] != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        for (int count = 0; count <= MAX_HEADERS; count++) {
+            int end = indexOfLineEnd();
+            if (end == pos) {
+                pos += 2;
+                return headers;
+            }
+            String line = new String(buffer, pos, end - pos, StandardCharsets.UTF_8);
+            pos = end + 2;
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.putIfAbsent(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        throw new IOException("Too many multipart headers");
+    }
+
+    /**
+     * @return the position of the next CRLF in the buffer, reading more of the body until it is found; a header line
+     * longer than the buffer is malformed
+     */
+    private int indexOfLineEnd() throws IOException {
+        int from = pos;
+        while (true) {
+            for (int i = from; i < limit - 1; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            if (eof || (pos == 0 && limit == buffer.length)) {
+                throw new IOException("Malformed multipart headers");
+            }
+            from = Math.max(0, limit - pos - 1);
+            fill();
+        }
+    }
+
+    private void ensure(int n) throws IOException {
+        while (limit - pos < n) {
+            if (eof) {
+                throw new IOException("Multipart body ends before its close delimiter");
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Move the unread bytes to the start of the buffer and read more of the body after them.
+     */
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            scanned = Math.max(0, scanned - pos);
+            pos = 0;
+        }
+        int n = in.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+}
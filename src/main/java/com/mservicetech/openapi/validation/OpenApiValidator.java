@@ -1,23 +1,25 @@
 package com.mservicetech.openapi.validation;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mservicetech.openapi.common.ParameterSource;
 import com.mservicetech.openapi.common.ParameterType;
+import com.mservicetech.openapi.common.RateLimitedLogger;
 import com.mservicetech.openapi.common.RequestEntity;
 import com.mservicetech.openapi.common.ResponseEntity;
+import com.mservicetech.openapi.regex.RegexEngine;
 import com.networknt.config.Config;
 import com.networknt.jsonoverlay.Overlay;
-import com.networknt.oas.model.Header;
-import com.networknt.oas.model.MediaType;
 import com.networknt.oas.model.Operation;
 import com.networknt.oas.model.Parameter;
 import com.networknt.oas.model.Path;
 import com.networknt.oas.model.RequestBody;
-import com.networknt.oas.model.Response;
 import com.networknt.oas.model.Schema;
 import com.networknt.oas.model.impl.RequestBodyImpl;
-import com.networknt.oas.model.impl.SchemaImpl;
 import com.networknt.openapi.ApiNormalisedPath;
 import com.networknt.openapi.NormalisedPath;
 import com.networknt.openapi.OpenApiHelper;
@@ -33,12 +35,14 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
 public class OpenApiValidator {
     Logger logger = LoggerFactory.getLogger(OpenApiValidator.class);
+    static final RateLimitedLogger internalLogger = new RateLimitedLogger(LoggerFactory.getLogger(OpenApiValidator.class));
     final String OPENAPI_YML_CONFIG = "openapi.yml";
     final String OPENAPI_YAML_CONFIG = "openapi.yaml";
     final String STATUS_INVALID_REQUEST_PATH = "ERR10007";
@@ -54,16 +58,57 @@ public class OpenApiValidator {
     final String VALIDATOR_REQUEST_PARAMETER_HEADER_MISSING = "ERR11017";
     final String VALIDATOR_REQUEST_PARAMETER_QUERY_MISSING = "ERR11000";
 
+    final String STATUS_PAYLOAD_TOO_LARGE = "ERR10068";
+    final String STATUS_BAD_BODY = "ERR11407";
+
     final String VALIDATOR_RESPONSE_CONTENT_UNEXPECTED = "ERR11018";
     final String VALIDATOR_RESPONSE_HEADER_MISSING = "ERR11020";
 
-    final String DEFAULT_STATUS_CODE = "default";
+    /**
+     * Marker returned by {@link #attachJsonBody(String, Schema)} when the body is not a json object or array.
+     */
+    private static final Object CONTENT_MISMATCH = new Object();
+
+    /**
+     * Longest json body checked with {@link JsonSyntax} before it is parsed. Up to this length a malformed body
+     * costs less to detect with a second scan than with a parser exception; a longer body is parsed once and a
+     * parser error is reported as {@link #CONTENT_MISMATCH} as well.
+     */
+    static final int JSON_PRESCAN_MAX_LENGTH = 4096;
+
+    static final String BODY_POINTER = "/body";
+    static final String HEADER_POINTER = "/header";
+
+    /**
+     * The engine schemas are cached by config, so every call of one kind uses the same config.
+     */
+    private static final SchemaValidatorsConfig PARAMETER_CONFIG = new SchemaValidatorsConfig();
+    private static final SchemaValidatorsConfig HEADER_CONFIG = new SchemaValidatorsConfig();
+    private static final SchemaValidatorsConfig BODY_CONFIG = new SchemaValidatorsConfig();
+
+    static {
+        PARAMETER_CONFIG.setTypeLoose(true);
+        //header won't tell if it's a real string or not. needs trying to convert.
+        HEADER_CONFIG.setTypeLoose(true);
+        HEADER_CONFIG.setHandleNullableField(true);
+        BODY_CONFIG.setTypeLoose(false);
+        BODY_CONFIG.setHandleNullableField(true);
+    }
 
 
     public String spec;
     public OpenApiHelper openApiHelper;
     public SchemaValidator schemaValidator;
     private ObjectMapper objectMapper = new ObjectMapper();
+    private ErrorDetail errorDetail = ErrorDetail.FULL;
+    private int maxFieldPartSize = 64 * 1024;
+    private boolean adaptiveOrdering;
+    private ResponseSampling responseSampling;
+    private LoadController loadController;
+    private volatile Set<String> compiledOperations = Collections.emptySet();
+    private CompiledSpec compiledSpec;
+    private final Map<String, NormalisedPath> apiPaths = new HashMap<>();
+    private final Map<String, Map<String, OperationPlan>> operationPlans = new ConcurrentHashMap<>();
 
     /**
      * Construct a new request validator with the given schema validator.
@@ -147,310 +192,618 @@ public class OpenApiValidator {
     }
 
     /**
-     * Validate the request against the given API operation
-     * @param requestURI normalised path
-     * @param httpMethod Http method definition (get/post/put/delete)
-     * @param requestEntity wrap object for request
-     * @return A validation report containing validation errors
+     * Construct a new request validator from a specification compiled at build time. The spec is read from its
+     * json, requests are routed by the generated router and the bodies of every operation are validated with the
+     * generated schemas; nothing is compiled at runtime.
+     *
+     * @param compiledSpec the factory generated by the {@code com.mservicetech.openapi.codegen} generator
      */
-    public Status validateRequestPath (String requestURI , String httpMethod, RequestEntity requestEntity ) {
-        requireNonNull(openApiHelper, "openApiHelper object cannot be null");
-        OpenApiOperation openApiOperation;
-        try {
-            openApiOperation = getOpenApiOperation(requestURI, httpMethod.toLowerCase());
-            if (openApiOperation == null) {
-                return new Status(STATUS_INVALID_REQUEST_PATH, requestURI);
-            }
-        } catch (NullPointerException e) {
-            // This exception is thrown from within the OpenApiOperation constructor on operation == null.
-            return new Status(STATUS_METHOD_NOT_ALLOWED, httpMethod, requestURI);
+    public OpenApiValidator(CompiledSpec compiledSpec) {
+        this.compiledSpec = requireNonNull(compiledSpec, "compiledSpec cannot be null");
+        spec = compiledSpec.getSpec();
+        openApiHelper = new OpenApiHelper(spec);
+        schemaValidator = new SchemaValidator(openApiHelper.openApi3, compiledSpec);
+        for (String path : openApiHelper.openApi3.getPaths().keySet()) {
+            apiPaths.put(path, new ApiNormalisedPath(path, openApiHelper.basePath));
         }
+        compiledOperations = Collections.singleton("*");
+    }
 
-        if (requestEntity!=null) {
-            NormalisedPath requestPath = openApiOperation.getPathString();
-            Status status = validateRequestParameters(requestEntity, requestPath, openApiOperation);
-            if(status != null) return status;
-            if ((requestEntity.getContentType()==null || requestEntity.getContentType().startsWith("application/json"))) {
-                try {
-                    Object body = attachJsonBody(requestEntity.getRequestBody());
-                    status = validateRequestBody(body, openApiOperation);
-//                    if (body!=null) {
-//                        status = validateRequestBody(body, openApiOperation);
-//                    } 
-                } catch (Exception e) {
-                    status = new Status(STATUS_CONTENT_TYPE_MISMATCH, "application/json");
-                }
-            }
-            return status;
-        }
+    public ErrorDetail getErrorDetail() {
+        return errorDetail;
+    }
 
-        return null;
+    /**
+     * Set how much detail is kept for validation errors. The default is {@link ErrorDetail#FULL}.
+     *
+     * @param errorDetail the error detail
+     */
+    public void setErrorDetail(ErrorDetail errorDetail) {
+        this.errorDetail = requireNonNull(errorDetail, "errorDetail cannot be null");
     }
 
-    protected Status validateRequestBody (Object requestBody, OpenApiOperation openApiOperation) {
-        requireNonNull(openApiHelper, "openApiHelper object cannot be null");
-        requireNonNull(schemaValidator, "schemaValidator object cannot be null");
+    public RegexEngine getRegexEngine() {
+        return schemaValidator.getRegexEngine();
+    }
 
-        final RequestBody specBody = openApiOperation.getOperation().getRequestBody();
+    /**
+     * Set the engine that compiles the {@code pattern} keywords of the spec. By default the patterns are matched by
+     * the schema engine with {@link java.util.regex.Pattern}; a
+     * {@link com.mservicetech.openapi.regex.LinearRegexEngine} matches them in time linear in the length of the
+     * value.
+     *
+     * @param regexEngine the regex engine; null for the default
+     */
+    public void setRegexEngine(RegexEngine regexEngine) {
+        schemaValidator.setRegexEngine(regexEngine);
+    }
 
-        if (requestBody != null && specBody == null) {
-            return new Status(VALIDATOR_REQUEST_BODY_UNEXPECTED, openApiOperation.getMethod(), openApiOperation.getPathString().original());
-        }
+    public boolean isFormatAssertions() {
+        return schemaValidator.isFormatAssertions();
+    }
 
-        if (specBody == null || !Overlay.isPresent((RequestBodyImpl)specBody)) {
-            return null;
-        }
+    /**
+     * Assert the {@code date-time}, {@code date}, {@code uuid}, {@code ipv4}, {@code ipv6}, {@code email},
+     * {@code int32} and {@code int64} formats of parameters and bodies. By default the formats are annotations and
+     * are not checked.
+     *
+     * @param formatAssertions true to assert the formats
+     */
+    public void setFormatAssertions(boolean formatAssertions) {
+        schemaValidator.setFormatAssertions(formatAssertions);
+    }
 
-        if (requestBody == null) {
-            if (specBody.getRequired() != null && specBody.getRequired()) {
-                return new Status(VALIDATOR_REQUEST_BODY_MISSING, openApiOperation.getMethod(), openApiOperation.getPathString().original());
-            }
-            return null;
-        }
-        SchemaValidatorsConfig config = new SchemaValidatorsConfig();
-        config.setTypeLoose(false);
-        config.setHandleNullableField(true);
+    public int getMaxFieldPartSize() {
+        return maxFieldPartSize;
+    }
 
-        return schemaValidator.validate(requestBody, Overlay.toJson((SchemaImpl)specBody.getContentMediaType("application/json").getSchema()), config);
+    /**
+     * The largest field of a {@code multipart/form-data} body that is read to be validated against its schema; a
+     * larger field is reported as too large. File parts are not read into memory and have no such limit. 64 KiB by
+     * default.
+     *
+     * @param maxFieldPartSize the limit in bytes
+     */
+    public void setMaxFieldPartSize(int maxFieldPartSize) {
+        this.maxFieldPartSize = maxFieldPartSize;
+    }
+
+    public boolean isAdaptiveOrdering() {
+        return adaptiveOrdering;
+    }
+
+    /**
+     * Enable adaptive ordering of the request checks.
+     *
+     * When enabled, every operation tracks the failure rate and the cost of its path, query, header, cookie and
+     * body checks and runs cheap, frequently failing checks first, so invalid requests are rejected with the
+     * least work. Valid requests still run every check. The first error reported for a request with several
+     * errors depends on the learned order. Every check of every request is timed, which costs two
+     * {@code System.nanoTime()} calls per check; only the recompute of the order is sampled. Disabled by default.
+     *
+     * @param adaptiveOrdering true to enable
+     */
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
     }
 
-    protected Status validateRequestParameters(final RequestEntity requestEntity, final NormalisedPath requestPath, final OpenApiOperation openApiOperation) {
-        Status status = validatePathParameters(requestEntity, requestPath, openApiOperation);
-        if(status != null) return status;
+    public ResponseSampling getResponseSampling() {
+        return responseSampling;
+    }
 
-        status = validateQueryParameters(requestEntity, openApiOperation);
-        if(status != null) return status;
+    /**
+     * Validate only a sample of the responses. The report of a response that is sampled out is empty and
+     * {@link ValidationReport#isSkipped()}. Null, the default, validates every response.
+     *
+     * @param responseSampling the sampling policy
+     */
+    public void setResponseSampling(ResponseSampling responseSampling) {
+        this.responseSampling = responseSampling;
+    }
 
-        status = validateHeaderParameters(requestEntity, openApiOperation);
-        if(status != null) return status;
+    public LoadController getLoadController() {
+        return loadController;
+    }
 
-        status = validateCookieParameters(requestEntity, openApiOperation);
-        if(status != null) return status;
+    /**
+     * Shed optional validation work under load. The controller lowers the {@link ValidationLevel} when validation
+     * latency or CPU load is above its objective and restores it when the pressure drops. Request parameters are
+     * checked at every level. Null, the default, always validates everything.
+     *
+     * @param loadController the controller
+     */
+    public void setLoadController(LoadController loadController) {
+        this.loadController = loadController;
+    }
 
-        return null;
+    /**
+     * @return the current validation level, {@link ValidationLevel#FULL} without a load controller
+     */
+    public ValidationLevel getValidationLevel() {
+        LoadController controller = loadController;
+        return controller == null ? ValidationLevel.FULL : controller.getLevel();
     }
 
-    private Status validatePathParameters(final RequestEntity requestEntity, final NormalisedPath requestPath, final OpenApiOperation openApiOperation) {
-        ValidationResult result = validateDeserializedValues(requestEntity, openApiOperation.getOperation().getParameters(), ParameterType.PATH);
+    public Set<String> getCompiledOperations() {
+        return compiledOperations;
+    }
 
-        if (null!=result.getStatus() || result.getSkippedParameters().isEmpty()) {
-            return result.getStatus();
+    /**
+     * Validate the request and response bodies of the given operations with schemas compiled to dedicated classes
+     * instead of the generic schema engine. The body schemas of the operations are queued to a background compiler
+     * thread here, and the generic engine validates with a schema until it is compiled; a schema with a keyword the
+     * compiler does not support stays with the generic engine. The messages of an invalid body are the same with
+     * both engines.
+     *
+     * @param operations operationIds or method and path of the specification, e.g. "GET /pets/{petId}";
+     *                   "*" for all operations
+     */
+    public void setCompiledOperations(Collection<String> operations) {
+        Set<String> normalised = new HashSet<>();
+        for (String operation : operations) {
+            int space = operation.indexOf(' ');
+            normalised.add(space < 0 ? operation : operation.substring(0, space).toUpperCase() + operation.substring(space));
         }
-        if  (result.skippedParameters!=null && !result.skippedParameters.isEmpty()) {
-            return result.skippedParameters.stream().map(p-> new Status (VALIDATOR_REQUEST_PARAMETER_PATH_MISSING, p.getName(), openApiOperation.getPathString().original()))
-                    .filter(s->s != null).findFirst().get();
+        compiledOperations = Collections.unmodifiableSet(normalised);
+        for (Map<String, OperationPlan> plans : operationPlans.values()) {
+            for (OperationPlan plan : plans.values()) {
+                setCompiled(plan, isCompiled(plan, compiledOperations));
+            }
         }
-        return null;
     }
 
-    private ValidationResult validateDeserializedValues(final RequestEntity requestEntity, final Collection<Parameter> parameters, final ParameterType type) {
-        ValidationResult validationResult = new ValidationResult();
-        SchemaValidatorsConfig config = new SchemaValidatorsConfig();
-        config.setTypeLoose(true);
-
-        parameters.stream()
-                .filter(p -> ParameterType.is(p.getIn(), type))
-                .forEach(p->{
-                    Object deserializedValue = getDeserializedValue(requestEntity, p, type);
-                    if (null==deserializedValue ) {
-                        if (p.getRequired() != null && p.getRequired()) {
-                            validationResult.addSkipped(p);
-                        }
-                    } else {
-                        JsonNodePath instanceLocation = new JsonNodePath(config.getPathType()).append(p.getName());
-                        Status s = schemaValidator.validate(deserializedValue, Overlay.toJson((SchemaImpl)(p.getSchema())), config, instanceLocation);
-                        validationResult.addStatus(s);
-                    }
-                });
-
-        return validationResult;
+    /**
+     * Switch an operation to the compiled schemas, queuing its body schemas to the compiler thread.
+     */
+    private void setCompiled(OperationPlan plan, boolean compiled) {
+        if (compiled && !plan.isCompiled()) {
+            for (Schema schema : plan.getBodySchemas()) {
+                schemaValidator.prepareCompiled(schema);
+            }
+        }
+        plan.setCompiled(compiled);
     }
 
-    private Object getDeserializedValue(final RequestEntity requestEntity, final Parameter parameter, final ParameterType type) {
-        String name = parameter.getName();
-        if (null!=type && StringUtils.isNotBlank(name)) {
-            switch(type){
-                case QUERY:
-                    if (requestEntity.getQueryParameters() == null) return null;
-                    Object param = requestEntity.getQueryParameters().get(name);
-                    String schemaType = parameter.getSchema() == null ? null : parameter.getSchema().getType();
-                    if (schemaType != null && List.of("array", "object").contains(schemaType) && !parameter.isExplode() && param instanceof String) {
-                        String style = parameter.getStyle() == null ? "form" : parameter.getStyle();
-                        String delimiter;
-                        switch (style) {
-                        case "form":
-                            delimiter = ",";
-                            break;
-                        case "spaceDelimited":
-                            delimiter = " ";
-                            break;
-                        case "pipeDelimited":
-                            delimiter = "\\|";
-                            break;
-                        default:
-                            return param;
-                        }
+    private static boolean isCompiled(OperationPlan plan, Set<String> operations) {
+        return operations.contains("*") || operations.contains(plan.getKey())
+                || (plan.getOperationId() != null && operations.contains(plan.getOperationId()));
+    }
 
-                        // Convert string to array
-                        param = ((String)param).split(delimiter, -1);
-
-                        if (schemaType.equals("object")) {
-                            // Convert array to object
-                            Map<String, String> obj = new HashMap<>();
-                            int length = ((String[])param).length;
-                            for (int i = 0; i < length; i += 2) {
-                                obj.put(((String[])param)[i], i + 1 == length ? "" : ((String[])param)[i + 1]);
-                            }
-                            param = obj;
-                        }
-                    }
-                    return param;
-                case PATH:
-                    return requestEntity.getPathParameters()==null?null:requestEntity.getPathParameters().get(name);
-                case HEADER:
-                    return requestEntity.getHeaderParameters()==null?null:requestEntity.getHeaderParameters().get(name);
-                case COOKIE:
-                    return requestEntity.getCookieParameters()==null?null:requestEntity.getCookieParameters().get(name);
-            }
+    /**
+     * @param requestURI normalised path
+     * @param httpMethod http method of the request
+     * @return the order the request checks of the operation currently run in, null if there is no such operation
+     */
+    public List<ValidationStage> getStageOrder(String requestURI, String httpMethod) {
+        OperationPlan plan = getOperationPlan(requestURI, httpMethod);
+        if (plan == null) {
+            return null;
         }
+        return List.of(adaptiveOrdering ? plan.getStageOrder().getOrder() : ValidationStage.DEFAULT_ORDER);
+    }
 
-        return null;
+    /**
+     * Validate the request against the given API operation
+     * @param requestURI normalised path
+     * @param httpMethod Http method definition (get/post/put/delete)
+     * @param requestEntity wrap object for request
+     * @return A validation report containing validation errors
+     */
+    public Status validateRequestPath (String requestURI , String httpMethod, RequestEntity requestEntity ) {
+        return ValidationError.toStatus(validateRequest(requestURI, httpMethod, requestEntity));
     }
 
-    private Status validateQueryParameters(final RequestEntity requestEntity, final OpenApiOperation openApiOperation) {
-        ValidationResult result = validateDeserializedValues(requestEntity, openApiOperation.getOperation().getParameters(), ParameterType.QUERY);
+    /**
+     * Validate the request against the given API operation without building a status.
+     *
+     * The error keeps the detail configured with {@link #setErrorDetail(ErrorDetail)}; its description is only
+     * formatted when asked for.
+     *
+     * @param requestURI normalised path
+     * @param httpMethod Http method definition (get/post/put/delete)
+     * @param requestEntity wrap object for request
+     * @return the first validation error, null if the request is valid
+     */
+    public ValidationError validateRequest(String requestURI, String httpMethod, RequestEntity requestEntity) {
+        return validateRequest(requestURI, httpMethod, requestEntity, 1).getFirstError();
+    }
 
-        if (null!=result.getStatus() || result.getSkippedParameters().isEmpty()) {
-            return result.getStatus();
+    /**
+     * Validate the request against the given API operation and collect the violations of all parameters and
+     * the body.
+     *
+     * Evaluation stops as soon as the report holds maxErrors errors, so a small budget also means less work for
+     * invalid requests. A budget of 1 is a true fail fast.
+     *
+     * @param requestURI normalised path
+     * @param httpMethod Http method definition (get/post/put/delete)
+     * @param requestEntity wrap object for request
+     * @param maxErrors error budget, at least 1, or {@link ValidationReport#UNLIMITED}
+     * @return the validation report
+     */
+    public ValidationReport validateRequest(String requestURI, String httpMethod, RequestEntity requestEntity, int maxErrors) {
+        requireNonNull(openApiHelper, "openApiHelper object cannot be null");
+        ValidationReport report = new ValidationReport(maxErrors, errorDetail);
+        NormalisedPath requestPath = requestPath(requestURI);
+        NormalisedPath apiPath = findMatchingApiPath(requestPath);
+        if (apiPath == null) {
+            report.add(error(STATUS_INVALID_REQUEST_PATH, requestURI));
+            return report;
         }
-        if  (result.skippedParameters!=null && !result.skippedParameters.isEmpty()) {
-            return result.skippedParameters.stream().map(p-> new Status (VALIDATOR_REQUEST_PARAMETER_QUERY_MISSING, p.getName(), openApiOperation.getPathString().original()))
-                    .filter(s->s != null).findFirst().get();
+        OperationPlan plan = getOperationPlan(apiPath, httpMethod);
+        if (plan == null) {
+            report.add(error(STATUS_METHOD_NOT_ALLOWED, httpMethod, requestURI));
+            return report;
         }
-        return null;
+
+        if (requestEntity!=null) {
+            // the values captured by the match stand in for path parameters the caller did not extract
+            ParameterSource pathParameters = requestEntity.getPathSource();
+            if (pathParameters == null && !plan.getPathParameters().isEmpty()) {
+                pathParameters = ParameterSource.of(plan.capturePathParameters(requestPath));
+            }
+            LoadController controller = loadController;
+            long start = controller == null ? 0 : System.nanoTime();
+            boolean skipBody = controller != null && plan.isBodyValidationOptional()
+                    && controller.getLevel() == ValidationLevel.NO_OPTIONAL_BODY;
+            if (adaptiveOrdering) {
+                validateRequestAdaptively(report, requestEntity, pathParameters, plan, skipBody);
+            } else {
+                for (ValidationStage stage : ValidationStage.DEFAULT_ORDER) {
+                    if (report.isFull()) break;
+                    if (stage == ValidationStage.BODY && skipBody) continue;
+                    validateStage(stage, report, requestEntity, pathParameters, plan);
+                }
+            }
+            if (controller != null) {
+                controller.record(start);
+            }
+        }
+        return report;
     }
 
-    private Status validateHeaderParameters(final RequestEntity requestEntity,
-                                            final OpenApiOperation openApiOperation) {
+    private void validateRequestAdaptively(ValidationReport report, RequestEntity requestEntity, ParameterSource pathParameters,
+                                           OperationPlan plan, boolean skipBody) {
+        AdaptiveStageOrder stageOrder = plan.getStageOrder();
+        for (ValidationStage stage : stageOrder.getOrder()) {
+            if (report.isFull()) break;
+            if (stage == ValidationStage.BODY && skipBody) continue;
+            int errors = report.getErrors().size();
+            long start = System.nanoTime();
+            validateStage(stage, report, requestEntity, pathParameters, plan);
+            stageOrder.record(stage, System.nanoTime() - start, report.getErrors().size() > errors);
+        }
+        stageOrder.requestCompleted();
+    }
 
-        // validate path level parameters for headers first.
-        Optional<Status> optional = validatePathLevelHeaders(requestEntity, openApiOperation);
-        if(optional.isPresent()) {
-            return optional.get();
-        } else {
-            // validate operation level parameter for headers second.
-            optional = validateOperationLevelHeaders(requestEntity, openApiOperation);
-            return optional.orElse(null);
+    private void validateStage(ValidationStage stage, ValidationReport report, RequestEntity requestEntity, ParameterSource pathParameters,
+                               OperationPlan plan) {
+        switch (stage) {
+            case PATH:
+                validateParameters(report, pathParameters, plan.getPathParameters(), ParameterType.PATH,
+                        VALIDATOR_REQUEST_PARAMETER_PATH_MISSING, plan);
+                break;
+            case QUERY:
+                if (!plan.getQueryParameters().isEmpty()) {
+                    validateParameters(report, getQueryParameters(requestEntity, plan), plan.getQueryParameters(), ParameterType.QUERY,
+                            VALIDATOR_REQUEST_PARAMETER_QUERY_MISSING, plan);
+                }
+                break;
+            case HEADER:
+                // validate path level parameters for headers first.
+                validateParameters(report, requestEntity.getHeaderSource(), plan.getPathLevelHeaderParameters(), ParameterType.HEADER,
+                        VALIDATOR_REQUEST_PARAMETER_HEADER_MISSING, plan);
+                // validate operation level parameter for headers second.
+                validateParameters(report, requestEntity.getHeaderSource(), plan.getHeaderParameters(), ParameterType.HEADER,
+                        VALIDATOR_REQUEST_PARAMETER_HEADER_MISSING, plan);
+                break;
+            case COOKIE:
+                if (plan.getPathLevelCookieParameters().isEmpty() && plan.getCookieParameters().isEmpty()) {
+                    break;
+                }
+                ParameterSource cookies = getCookieParameters(requestEntity, plan);
+                // validate path level parameters for cookies first.
+                validateParameters(report, cookies, plan.getPathLevelCookieParameters(), ParameterType.COOKIE,
+                        VALIDATOR_REQUEST_PARAMETER_MISSING, plan);
+                // validate operation level parameter for cookies second.
+                validateParameters(report, cookies, plan.getCookieParameters(), ParameterType.COOKIE,
+                        VALIDATOR_REQUEST_PARAMETER_MISSING, plan);
+                break;
+            case BODY:
+                // application/json and the +json media types, e.g. application/problem+json; charset=utf-8
+                ContentType contentType = requestEntity.getContentType() == null ? ContentType.JSON : ContentType.of(requestEntity.getContentType());
+                if (contentType.isJson()) {
+                    Object body = attachJsonBody(requestEntity.getRequestBody(), plan.isCompiled() ? plan.getRequestBodySchema(contentType) : null);
+                    if (body == CONTENT_MISMATCH) {
+                        report.add(error(STATUS_CONTENT_TYPE_MISMATCH, "application/json").at(BODY_POINTER, null));
+                    } else {
+                        validateRequestBody(report, body, plan, contentType);
+                    }
+                } else if (contentType.getMediaType().equals("multipart/form-data")) {
+                    validateMultipartBody(report, requestEntity, plan, contentType);
+                } else if (contentType.getMediaType().equals("application/x-www-form-urlencoded")) {
+                    validateUrlEncodedBody(report, requestEntity, plan, contentType);
+                }
+                break;
         }
+    }
 
+    protected void validateRequestBody (ValidationReport report, Object requestBody, OperationPlan plan) {
+        validateRequestBody(report, requestBody, plan, ContentType.JSON);
     }
 
-    private Optional<Status> validatePathLevelHeaders(final RequestEntity requestEntity, final OpenApiOperation openApiOperation) {
-       ValidationResult result = validateDeserializedValues(requestEntity, openApiOperation.getPathObject().getParameters(), ParameterType.HEADER);
+    private void validateRequestBody(ValidationReport report, Object requestBody, OperationPlan plan, ContentType contentType) {
+        requireNonNull(openApiHelper, "openApiHelper object cannot be null");
+        requireNonNull(schemaValidator, "schemaValidator object cannot be null");
+
+        final OpenApiOperation openApiOperation = plan.getOpenApiOperation();
+        final RequestBody specBody = openApiOperation.getOperation().getRequestBody();
 
-        if (null!=result.getStatus() || result.getSkippedParameters().isEmpty()) {
-            return Optional.ofNullable(result.getStatus());
-        }
-        if  (result.skippedParameters!=null && !result.skippedParameters.isEmpty()) {
-            return result.skippedParameters.stream().map(p-> new Status (VALIDATOR_REQUEST_PARAMETER_HEADER_MISSING, p.getName(), openApiOperation.getPathString().original()))
-                    .filter(s->s != null).findFirst();
+        if (requestBody != null && specBody == null) {
+            report.add(error(VALIDATOR_REQUEST_BODY_UNEXPECTED, openApiOperation.getMethod(), openApiOperation.getPathString().original()).at(BODY_POINTER, null));
+            return;
         }
-        return Optional.ofNullable(null);
-    }
 
+        if (specBody == null || !Overlay.isPresent((RequestBodyImpl)specBody)) {
+            return;
+        }
 
+        if (requestBody == null) {
+            if (specBody.getRequired() != null && specBody.getRequired()) {
+                report.add(error(VALIDATOR_REQUEST_BODY_MISSING, openApiOperation.getMethod(), openApiOperation.getPathString().original()).at(BODY_POINTER, null));
+            }
+            return;
+        }
+        Schema schema = plan.getRequestBodySchema(contentType);
+        if (schema != null) {
+            schemaValidator.validate(requestBody, schema, BODY_CONFIG, null, BODY_POINTER, report, plan.isCompiled());
+        }
+    }
 
-    private Optional<Status> validateOperationLevelHeaders(final RequestEntity requestEntity, final OpenApiOperation openApiOperation) {
-        ValidationResult result = validateDeserializedValues(requestEntity, openApiOperation.getOperation().getParameters(), ParameterType.HEADER);
+    /**
+     * Validate a {@code multipart/form-data} body part by part while it is read. A field is read up to
+     * {@link #getMaxFieldPartSize()} and validated against the schema of its property: as json if the part or the
+     * property is json, else as text converted to the type of the property, like a parameter. A file, a
+     * {@code string} of format {@code binary}, is skipped while its bytes are counted against {@code minLength} and
+     * {@code maxLength}. The Content-Type of every part is checked against the {@code encoding} of its property.
+     */
+    private void validateMultipartBody(ValidationReport report, RequestEntity requestEntity, OperationPlan plan, ContentType contentType) {
+        InputStream body = requestEntity.getRequestBodyStream();
+        if (body == null && requestEntity.getRequestBody() != null) {
+            body = new ByteArrayInputStream(requestEntity.getRequestBody().getBytes(StandardCharsets.UTF_8));
+        }
+        MultipartForm form = plan.getMultipartForm(contentType);
+        if (body == null || form == null) {
+            // the presence of the body is checked as for json, there is no schema to validate the parts against
+            validateRequestBody(report, body, plan, contentType);
+            return;
+        }
+        String boundary = ContentType.getParameter(requestEntity.getContentType(), "boundary");
+        if (boundary == null || boundary.isEmpty()) {
+            report.add(error(STATUS_CONTENT_TYPE_MISMATCH, requestEntity.getContentType()).at(BODY_POINTER, null));
+            return;
+        }
+        Map<String, Integer> parts = new HashMap<>();
+        try {
+            MultipartReader reader = new MultipartReader(body, boundary);
+            while (!report.isFull() && reader.next()) {
+                validatePart(report, reader, form, parts);
+            }
+        } catch (IOException e) {
+            // a truncated body or a malformed delimiter or part header
+            report.add(error(STATUS_BAD_BODY).at(BODY_POINTER, null));
+            return;
+        }
+        for (String name : form.getRequiredFields()) {
+            if (!parts.containsKey(name)) {
+                String pointer = ValidationError.appendPointerSegment(new StringBuilder(BODY_POINTER), name).toString();
+                if (report.add(error(SchemaValidator.VALIDATOR_SCHEMA, "$: required property '" + name + "' not found").at(pointer, null))) {
+                    return;
+                }
+            }
+        }
+    }
 
-        if (null!=result.getStatus() || result.getSkippedParameters().isEmpty()) {
-            return Optional.ofNullable(result.getStatus());
+    /**
+     * Validate an {@code application/x-www-form-urlencoded} body. The body is decoded in one scan into the values of
+     * the declared properties, deserialized like query parameters and converted to the types of the schema, and the
+     * resulting tree is validated like a json body.
+     */
+    private void validateUrlEncodedBody(ValidationReport report, RequestEntity requestEntity, OperationPlan plan, ContentType contentType) {
+        String body = requestEntity.getRequestBody();
+        UrlEncodedForm form = plan.getUrlEncodedForm(contentType);
+        if (body == null || form == null) {
+            validateRequestBody(report, body, plan, contentType);
+            return;
         }
-        if  (result.skippedParameters!=null && !result.skippedParameters.isEmpty()) {
-            return result.skippedParameters.stream().map(p-> new Status (VALIDATOR_REQUEST_PARAMETER_HEADER_MISSING, p.getName(), openApiOperation.getPathString().original()))
-                    .filter(s->s != null).findFirst();
+        UrlEncodedForm.Body values = form.read(body);
+        if (values.undeclared != null
+                && report.add(undeclaredProperty(values.undeclared).at(BODY_POINTER, new JsonNodePath(BODY_CONFIG.getPathType()).append(values.undeclared)))) {
+            return;
         }
-        return Optional.ofNullable(null);
+        schemaValidator.validate(values.values, plan.getRequestBodySchema(contentType), BODY_CONFIG, null, BODY_POINTER, report, plan.isCompiled());
+    }
+
+    /**
+     * @return the error of a form property the schema does not declare nor allow
+     */
+    private ValidationError undeclaredProperty(String name) {
+        return error(SchemaValidator.VALIDATOR_SCHEMA, "$: property '" + name
+                + "' is not defined in the schema and the schema does not allow additional properties");
     }
 
-    private Status validateCookieParameters(final RequestEntity requestEntity,
-                                            final OpenApiOperation openApiOperation) {
-        // validate path level parameters for cookies first.
-        Optional<Status> optional = validatePathLevelCookies(requestEntity, openApiOperation);
-        if (optional.isPresent()) {
-            return optional.get();
+    private void validatePart(ValidationReport report, MultipartReader reader, MultipartForm form, Map<String, Integer> parts) throws IOException {
+        String name = reader.getName();
+        if (name == null) {
+            return;
+        }
+        int index = parts.merge(name, 1, Integer::sum) - 1;
+        JsonNodePath location = new JsonNodePath(BODY_CONFIG.getPathType()).append(name);
+        MultipartForm.Field field = form.getField(name);
+        if (field == null) {
+            if (!form.isAdditionalProperties() && index == 0) {
+                report.add(undeclaredProperty(name).at(BODY_POINTER, location));
+            }
+            return;
+        }
+        if (field.array) {
+            location = location.append(index);
+        }
+        String partType = reader.getContentType();
+        if (partType == null) {
+            // the defaults of RFC 7578
+            partType = reader.getFileName() == null ? "text/plain" : "application/octet-stream";
+        }
+        ContentType parsedType = ContentType.of(partType);
+        if (!field.accepts(parsedType)) {
+            report.add(error(STATUS_CONTENT_TYPE_MISMATCH, partType).at(BODY_POINTER, location));
+            return;
+        }
+        if (field.binary) {
+            long size = reader.skip();
+            Integer minLength = field.schema.getMinLength();
+            Integer maxLength = field.schema.getMaxLength();
+            if (maxLength != null && size > maxLength) {
+                report.add(error(SchemaValidator.VALIDATOR_SCHEMA, location + ": " + size + " bytes, more than the maximum of " + maxLength)
+                        .at(BODY_POINTER, location));
+            } else if (minLength != null && size < minLength) {
+                report.add(error(SchemaValidator.VALIDATOR_SCHEMA, location + ": " + size + " bytes, less than the minimum of " + minLength)
+                        .at(BODY_POINTER, location));
+            }
+            return;
+        }
+        byte[] content = reader.readFully(maxFieldPartSize);
+        if (content == null) {
+            report.add(error(STATUS_PAYLOAD_TOO_LARGE).at(BODY_POINTER, location));
+            return;
+        }
+        String text = new String(content, StandardCharsets.UTF_8);
+        if (parsedType.isJson() || (field.json && parsedType.getMediaType().equals("text/plain"))) {
+            JsonNode value;
+            try {
+                value = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                report.add(error(SchemaValidator.VALIDATOR_SCHEMA_INVALID_JSON, e.getOriginalMessage()).at(BODY_POINTER, location));
+                return;
+            }
+            if (value == null || value.isMissingNode()) {
+                report.add(error(SchemaValidator.VALIDATOR_SCHEMA_INVALID_JSON, "no content").at(BODY_POINTER, location));
+                return;
+            }
+            schemaValidator.validate(value, field.schema, BODY_CONFIG, location, BODY_POINTER, report, false);
         } else {
-            // validate operation level parameter for cookies second.
-            optional = validateOperationLevelCookies(requestEntity, openApiOperation);
-            return optional.orElse(null);
+            schemaValidator.validate(text, field.schema, PARAMETER_CONFIG, location, BODY_POINTER, report, false);
         }
-
     }
 
-    private Optional<Status> validatePathLevelCookies(final RequestEntity requestEntity, final OpenApiOperation openApiOperation) {
-        ValidationResult result = validateDeserializedValues(requestEntity, openApiOperation.getPathObject().getParameters(), ParameterType.COOKIE);
+    protected void validateRequestParameters(final ValidationReport report, final RequestEntity requestEntity, final OperationPlan plan) {
+        ParameterSource pathParameters = requestEntity.getPathSource();
+        validateStage(ValidationStage.PATH, report, requestEntity, pathParameters, plan);
+        validateStage(ValidationStage.QUERY, report, requestEntity, pathParameters, plan);
+        validateStage(ValidationStage.HEADER, report, requestEntity, pathParameters, plan);
+        validateStage(ValidationStage.COOKIE, report, requestEntity, pathParameters, plan);
+    }
 
-        if (null!=result.getStatus() || result.getSkippedParameters().isEmpty()) {
-            return Optional.ofNullable(result.getStatus());
+    /**
+     * Validate the parameters of one location, already filtered by the operation plan. Schema errors of the
+     * present values are reported before the missing required parameters of the same location.
+     */
+    private void validateParameters(final ValidationReport report, final ParameterSource values, final Collection<Parameter> parameters,
+                                    final ParameterType type, final String missingCode, final OperationPlan plan) {
+        if (report.isFull() || parameters.isEmpty()) {
+            return;
+        }
+        String pointerPrefix = "/" + type.getIn();
+
+        List<Parameter> missingParameters = null;
+        for (Parameter p : parameters) {
+            Object deserializedValue = getDeserializedValue(values, p, type, plan);
+            if (null==deserializedValue ) {
+                if (p.getRequired() != null && p.getRequired()) {
+                    if (missingParameters == null) {
+                        missingParameters = new ArrayList<>();
+                    }
+                    missingParameters.add(p);
+                }
+            } else {
+                JsonNodePath instanceLocation = new JsonNodePath(PARAMETER_CONFIG.getPathType()).append(p.getName());
+                schemaValidator.validate(deserializedValue, p.getSchema(), PARAMETER_CONFIG, instanceLocation, pointerPrefix, report, false);
+                if (report.isFull()) {
+                    return;
+                }
+            }
         }
-        if  (result.skippedParameters!=null && !result.skippedParameters.isEmpty()) {
-            return result.skippedParameters.stream().map(p-> new Status (VALIDATOR_REQUEST_PARAMETER_MISSING, p.getName(), openApiOperation.getPathString().original()))
-                    .filter(s->s != null).findFirst();
+        if (missingParameters != null) {
+            for (Parameter p : missingParameters) {
+                String pointer = ValidationError.appendPointerSegment(new StringBuilder(pointerPrefix), p.getName()).toString();
+                if (report.add(error(missingCode, p.getName(), plan.getOpenApiOperation().getPathString().original()).at(pointer, null))) {
+                    return;
+                }
+            }
         }
-        return Optional.ofNullable(null);
     }
 
+    /**
+     * @return the query parameters of the request, read from the raw query string if they are not set
+     */
+    private static ParameterSource getQueryParameters(final RequestEntity requestEntity, final OperationPlan plan) {
+        if (requestEntity.getQuerySource() != null || requestEntity.getQueryString() == null) {
+            return requestEntity.getQuerySource();
+        }
+        return ParameterSource.of(plan.getQueryStringReader().read(requestEntity.getQueryString()));
+    }
 
+    /**
+     * @return the cookie parameters of the request, read from the raw Cookie header if they are not set
+     */
+    private static ParameterSource getCookieParameters(final RequestEntity requestEntity, final OperationPlan plan) {
+        if (requestEntity.getCookieSource() != null || requestEntity.getCookieHeader() == null) {
+            return requestEntity.getCookieSource();
+        }
+        return ParameterSource.of(plan.getCookieHeaderReader().read(requestEntity.getCookieHeader()));
+    }
 
-    private Optional<Status> validateOperationLevelCookies(final RequestEntity requestEntity, final OpenApiOperation openApiOperation) {
-        ValidationResult result = validateDeserializedValues(requestEntity, openApiOperation.getOperation().getParameters(), ParameterType.COOKIE);
-
-        if (null!=result.getStatus() || result.getSkippedParameters().isEmpty()) {
-            return Optional.ofNullable(result.getStatus());
+    private Object getDeserializedValue(final ParameterSource values, final Parameter parameter, final ParameterType type, final OperationPlan plan) {
+        String name = parameter.getName();
+        if (null==values || null==type || StringUtils.isBlank(name)) {
+            return null;
         }
-        if  (result.skippedParameters!=null && !result.skippedParameters.isEmpty()) {
-            return result.skippedParameters.stream().map(p-> new Status (VALIDATOR_REQUEST_PARAMETER_MISSING, p.getName(), openApiOperation.getPathString().original()))
-                    .filter(s->s != null).findFirst();
+        switch (type) {
+            case QUERY:
+                return plan.getQueryDeserializer(parameter).deserialize(values);
+            default:
+                return values.get(name);
         }
-        return Optional.ofNullable(null);
     }
 
     /**
      * validate a given response content object
+     * @param report the report to add the errors to
      * @param responseContent response content needs to be validated
-     * @param openApiOperation OpenApi Operation which is located by uri and httpMethod
+     * @param plan the plan of the operation which is located by uri and httpMethod
      * @param statusCode eg. 200, 400
      * @param mediaTypeName eg. "application/json"
-     * @return Status return null if no validation errors
      */
-    protected Status validateResponseContent(Object responseContent, OpenApiOperation openApiOperation, String statusCode, String mediaTypeName) {
+    protected void validateResponseContent(ValidationReport report, Object responseContent, OperationPlan plan, String statusCode, String mediaTypeName) {
+        final OpenApiOperation openApiOperation = plan.getOpenApiOperation();
+        ResponseTable.Entry response = plan.getResponses().get(statusCode);
+        Schema schema = response == null ? null : response.getSchema(mediaTypeName);
         //try to convert json string to structured object
         if(responseContent instanceof String) {
-            try {
-                responseContent = attachJsonBody((String)responseContent);
-            } catch (Exception e) {
-                return new Status(VALIDATOR_RESPONSE_CONTENT_UNEXPECTED, openApiOperation.getMethod(), openApiOperation.getPathString().original());
+            responseContent = attachJsonBody((String)responseContent, plan.isCompiled() ? schema : null);
+            if (responseContent == CONTENT_MISMATCH) {
+                report.add(error(VALIDATOR_RESPONSE_CONTENT_UNEXPECTED, openApiOperation.getMethod(), openApiOperation.getPathString().original()).at(BODY_POINTER, null));
+                return;
             }
         }
-        JsonNode schema = getContentSchema(openApiOperation, statusCode, mediaTypeName);
-        //if cannot find schema based on status code, try to get from "default"
-        if(schema == null || schema.isMissingNode()) {
-            // if corresponding response exist but also does not contain any schema, pass validation
-            if (openApiOperation.getOperation().getResponses().containsKey(String.valueOf(statusCode))) {
-                return null;
-            }
-            schema = getContentSchema(openApiOperation, DEFAULT_STATUS_CODE, mediaTypeName);
-            // if default also does not contain any schema, pass validation
-            if (schema == null || schema.isMissingNode()) return null;
+        if (schema == null) {
+            return;
         }
-        if ((responseContent != null && schema == null) ||
-                (responseContent == null && schema != null)) {
-            return new Status(VALIDATOR_RESPONSE_CONTENT_UNEXPECTED, openApiOperation.getMethod(), openApiOperation.getPathString().original());
+        if (responseContent == null) {
+            report.add(error(VALIDATOR_RESPONSE_CONTENT_UNEXPECTED, openApiOperation.getMethod(), openApiOperation.getPathString().original()).at(BODY_POINTER, null));
+            return;
         }
-        SchemaValidatorsConfig config = new SchemaValidatorsConfig();
-        config.setTypeLoose(false);
-        config.setHandleNullableField(true);
-        return schemaValidator.validate(responseContent, schema, config);
+        schemaValidator.validate(responseContent, schema, BODY_CONFIG, null, BODY_POINTER, report, plan.isCompiled());
     }
 
     /**
@@ -462,146 +815,236 @@ public class OpenApiValidator {
      * @return A validation report containing validation errors
      */
     public Status validateResponsePath(String requestURI, String httpMethod, String statusCode, ResponseEntity responseEntity) {
-        OpenApiOperation openApiOperation;
-        try {
-            openApiOperation = getOpenApiOperation(requestURI, httpMethod.toLowerCase());
-            if (openApiOperation == null) {
-                return new Status(STATUS_INVALID_REQUEST_PATH, requestURI);
-            }
-        } catch (NullPointerException e) {
-            // This exception is thrown from within the OpenApiOperation constructor on operation == null.
-            return new Status(STATUS_METHOD_NOT_ALLOWED, httpMethod, requestURI);
-        }
-        Status status = validateHeaders(responseEntity.getHeaders(), openApiOperation, statusCode);
-        if(status != null) return status;
-        return validateResponseContent(responseEntity.getContent(), openApiOperation, statusCode, responseEntity.getContentType());
-    }
-
-    private Status validateHeaders(Map<String, ?> headers, OpenApiOperation operation, String statusCode) {
-        Optional<Response> response = Optional.ofNullable(operation.getOperation().getResponse(statusCode));
-        if(response.isPresent()) {
-            Map<String, Header> headerMap = response.get().getHeaders();
-            Optional<Status> optional = headerMap.entrySet()
-                    .stream()
-                    //based on OpenAPI specification, ignore "Content-Type" header
-                    //If a response header is defined with the name "Content-Type", it SHALL be ignored. - https://github.com/OAI/OpenAPI-Specification/blob/master/versions/3.0.0.md#responseObject
-                    .filter(entry -> !"Content-Type".equalsIgnoreCase(entry.getKey()))
-                    .map(p -> validateHeader(headers, p.getKey(), p.getValue(), operation))
-                    .filter(s -> s != null)
-                    .findFirst();
-            if(optional.isPresent()) {
-                return optional.get();
+        return ValidationError.toStatus(validateResponse(requestURI, httpMethod, statusCode, responseEntity));
+    }
+
+    /**
+     * Validate the response against the given API operation without building a status.
+     *
+     * @param requestURI normalised path
+     * @param httpMethod Http method definition (get/post/put/delete)
+     * @param statusCode Http status code
+     * @param responseEntity wrapper object for response
+     * @return the first validation error, null if the response is valid
+     */
+    public ValidationError validateResponse(String requestURI, String httpMethod, String statusCode, ResponseEntity responseEntity) {
+        return validateResponse(requestURI, httpMethod, statusCode, responseEntity, 1).getFirstError();
+    }
+
+    /**
+     * Validate the response against the given API operation and collect the violations of the headers and the
+     * content, up to the error budget.
+     *
+     * When a {@link ResponseSampling} policy is set, or a {@link LoadController} has lowered the level, the response
+     * may be skipped without parsing its content.
+     *
+     * @param requestURI normalised path
+     * @param httpMethod Http method definition (get/post/put/delete)
+     * @param statusCode Http status code
+     * @param responseEntity wrapper object for response
+     * @param maxErrors error budget, at least 1, or {@link ValidationReport#UNLIMITED}
+     * @return the validation report
+     */
+    public ValidationReport validateResponse(String requestURI, String httpMethod, String statusCode, ResponseEntity responseEntity, int maxErrors) {
+        ValidationReport report = new ValidationReport(maxErrors, errorDetail);
+        NormalisedPath apiPath = findMatchingApiPath(requestPath(requestURI));
+        if (apiPath == null) {
+            report.add(error(STATUS_INVALID_REQUEST_PATH, requestURI));
+            return report;
+        }
+        OperationPlan plan = getOperationPlan(apiPath, httpMethod);
+        if (plan == null) {
+            report.add(error(STATUS_METHOD_NOT_ALLOWED, httpMethod, requestURI));
+            return report;
+        }
+        LoadController controller = loadController;
+        if (controller != null && controller.getLevel() != ValidationLevel.FULL) {
+            report.skip();
+            return report;
+        }
+        ResponseSampling sampling = responseSampling;
+        if (sampling != null && !sampling.sample(plan, statusCode)) {
+            report.skip();
+            return report;
+        }
+        long start = controller == null ? 0 : System.nanoTime();
+        validateHeaders(report, responseEntity.getHeaderSource(), plan, statusCode);
+        if (!report.isFull()) {
+            validateResponseContent(report, responseEntity.getContent(), plan, statusCode, responseEntity.getContentType());
+        }
+        if (controller != null) {
+            controller.record(start);
+        }
+        return report;
+    }
+
+    private void validateHeaders(ValidationReport report, ParameterSource headers, OperationPlan plan, String statusCode) {
+        ResponseTable.Entry response = plan.getResponses().get(statusCode);
+        if (response == null) {
+            return;
+        }
+        for (ResponseTable.ResponseHeader header : response.getHeaders()) {
+            validateHeader(report, headers, header, plan.getOpenApiOperation());
+            if (report.isFull()) {
+                return;
             }
         }
-        return null;
     }
 
-    private Status validateHeader(Map<String, ?> headers, String headerName, Header operationHeader, OpenApiOperation openApiOperation) {
-        // According to RFC7230, header field names are case-insensitive.
-        Optional<Object> headerValue = Optional.ofNullable(headers).flatMap(opt -> opt.entrySet()
-                .stream()
-                .filter(entry -> headerName.equalsIgnoreCase(entry.getKey()))
-                .map(entry -> entry.getValue())
-                .findFirst()
-        );
-        if (headerValue.isEmpty()) {
-            if (Boolean.TRUE.equals(operationHeader.getRequired())) {
-                return new Status(VALIDATOR_RESPONSE_HEADER_MISSING, headerName, openApiOperation.getPathString().original());
+    private void validateHeader(ValidationReport report, ParameterSource headers, ResponseTable.ResponseHeader header, OpenApiOperation openApiOperation) {
+        String pointer = ValidationError.appendPointerSegment(new StringBuilder(HEADER_POINTER), header.name).toString();
+        // According to RFC7230, header field names are case-insensitive, the source looks them up ignoring case.
+        Object headerValue = headers == null ? null : headers.get(header.name);
+        if (headerValue == null) {
+            if (Boolean.TRUE.equals(header.header.getRequired())) {
+                report.add(error(VALIDATOR_RESPONSE_HEADER_MISSING, header.name, openApiOperation.getPathString().original()).at(pointer, null));
             }
         } else {
-            SchemaValidatorsConfig config = new SchemaValidatorsConfig();
-            //header won't tell if it's a real string or not. needs trying to convert.
-            config.setTypeLoose(true);
-            config.setHandleNullableField(true);
-            return schemaValidator.validate(headerValue.get(), Overlay.toJson((SchemaImpl)operationHeader.getSchema()), config);
+            schemaValidator.validate(headerValue, header.header.getSchema(), HEADER_CONFIG, null, pointer, report, false);
         }
-        return null;
+    }
+
+    private ValidationError error(String code, Object... args) {
+        return new ValidationError(code, errorDetail, args);
     }
 
     /**
      * Method used to parse the body into a Map or a List and attach it into exchange
      *
+     * A body that is not an object or an array is reported with the {@link #CONTENT_MISMATCH} marker without
+     * parsing. A body up to {@link #JSON_PRESCAN_MAX_LENGTH} characters is also checked with {@link JsonSyntax}
+     * before it is handed to Jackson, so a small malformed body is rejected without an exception; the valid body
+     * is then scanned twice, which for a small body is cheaper than the exception. A longer body is only parsed.
+     * <p>
+     * The body of a compiled operation is read straight into the tree its compiled schema checks; the values no
+     * keyword inspects are skipped by the parser, see {@link ParseShape}.
+     *
      * @param bodyString   unparsed request body
-     * @throws IOException
-     * @return body object
+     * @param schema the schema of a compiled operation, null to parse into a Map or a List
+     * @return body object, null if there is no body or {@link #CONTENT_MISMATCH}
      */
-    private Object attachJsonBody( String bodyString) throws Exception {
+    private Object attachJsonBody(String bodyString, Schema schema) {
         Object body = null;
         if (bodyString != null) {
             bodyString = bodyString.trim();
-            if (bodyString.startsWith("{")) {
-                body = objectMapper.readValue(bodyString, new TypeReference<Map<String, Object>>() {
-                });
-            } else if (bodyString.startsWith("[")) {
-                body = objectMapper.readValue(bodyString, new TypeReference<List<Object>>() {
-                });
-            } else {
+            if (bodyString.isEmpty() || bodyString.charAt(0) != '{' && bodyString.charAt(0) != '['
+                    || bodyString.length() <= JSON_PRESCAN_MAX_LENGTH && !JsonSyntax.isWellFormed(bodyString)) {
                 // error here. The content type in head doesn't match the body.
-                throw new Exception("The content type in head doesn't match the body");
+                return CONTENT_MISMATCH;
+            }
+            ParseShape shape = schema == null ? null : schemaValidator.getParseShape(schema);
+            try {
+                if (shape != null) {
+                    try (JsonParser parser = objectMapper.getFactory().createParser(bodyString)) {
+                        parser.nextToken();
+                        body = shape.read(parser, objectMapper.getNodeFactory());
+                    }
+                } else if (bodyString.startsWith("{")) {
+                    body = objectMapper.readValue(bodyString, new TypeReference<Map<String, Object>>() {
+                    });
+                } else {
+                    body = objectMapper.readValue(bodyString, new TypeReference<List<Object>>() {
+                    });
+                }
+            } catch (StreamConstraintsException e) {
+                internalLogger.warn("Json body exceeds a parser limit: {}", e.toString());
+                return CONTENT_MISMATCH;
+            } catch (IOException e) {
+                // a malformed body longer than JSON_PRESCAN_MAX_LENGTH
+                return CONTENT_MISMATCH;
             }
-
         }
         return body;
     }
 
     /**
-     * locate operation based on uri and httpMethod
      * @param requestURI normalised path
-     * @param httpMethod http method of the request
-     * @return OpenApiOperation the wrapper of an api operation
+     * @return the request path without the base path, null if there is no request uri
      */
-    private OpenApiOperation getOpenApiOperation(String requestURI, String httpMethod) {
-        NormalisedPath requestPath = new ApiNormalisedPath(requestURI, openApiHelper.basePath);
-        Optional<NormalisedPath> maybeApiPath = openApiHelper.findMatchingApiPath(requestPath);
-        if (!maybeApiPath.isPresent()) {
+    private NormalisedPath requestPath(String requestURI) {
+        return requestURI == null ? null : new ApiNormalisedPath(requestURI, openApiHelper.basePath);
+    }
+
+    /**
+     * locate the api path matching the request path
+     * @param requestPath request path returned by {@link #requestPath(String)}
+     * @return NormalisedPath the matching path of the specification, or null if no path matches
+     */
+    private NormalisedPath findMatchingApiPath(NormalisedPath requestPath) {
+        if (requestPath == null) {
             return null;
         }
-
-        final NormalisedPath openApiPathString = maybeApiPath.get();
-        final Path path = openApiHelper.openApi3.getPath(openApiPathString.original());
-
-        final Operation operation = path.getOperation(httpMethod);
-        return new OpenApiOperation(openApiPathString, path, httpMethod, operation);
+        if (compiledSpec != null) {
+            String path = compiledSpec.findPath(requestPath.parts());
+            return path == null ? null : apiPaths.get(path);
+        }
+        return openApiHelper.findMatchingApiPath(requestPath).orElse(null);
     }
 
-    private JsonNode getContentSchema(OpenApiOperation operation, String statusCode, String mediaTypeStr) {
-        Schema schema;
-        Optional<Response> response = Optional.ofNullable(operation.getOperation().getResponse(String.valueOf(statusCode)));
-        if(response.isPresent()) {
-            Optional<MediaType> mediaType = Optional.ofNullable(response.get().getContentMediaType(mediaTypeStr));
-            if(mediaType.isPresent()) {
-                schema = mediaType.get().getSchema();
-                JsonNode schemaNode = schema == null ? null : Overlay.toJson((SchemaImpl)schema);
-                return schemaNode;
-            }
+    /**
+     * locate the operation plan based on the matched api path and httpMethod. The plans of all operations of a
+     * path are built the first time the path is matched.
+     * @param openApiPathString api path returned by {@link #findMatchingApiPath(NormalisedPath)}
+     * @param httpMethod http method of the request
+     * @return OperationPlan the plan of the api operation, or null if the method is not defined on the path
+     */
+    private OperationPlan getOperationPlan(NormalisedPath openApiPathString, String httpMethod) {
+        if (httpMethod == null) {
+            return null;
         }
-        return null;
+        return operationPlans.computeIfAbsent(openApiPathString.original(), p -> buildOperationPlans(openApiPathString))
+                .get(httpMethod.toLowerCase());
     }
 
-    class ValidationResult {
-        private Set<Parameter> skippedParameters = new HashSet<>();;
-        private List<Status> statuses = new ArrayList<>();
-
-        public void addSkipped(Parameter p) {
-            skippedParameters.add(p);
-        }
+    /**
+     * locate the operation plan of a request
+     * @param requestURI normalised path
+     * @param httpMethod http method of the request
+     * @return OperationPlan the plan of the api operation, or null if the path or method is not defined
+     */
+    OperationPlan getOperationPlan(String requestURI, String httpMethod) {
+        NormalisedPath apiPath = findMatchingApiPath(requestPath(requestURI));
+        return apiPath == null ? null : getOperationPlan(apiPath, httpMethod);
+    }
 
-        public void addStatus(Status s) {
-            if (null!=s) {
-                statuses.add(s);
-            }
-        }
+    /**
+     * @param requestURI normalised path
+     * @param httpMethod http method of the request
+     * @return the method and path of the operation of a request, e.g. "GET /pets/{petId}"; null if the path or
+     * method is not defined
+     */
+    public String getOperationKey(String requestURI, String httpMethod) {
+        OperationPlan plan = getOperationPlan(requestURI, httpMethod);
+        return plan == null ? null : plan.getKey();
+    }
 
-        public Set<Parameter> getSkippedParameters(){
-            return Collections.unmodifiableSet(skippedParameters);
-        }
+    /**
+     * Match a request with an operation and capture the values of its path parameters, for callers that route
+     * requests themselves. The validation of a request without path parameters captures them the same way.
+     *
+     * @param requestURI normalised path
+     * @param httpMethod http method of the request
+     * @return the path parameters of the request, null if the path or method is not defined
+     */
+    public PathParameters getPathParameters(String requestURI, String httpMethod) {
+        NormalisedPath requestPath = requestPath(requestURI);
+        NormalisedPath apiPath = findMatchingApiPath(requestPath);
+        OperationPlan plan = apiPath == null ? null : getOperationPlan(apiPath, httpMethod);
+        return plan == null ? null : plan.capturePathParameters(requestPath);
+    }
 
-        public Status getStatus() {
-            return statuses.isEmpty()?null:statuses.get(0);
+    private Map<String, OperationPlan> buildOperationPlans(NormalisedPath openApiPathString) {
+        final Path path = openApiHelper.openApi3.getPath(openApiPathString.original());
+        if (path == null) {
+            return Collections.emptyMap();
         }
-
-        public List<Status> getAllStatues(){
-            return Collections.unmodifiableList(statuses);
+        Map<String, OperationPlan> plans = new HashMap<>();
+        for (Map.Entry<String, Operation> entry : path.getOperations().entrySet()) {
+            String method = entry.getKey().toLowerCase();
+            OperationPlan plan = new OperationPlan(new OpenApiOperation(openApiPathString, path, method, entry.getValue()));
+            setCompiled(plan, isCompiled(plan, compiledOperations));
+            plans.put(method, plan);
         }
+        return plans;
     }
 }
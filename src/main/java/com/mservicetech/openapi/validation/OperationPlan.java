@@ -0,0 +1,235 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.ParameterType;
+import com.networknt.jsonoverlay.Overlay;
+import com.networknt.oas.model.Parameter;
+import com.networknt.oas.model.RequestBody;
+import com.networknt.oas.model.Schema;
+import com.networknt.oas.model.impl.RequestBodyImpl;
+import com.networknt.openapi.NormalisedPath;
+import com.networknt.openapi.OpenApiOperation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the validator needs to know about one operation, worked out once when the operation is first
+ * requested and kept for the life of the validator.
+ */
+class OperationPlan {
+    /**
+     * Operation extension that allows a {@link LoadController} to skip the request body validation of the
+     * operation under load, e.g. {@code x-validation-optional: true}.
+     */
+    static final String OPTIONAL_BODY_EXTENSION = "x-validation-optional";
+
+    private final OpenApiOperation openApiOperation;
+    private final String key;
+    private final List<Parameter> pathParameters;
+    private final String[] pathParameterNames;
+    private final int[] pathParameterSegments;
+    private final List<Parameter> queryParameters;
+    private final Map<Parameter, QueryParameterDeserializer> queryDeserializers = new IdentityHashMap<>();
+    private final QueryStringReader queryStringReader;
+    private final List<Parameter> pathLevelHeaderParameters;
+    private final List<Parameter> headerParameters;
+    private final ResponseTable responses;
+    /** the media types of the request body, null if the operation has no request body */
+    private final MediaTypeTable requestBodyTypes;
+    private final List<Parameter> pathLevelCookieParameters;
+    private final List<Parameter> cookieParameters;
+    private final CookieHeaderReader cookieHeaderReader;
+    private final boolean bodyValidationOptional;
+    private final AdaptiveStageOrder stageOrder = new AdaptiveStageOrder();
+    private volatile boolean compiled;
+
+    OperationPlan(OpenApiOperation openApiOperation) {
+        this.openApiOperation = openApiOperation;
+        this.key = openApiOperation.getMethod().toUpperCase() + " " + openApiOperation.getPathString().original();
+        List<Parameter> operationLevel = openApiOperation.getOperation().getParameters();
+        List<Parameter> pathLevel = openApiOperation.getPathObject().getParameters();
+        // path and query parameters are only taken from the operation level, as they always have been
+        this.pathParameters = filter(operationLevel, ParameterType.PATH);
+        NormalisedPath template = openApiOperation.getPathString();
+        List<String> names = new ArrayList<>();
+        List<Integer> segments = new ArrayList<>();
+        for (int i = 0; i < template.parts().size(); i++) {
+            if (template.isParam(i)) {
+                names.add(template.paramName(i));
+                segments.add(i);
+            }
+        }
+        this.pathParameterNames = names.toArray(new String[0]);
+        this.pathParameterSegments = segments.stream().mapToInt(Integer::intValue).toArray();
+        this.queryParameters = filter(operationLevel, ParameterType.QUERY);
+        List<String> queryNames = new ArrayList<>();
+        List<String> queryPrefixes = new ArrayList<>();
+        for (Parameter p : queryParameters) {
+            QueryParameterDeserializer deserializer = QueryParameterDeserializer.of(p);
+            deserializer.declare(queryNames, queryPrefixes);
+            queryDeserializers.put(p, deserializer);
+        }
+        this.queryStringReader = new QueryStringReader(queryNames, queryPrefixes);
+        this.pathLevelHeaderParameters = filter(pathLevel, ParameterType.HEADER);
+        this.headerParameters = filter(operationLevel, ParameterType.HEADER);
+        this.responses = new ResponseTable(openApiOperation.getOperation().getResponses());
+        RequestBody requestBody = openApiOperation.getOperation().getRequestBody();
+        this.requestBodyTypes = requestBody == null || !Overlay.isPresent((RequestBodyImpl) requestBody)
+                ? null : new MediaTypeTable(requestBody.getContentMediaTypes());
+        this.pathLevelCookieParameters = filter(pathLevel, ParameterType.COOKIE);
+        this.cookieParameters = filter(operationLevel, ParameterType.COOKIE);
+        List<String> cookieNames = new ArrayList<>();
+        for (List<Parameter> cookies : List.of(pathLevelCookieParameters, cookieParameters)) {
+            for (Parameter p : cookies) {
+                cookieNames.add(p.getName());
+            }
+        }
+        this.cookieHeaderReader = new CookieHeaderReader(cookieNames);
+        Object optional = openApiOperation.getOperation().getExtension(OPTIONAL_BODY_EXTENSION);
+        this.bodyValidationOptional = Boolean.TRUE.equals(optional) || "true".equals(optional);
+    }
+
+    private static List<Parameter> filter(Collection<Parameter> parameters, ParameterType type) {
+        List<Parameter> result = new ArrayList<>();
+        for (Parameter p : parameters) {
+            if (ParameterType.is(p.getIn(), type)) {
+                result.add(p);
+            }
+        }
+        return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+    OpenApiOperation getOpenApiOperation() {
+        return openApiOperation;
+    }
+
+    /**
+     * @return the method and path of the operation, e.g. "GET /pets/{petId}"
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the operationId of the specification, may be null
+     */
+    String getOperationId() {
+        return openApiOperation.getOperation().getOperationId();
+    }
+
+    /**
+     * @return true if the operation is marked with {@value #OPTIONAL_BODY_EXTENSION}
+     */
+    boolean isBodyValidationOptional() {
+        return bodyValidationOptional;
+    }
+
+    /**
+     * @return true if the bodies of the operation are validated with compiled schemas
+     * @see OpenApiValidator#setCompiledOperations(Collection)
+     */
+    boolean isCompiled() {
+        return compiled;
+    }
+
+    void setCompiled(boolean compiled) {
+        this.compiled = compiled;
+    }
+
+    List<Parameter> getPathParameters() {
+        return pathParameters;
+    }
+
+    /**
+     * @param requestPath a request path matched with the path of the operation
+     * @return the values of the path parameters in the request path
+     */
+    PathParameters capturePathParameters(NormalisedPath requestPath) {
+        return PathParameters.capture(requestPath, pathParameterNames, pathParameterSegments);
+    }
+
+    List<Parameter> getQueryParameters() {
+        return queryParameters;
+    }
+
+    QueryParameterDeserializer getQueryDeserializer(Parameter parameter) {
+        return queryDeserializers.get(parameter);
+    }
+
+    QueryStringReader getQueryStringReader() {
+        return queryStringReader;
+    }
+
+    List<Parameter> getPathLevelHeaderParameters() {
+        return pathLevelHeaderParameters;
+    }
+
+    List<Parameter> getHeaderParameters() {
+        return headerParameters;
+    }
+
+    ResponseTable getResponses() {
+        return responses;
+    }
+
+    /**
+     * @param contentType the Content-Type of the request
+     * @return the schema of the request body, null if there is nothing to validate
+     */
+    Schema getRequestBodySchema(ContentType contentType) {
+        return requestBodyTypes == null ? null : requestBodyTypes.getSchema(contentType);
+    }
+
+    /**
+     * @return the schemas of the request body and of the responses a compiled operation validates with
+     */
+    List<Schema> getBodySchemas() {
+        List<Schema> schemas = new ArrayList<>();
+        if (requestBodyTypes != null) {
+            requestBodyTypes.addSchemas(schemas);
+        }
+        responses.addSchemas(schemas);
+        return schemas;
+    }
+
+    /**
+     * @param contentType the Content-Type of a multipart request body
+     * @return the parts of the body, null if the operation has no schema for the Content-Type
+     */
+    MultipartForm getMultipartForm(ContentType contentType) {
+        return requestBodyTypes == null ? null : requestBodyTypes.getMultipartForm(contentType);
+    }
+
+    /**
+     * @param contentType the Content-Type of a form request body
+     * @return the properties of the body, null if the operation has no schema for the Content-Type
+     */
+    UrlEncodedForm getUrlEncodedForm(ContentType contentType) {
+        return requestBodyTypes == null ? null : requestBodyTypes.getUrlEncodedForm(contentType);
+    }
+
+    List<Parameter> getPathLevelCookieParameters() {
+        return pathLevelCookieParameters;
+    }
+
+    List<Parameter> getCookieParameters() {
+        return cookieParameters;
+    }
+
+    CookieHeaderReader getCookieHeaderReader() {
+        return cookieHeaderReader;
+    }
+
+    AdaptiveStageOrder getStageOrder() {
+        return stageOrder;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
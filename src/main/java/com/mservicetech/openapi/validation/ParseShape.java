@@ -0,0 +1,207 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mservicetech.openapi.format.Formats;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The parts of a body a compiled schema inspects, used to parse the body straight into the tree the schema is
+ * checked against.
+ * <p>
+ * A value whose schema has no constraint, e.g. {@code metadata: {}}, a free-form map value or the items of an
+ * array without an {@code items} schema, is skipped with {@link JsonParser#skipChildren()}: the parser only checks
+ * that it is well-formed and no node is built for it. The tree holds {@link #SKIPPED} in its place, so the property
+ * names and the array sizes stay as they are for the checks of the parent.
+ * <p>
+ * Shapes are only built for schemas the {@link SchemaCompiler} translated, so every keyword is known to either
+ * constrain the value or be an annotation.
+ */
+final class ParseShape {
+    /** the value is not inspected by any keyword */
+    static final ParseShape SKIP = new ParseShape();
+    /** the value is read completely */
+    static final ParseShape FULL = new ParseShape();
+    /** placeholder of a skipped value in the parsed tree */
+    static final JsonNode SKIPPED = NullNode.getInstance();
+
+    private final Map<String, ParseShape> properties = new HashMap<>();
+    private ParseShape additional = SKIP;
+    private ParseShape items = SKIP;
+
+    private ParseShape() {
+    }
+
+    /**
+     * @param schema a schema that was compiled by the {@link SchemaCompiler}
+     * @param components the components of the specification, may be null
+     * @return the shape of the values of the schema
+     */
+    static ParseShape of(JsonNode schema, JsonNode components) {
+        return new Builder(components).shape(schema, true);
+    }
+
+    ParseShape property(String name) {
+        if (this == FULL) {
+            return FULL;
+        }
+        ParseShape shape = properties.get(name);
+        return shape == null ? additional : shape;
+    }
+
+    ParseShape items() {
+        return this == FULL ? FULL : items;
+    }
+
+    /**
+     * Read the value at the current token of the parser.
+     *
+     * @param parser a parser positioned on the first token of the value
+     * @param factory the node factory
+     * @return the value, {@link #SKIPPED} if it is not inspected
+     * @throws IOException if the value is not well-formed
+     */
+    JsonNode read(JsonParser parser, JsonNodeFactory factory) throws IOException {
+        if (this == SKIP) {
+            parser.skipChildren();
+            return SKIPPED;
+        }
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            throw new IOException("Unexpected end of input");
+        }
+        switch (token) {
+            case START_OBJECT:
+                ObjectNode object = factory.objectNode();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    object.set(name, property(name).read(parser, factory));
+                }
+                return object;
+            case START_ARRAY:
+                ArrayNode array = factory.arrayNode();
+                ParseShape itemShape = items();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() == null) {
+                        throw new IOException("Unexpected end of input");
+                    }
+                    array.add(itemShape.read(parser, factory));
+                }
+                return array;
+            case VALUE_STRING:
+                return factory.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                // the same node types as a Map parsed by Jackson and converted with valueToTree
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return factory.numberNode(parser.getIntValue());
+                    case LONG:
+                        return factory.numberNode(parser.getLongValue());
+                    default:
+                        return factory.numberNode(parser.getBigIntegerValue());
+                }
+            case VALUE_NUMBER_FLOAT:
+                return factory.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return factory.booleanNode(true);
+            case VALUE_FALSE:
+                return factory.booleanNode(false);
+            case VALUE_NULL:
+                return factory.nullNode();
+            default:
+                throw new IOException("Unexpected token " + token);
+        }
+    }
+
+    private static final class Builder {
+        private final JsonNode components;
+        private final Map<String, ParseShape> refs = new HashMap<>();
+
+        Builder(JsonNode components) {
+            this.components = components;
+        }
+
+        ParseShape shape(JsonNode schema, boolean root) {
+            if (schema == null || schema.isBoolean()) {
+                // true accepts and false rejects any value, neither looks into it
+                return SKIP;
+            }
+            if (!schema.isObject()) {
+                return FULL;
+            }
+            if (!isConstrained(schema, root)) {
+                return SKIP;
+            }
+            if (isComposed(schema)) {
+                // the branches inspect the same value, it is read completely
+                return FULL;
+            }
+            JsonNode ref = schema.get("$ref");
+            if (ref != null) {
+                // a $ref next to other keywords checks the value twice, it is read completely
+                return isConstrained(((ObjectNode) schema).deepCopy().without("$ref"), root) ? FULL : ref(ref.asText());
+            }
+            ParseShape shape = new ParseShape();
+            fill(shape, schema);
+            return shape;
+        }
+
+        private ParseShape ref(String ref) {
+            ParseShape shape = refs.get(ref);
+            if (shape != null) {
+                return shape;
+            }
+            JsonNode target = components == null ? NullNode.getInstance()
+                    : components.at(ref.substring(("#/" + SchemaValidator.COMPONENTS_FIELD).length()));
+            if (target.isObject() && isConstrained(target, false) && !target.has("$ref") && !isComposed(target)) {
+                // registered before the properties so that a recursive schema refers to itself
+                shape = new ParseShape();
+                refs.put(ref, shape);
+                fill(shape, target);
+                return shape;
+            }
+            // a chain of references is read completely
+            shape = target.has("$ref") ? FULL : shape(target, false);
+            refs.put(ref, shape);
+            return shape;
+        }
+
+        private static boolean isConstrained(JsonNode schema, boolean root) {
+            Iterator<String> names = schema.fieldNames();
+            while (names.hasNext()) {
+                if (!SchemaCompiler.isAnnotation(names.next(), root)) {
+                    return true;
+                }
+            }
+            // a format with a scanner may be asserted
+            return Formats.isSupported(schema.path("format").textValue());
+        }
+
+        private static boolean isComposed(JsonNode schema) {
+            return schema.has("oneOf") || schema.has("anyOf");
+        }
+
+        private void fill(ParseShape shape, JsonNode schema) {
+            JsonNode properties = schema.get("properties");
+            if (properties != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    shape.properties.put(field.getKey(), shape(field.getValue(), false));
+                }
+            }
+            shape.additional = shape(schema.get("additionalProperties"), false);
+            shape.items = shape(schema.get("items"), false);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.mservicetech.openapi.validation;
+
+import com.networknt.openapi.NormalisedPath;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The values of the path parameters captured when a request path is matched with the path of an operation, e.g.
+ * {@code petId} of {@code /pets/{petId}}. A value is kept as the offsets of its segment in the request path and is
+ * only percent-decoded when it is read.
+ *
+ * @see OpenApiValidator#getPathParameters(String, String)
+ */
+public final class PathParameters extends AbstractMap<String, String> {
+    private final String path;
+    private final String[] names;
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] values;
+
+    private PathParameters(String path, String[] names, int[] starts, int[] ends) {
+        this.path = path;
+        this.names = names;
+        this.starts = starts;
+        this.ends = ends;
+        this.values = new String[names.length];
+    }
+
+    /**
+     * @param requestPath the matched request path
+     * @param names the names of the parameters of the operation path
+     * @param segments the index of the segment of each parameter in the operation path
+     */
+    static PathParameters capture(NormalisedPath requestPath, String[] names, int[] segments) {
+        String normalised = requestPath.normalised();
+        String original = requestPath.original();
+        // the offsets are in the request uri when the base path was removed from its start, as it is in practice
+        String path = normalised;
+        int shift = 0;
+        if (original.endsWith(normalised.substring(1))) {
+            path = original;
+            shift = original.length() - normalised.length();
+        }
+        int[] starts = new int[names.length];
+        int[] ends = new int[names.length];
+        int segment = 0;
+        int start = 0;
+        for (int i = 0; i < names.length; i++) {
+            while (segment < segments[i]) {
+                start = normalised.indexOf('/', start) + 1;
+                segment++;
+            }
+            int end = normalised.indexOf('/', start);
+            starts[i] = start + shift;
+            ends[i] = (end < 0 ? normalised.length() : end) + shift;
+        }
+        return new PathParameters(path, names, starts, ends);
+    }
+
+    /**
+     * @return the request uri the offsets refer to; the path without the base path if the base path was not at
+     * the start of the uri
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @param name the name of a parameter
+     * @return the offset of the first character of the raw value in {@link #getPath()}, -1 if there is no such
+     * parameter
+     */
+    public int getStart(String name) {
+        int index = indexOf(name);
+        return index < 0 ? -1 : starts[index];
+    }
+
+    /**
+     * @param name the name of a parameter
+     * @return the offset after the last character of the raw value in {@link #getPath()}, -1 if there is no such
+     * parameter
+     */
+    public int getEnd(String name) {
+        int index = indexOf(name);
+        return index < 0 ? -1 : ends[index];
+    }
+
+    private int indexOf(Object name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String value(int index) {
+        String value = values[index];
+        if (value == null) {
+            value = QueryStringReader.decode(path, starts[index], ends[index], false);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : value(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < names.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<>(names[index], value(index));
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mservicetech.openapi.regex.Regex;
+import com.mservicetech.openapi.regex.RegexEngine;
+import com.networknt.schema.BaseJsonValidator;
+import com.networknt.schema.ExecutionContext;
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonType;
+import com.networknt.schema.JsonValidator;
+import com.networknt.schema.Keyword;
+import com.networknt.schema.SchemaLocation;
+import com.networknt.schema.TypeFactory;
+import com.networknt.schema.ValidationContext;
+import com.networknt.schema.ValidationMessage;
+import com.networknt.schema.ValidatorTypeCode;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The {@code pattern} keyword of the schema engine, with the patterns compiled by a {@link RegexEngine}. The
+ * messages are the ones of the built-in keyword.
+ */
+final class PatternKeyword implements Keyword {
+    private final RegexEngine engine;
+
+    PatternKeyword(RegexEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public String getValue() {
+        return ValidatorTypeCode.PATTERN.getValue();
+    }
+
+    @Override
+    public JsonValidator newValidator(SchemaLocation schemaLocation, JsonNodePath evaluationPath, JsonNode schemaNode,
+                                      JsonSchema parentSchema, ValidationContext validationContext) {
+        return new PatternValidator(schemaLocation, evaluationPath, schemaNode, parentSchema, validationContext, engine);
+    }
+
+    private static final class PatternValidator extends BaseJsonValidator {
+        private final String pattern;
+        private final Regex regex;
+
+        PatternValidator(SchemaLocation schemaLocation, JsonNodePath evaluationPath, JsonNode schemaNode, JsonSchema parentSchema,
+                         ValidationContext validationContext, RegexEngine engine) {
+            super(schemaLocation, evaluationPath, schemaNode, parentSchema, ValidatorTypeCode.PATTERN, validationContext);
+            this.pattern = schemaNode.isTextual() ? schemaNode.textValue() : null;
+            // compiled once, with the schema
+            this.regex = pattern == null ? null : engine.compile(pattern);
+        }
+
+        @Override
+        public Set<ValidationMessage> validate(ExecutionContext executionContext, JsonNode node, JsonNode rootNode, JsonNodePath instanceLocation) {
+            if (regex == null || TypeFactory.getValueNodeType(node, validationContext.getConfig()) != JsonType.STRING
+                    || regex.find(node.asText())) {
+                return Collections.emptySet();
+            }
+            return Collections.singleton(message().instanceNode(node).instanceLocation(instanceLocation)
+                    .locale(executionContext.getExecutionConfig().getLocale())
+                    .failFast(executionContext.isFailFast())
+                    .arguments(pattern).build());
+        }
+    }
+}
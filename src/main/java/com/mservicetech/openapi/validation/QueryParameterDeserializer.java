@@ -0,0 +1,285 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.ParameterSource;
+import com.networknt.oas.model.Parameter;
+import com.networknt.oas.model.Schema;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Read the value of a query parameter from the query parameters of a request, according to the style and explode
+ * of the parameter. The deserializer is chosen once per parameter, when the operation plan is built.
+ * <p>
+ * The styles of the OpenAPI serialization table are supported for arrays and objects:
+ * <ul>
+ *     <li>{@code form}, {@code spaceDelimited} and {@code pipeDelimited} without explode: the value is split on
+ *     the delimiter, into a list or into the pairs of an object</li>
+ *     <li>{@code form} with explode: the values of a repeated key form the array, the properties of an object are
+ *     separate keys</li>
+ *     <li>{@code deepObject}: the properties are the keys {@code name[property]}</li>
+ * </ul>
+ * A parameter without {@code explode} is not exploded, as it always has been. The split values are views over the
+ * value, the delimiters are found by index without a regex.
+ */
+abstract class QueryParameterDeserializer {
+    private static final String ARRAY = "array";
+    private static final String OBJECT = "object";
+
+    /**
+     * @param query the query parameters of the request, never null
+     * @return the value to validate against the schema of the parameter, null if the parameter is absent
+     */
+    abstract Object deserialize(ParameterSource query);
+
+    /**
+     * Add the keys the deserializer reads, for a {@link QueryStringReader}.
+     *
+     * @param names the keys
+     * @param prefixes the prefixes of keys
+     */
+    abstract void declare(List<String> names, List<String> prefixes);
+
+    static QueryParameterDeserializer of(Parameter parameter) {
+        return of(parameter.getName(), parameter.getSchema(), parameter.getStyle(), parameter.isExplode());
+    }
+
+    /**
+     * @param name the name of the value, e.g. of a parameter or of a property of a form body
+     * @param schema the schema of the value, may be null
+     * @param style the style of the value, null for form
+     * @param explode the explode of the value
+     * @return the deserializer of the value
+     */
+    static QueryParameterDeserializer of(String name, Schema schema, String style, boolean explode) {
+        String type = schema == null ? null : schema.getType();
+        if (!ARRAY.equals(type) && !OBJECT.equals(type)) {
+            return new Plain(name);
+        }
+        if (style == null) {
+            style = "form";
+        }
+        boolean array = ARRAY.equals(type);
+        if ("deepObject".equals(style)) {
+            return array ? new Plain(name) : new DeepObject(name);
+        }
+        if (explode) {
+            return array ? new ExplodedArray(name) : new ExplodedObject(new ArrayList<>(schema.getProperties().keySet()));
+        }
+        char delimiter;
+        switch (style) {
+            case "form":
+                delimiter = ',';
+                break;
+            case "spaceDelimited":
+                delimiter = ' ';
+                break;
+            case "pipeDelimited":
+                delimiter = '|';
+                break;
+            default:
+                return new Plain(name);
+        }
+        return new Delimited(name, delimiter, !array);
+    }
+
+    /**
+     * A value that is not split, e.g. a primitive or a value in an unsupported style.
+     */
+    private static final class Plain extends QueryParameterDeserializer {
+        private final String name;
+
+        Plain(String name) {
+            this.name = name;
+        }
+
+        @Override
+        void declare(List<String> names, List<String> prefixes) {
+            names.add(name);
+        }
+
+        @Override
+        Object deserialize(ParameterSource query) {
+            return query.get(name);
+        }
+    }
+
+    /**
+     * An array or an object in one value, e.g. {@code 3,4,5} or {@code R,100,G,200}.
+     */
+    private static final class Delimited extends QueryParameterDeserializer {
+        private final String name;
+        private final char delimiter;
+        private final boolean object;
+
+        Delimited(String name, char delimiter, boolean object) {
+            this.name = name;
+            this.delimiter = delimiter;
+            this.object = object;
+        }
+
+        @Override
+        void declare(List<String> names, List<String> prefixes) {
+            names.add(name);
+        }
+
+        @Override
+        Object deserialize(ParameterSource query) {
+            Object value = query.get(name);
+            if (value instanceof Collection && ((Collection<?>) value).size() == 1) {
+                // the values of the keys collected in a list, the key is not repeated
+                value = ((Collection<?>) value).iterator().next();
+            }
+            if (!(value instanceof String)) {
+                return value;
+            }
+            SplitList values = SplitList.split((String) value, delimiter);
+            return object ? new PairMap(values) : values;
+        }
+    }
+
+    /**
+     * An array in repeated keys, e.g. {@code id=3&id=4&id=5}.
+     */
+    private static final class ExplodedArray extends QueryParameterDeserializer {
+        private final String name;
+
+        ExplodedArray(String name) {
+            this.name = name;
+        }
+
+        @Override
+        void declare(List<String> names, List<String> prefixes) {
+            names.add(name);
+        }
+
+        @Override
+        Object deserialize(ParameterSource query) {
+            Object value = query.get(name);
+            // a key that is not repeated may be collected as a single value
+            return value instanceof String ? List.of(value) : value;
+        }
+    }
+
+    /**
+     * An object with a key per property, e.g. {@code R=100&G=200}. Only the properties of the schema are known to
+     * belong to the parameter.
+     */
+    private static final class ExplodedObject extends QueryParameterDeserializer {
+        private final List<String> properties;
+
+        ExplodedObject(List<String> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        void declare(List<String> names, List<String> prefixes) {
+            names.addAll(properties);
+        }
+
+        @Override
+        Object deserialize(ParameterSource query) {
+            Map<String, Object> object = null;
+            for (String property : properties) {
+                Object value = query.get(property);
+                if (value != null) {
+                    if (object == null) {
+                        object = new LinkedHashMap<>();
+                    }
+                    object.put(property, value);
+                }
+            }
+            return object;
+        }
+    }
+
+    /**
+     * An object with a key per property in brackets, e.g. {@code color[R]=100&color[G]=200}. The keys are found in
+     * the names of the source.
+     */
+    private static final class DeepObject extends QueryParameterDeserializer {
+        private final String prefix;
+
+        DeepObject(String name) {
+            this.prefix = name + "[";
+        }
+
+        @Override
+        void declare(List<String> names, List<String> prefixes) {
+            prefixes.add(prefix);
+        }
+
+        @Override
+        Object deserialize(ParameterSource query) {
+            Map<String, Object> object = null;
+            for (String key : query.getNames()) {
+                if (key.length() > prefix.length() + 1 && key.startsWith(prefix) && key.charAt(key.length() - 1) == ']') {
+                    if (object == null) {
+                        object = new LinkedHashMap<>();
+                    }
+                    object.put(key.substring(prefix.length(), key.length() - 1), query.get(key));
+                }
+            }
+            return object;
+        }
+    }
+
+    /**
+     * The parts of a value between the delimiters, found once; a part is only copied when it is read.
+     */
+    static final class SplitList extends AbstractList<String> implements RandomAccess {
+        private final String value;
+        /** the start of each part, then one past the end of the value */
+        private final int[] starts;
+
+        private SplitList(String value, int[] starts) {
+            this.value = value;
+            this.starts = starts;
+        }
+
+        static SplitList split(String value, char delimiter) {
+            int count = 1;
+            for (int i = value.indexOf(delimiter); i >= 0; i = value.indexOf(delimiter, i + 1)) {
+                count++;
+            }
+            int[] starts = new int[count + 1];
+            int part = 1;
+            for (int i = value.indexOf(delimiter); i >= 0; i = value.indexOf(delimiter, i + 1)) {
+                starts[part++] = i + 1;
+            }
+            starts[count] = value.length() + 1;
+            return new SplitList(value, starts);
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return value.substring(starts[index], starts[index + 1] - 1);
+        }
+
+        @Override
+        public int size() {
+            return starts.length - 1;
+        }
+    }
+
+    /**
+     * An object in the parts of a value, alternately a property and its value. The value of a property without one
+     * is empty; a repeated property keeps its last value and its first position.
+     */
+    static final class PairMap extends LinkedHashMap<String, String> {
+        PairMap(SplitList parts) {
+            super(Math.max(16, parts.size()));
+            for (int i = 0; i < parts.size(); i += 2) {
+                put(parts.get(i), i + 1 == parts.size() ? "" : parts.get(i + 1));
+            }
+        }
+    }
+}
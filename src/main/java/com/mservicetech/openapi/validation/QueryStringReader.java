@@ -0,0 +1,249 @@
+package com.mservicetech.openapi.validation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read the query parameters an operation declares from a raw query string, in one scan. The keys are compared with
+ * the declared names while they are percent-decoded, so an undeclared key is skipped without building a string;
+ * only the keys and values of declared parameters are decoded.
+ * <p>
+ * A repeated key becomes a list of its values, like the query parameters of most frameworks. A malformed percent
+ * escape is kept as it is.
+ */
+final class QueryStringReader {
+    private final String[] names;
+    private final byte[][] nameBytes;
+    private final byte[][] prefixes;
+
+    /**
+     * @param names the keys of the declared parameters
+     * @param prefixes the prefixes of the keys of deepObject parameters, e.g. {@code color[}
+     */
+    QueryStringReader(List<String> names, List<String> prefixes) {
+        this.names = names.toArray(new String[0]);
+        this.nameBytes = new byte[this.names.length][];
+        for (int i = 0; i < this.names.length; i++) {
+            nameBytes[i] = this.names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        this.prefixes = new byte[prefixes.size()][];
+        for (int i = 0; i < prefixes.size(); i++) {
+            this.prefixes[i] = prefixes.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @param query the raw query string, a leading '?' is skipped
+     * @return the declared parameters of the query string, with their decoded values
+     */
+    Values read(String query) {
+        Values parameters = new Values(query);
+        int length = query.length();
+        int pos = length > 0 && query.charAt(0) == '?' ? 1 : 0;
+        while (pos < length) {
+            int amp = query.indexOf('&', pos);
+            int pairEnd = amp < 0 ? length : amp;
+            int keyEnd = indexOf(query, '=', pos, pairEnd);
+            if (keyEnd > pos) {
+                String name = declaredName(query, pos, keyEnd);
+                if (name != null) {
+                    add(parameters, name, keyEnd == pairEnd ? "" : decode(query, keyEnd + 1, pairEnd));
+                } else if (parameters.undeclared++ == 0) {
+                    parameters.undeclaredStart = pos;
+                    parameters.undeclaredEnd = keyEnd;
+                }
+            }
+            pos = pairEnd + 1;
+        }
+        return parameters;
+    }
+
+    /**
+     * @return the position of the char between start and end, end if it is not there; the search never runs past
+     * the pair, so a query of keys without values is read in linear time
+     */
+    private static int indexOf(String s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @return the decoded key if it is declared, null otherwise
+     */
+    private String declaredName(String query, int start, int end) {
+        for (int i = 0; i < nameBytes.length; i++) {
+            if (matches(query, start, end, nameBytes[i], false)) {
+                return names[i];
+            }
+        }
+        for (byte[] prefix : prefixes) {
+            if (matches(query, start, end, prefix, true)) {
+                String name = decode(query, start, end);
+                if (name.length() > prefix.length && name.charAt(name.length() - 1) == ']') {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void add(Map<String, Object> parameters, String name, String value) {
+        Object existing = parameters.putIfAbsent(name, value);
+        if (existing instanceof List) {
+            ((List<Object>) existing).add(value);
+        } else if (existing != null) {
+            List<Object> values = new ArrayList<>();
+            values.add(existing);
+            values.add(value);
+            parameters.put(name, values);
+        }
+    }
+
+    /**
+     * Compare a key with a name while the key is decoded.
+     *
+     * @param prefix true if the key only has to start with the name
+     */
+    private static boolean matches(String s, int start, int end, byte[] name, boolean prefix) {
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            if (n == name.length) {
+                return prefix;
+            }
+            char c = s.charAt(i);
+            if (c == '%' && i + 2 < end && hexValue(s.charAt(i + 1)) >= 0 && hexValue(s.charAt(i + 2)) >= 0) {
+                if (name[n++] != (byte) (hexValue(s.charAt(i + 1)) << 4 | hexValue(s.charAt(i + 2)))) {
+                    return false;
+                }
+                i += 2;
+            } else if (c < 0x80) {
+                if (name[n++] != (byte) (c == '+' ? ' ' : c)) {
+                    return false;
+                }
+            } else {
+                // a character that should have been escaped, compared as its UTF-8 bytes
+                int codePoint = Character.codePointAt(s, i);
+                i += Character.charCount(codePoint) - 1;
+                int count = utf8Length(codePoint);
+                if (name.length - n < count) {
+                    return false;
+                }
+                for (int k = 0; k < count; k++) {
+                    if (name[n++] != utf8Byte(codePoint, count, k)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return n == name.length;
+    }
+
+    /**
+     * Percent-decode a part of the query string, '+' is a space.
+     */
+    static String decode(String s, int start, int end) {
+        return decode(s, start, end, true);
+    }
+
+    /**
+     * Percent-decode a part of a uri.
+     *
+     * @param plusAsSpace true if '+' is a space, as in a query string; false in a path
+     */
+    static String decode(String s, int start, int end, boolean plusAsSpace) {
+        char plus = plusAsSpace ? '+' : '%';
+        int i = start;
+        while (i < end && s.charAt(i) != '%' && s.charAt(i) != plus) {
+            i++;
+        }
+        if (i == end) {
+            return s.substring(start, end);
+        }
+        // a character is at most 3 bytes, a surrogate pair 4 bytes for 2 characters
+        byte[] bytes = new byte[3 * (end - start)];
+        int n = 0;
+        for (i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '%' && i + 2 < end && hexValue(s.charAt(i + 1)) >= 0 && hexValue(s.charAt(i + 2)) >= 0) {
+                bytes[n++] = (byte) (hexValue(s.charAt(i + 1)) << 4 | hexValue(s.charAt(i + 2)));
+                i += 2;
+            } else if (c < 0x80) {
+                bytes[n++] = (byte) (c == '+' && plusAsSpace ? ' ' : c);
+            } else {
+                int codePoint = Character.codePointAt(s, i);
+                i += Character.charCount(codePoint) - 1;
+                int count = utf8Length(codePoint);
+                for (int k = 0; k < count; k++) {
+                    bytes[n++] = utf8Byte(codePoint, count, k);
+                }
+            }
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static int utf8Length(int codePoint) {
+        return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * @return the byte at the index of the UTF-8 encoding of the code point
+     */
+    private static byte utf8Byte(int codePoint, int count, int index) {
+        if (count == 1) {
+            return (byte) codePoint;
+        }
+        if (index == 0) {
+            // the lead byte: as many high bits as bytes, then the high bits of the code point
+            return (byte) ((0xFF00 >> count) | (codePoint >> (6 * (count - 1))));
+        }
+        return (byte) (0x80 | ((codePoint >> (6 * (count - 1 - index))) & 0x3F));
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        char lower = (char) (c | 0x20);
+        if (lower >= 'a' && lower <= 'f') {
+            return lower - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * The declared parameters of a query string. The keys that are not declared are only counted, the first of them
+     * is decoded when it is asked for.
+     */
+    static final class Values extends HashMap<String, Object> {
+        private final String query;
+        private int undeclared;
+        private int undeclaredStart;
+        private int undeclaredEnd;
+
+        private Values(String query) {
+            this.query = query;
+        }
+
+        /**
+         * @return the number of the keys that are not declared
+         */
+        int getUndeclaredCount() {
+            return undeclared;
+        }
+
+        /**
+         * @return the first key that is not declared, decoded; null if every key is declared
+         */
+        String getFirstUndeclared() {
+            return undeclared == 0 ? null : decode(query, undeclaredStart, undeclaredEnd);
+        }
+    }
+}
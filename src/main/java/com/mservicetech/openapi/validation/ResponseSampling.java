@@ -0,0 +1,139 @@
+package com.mservicetech.openapi.validation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampling policy for response validation.
+ * <p>
+ * Validating every response doubles the validation cost of a service, while contract drift is still detected when
+ * only a fraction of the responses is checked. The policy has a global rate, optional per operation rates and, by
+ * default, always validates responses with an error status (4xx and 5xx) as they are rare and most likely to drift.
+ * <p>
+ * The decision is a thread local random draw; a response that is sampled out is never parsed.
+ */
+public class ResponseSampling {
+    private volatile double rate;
+    private volatile boolean alwaysValidateErrors = true;
+    private final Map<String, Double> operationRates = new ConcurrentHashMap<>();
+    private final LongAdder validated = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+
+    /**
+     * @param rate the fraction of responses to validate, between 0 and 1
+     */
+    public ResponseSampling(double rate) {
+        this.rate = checkRate(rate);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @param rate the fraction of responses to validate, between 0 and 1
+     */
+    public void setRate(double rate) {
+        this.rate = checkRate(rate);
+    }
+
+    public boolean isAlwaysValidateErrors() {
+        return alwaysValidateErrors;
+    }
+
+    /**
+     * @param alwaysValidateErrors true to validate every 4xx and 5xx response regardless of the rate, the default
+     */
+    public void setAlwaysValidateErrors(boolean alwaysValidateErrors) {
+        this.alwaysValidateErrors = alwaysValidateErrors;
+    }
+
+    /**
+     * Override the rate for one operation.
+     *
+     * @param operation the operationId, or the method and path of the specification, e.g. "GET /pets/{petId}"
+     * @param rate the fraction of responses of the operation to validate, between 0 and 1
+     */
+    public void setOperationRate(String operation, double rate) {
+        operationRates.put(normalise(operation), checkRate(rate));
+    }
+
+    /**
+     * @param operation the operationId, or the method and path of the specification
+     * @return the rate of the operation, null if the operation uses the global rate
+     */
+    public Double getOperationRate(String operation) {
+        return operationRates.get(normalise(operation));
+    }
+
+    public void removeOperationRate(String operation) {
+        operationRates.remove(normalise(operation));
+    }
+
+    /**
+     * @return number of responses validated since the policy was created
+     */
+    public long getValidated() {
+        return validated.sum();
+    }
+
+    /**
+     * @return number of responses skipped since the policy was created
+     */
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    /**
+     * Decide if a response is validated and count the decision.
+     *
+     * @param plan the operation of the response
+     * @param statusCode the status code of the response
+     * @return true if the response should be validated
+     */
+    boolean sample(OperationPlan plan, String statusCode) {
+        boolean result = (alwaysValidateErrors && isError(statusCode)) || draw(rateOf(plan));
+        (result ? validated : sampledOut).increment();
+        return result;
+    }
+
+    private double rateOf(OperationPlan plan) {
+        if (operationRates.isEmpty()) {
+            return rate;
+        }
+        Double operationRate = operationRates.get(plan.getKey());
+        if (operationRate == null && plan.getOperationId() != null) {
+            operationRate = operationRates.get(plan.getOperationId());
+        }
+        return operationRate == null ? rate : operationRate;
+    }
+
+    private static boolean draw(double rate) {
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private static boolean isError(String statusCode) {
+        if (statusCode == null || statusCode.length() != 3) {
+            return false;
+        }
+        char c = statusCode.charAt(0);
+        return c == '4' || c == '5';
+    }
+
+    /**
+     * The method of a "METHOD path" key is upper case, the same as {@link OperationPlan#getKey()}.
+     */
+    private static String normalise(String operation) {
+        int space = operation.indexOf(' ');
+        return space < 0 ? operation : operation.substring(0, space).toUpperCase() + operation.substring(space);
+    }
+
+    private static double checkRate(double rate) {
+        if (!(rate >= 0.0 && rate <= 1.0)) {
+            throw new IllegalArgumentException("rate must be between 0 and 1");
+        }
+        return rate;
+    }
+}
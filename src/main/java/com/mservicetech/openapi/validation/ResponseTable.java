@@ -0,0 +1,159 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.HttpStatus;
+import com.networknt.oas.model.Header;
+import com.networknt.oas.model.Response;
+import com.networknt.oas.model.Schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The responses of an operation, indexed by numeric status code. A status code is looked up in the exact codes, then
+ * in the ranges such as {@code 2XX}, then in {@code default}, as the OpenAPI specification orders them; the lookup
+ * of a three digit code is two array reads.
+ */
+final class ResponseTable {
+    private static final String DEFAULT = "default";
+    private static final int MIN_CODE = 100;
+    private static final int MAX_CODE = 599;
+
+    private final Entry[] codes = new Entry[MAX_CODE - MIN_CODE + 1];
+    /** by the value of the series, 1 to 5 */
+    private final Entry[] ranges = new Entry[HttpStatus.Series.values().length + 1];
+    private final Entry defaultEntry;
+    /** every response by its key, for the status codes that are not three digits */
+    private final Map<String, Entry> byKey = new HashMap<>();
+
+    ResponseTable(Map<String, Response> responses) {
+        Entry defaultEntry = null;
+        for (Map.Entry<String, Response> response : responses.entrySet()) {
+            String key = response.getKey();
+            Entry entry = new Entry(key, response.getValue());
+            byKey.put(key, entry);
+            int code = parseCode(key);
+            HttpStatus.Series series = parseRange(key);
+            if (code >= 0) {
+                codes[code - MIN_CODE] = entry;
+            } else if (series != null) {
+                ranges[series.value()] = entry;
+            } else if (DEFAULT.equals(key)) {
+                defaultEntry = entry;
+            }
+        }
+        this.defaultEntry = defaultEntry;
+    }
+
+    /**
+     * @param statusCode the status code of a response, e.g. "200"
+     * @return the declared response of the status code, its range or the default response; null if there is none
+     */
+    Entry get(String statusCode) {
+        int code = parseCode(statusCode);
+        if (code < 0) {
+            Entry entry = statusCode == null ? null : byKey.get(statusCode);
+            return entry == null ? defaultEntry : entry;
+        }
+        Entry entry = codes[code - MIN_CODE];
+        if (entry == null) {
+            entry = ranges[code / 100];
+        }
+        return entry == null ? defaultEntry : entry;
+    }
+
+    /**
+     * @param schemas the schemas of the content of every response are added to it
+     */
+    void addSchemas(Collection<Schema> schemas) {
+        for (Entry entry : byKey.values()) {
+            entry.content.addSchemas(schemas);
+        }
+    }
+
+    /**
+     * @return the code of a three digit status code, -1 otherwise
+     */
+    private static int parseCode(String s) {
+        if (s == null || s.length() != 3) {
+            return -1;
+        }
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            code = code * 10 + (c - '0');
+        }
+        return code >= MIN_CODE && code <= MAX_CODE ? code : -1;
+    }
+
+    /**
+     * @return the series of a range key, e.g. 2XX, null if the key is not a range
+     */
+    private static HttpStatus.Series parseRange(String key) {
+        if (key.length() != 3 || !key.startsWith("XX", 1)) {
+            return null;
+        }
+        char c = key.charAt(0);
+        return c < '1' || c > '9' ? null : HttpStatus.Series.resolve((c - '0') * 100);
+    }
+
+    /**
+     * A declared response, with the schemas of its content and its headers resolved once.
+     */
+    static final class Entry {
+        private final String statusCode;
+        private final MediaTypeTable content;
+        private final List<ResponseHeader> headers;
+
+        private Entry(String statusCode, Response response) {
+            this.statusCode = statusCode;
+            this.content = new MediaTypeTable(response.getContentMediaTypes());
+            List<ResponseHeader> headers = new ArrayList<>();
+            for (Map.Entry<String, Header> header : response.getHeaders().entrySet()) {
+                // a response header named Content-Type is ignored, as the specification requires
+                if (!"Content-Type".equalsIgnoreCase(header.getKey())) {
+                    headers.add(new ResponseHeader(header.getKey(), header.getValue()));
+                }
+            }
+            this.headers = headers.isEmpty() ? Collections.emptyList() : headers;
+        }
+
+        /**
+         * @return the key of the response in the specification, e.g. "200", "2XX" or "default"
+         */
+        String getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @param contentType the Content-Type of the content
+         * @return the schema of the content, null if there is nothing to validate
+         */
+        Schema getSchema(String contentType) {
+            return contentType == null ? null : content.getSchema(ContentType.of(contentType));
+        }
+
+        List<ResponseHeader> getHeaders() {
+            return headers;
+        }
+    }
+
+    /**
+     * A declared header of a response.
+     */
+    static final class ResponseHeader {
+        final String name;
+        final Header header;
+
+        ResponseHeader(String name, Header header) {
+            this.name = name;
+            this.header = header;
+        }
+    }
+}
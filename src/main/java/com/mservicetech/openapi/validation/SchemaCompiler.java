@@ -0,0 +1,899 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mservicetech.openapi.format.Formats;
+import com.networknt.schema.JsonNodePath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Generate a dedicated {@link CompiledSchema} for a json schema.
+ * <p>
+ * The schema is translated to Java source with one static method per schema object: the type and range checks are
+ * inlined, the properties of an object are dispatched with a switch on the property name and the required
+ * properties are tracked in a bitset. The source is compiled in memory and defined as a hidden class when the
+ * runtime supports it, so the class is unloaded with its validator.
+ * <p>
+ * Only the keywords below are translated, with the semantics of the generic engine for a body (no type coercion,
+ * nullable handled). A schema with any other keyword is not compiled and stays with the generic engine.
+ * <p>
+ * The same source is written at build time by the {@code com.mservicetech.openapi.codegen} generator.
+ */
+public final class SchemaCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCompiler.class);
+    private static final String PACKAGE = CompiledSchema.class.getPackage().getName();
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final int MAX_REQUIRED = 64;
+
+    private static final Set<String> KEYWORDS = Set.of("type", "nullable", "$ref", "enum",
+            "properties", "required", "additionalProperties", "minProperties", "maxProperties",
+            "items", "minItems", "maxItems", "minLength", "maxLength",
+            "minimum", "maximum", "exclusiveMinimum", "exclusiveMaximum", "oneOf", "anyOf");
+    /** keywords the generic engine only collects as annotations */
+    private static final Set<String> ANNOTATIONS = Set.of("title", "description", "example", "examples", "default",
+            "readOnly", "writeOnly", "deprecated", "xml", "externalDocs", "format", "discriminator", "$comment",
+            "contentEncoding", "contentMediaType");
+
+    private final JsonNode components;
+    private final StringBuilder methods = new StringBuilder();
+    private final Map<String, String> refMethods = new HashMap<>();
+    private int methodCount;
+
+    private SchemaCompiler(JsonNode components) {
+        this.components = components;
+    }
+
+    /**
+     * Compile a schema on the compiler thread, so the compiler never runs on a thread that validates a message.
+     *
+     * @param schema the schema
+     * @param components the components of the specification, for the $ref of the schema; may be null
+     * @param done called on the compiler thread with the compiled schema, or with null if it is not compiled
+     */
+    static void compileInBackground(JsonNode schema, JsonNode components, Consumer<CompiledSchema> done) {
+        try {
+            CompilerThread.EXECUTOR.execute(() -> {
+                CompiledSchema compiled = null;
+                try {
+                    compiled = compile(schema, components);
+                } finally {
+                    done.accept(compiled);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            done.accept(null);
+        }
+    }
+
+    /**
+     * Compile a schema.
+     *
+     * @param schema the schema
+     * @param components the components of the specification, for the $ref of the schema; may be null
+     * @return the compiled schema, null if the schema has unsupported keywords or the runtime has no compiler
+     */
+    static CompiledSchema compile(JsonNode schema, JsonNode components) {
+        if (SystemCompiler.INSTANCE == null) {
+            return null;
+        }
+        String className = "GeneratedSchema" + COUNTER.incrementAndGet();
+        String source;
+        try {
+            source = generateSource(PACKAGE, className, false, schema, components);
+        } catch (UnsupportedSchemaException e) {
+            logger.debug("Schema is validated by the generic engine: {}", e.getMessage());
+            return null;
+        }
+        try {
+            byte[] bytes = javac(PACKAGE + "." + className, source);
+            if (bytes == null) {
+                return null;
+            }
+            return (CompiledSchema) define(bytes).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            logger.warn("Failed to compile schema, the generic engine is used: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @param packageName package of the generated class
+     * @param className simple name of the generated class
+     * @param imports true to import the base class, for a package other than the package of the validator
+     * @param schema the schema
+     * @param components the components of the specification, may be null
+     * @return Java source of the class
+     * @throws UnsupportedSchemaException if the schema has a keyword that is not translated
+     */
+    public static String generateSource(String packageName, String className, boolean imports, JsonNode schema, JsonNode components) {
+        SchemaCompiler compiler = new SchemaCompiler(components);
+        String root = compiler.method(schema, true);
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n")
+                .append("import com.fasterxml.jackson.databind.JsonNode;\n");
+        if (imports) {
+            source.append("import ").append(CompiledSchema.class.getName()).append(";\n");
+        }
+        source.append("import java.util.Iterator;\n")
+                .append("import java.util.Map;\n\n")
+                .append("final class ").append(className).append(" extends CompiledSchema {\n")
+                .append("    @Override\n")
+                .append("    public boolean validate(JsonNode n, Failure f) {\n")
+                .append("        return ").append(root).append("(n, f);\n")
+                .append("    }\n")
+                .append(compiler.methods)
+                .append("\n    private static boolean valid(JsonNode n, Failure f) {\n")
+                .append("        return true;\n")
+                .append("    }\n")
+                .append("\n    private static boolean invalid(JsonNode n, Failure f) {\n")
+                .append("        return f.fail(\"false\");\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * @return the name of the method validating the schema
+     */
+    private String method(JsonNode schema, boolean root) {
+        if (schema.isBoolean()) {
+            return schema.booleanValue() ? "valid" : "invalid";
+        }
+        if (!schema.isObject()) {
+            throw new UnsupportedSchemaException("schema is not an object: " + schema.getNodeType());
+        }
+        JsonNode ref = schema.get("$ref");
+        if (ref != null && hasOnlyRef(schema, root)) {
+            return refMethod(ref);
+        }
+        String name = "s" + methodCount++;
+        String body = body(schema, root);
+        if (body == null) {
+            return "valid";
+        }
+        appendMethod(name, body);
+        return name;
+    }
+
+    private String refMethod(JsonNode ref) {
+        if (!ref.isTextual()) {
+            throw new UnsupportedSchemaException("$ref is not a string");
+        }
+        String name = refMethods.get(ref.textValue());
+        if (name != null) {
+            return name;
+        }
+        JsonNode target = resolve(ref.textValue());
+        name = "r" + refMethods.size();
+        // registered before the body so that a recursive reference calls the method being generated
+        refMethods.put(ref.textValue(), name);
+        if (target.isBoolean()) {
+            appendMethod(name, "        return " + method(target, false) + "(n, f);\n");
+            return name;
+        }
+        if (!target.isObject()) {
+            throw new UnsupportedSchemaException("$ref target is not a schema: " + ref.textValue());
+        }
+        String body = body(target, false);
+        appendMethod(name, body == null ? "        return true;\n" : body);
+        return name;
+    }
+
+    private JsonNode resolve(String ref) {
+        String prefix = "#/" + SchemaValidator.COMPONENTS_FIELD;
+        if (components == null || !ref.startsWith(prefix + "/") || ref.indexOf('%') >= 0) {
+            throw new UnsupportedSchemaException("$ref outside of the components: " + ref);
+        }
+        JsonNode target = components.at(ref.substring(prefix.length()));
+        if (target.isMissingNode()) {
+            throw new UnsupportedSchemaException("$ref not found: " + ref);
+        }
+        return target;
+    }
+
+    private static boolean hasOnlyRef(JsonNode schema, boolean root) {
+        Iterator<String> names = schema.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!"$ref".equals(name) && !isAnnotation(name, root)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isAnnotation(String name, boolean root) {
+        return ANNOTATIONS.contains(name) || name.startsWith("x-") || (root && SchemaValidator.COMPONENTS_FIELD.equals(name));
+    }
+
+    private void appendMethod(String name, String body) {
+        methods.append("\n    private static boolean ").append(name).append("(JsonNode n, Failure f) {\n")
+                .append(body)
+                .append("    }\n");
+    }
+
+    /**
+     * @return the statements of the method validating the schema, null if the schema has no check
+     */
+    private String body(JsonNode schema, boolean root) {
+        Iterator<String> names = schema.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!KEYWORDS.contains(name) && !isAnnotation(name, root)) {
+                throw new UnsupportedSchemaException("keyword " + name);
+            }
+        }
+        StringBuilder b = new StringBuilder();
+        boolean nullable = schema.path("nullable").asBoolean(false);
+        JsonNode ref = schema.get("$ref");
+        if (nullable && ref != null) {
+            // the referenced schema is applied to null as well
+            throw new UnsupportedSchemaException("nullable with $ref");
+        }
+        if (nullable && (schema.has("oneOf") || schema.has("anyOf"))) {
+            // the branches are applied to null as well
+            throw new UnsupportedSchemaException("nullable with oneOf or anyOf");
+        }
+        if (nullable) {
+            b.append("        if (n.isNull()) {\n")
+                    .append("            return true;\n")
+                    .append("        }\n");
+        }
+        if (ref != null) {
+            b.append("        if (!").append(refMethod(ref)).append("(n, f)) {\n")
+                    .append("            return false;\n")
+                    .append("        }\n");
+        }
+        Set<String> types = types(schema.get("type"));
+        if (!types.isEmpty()) {
+            List<String> conditions = new ArrayList<>();
+            for (String type : types) {
+                conditions.add(typeCondition(type));
+            }
+            b.append("        if (!(").append(String.join(" || ", conditions)).append(")) {\n")
+                    .append("            return f.fail(\"type\");\n")
+                    .append("        }\n");
+        }
+        enumeration(schema.get("enum"), b);
+        String only = types.size() == 1 ? types.iterator().next() : null;
+        block(b, stringChecks(schema), "n.isTextual()", "string".equals(only));
+        block(b, numberChecks(schema), "n.isNumber()", "number".equals(only) || "integer".equals(only));
+        block(b, objectChecks(schema), "n.isObject()", "object".equals(only));
+        block(b, arrayChecks(schema), "n.isArray()", "array".equals(only));
+        JsonNode discriminator = schema.get("discriminator");
+        composition(schema.get("oneOf"), true, discriminator, b);
+        composition(schema.get("anyOf"), false, schema.has("oneOf") ? null : discriminator, b);
+        if (b.length() == 0) {
+            return null;
+        }
+        return b.append("        return true;\n").toString();
+    }
+
+    /**
+     * Append the call of the method validating a oneOf or an anyOf.
+     * <p>
+     * The branches are evaluated as the generic engine evaluates them, so the verdict does not depend on which
+     * engine validates a value. An OpenAPI discriminator only shapes the failure: when no branch accepts the value
+     * and the value of the discriminator property names a branch, the failure records that branch, so the errors
+     * are described for it alone. The branch is named by the mapping of the discriminator or, without a mapping
+     * entry, by the name of the component of a {@code $ref} branch.
+     */
+    private void composition(JsonNode branches, boolean oneOf, JsonNode discriminator, StringBuilder b) {
+        if (branches == null) {
+            return;
+        }
+        String keyword = oneOf ? "oneOf" : "anyOf";
+        if (!branches.isArray() || branches.size() == 0) {
+            throw new UnsupportedSchemaException(keyword + " " + branches);
+        }
+        List<String> branchMethods = new ArrayList<>();
+        for (JsonNode branch : branches) {
+            branchMethods.add(method(branch, false));
+        }
+        Map<String, Integer> mapping = discriminator == null ? Map.of() : mapping(discriminator, branches);
+
+        StringBuilder c = new StringBuilder();
+        // the branches that failed leave their keyword and location, they are cleared for the checks that follow
+        if (oneOf) {
+            c.append("        int valid = 0;\n");
+            for (String method : branchMethods) {
+                c.append("        if (").append(method).append("(n, f) && ++valid > 1) {\n")
+                        .append("            f.clear();\n")
+                        .append("            return f.fail(\"oneOf\");\n")
+                        .append("        }\n");
+            }
+            c.append("        f.clear();\n")
+                    .append("        if (valid == 1) {\n")
+                    .append("            return true;\n")
+                    .append("        }\n");
+        } else {
+            List<String> calls = new ArrayList<>();
+            for (String method : branchMethods) {
+                calls.add(method + "(n, f)");
+            }
+            c.append("        boolean valid = ").append(String.join("\n                || ", calls)).append(";\n")
+                    .append("        f.clear();\n")
+                    .append("        if (valid) {\n")
+                    .append("            return true;\n")
+                    .append("        }\n");
+        }
+        if (!mapping.isEmpty()) {
+            // no branch accepts the value, the selected one is evaluated again to leave its failure
+            String property = discriminator.get("propertyName").textValue();
+            c.append("        JsonNode d = n.isObject() ? n.get(").append(literal(property)).append(") : null;\n")
+                    .append("        if (d != null && d.isTextual()) {\n")
+                    .append("            switch (d.textValue()) {\n");
+            for (Map.Entry<String, Integer> entry : mapping.entrySet()) {
+                String ref = branches.get(entry.getValue()).get("$ref").textValue();
+                c.append("                case ").append(literal(entry.getKey())).append(":\n")
+                        .append("                    return ").append(branchMethods.get(entry.getValue()))
+                        .append("(n, f) || f.variant(").append(literal(ref)).append(");\n");
+            }
+            c.append("                default:\n")
+                    .append("                    break;\n")
+                    .append("            }\n")
+                    .append("        }\n");
+        }
+        c.append("        return f.fail(").append(literal(keyword)).append(");\n");
+        String name = "c" + methodCount++;
+        appendMethod(name, c.toString());
+        b.append("        if (!").append(name).append("(n, f)) {\n")
+                .append("            return false;\n")
+                .append("        }\n");
+    }
+
+    /**
+     * @return the index of the branch of each discriminator value
+     */
+    private Map<String, Integer> mapping(JsonNode discriminator, JsonNode branches) {
+        JsonNode property = discriminator.get("propertyName");
+        JsonNode explicit = discriminator.path("mapping");
+        if (property == null || !property.isTextual() || !(explicit.isMissingNode() || explicit.isObject())) {
+            throw new UnsupportedSchemaException("discriminator " + discriminator);
+        }
+        Map<String, Integer> byRef = new LinkedHashMap<>();
+        for (int i = 0; i < branches.size(); i++) {
+            JsonNode ref = branches.get(i).get("$ref");
+            if (ref != null && ref.isTextual() && hasOnlyRef(branches.get(i), false)) {
+                byRef.putIfAbsent(ref.textValue(), i);
+            }
+        }
+        Map<String, Integer> mapping = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> entries = explicit.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            String ref = entry.getValue().asText();
+            if (!ref.contains("/")) {
+                // a schema name
+                ref = "#/" + SchemaValidator.COMPONENTS_FIELD + "/schemas/" + ref;
+            }
+            Integer branch = byRef.get(ref);
+            if (branch == null) {
+                throw new UnsupportedSchemaException("discriminator mapping " + entry.getKey() + " is not a branch");
+            }
+            mapping.put(entry.getKey(), branch);
+        }
+        String prefix = "#/" + SchemaValidator.COMPONENTS_FIELD + "/schemas/";
+        for (Map.Entry<String, Integer> entry : byRef.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                mapping.putIfAbsent(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+        return mapping;
+    }
+
+    private static Set<String> types(JsonNode type) {
+        Set<String> types = new LinkedHashSet<>();
+        if (type == null) {
+            return types;
+        }
+        if (type.isTextual()) {
+            types.add(type.textValue());
+        } else if (type.isArray() && type.size() > 0) {
+            for (JsonNode t : type) {
+                if (!t.isTextual()) {
+                    throw new UnsupportedSchemaException("type " + type);
+                }
+                types.add(t.textValue());
+            }
+        } else {
+            throw new UnsupportedSchemaException("type " + type);
+        }
+        return types;
+    }
+
+    private static String typeCondition(String type) {
+        switch (type) {
+            case "string":
+                return "n.isTextual()";
+            case "integer":
+                return "isIntegral(n)";
+            case "number":
+                return "n.isNumber()";
+            case "boolean":
+                return "n.isBoolean()";
+            case "object":
+                return "n.isObject()";
+            case "array":
+                return "n.isArray()";
+            case "null":
+                return "n.isNull()";
+            default:
+                throw new UnsupportedSchemaException("type " + type);
+        }
+    }
+
+    private static void enumeration(JsonNode values, StringBuilder b) {
+        if (values == null) {
+            return;
+        }
+        if (!values.isArray() || values.size() == 0) {
+            throw new UnsupportedSchemaException("enum " + values);
+        }
+        Set<String> cases = new LinkedHashSet<>();
+        for (JsonNode value : values) {
+            // numbers are compared by value by the generic engine, only the exact match of strings is translated
+            if (!value.isTextual()) {
+                throw new UnsupportedSchemaException("enum of " + value.getNodeType());
+            }
+            cases.add(value.textValue());
+        }
+        b.append("        if (!n.isTextual()) {\n")
+                .append("            return f.fail(\"enum\");\n")
+                .append("        }\n")
+                .append("        switch (n.textValue()) {\n");
+        for (String value : cases) {
+            b.append("            case ").append(literal(value)).append(":\n");
+        }
+        b.append("                break;\n")
+                .append("            default:\n")
+                .append("                return f.fail(\"enum\");\n")
+                .append("        }\n");
+    }
+
+    /**
+     * Append the checks of one json type, guarded by the type test unless the type keyword already asserts it.
+     */
+    private static void block(StringBuilder b, String checks, String guard, boolean asserted) {
+        if (checks.isEmpty()) {
+            return;
+        }
+        if (asserted) {
+            b.append(checks);
+            return;
+        }
+        b.append("        if (").append(guard).append(") {\n");
+        for (String line : checks.split("\n")) {
+            b.append("    ").append(line).append('\n');
+        }
+        b.append("        }\n");
+    }
+
+    private static String stringChecks(JsonNode schema) {
+        Long min = count(schema, "minLength");
+        Long max = count(schema, "maxLength");
+        String format = format(schema, false);
+        if (min == null && max == null && format == null) {
+            return "";
+        }
+        StringBuilder b = new StringBuilder();
+        b.append("        {\n")
+                .append("            String t = n.textValue();\n");
+        if (format != null) {
+            // asserted only when the validator asks for it, the format is an annotation otherwise
+            b.append("            if (f.isFormatAssertions() && !").append(Formats.class.getName()).append(".matches(")
+                    .append(literal(format)).append(", t)) {\n")
+                    .append("                return f.fail(\"format\");\n")
+                    .append("            }\n");
+        }
+        if (min == null && max == null) {
+            return b.append("        }\n").toString();
+        }
+        // the lengths are counted in code points, like the generic engine
+        b.append("            int length = t.codePointCount(0, t.length());\n");
+        if (min != null) {
+            b.append("            if (length < ").append(min).append("L) {\n")
+                    .append("                return f.fail(\"minLength\");\n")
+                    .append("            }\n");
+        }
+        if (max != null) {
+            b.append("            if (length > ").append(max).append("L) {\n")
+                    .append("                return f.fail(\"maxLength\");\n")
+                    .append("            }\n");
+        }
+        return b.append("        }\n").toString();
+    }
+
+    private static String numberChecks(JsonNode schema) {
+        StringBuilder b = new StringBuilder();
+        bound(schema, "minimum", "<", b);
+        bound(schema, "exclusiveMinimum", "<=", b);
+        bound(schema, "maximum", ">", b);
+        bound(schema, "exclusiveMaximum", ">=", b);
+        String format = format(schema, true);
+        if (format != null) {
+            b.append("            if (f.isFormatAssertions() && !n.").append(Formats.INT32.equals(format) ? "canConvertToInt" : "canConvertToLong")
+                    .append("()) {\n")
+                    .append("                return f.fail(\"format\");\n")
+                    .append("            }\n");
+        }
+        if (b.length() == 0) {
+            return "";
+        }
+        return "        {\n            double d = n.doubleValue();\n" + b + "        }\n";
+    }
+
+    /**
+     * @param integer true for the formats of numbers, false for the formats of strings
+     * @return the format of the schema if it has a scanner, null if it is only an annotation
+     */
+    private static String format(JsonNode schema, boolean integer) {
+        JsonNode format = schema.get("format");
+        if (format == null || !format.isTextual() || !Formats.isSupported(format.textValue())) {
+            return null;
+        }
+        boolean integerFormat = Formats.INT32.equals(format.textValue()) || Formats.INT64.equals(format.textValue());
+        return integer == integerFormat ? format.textValue() : null;
+    }
+
+    private static void bound(JsonNode schema, String keyword, String failWhen, StringBuilder b) {
+        JsonNode value = schema.get(keyword);
+        if (value == null) {
+            return;
+        }
+        // a boolean exclusive bound is the draft 4 form, the bound must also compare exactly as a double
+        if (!value.isNumber() || value.isBigInteger() || value.isBigDecimal()
+                || (value.canConvertToLong() && Math.abs(value.longValue()) > (1L << 53))) {
+            throw new UnsupportedSchemaException(keyword + " " + value);
+        }
+        b.append("            if (d ").append(failWhen).append(' ').append(Double.toString(value.doubleValue())).append(") {\n")
+                .append("                return f.fail(\"").append(keyword).append("\");\n")
+                .append("            }\n");
+    }
+
+    private String objectChecks(JsonNode schema) {
+        JsonNode properties = schema.get("properties");
+        JsonNode required = schema.get("required");
+        JsonNode additional = schema.get("additionalProperties");
+        Long minProperties = count(schema, "minProperties");
+        Long maxProperties = count(schema, "maxProperties");
+        if (properties != null && !properties.isObject()) {
+            throw new UnsupportedSchemaException("properties " + properties);
+        }
+        Set<String> requiredNames = new LinkedHashSet<>();
+        if (required != null) {
+            if (!required.isArray()) {
+                throw new UnsupportedSchemaException("required " + required);
+            }
+            for (JsonNode name : required) {
+                if (!name.isTextual()) {
+                    throw new UnsupportedSchemaException("required " + required);
+                }
+                requiredNames.add(name.textValue());
+            }
+            if (requiredNames.size() > MAX_REQUIRED) {
+                throw new UnsupportedSchemaException("more than " + MAX_REQUIRED + " required properties");
+            }
+        }
+        String additionalMethod = additional == null ? "valid" : method(additional, false);
+        Map<String, String> propertyMethods = new HashMap<>();
+        if (properties != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                propertyMethods.put(field.getKey(), method(field.getValue(), false));
+            }
+        }
+
+        StringBuilder b = new StringBuilder();
+        if (minProperties != null) {
+            b.append("        if (n.size() < ").append(minProperties).append("L) {\n")
+                    .append("            return f.fail(\"minProperties\");\n")
+                    .append("        }\n");
+        }
+        if (maxProperties != null) {
+            b.append("        if (n.size() > ").append(maxProperties).append("L) {\n")
+                    .append("            return f.fail(\"maxProperties\");\n")
+                    .append("        }\n");
+        }
+        boolean checkProperties = propertyMethods.values().stream().anyMatch(m -> !"valid".equals(m));
+        if (!checkProperties && requiredNames.isEmpty() && "valid".equals(additionalMethod)) {
+            return b.toString();
+        }
+
+        // the cases of the switch: the properties with a schema, then the required properties without one
+        Set<String> names = new LinkedHashSet<>();
+        if (properties != null) {
+            properties.fieldNames().forEachRemaining(names::add);
+        }
+        names.addAll(requiredNames);
+        List<String> bits = new ArrayList<>(requiredNames);
+        if (!requiredNames.isEmpty()) {
+            b.append("        long seen = 0L;\n");
+        }
+        b.append("        Iterator<Map.Entry<String, JsonNode>> it = n.fields();\n")
+                .append("        while (it.hasNext()) {\n")
+                .append("            Map.Entry<String, JsonNode> e = it.next();\n")
+                .append("            switch (e.getKey()) {\n");
+        for (String name : names) {
+            String method = propertyMethods.get(name);
+            int bit = bits.indexOf(name);
+            b.append("                case ").append(literal(name)).append(":\n");
+            if (bit >= 0) {
+                b.append("                    seen |= 0x").append(Long.toHexString(1L << bit)).append("L;\n");
+            }
+            if (method == null) {
+                // required but not listed in properties, so it is an additional property
+                method = additionalMethod;
+                if ("invalid".equals(method)) {
+                    b.append("                    return f.fail(\"additionalProperties\");\n");
+                    continue;
+                }
+            }
+            if (!"valid".equals(method)) {
+                b.append("                    if (!").append(method).append("(e.getValue(), f)) {\n")
+                        .append("                        return f.at(e.getKey());\n")
+                        .append("                    }\n");
+            }
+            b.append("                    break;\n");
+        }
+        b.append("                default:\n");
+        if ("invalid".equals(additionalMethod)) {
+            // reported on the object, like the generic engine
+            b.append("                    return f.fail(\"additionalProperties\");\n");
+        } else {
+            if (!"valid".equals(additionalMethod)) {
+                b.append("                    if (!").append(additionalMethod).append("(e.getValue(), f)) {\n")
+                        .append("                        return f.at(e.getKey());\n")
+                        .append("                    }\n");
+            }
+            b.append("                    break;\n");
+        }
+        b.append("            }\n")
+                .append("        }\n");
+        if (!requiredNames.isEmpty()) {
+            long mask = requiredNames.size() == MAX_REQUIRED ? -1L : (1L << requiredNames.size()) - 1;
+            b.append("        if (seen != 0x").append(Long.toHexString(mask)).append("L) {\n")
+                    .append("            return f.fail(\"required\");\n")
+                    .append("        }\n");
+        }
+        return b.toString();
+    }
+
+    private String arrayChecks(JsonNode schema) {
+        JsonNode items = schema.get("items");
+        Long minItems = count(schema, "minItems");
+        Long maxItems = count(schema, "maxItems");
+        if (items != null && items.isArray()) {
+            throw new UnsupportedSchemaException("items array");
+        }
+        String itemMethod = items == null ? "valid" : method(items, false);
+        StringBuilder b = new StringBuilder();
+        if (minItems != null) {
+            b.append("        if (n.size() < ").append(minItems).append("L) {\n")
+                    .append("            return f.fail(\"minItems\");\n")
+                    .append("        }\n");
+        }
+        if (maxItems != null) {
+            b.append("        if (n.size() > ").append(maxItems).append("L) {\n")
+                    .append("            return f.fail(\"maxItems\");\n")
+                    .append("        }\n");
+        }
+        if (!"valid".equals(itemMethod)) {
+            b.append("        for (int i = 0, size = n.size(); i < size; i++) {\n")
+                    .append("            if (!").append(itemMethod).append("(n.get(i), f)) {\n")
+                    .append("                return f.at(i);\n")
+                    .append("            }\n")
+                    .append("        }\n");
+        }
+        return b.toString();
+    }
+
+    /**
+     * @return the non negative integer value of a keyword, null if absent
+     */
+    private static Long count(JsonNode schema, String keyword) {
+        JsonNode value = schema.get(keyword);
+        if (value == null) {
+            return null;
+        }
+        if (!value.isIntegralNumber() || !value.canConvertToLong() || value.longValue() < 0) {
+            throw new UnsupportedSchemaException(keyword + " " + value);
+        }
+        return value.longValue();
+    }
+
+    /**
+     * @return the Java string literal of the value; control characters are written as octal escapes because a
+     * unicode escape of a line break would end the literal
+     */
+    public static String literal(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20) {
+                literal.append('\\').append(String.format(Locale.ROOT, "%03o", (int) c));
+            } else if (c > 0x7e) {
+                literal.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private static byte[] javac(String className, String source) {
+        JavaCompiler compiler = SystemCompiler.INSTANCE;
+        if (compiler == null) {
+            return null;
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8));
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = List.of("-classpath", classPath(), "-proc:none", "-g:none", "-nowarn");
+        boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null, List.of(file)).call();
+        if (!compiled) {
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                logger.warn("Failed to compile schema of {}: {}", className, diagnostic.getMessage(null));
+            }
+            return null;
+        }
+        ByteArrayOutputStream bytes = fileManager.classes.get(className);
+        return bytes == null ? null : bytes.toByteArray();
+    }
+
+    /**
+     * The locations of the classes referenced by the generated source, which may not be on the class path of the
+     * application, e.g. in a web container.
+     */
+    private static String classPath() {
+        Set<String> entries = new LinkedHashSet<>();
+        for (Class<?> type : new Class<?>[]{CompiledSchema.class, JsonNode.class, TreeNode.class, JsonNodePath.class}) {
+            CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null) {
+                try {
+                    entries.add(new File(codeSource.getLocation().toURI()).getPath());
+                } catch (Exception e) {
+                    // not a file location, covered by the class path below
+                }
+            }
+        }
+        entries.add(System.getProperty("java.class.path"));
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static Class<?> define(byte[] bytes) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (HiddenClasses.DEFINE != null) {
+            Object options = Array.newInstance(HiddenClasses.OPTION, 0);
+            return ((MethodHandles.Lookup) HiddenClasses.DEFINE.invoke(lookup, bytes, true, options)).lookupClass();
+        }
+        return lookup.defineClass(bytes);
+    }
+
+    /**
+     * The compiler of the runtime, looked up once; a runtime without one is logged once.
+     */
+    private static final class SystemCompiler {
+        static final JavaCompiler INSTANCE = find();
+
+        private static JavaCompiler find() {
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) {
+                logger.warn("No Java compiler in the runtime, schemas are validated by the generic engine");
+            }
+            return compiler;
+        }
+    }
+
+    /**
+     * The thread schemas are compiled on, one at a time. It is a daemon started when a schema is queued and stopped
+     * after a minute without work.
+     */
+    private static final class CompilerThread {
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "openapi-schema-compiler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        static {
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Lookup.defineHiddenClass is looked up reflectively, the library is built for Java 11.
+     */
+    private static final class HiddenClasses {
+        static final Class<?> OPTION;
+        static final Method DEFINE;
+
+        static {
+            Class<?> option = null;
+            Method define = null;
+            try {
+                option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+                define = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class,
+                        Array.newInstance(option, 0).getClass());
+            } catch (ReflectiveOperationException e) {
+                // Java 11 to 14, the classes are defined in the package of the validator
+            }
+            OPTION = option;
+            DEFINE = define;
+        }
+    }
+
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        final Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    classes.put(className, out);
+                    return out;
+                }
+            };
+        }
+    }
+
+    /**
+     * Thrown while generating the source of a schema that has a keyword the compiler does not translate.
+     */
+    public static final class UnsupportedSchemaException extends RuntimeException {
+        UnsupportedSchemaException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -19,9 +19,16 @@ package com.mservicetech.openapi.validation;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mservicetech.openapi.common.RateLimitedLogger;
+import com.mservicetech.openapi.regex.RegexEngine;
 import com.networknt.jsonoverlay.Overlay;
 import com.networknt.oas.model.OpenApi3;
+import com.networknt.oas.model.Schema;
 import com.networknt.oas.model.impl.OpenApi3Impl;
+import com.networknt.oas.model.impl.SchemaImpl;
+import com.networknt.schema.ExecutionContext;
+import com.networknt.schema.FailFastAssertionException;
+import com.networknt.schema.JsonMetaSchema;
 import com.networknt.schema.JsonNodePath;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
@@ -29,8 +36,12 @@ import com.networknt.schema.SchemaValidatorsConfig;
 import com.networknt.schema.ValidationMessage;
 import com.networknt.schema.SpecVersion.VersionFlag;
 import com.networknt.status.Status;
+import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Objects.requireNonNull;
 
@@ -42,14 +53,20 @@ import static java.util.Objects.requireNonNull;
  * @author Steve Hu
  */
 public class SchemaValidator {
-    private static final String COMPONENTS_FIELD = "components";
+    static final String COMPONENTS_FIELD = "components";
     static final String VALIDATOR_SCHEMA_INVALID_JSON = "ERR11003";
     static final String VALIDATOR_SCHEMA = "ERR11004";
+    private static final RateLimitedLogger logger = new RateLimitedLogger(LoggerFactory.getLogger(SchemaValidator.class));
 
     private final OpenApi3 api;
+    private final CompiledSpec compiledSpec;
     private JsonNode jsonNode;
     private final SchemaValidatorsConfig defaultConfig;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<SchemaKey, CachedSchema> schemas = new ConcurrentHashMap<>();
+    private volatile RegexEngine regexEngine;
+    private volatile boolean formatAssertions;
+    private volatile JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(VersionFlag.V202012);
 
     /**
      * Build a new validator with no API specification.
@@ -68,12 +85,75 @@ public class SchemaValidator {
      *            for use in references.
      */
     public SchemaValidator(final OpenApi3 api) {
+        this(api, null);
+    }
+
+    /**
+     * Build a new validator for the given API specification and the schemas compiled for it at build time.
+     *
+     * @param api The API to build the validator for
+     * @param compiledSpec The compiled specification the API was read from; its schemas are used in place of the
+     *                     schemas compiled at runtime. May be null.
+     */
+    public SchemaValidator(final OpenApi3 api, final CompiledSpec compiledSpec) {
         this.api = api;
+        this.compiledSpec = compiledSpec;
         this.jsonNode = Overlay.toJson((OpenApi3Impl)api).get("components");
         this.defaultConfig = new SchemaValidatorsConfig();
         this.defaultConfig.setTypeLoose(true);
     }
 
+    public RegexEngine getRegexEngine() {
+        return regexEngine;
+    }
+
+    /**
+     * Set the engine that compiles the {@code pattern} keywords of the schemas. The schemas already built are
+     * dropped and built again with the engine.
+     *
+     * @param regexEngine the regex engine; null for the one of the schema engine
+     */
+    public synchronized void setRegexEngine(RegexEngine regexEngine) {
+        this.regexEngine = regexEngine;
+        rebuildSchemas();
+    }
+
+    public boolean isFormatAssertions() {
+        return formatAssertions;
+    }
+
+    /**
+     * Assert the formats that have a scanner in {@link com.mservicetech.openapi.format.Formats}, the other formats
+     * stay annotations. The schemas already built are dropped and built again.
+     *
+     * @param formatAssertions true to assert the formats; false, the default, to only collect them as annotations
+     */
+    public synchronized void setFormatAssertions(boolean formatAssertions) {
+        this.formatAssertions = formatAssertions;
+        rebuildSchemas();
+    }
+
+    private void rebuildSchemas() {
+        JsonSchemaFactory factory;
+        if (regexEngine == null && !formatAssertions) {
+            factory = JsonSchemaFactory.getInstance(VersionFlag.V202012);
+        } else {
+            JsonMetaSchema.Builder builder = JsonMetaSchema.builder(JsonMetaSchema.getV202012().getUri(), JsonMetaSchema.getV202012());
+            if (regexEngine != null) {
+                builder.addKeyword(new PatternKeyword(regexEngine));
+            }
+            if (formatAssertions) {
+                builder.formatKeywordFactory(FormatAssertionKeyword::new);
+            }
+            JsonMetaSchema metaSchema = builder.build();
+            factory = JsonSchemaFactory.getInstance(VersionFlag.V202012, b -> b.addMetaSchema(metaSchema));
+        }
+        this.schemaFactory = factory;
+        for (CachedSchema cachedSchema : schemas.values()) {
+            cachedSchema.clear();
+        }
+    }
+
     /**
      * Validate the given value against the given property schema.
      *
@@ -113,28 +193,294 @@ public class SchemaValidator {
     }
 
     private Status doValidate(final Object value, final JsonNode schema, SchemaValidatorsConfig config, JsonNodePath instanceLocation) {
+        ValidationReport report = new ValidationReport(1, ErrorDetail.FULL);
+        validate(value, schema, config, instanceLocation, null, report);
+        return ValidationError.toStatus(report.getFirstError());
+    }
+
+    /**
+     * Validate the given value against the given property schema and add the errors to the report.
+     * <p>
+     * When only one more error fits into the report, the schema engine runs in fail fast mode and stops at the
+     * first error. Otherwise every error of the value is computed by the engine and added until the report is full.
+     *
+     * @param value The value to validate
+     * @param schema The property schema to validate the value against
+     * @param config The config model for some validator
+     * @param instanceLocation The instance location, null for the root
+     * @param pointerPrefix json pointer of the value inside the message, e.g. "/body"
+     * @param report the report to add the errors to
+     */
+    void validate(final Object value, final JsonNode schema, SchemaValidatorsConfig config, JsonNodePath instanceLocation,
+                  String pointerPrefix, ValidationReport report) {
+        requireNonNull(schema, "A schema is required");
+        if (report.isFull()) {
+            return;
+        }
+        JsonSchema jsonSchema;
+        JsonNode content;
+        try {
+            jsonSchema = getJsonSchema(schema, config);
+            content = objectMapper.valueToTree(value);
+        } catch (Exception e) {
+            // an error of the schema, not of the validated value
+            logger.error("Failed to validate value against schema: {}", e.toString(), e);
+            return;
+        }
+        validate(jsonSchema, content, config, instanceLocation, pointerPrefix, report);
+    }
+
+    /**
+     * Validate the given value against a schema of the specification and add the errors to the report.
+     * <p>
+     * The schema is read and built by the engine the first time it is validated with a config, and kept for the
+     * life of the validator. The config is part of the cache key, so it must be shared between the calls.
+     *
+     * @param value The value to validate
+     * @param schema The schema of the specification
+     * @param config The config model for some validator, shared between the calls
+     * @param instanceLocation The instance location, null for the root
+     * @param pointerPrefix json pointer of the value inside the message, e.g. "/body"
+     * @param report the report to add the errors to
+     * @param compiled true to check the value with a {@link CompiledSchema} first; only for a config without type
+     *                 coercion that handles the nullable keyword. The schema is compiled at runtime, in the
+     *                 background, unless the validator was built with a {@link CompiledSpec}; the generic engine
+     *                 validates until it is compiled.
+     */
+    void validate(final Object value, final Schema schema, SchemaValidatorsConfig config, JsonNodePath instanceLocation,
+                  String pointerPrefix, ValidationReport report, boolean compiled) {
         requireNonNull(schema, "A schema is required");
+        if (report.isFull()) {
+            return;
+        }
+        CachedSchema cached = cachedSchema(schema);
+        JsonNode content;
+        try {
+            // a body read with its parse shape is already a tree
+            content = value instanceof JsonNode ? (JsonNode) value : objectMapper.valueToTree(value);
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to validate value against schema: {}", e.toString(), e);
+            return;
+        }
+        if (compiled) {
+            CompiledSchema compiledSchema = cached.getCompiled();
+            if (compiledSchema != null) {
+                CompiledSchema.Failure failure = new CompiledSchema.Failure(formatAssertions);
+                if (compiledSchema.validate(content, failure)) {
+                    return;
+                }
+                if (report.remaining() == 1 && report.getDetail() == ErrorDetail.CODE_ONLY) {
+                    // the code and the location are all the report keeps, the generic engine is not needed
+                    JsonNodePath root = instanceLocation == null ? new JsonNodePath(config.getPathType()) : instanceLocation;
+                    report.add(new ValidationError(VALIDATOR_SCHEMA, ErrorDetail.CODE_ONLY)
+                            .at(pointerPrefix == null ? "" : pointerPrefix, failure.location(root)));
+                    return;
+                }
+                if (failure.getVariant() != null && describeVariant(cached, failure, content, config, instanceLocation, pointerPrefix, report)) {
+                    return;
+                }
+                // the generic engine describes the errors of an invalid value
+            }
+        }
+        JsonSchema jsonSchema;
+        try {
+            jsonSchema = cached.getJsonSchema(config);
+        } catch (Exception e) {
+            // an error of the schema, not of the validated value
+            logger.error("Failed to validate value against schema: {}", e.toString(), e);
+            return;
+        }
+        validate(jsonSchema, content, config, instanceLocation, pointerPrefix, report);
+    }
+
+    /**
+     * Describe the errors of a value that is invalid against the branch its discriminator selected, with the
+     * generic engine applied to that branch only. Against the whole schema every branch would be reported.
+     *
+     * @return true if the errors were added to the report
+     */
+    private boolean describeVariant(CachedSchema cached, CompiledSchema.Failure failure, JsonNode content, SchemaValidatorsConfig config,
+                                    JsonNodePath instanceLocation, String pointerPrefix, ValidationReport report) {
+        JsonNodePath root = instanceLocation == null ? new JsonNodePath(config.getPathType()) : instanceLocation;
+        int remaining = report.remaining();
+        try {
+            validate(cached.getVariantSchema(failure.getVariant(), config), failure.variantNode(content), config,
+                    failure.variantLocation(root), pointerPrefix, report);
+        } catch (Exception e) {
+            logger.error("Failed to validate value against schema: {}", e.toString(), e);
+            return false;
+        }
+        return report.remaining() != remaining;
+    }
+
+    /**
+     * @param schema a schema of the specification
+     * @return the json of the schema, a missing node for an empty or absent schema
+     */
+    JsonNode toJson(Schema schema) {
+        return cachedSchema(schema).node;
+    }
+
+    /**
+     * Start compiling a schema that will be validated with {@code compiled}, so it is ready before the first message.
+     *
+     * @param schema a schema of the specification
+     */
+    void prepareCompiled(Schema schema) {
+        cachedSchema(schema).getCompiled();
+    }
+
+    /**
+     * @param schema a schema of the specification
+     * @return the parts of a value the compiled schema inspects; null if the schema is not compiled
+     */
+    ParseShape getParseShape(Schema schema) {
+        return cachedSchema(schema).getParseShape();
+    }
+
+    private CachedSchema cachedSchema(Schema schema) {
+        return schemas.computeIfAbsent(new SchemaKey(schema), k -> new CachedSchema(schema, Overlay.toJson((SchemaImpl) schema)));
+    }
+
+    private JsonSchema getJsonSchema(JsonNode schema, SchemaValidatorsConfig config) {
+        if (jsonNode != null) {
+            ((ObjectNode) schema).set(COMPONENTS_FIELD, jsonNode);
+        }
+        return schemaFactory.getSchema(schema, config);
+    }
+
+    private void validate(JsonSchema jsonSchema, JsonNode content, SchemaValidatorsConfig config, JsonNodePath instanceLocation,
+                          String pointerPrefix, ValidationReport report) {
         if (instanceLocation == null)
             instanceLocation = new JsonNodePath(config.getPathType());
 
-        Status status = null;
         Set<ValidationMessage> processingReport = null;
         try {
-            if(jsonNode != null) {
-                ((ObjectNode)schema).set(COMPONENTS_FIELD, jsonNode);
+            ExecutionContext executionContext = jsonSchema.createExecutionContext();
+            if (report.remaining() == 1) {
+                executionContext.getExecutionConfig().setFailFast(true);
             }
-            JsonSchema jsonSchema = JsonSchemaFactory.getInstance(VersionFlag.V202012).getSchema(schema, config);
-            final JsonNode content = objectMapper.valueToTree(value);
-            processingReport = jsonSchema.validate(jsonSchema.createExecutionContext(), content, content, instanceLocation);
+            processingReport = jsonSchema.validate(executionContext, content, content, instanceLocation);
+        } catch (FailFastAssertionException e) {
+            // thrown by the engine in fail fast mode; the exception does not fill in a stack trace
+            processingReport = e.getValidationMessages();
         } catch (Exception e) {
-            e.printStackTrace();
+            // an error of the schema or the engine, not of the validated value
+            logger.error("Failed to validate value against schema: {}", e.toString(), e);
         }
 
-        if(processingReport != null && processingReport.size() > 0) {
-            ValidationMessage vm = processingReport.iterator().next();
-            status = new Status(VALIDATOR_SCHEMA, vm.getMessage());
+        if (processingReport != null) {
+            // the messages are kept unformatted, they are only rendered when the status is asked for
+            for (ValidationMessage message : processingReport) {
+                JsonNodePath location = message.getInstanceLocation();
+                if (report.add(new ValidationError(VALIDATOR_SCHEMA, report.getDetail(), message)
+                        .at(pointerPrefix == null ? "" : pointerPrefix, location))) {
+                    return;
+                }
+            }
         }
+    }
 
-        return status;
+    /**
+     * Identity of a schema model; the models compare by content, which is slow and merges distinct schemas.
+     */
+    private static final class SchemaKey {
+        private final Schema schema;
+
+        SchemaKey(Schema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SchemaKey && ((SchemaKey) o).schema == schema;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(schema);
+        }
+    }
+
+    /**
+     * A schema of the specification with the engine schemas built for it.
+     */
+    private final class CachedSchema {
+        private final Schema schema;
+        private final JsonNode node;
+        private final Map<SchemaValidatorsConfig, JsonSchema> jsonSchemas = new ConcurrentHashMap<>();
+        private final Map<SchemaValidatorsConfig, Map<String, JsonSchema>> variantSchemas = new ConcurrentHashMap<>();
+        private volatile boolean compileTried;
+        private final AtomicBoolean compileStarted = new AtomicBoolean();
+        private volatile CompiledSchema compiled;
+        private volatile ParseShape parseShape;
+
+        CachedSchema(Schema schema, JsonNode node) {
+            this.schema = schema;
+            this.node = node;
+        }
+
+        JsonSchema getJsonSchema(SchemaValidatorsConfig config) {
+            JsonSchema jsonSchema = jsonSchemas.get(config);
+            if (jsonSchema == null) {
+                // not cached when the engine cannot build the schema, so the error is logged again
+                synchronized (this) {
+                    jsonSchema = jsonSchemas.get(config);
+                    if (jsonSchema == null) {
+                        jsonSchema = SchemaValidator.this.getJsonSchema(node, config);
+                        jsonSchemas.put(config, jsonSchema);
+                    }
+                }
+            }
+            return jsonSchema;
+        }
+
+        /**
+         * @param ref the $ref of a branch selected by a discriminator
+         */
+        JsonSchema getVariantSchema(String ref, SchemaValidatorsConfig config) {
+            return variantSchemas.computeIfAbsent(config, c -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(ref, r -> SchemaValidator.this.getJsonSchema(objectMapper.createObjectNode().put("$ref", r), config));
+        }
+
+        void clear() {
+            jsonSchemas.clear();
+            variantSchemas.clear();
+        }
+
+        /**
+         * @return the compiled schema, null if there is none or it is still being compiled; the schema of a
+         * {@link CompiledSpec} is looked up, any other is queued to the compiler thread the first time it is asked for
+         */
+        CompiledSchema getCompiled() {
+            if (!compileTried) {
+                if (compiledSpec != null) {
+                    synchronized (this) {
+                        if (!compileTried) {
+                            compiled = compiledSpec.getSchema(Overlay.of((SchemaImpl) schema).getPathFromRoot());
+                            compileTried = true;
+                        }
+                    }
+                } else if (!node.isObject()) {
+                    compileTried = true;
+                } else if (compileStarted.compareAndSet(false, true)) {
+                    SchemaCompiler.compileInBackground(node, jsonNode, result -> {
+                        compiled = result;
+                        compileTried = true;
+                    });
+                }
+            }
+            return compiled;
+        }
+
+        ParseShape getParseShape() {
+            ParseShape shape = parseShape;
+            if (shape == null && getCompiled() != null) {
+                // built twice at worst, the shapes are equal
+                shape = ParseShape.of(node, jsonNode);
+                parseShape = shape;
+            }
+            return shape;
+        }
     }
 }
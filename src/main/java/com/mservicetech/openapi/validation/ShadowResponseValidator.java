@@ -0,0 +1,447 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.MpmcRingBuffer;
+import com.mservicetech.openapi.common.ParameterSource;
+import com.mservicetech.openapi.common.RateLimitedLogger;
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Validate responses off the response thread.
+ * <p>
+ * {@link #submit} copies the response into a bounded lock-free ring buffer and returns at once; a small pool of
+ * daemon workers validates the queued responses with {@link OpenApiValidator#validateResponse} and reports the
+ * violations to a {@link ViolationListener}. The response latency does not depend on the validation cost. When
+ * the buffer is full the {@link DropPolicy} decides which response is dropped; drops are counted, never blocked on.
+ * <p>
+ * An idle worker spins briefly, then blocks until a response is queued: {@link #submit} only takes the lock to
+ * wake a worker when one is blocked, which means the buffer was empty.
+ * <p>
+ * Sampling and load shedding configured on the validator still apply to the queued responses.
+ */
+public class ShadowResponseValidator implements AutoCloseable {
+    private static final RateLimitedLogger logger = new RateLimitedLogger(LoggerFactory.getLogger(ShadowResponseValidator.class));
+    /** the empty polls a worker spins and yields for before it blocks */
+    private static final int SPIN_POLLS = 100;
+    private static final int YIELD_POLLS = 10;
+
+    /**
+     * What to do with a response submitted while the buffer is full.
+     */
+    public enum DropPolicy {
+        /** drop the submitted response */
+        DROP_NEWEST,
+        /** drop the oldest queued response to make room for the submitted one */
+        DROP_OLDEST
+    }
+
+    /**
+     * Receive the responses that violate the specification. Called on a worker thread.
+     */
+    @FunctionalInterface
+    public interface ViolationListener {
+        void onViolation(CapturedResponse response, ValidationReport report);
+    }
+
+    private final OpenApiValidator validator;
+    private final ViolationListener listener;
+    private final MpmcRingBuffer<CapturedResponse> buffer;
+    private final List<Thread> workers;
+    private volatile DropPolicy dropPolicy = DropPolicy.DROP_NEWEST;
+    private volatile int maxErrors = 10;
+    private volatile boolean running = true;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder validated = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder violations = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** signalled when a response is queued while a worker is blocked, and on close */
+    private final Condition notEmpty = lock.newCondition();
+    /** signalled when every submitted response is processed while a caller waits in drain */
+    private final Condition drained = lock.newCondition();
+    private final AtomicInteger blockedWorkers = new AtomicInteger();
+    private final AtomicInteger drainWaiters = new AtomicInteger();
+
+    /**
+     * Create the validator and start its workers.
+     *
+     * @param validator the validator of the specification
+     * @param capacity the number of responses the buffer holds, rounded up to a power of two
+     * @param workerCount the number of worker threads
+     * @param listener the listener of violations
+     */
+    public ShadowResponseValidator(OpenApiValidator validator, int capacity, int workerCount, ViolationListener listener) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be at least 1");
+        }
+        this.validator = requireNonNull(validator, "validator cannot be null");
+        this.listener = requireNonNull(listener, "listener cannot be null");
+        this.buffer = new MpmcRingBuffer<>(capacity);
+        List<Thread> threads = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Thread thread = new Thread(this::work, "openapi-shadow-validator-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+        this.workers = Collections.unmodifiableList(threads);
+        threads.forEach(Thread::start);
+    }
+
+    public DropPolicy getDropPolicy() {
+        return dropPolicy;
+    }
+
+    public void setDropPolicy(DropPolicy dropPolicy) {
+        this.dropPolicy = requireNonNull(dropPolicy, "dropPolicy cannot be null");
+    }
+
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    /**
+     * @param maxErrors the error budget of every response, 10 by default
+     */
+    public void setMaxErrors(int maxErrors) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("maxErrors must be at least 1");
+        }
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Queue a response for validation. The headers are copied, the entity can be reused once the method returns.
+     * A header source is copied through {@link ParameterSource#getNames()}.
+     *
+     * @param requestURI normalised path
+     * @param httpMethod Http method definition (get/post/put/delete)
+     * @param statusCode Http status code
+     * @param responseEntity wrapper object for response
+     * @return false if the response was dropped
+     */
+    public boolean submit(String requestURI, String httpMethod, String statusCode, ResponseEntity responseEntity) {
+        Map<String, ?> headers = responseEntity.getHeaders();
+        if (headers == null && responseEntity.getHeaderSource() != null) {
+            headers = copy(responseEntity.getHeaderSource());
+        }
+        return enqueue(new CapturedResponse(requestURI, httpMethod, statusCode, headers,
+                responseEntity.getContentType(), responseEntity.getContent(), null));
+    }
+
+    private static Map<String, Object> copy(ParameterSource source) {
+        Map<String, Object> headers = new HashMap<>();
+        for (String name : source.getNames()) {
+            headers.put(name, source.get(name));
+        }
+        return headers;
+    }
+
+    /**
+     * Queue a response for validation. The body is decoded as UTF-8 on the worker thread; the array must not be
+     * modified once the method returns.
+     *
+     * @param requestURI normalised path
+     * @param httpMethod Http method definition (get/post/put/delete)
+     * @param statusCode Http status code
+     * @param headers response headers, copied
+     * @param contentType content type of the body
+     * @param body raw body, may be null
+     * @return false if the response was dropped
+     */
+    public boolean submit(String requestURI, String httpMethod, String statusCode, Map<String, ?> headers, String contentType, byte[] body) {
+        return enqueue(new CapturedResponse(requestURI, httpMethod, statusCode, headers, contentType, null, body));
+    }
+
+    private boolean enqueue(CapturedResponse response) {
+        submitted.increment();
+        if (!running) {
+            return drop();
+        }
+        if (buffer.offer(response)) {
+            wakeWorker();
+            return true;
+        }
+        if (dropPolicy == DropPolicy.DROP_OLDEST) {
+            if (buffer.poll() != null) {
+                drop();
+            }
+            if (buffer.offer(response)) {
+                wakeWorker();
+                return true;
+            }
+        }
+        return drop();
+    }
+
+    private boolean drop() {
+        dropped.increment();
+        signalIfDrained();
+        return false;
+    }
+
+    /**
+     * Wake a blocked worker. A worker counts itself as blocked before it checks the buffer a last time, so either
+     * it sees the queued response or this sees the worker.
+     */
+    private void wakeWorker() {
+        if (blockedWorkers.get() > 0) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void work() {
+        int idle = 0;
+        while (true) {
+            CapturedResponse response = buffer.poll();
+            if (response == null) {
+                if (!running) {
+                    return;
+                }
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            try {
+                validate(response);
+            } catch (RuntimeException e) {
+                logger.error("Failed to validate response of {} {}: {}", response.getHttpMethod(), response.getRequestURI(), e.toString(), e);
+            } finally {
+                completed.increment();
+                signalIfDrained();
+            }
+        }
+    }
+
+    /**
+     * Spin, then yield, then block until a response is queued or the validator is closed.
+     */
+    private int idle(int idle) {
+        if (idle < SPIN_POLLS) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_POLLS + YIELD_POLLS) {
+            Thread.yield();
+        } else {
+            lock.lock();
+            blockedWorkers.incrementAndGet();
+            try {
+                while (running && buffer.isEmpty()) {
+                    notEmpty.awaitUninterruptibly();
+                }
+            } finally {
+                blockedWorkers.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        return idle + 1;
+    }
+
+    private boolean isDrained() {
+        return submitted.sum() == dropped.sum() + completed.sum();
+    }
+
+    private void signalIfDrained() {
+        if (drainWaiters.get() > 0 && isDrained()) {
+            lock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void validate(CapturedResponse response) {
+        ValidationReport report = validator.validateResponse(response.getRequestURI(), response.getHttpMethod(),
+                response.getStatusCode(), response.toResponseEntity(), maxErrors);
+        if (report.isSkipped()) {
+            skipped.increment();
+            return;
+        }
+        validated.increment();
+        if (!report.isValid()) {
+            violations.increment();
+            listener.onViolation(response, report);
+        }
+    }
+
+    /**
+     * Wait until every queued response is processed.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if the buffer was drained in time
+     */
+    public boolean drain(long timeout, TimeUnit unit) {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        drainWaiters.incrementAndGet();
+        try {
+            while (!isDrained()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = drained.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            drainWaiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting responses, let the workers finish the queued ones and wait up to 5 seconds for them.
+     */
+    @Override
+    public void close() {
+        running = false;
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Thread worker : workers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of responses queued at the moment
+     */
+    public int getQueued() {
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return number of responses dropped because the buffer was full or the validator closed
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getValidated() {
+        return validated.sum();
+    }
+
+    /**
+     * @return number of responses skipped by the sampling or the load controller of the validator
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public long getViolations() {
+        return violations.sum();
+    }
+
+    /**
+     * A response queued for validation.
+     */
+    public static final class CapturedResponse {
+        private final String requestURI;
+        private final String httpMethod;
+        private final String statusCode;
+        private final Map<String, ?> headers;
+        private final String contentType;
+        private final String content;
+        private final byte[] body;
+
+        CapturedResponse(String requestURI, String httpMethod, String statusCode, Map<String, ?> headers,
+                         String contentType, String content, byte[] body) {
+            this.requestURI = requestURI;
+            this.httpMethod = httpMethod;
+            this.statusCode = statusCode;
+            this.headers = headers == null || headers.isEmpty() ? Collections.emptyMap() : new HashMap<>(headers);
+            this.contentType = contentType;
+            this.content = content;
+            this.body = body;
+        }
+
+        public String getRequestURI() {
+            return requestURI;
+        }
+
+        public String getHttpMethod() {
+            return httpMethod;
+        }
+
+        public String getStatusCode() {
+            return statusCode;
+        }
+
+        public Map<String, ?> getHeaders() {
+            return headers;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return the body, decoded from the raw bytes if it was submitted as bytes
+         */
+        public String getContent() {
+            if (content == null && body != null) {
+                return new String(body, StandardCharsets.UTF_8);
+            }
+            return content;
+        }
+
+        ResponseEntity toResponseEntity() {
+            ResponseEntity entity = new ResponseEntity();
+            entity.setHeaders(headers);
+            entity.setContentType(contentType);
+            entity.setContent(getContent());
+            return entity;
+        }
+
+        @Override
+        public String toString() {
+            return httpMethod + " " + requestURI + " " + statusCode;
+        }
+    }
+}
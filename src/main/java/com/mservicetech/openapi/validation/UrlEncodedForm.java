@@ -0,0 +1,240 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mservicetech.openapi.common.ParameterSource;
+import com.networknt.oas.model.EncodingProperty;
+import com.networknt.oas.model.Schema;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The properties of an {@code application/x-www-form-urlencoded} body, worked out once from the object schema of
+ * the media type and its {@code encoding}. The body is read like a query string: one scan decodes only the keys of
+ * the declared properties, and every property is deserialized according to its {@code style} and {@code explode},
+ * as a query parameter is.
+ * <p>
+ * The text of a value is converted to the type its schema declares while the body tree is built, e.g. {@code 7} to
+ * a number for an {@code integer}, so the tree is validated like a json body, with the compiled schema of a compiled
+ * operation. A text that is not of the declared type is kept as text and fails the type check.
+ * <p>
+ * The {@code encoding} of a property defaults to style {@code form} with explode, as the OpenAPI specification
+ * defines it for form bodies. Keys that are not declared are skipped while the body is scanned; only the first of
+ * them is decoded, to be reported when the schema does not allow additional properties.
+ */
+final class UrlEncodedForm {
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final String[] names;
+    private final QueryParameterDeserializer[] deserializers;
+    private final Conversion[] conversions;
+    private final QueryStringReader reader;
+    private final boolean additionalProperties;
+
+    /**
+     * @param schema the schema of the media type
+     * @param encodings the encoding of the media type, by property name
+     */
+    UrlEncodedForm(Schema schema, Map<String, EncodingProperty> encodings) {
+        Map<String, Schema> properties = schema.getProperties();
+        names = new String[properties.size()];
+        deserializers = new QueryParameterDeserializer[properties.size()];
+        conversions = new Conversion[properties.size()];
+        List<String> keys = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        int i = 0;
+        for (Map.Entry<String, Schema> property : properties.entrySet()) {
+            EncodingProperty encoding = encodings.get(property.getKey());
+            String style = encoding == null ? null : encoding.getStyle();
+            Boolean explode = encoding == null ? null : encoding.getExplode();
+            names[i] = property.getKey();
+            deserializers[i] = QueryParameterDeserializer.of(property.getKey(), property.getValue(), style,
+                    explode == null ? style == null || "form".equals(style) : explode);
+            deserializers[i].declare(keys, prefixes);
+            conversions[i] = Conversion.of(property.getValue());
+            i++;
+        }
+        reader = new QueryStringReader(keys, prefixes);
+        additionalProperties = !Boolean.FALSE.equals(schema.getAdditionalProperties());
+    }
+
+    /**
+     * @param body the form body
+     * @return the declared properties of the body, with their values converted to the types of the schema
+     */
+    Body read(String body) {
+        QueryStringReader.Values keys = reader.read(body);
+        ParameterSource values = ParameterSource.of(keys);
+        ObjectNode form = NODES.objectNode();
+        for (int i = 0; i < names.length; i++) {
+            Object value = deserializers[i].deserialize(values);
+            if (value != null) {
+                form.set(names[i], conversions[i].convert(value));
+            }
+        }
+        return new Body(form, additionalProperties ? null : keys.getFirstUndeclared());
+    }
+
+    /**
+     * The values read from a form body.
+     */
+    static final class Body {
+        final ObjectNode values;
+        /** the first key that is not a property when the schema does not allow additional properties, else null */
+        final String undeclared;
+
+        private Body(ObjectNode values, String undeclared) {
+            this.values = values;
+            this.undeclared = undeclared;
+        }
+    }
+
+    /**
+     * The conversion of the deserialized text of a value to the type of its schema. The conversions of the items and
+     * properties are worked out when first needed, so a recursive schema is not followed further than a value goes.
+     */
+    static final class Conversion {
+        private static final Conversion TEXT = new Conversion(null);
+
+        private final Schema schema;
+        private final String type;
+        private volatile Conversion items;
+        private volatile Map<String, Conversion> properties;
+        private volatile Conversion additionalProperties;
+
+        private Conversion(Schema schema) {
+            this.schema = schema;
+            this.type = schema == null ? null : schema.getType();
+        }
+
+        static Conversion of(Schema schema) {
+            String type = schema == null ? null : schema.getType();
+            return type == null || "string".equals(type) ? TEXT : new Conversion(schema);
+        }
+
+        private Conversion items() {
+            Conversion result = items;
+            if (result == null) {
+                result = "array".equals(type) ? of(schema.getItemsSchema()) : TEXT;
+                items = result;
+            }
+            return result;
+        }
+
+        private Conversion property(String name) {
+            if (!"object".equals(type)) {
+                return TEXT;
+            }
+            Map<String, Conversion> result = properties;
+            if (result == null) {
+                result = new HashMap<>();
+                for (Map.Entry<String, Schema> property : schema.getProperties().entrySet()) {
+                    result.put(property.getKey(), of(property.getValue()));
+                }
+                additionalProperties = of(schema.getAdditionalPropertiesSchema());
+                properties = result;
+            }
+            Conversion property = result.get(name);
+            return property == null ? additionalProperties : property;
+        }
+
+        /**
+         * @param value a deserialized value: a String, a Collection of values or a Map of values
+         * @return the node of the value
+         */
+        JsonNode convert(Object value) {
+            if (value instanceof Collection) {
+                ArrayNode array = NODES.arrayNode();
+                Conversion item = items();
+                for (Object element : (Collection<?>) value) {
+                    array.add(item.convert(element));
+                }
+                return array;
+            }
+            if (value instanceof Map) {
+                ObjectNode object = NODES.objectNode();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    String name = String.valueOf(entry.getKey());
+                    object.set(name, property(name).convert(entry.getValue()));
+                }
+                return object;
+            }
+            String text = String.valueOf(value);
+            if (type == null) {
+                return NODES.textNode(text);
+            }
+            switch (type) {
+                case "integer":
+                case "number":
+                    return number(text);
+                case "boolean":
+                    if ("true".equals(text) || "false".equals(text)) {
+                        return NODES.booleanNode(Boolean.parseBoolean(text));
+                    }
+                    return NODES.textNode(text);
+                default:
+                    return NODES.textNode(text);
+            }
+        }
+
+        private static JsonNode number(String text) {
+            if (!isNumber(text)) {
+                return NODES.textNode(text);
+            }
+            BigDecimal number = new BigDecimal(text);
+            // a large exponent stays a decimal, it is not expanded into its digits
+            if (number.scale() <= 0 && number.precision() - number.scale() <= 18) {
+                return NODES.numberNode(number.longValue());
+            }
+            return NODES.numberNode(number);
+        }
+
+        /**
+         * @return true for the json number grammar, e.g. {@code -1.5e3}; BigDecimal also takes {@code +1} or {@code .5}
+         */
+        private static boolean isNumber(String text) {
+            int length = text.length();
+            int i = 0;
+            if (i < length && text.charAt(i) == '-') {
+                i++;
+            }
+            int digits = i;
+            while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                i++;
+            }
+            if (i == digits || (text.charAt(digits) == '0' && i - digits > 1)) {
+                return false;
+            }
+            if (i < length && text.charAt(i) == '.') {
+                int fraction = ++i;
+                while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                    i++;
+                }
+                if (i == fraction) {
+                    return false;
+                }
+            }
+            if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+                i++;
+                if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                    i++;
+                }
+                int exponent = i;
+                while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                    i++;
+                }
+                if (i == exponent) {
+                    return false;
+                }
+            }
+            return i == length;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.mservicetech.openapi.validation;
+
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.ValidationMessage;
+import com.networknt.status.Status;
+
+import java.util.Map;
+
+/**
+ * Lightweight result of a failed validation.
+ * <p>
+ * It carries the error code and the raw arguments only; the {@link Status} with the formatted description is
+ * built the first time it is asked for. The {@link ErrorDetail} decides how much is kept and how the description
+ * is rendered.
+ */
+public class ValidationError {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final String code;
+    private final Object[] arguments;
+    private final ErrorDetail detail;
+    private String pointerPrefix;
+    private JsonNodePath location;
+    private volatile Status status;
+
+    public ValidationError(String code, ErrorDetail detail, Object... arguments) {
+        this.code = code;
+        this.detail = detail == null ? ErrorDetail.FULL : detail;
+        this.arguments = this.detail == ErrorDetail.CODE_ONLY || arguments == null ? NO_ARGUMENTS : arguments;
+    }
+
+    public ValidationError(String code, Object... arguments) {
+        this(code, ErrorDetail.FULL, arguments);
+    }
+
+    /**
+     * Convert a nullable error to the status returned by the public validator api.
+     *
+     * @param error the validation error, null if valid
+     * @return the status or null
+     */
+    public static Status toStatus(ValidationError error) {
+        return error == null ? null : error.toStatus();
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return the raw arguments of the description, empty for {@link ErrorDetail#CODE_ONLY}
+     */
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    public ErrorDetail getDetail() {
+        return detail;
+    }
+
+    /**
+     * Set where the error was found. The pointer is only built when asked for.
+     *
+     * @param pointerPrefix json pointer of the validated value, e.g. "/query" or "/body"
+     * @param location location inside the validated value, may be null
+     * @return this error
+     */
+    ValidationError at(String pointerPrefix, JsonNodePath location) {
+        this.pointerPrefix = pointerPrefix;
+        this.location = location;
+        return this;
+    }
+
+    /**
+     * @return json pointer of the invalid value inside the message, e.g. "/query/limit" or "/body/tags/0";
+     * null if the error is not about a value, e.g. an unknown path
+     */
+    public String getPointer() {
+        if (pointerPrefix == null || location == null) {
+            return pointerPrefix;
+        }
+        StringBuilder pointer = new StringBuilder(pointerPrefix);
+        for (int i = 0; i < location.getNameCount(); i++) {
+            appendPointerSegment(pointer, String.valueOf(location.getElement(i)));
+        }
+        return pointer.toString();
+    }
+
+    /**
+     * Append a segment to a json pointer, escaping '~' and '/' as defined by RFC 6901.
+     *
+     * @param pointer the pointer to append to
+     * @param segment the unescaped segment
+     * @return the pointer
+     */
+    static StringBuilder appendPointerSegment(StringBuilder pointer, String segment) {
+        pointer.append('/');
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '~') {
+                pointer.append("~0");
+            } else if (c == '/') {
+                pointer.append("~1");
+            } else {
+                pointer.append(c);
+            }
+        }
+        return pointer;
+    }
+
+    /**
+     * @return http status code from the status config, looked up without formatting the description
+     */
+    public int getStatusCode() {
+        Map<String, Object> config = getConfig();
+        Object statusCode = config == null ? null : config.get("statusCode");
+        return statusCode instanceof Integer ? (Integer) statusCode : 0;
+    }
+
+    /**
+     * @return the message of the status config, e.g. VALIDATOR_SCHEMA
+     */
+    public String getMessage() {
+        Map<String, Object> config = getConfig();
+        return config == null ? null : (String) config.get("message");
+    }
+
+    /**
+     * @return the formatted description, null for {@link ErrorDetail#CODE_ONLY}
+     */
+    public String getDescription() {
+        return toStatus().getDescription();
+    }
+
+    /**
+     * Build the status the first time it is asked for.
+     *
+     * @return the status
+     */
+    public Status toStatus() {
+        Status result = status;
+        if (result == null) {
+            result = buildStatus();
+            status = result;
+        }
+        return result;
+    }
+
+    private Status buildStatus() {
+        if (detail == ErrorDetail.CODE_ONLY) {
+            Map<String, Object> config = getConfig();
+            if (config == null) {
+                Status result = new Status();
+                result.setCode(code);
+                return result;
+            }
+            String severity = (String) config.get("severity");
+            return new Status(getStatusCode(), code, (String) config.get("message"), null,
+                    severity == null ? Status.defaultSeverity : severity);
+        }
+        return new Status(code, formatArguments());
+    }
+
+    private Object[] formatArguments() {
+        Object[] formatted = arguments;
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] instanceof ValidationMessage) {
+                if (formatted == arguments) {
+                    formatted = arguments.clone();
+                }
+                ValidationMessage message = (ValidationMessage) arguments[i];
+                formatted[i] = detail == ErrorDetail.FULL ? message.getMessage()
+                        : message.getInstanceLocation() + ": " + message.getType();
+            }
+        }
+        return formatted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getConfig() {
+        return (Map<String, Object>) Status.getConfig().get(code);
+    }
+
+    @Override
+    public String toString() {
+        return detail == ErrorDetail.CODE_ONLY ? code : toStatus().toString();
+    }
+}
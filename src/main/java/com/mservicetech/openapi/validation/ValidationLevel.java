@@ -0,0 +1,21 @@
+package com.mservicetech.openapi.validation;
+
+/**
+ * How much optional validation work runs, set by a {@link LoadController}. Each level drops the work of the
+ * previous one and more. Request parameter checks run at every level.
+ */
+public enum ValidationLevel {
+    /**
+     * Everything is validated.
+     */
+    FULL,
+    /**
+     * Responses are not validated.
+     */
+    NO_RESPONSE,
+    /**
+     * Responses are not validated and the request body of operations marked with
+     * {@code x-validation-optional: true} is neither parsed nor validated.
+     */
+    NO_OPTIONAL_BODY
+}
@@ -0,0 +1,98 @@
+package com.mservicetech.openapi.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All violations found for a request or a response, up to an error budget.
+ * <p>
+ * The validator checks {@link #isFull()} between parameters, locations and the body and stops evaluating once the
+ * budget is reached. A budget of 1 is a true fail fast: the schema engine is also asked to stop at its first error.
+ */
+public class ValidationReport {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int maxErrors;
+    private final ErrorDetail detail;
+    private final List<ValidationError> errors = new ArrayList<>(1);
+    private boolean skipped;
+
+    /**
+     * @param maxErrors the error budget, at least 1
+     * @param detail how much detail is kept for each error
+     */
+    public ValidationReport(int maxErrors, ErrorDetail detail) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("maxErrors must be at least 1");
+        }
+        this.maxErrors = maxErrors;
+        this.detail = detail == null ? ErrorDetail.FULL : detail;
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @return true when the error budget is reached and evaluation should stop
+     */
+    public boolean isFull() {
+        return errors.size() >= maxErrors;
+    }
+
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    public ErrorDetail getDetail() {
+        return detail;
+    }
+
+    /**
+     * @return the number of errors that can still be added
+     */
+    public int remaining() {
+        return maxErrors - errors.size();
+    }
+
+    public List<ValidationError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return true if the validation was skipped, e.g. a response sampled out by {@link ResponseSampling}
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    void skip() {
+        this.skipped = true;
+    }
+
+    /**
+     * @return the first error, null if valid
+     */
+    public ValidationError getFirstError() {
+        return errors.isEmpty() ? null : errors.get(0);
+    }
+
+    /**
+     * Add an error unless the budget is already reached.
+     *
+     * @param error the error to add
+     * @return true if the budget is reached after adding
+     */
+    boolean add(ValidationError error) {
+        if (error != null && !isFull()) {
+            errors.add(error);
+        }
+        return isFull();
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationReport{errors=" + errors + "}";
+    }
+}
@@ -0,0 +1,14 @@
+package com.mservicetech.openapi.validation;
+
+/**
+ * The checks run for a request, in their default order.
+ */
+public enum ValidationStage {
+    PATH,
+    QUERY,
+    HEADER,
+    COOKIE,
+    BODY;
+
+    static final ValidationStage[] DEFAULT_ORDER = values();
+}
@@ -0,0 +1,122 @@
+package com.mservicetech.openapi.codegen;
+
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mservicetech.openapi.generator.GeneratedExchange;
+import com.mservicetech.openapi.generator.GeneratorOptions;
+import com.mservicetech.openapi.generator.PayloadGenerator;
+import com.mservicetech.openapi.validation.CompiledSchema;
+import com.mservicetech.openapi.validation.CompiledSpec;
+import com.mservicetech.openapi.validation.OpenApiValidator;
+import com.mservicetech.openapi.validation.ValidationReport;
+import com.networknt.openapi.ApiNormalisedPath;
+import com.networknt.openapi.NormalisedPath;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CodegenToolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final OpenApiValidator openApiValidator = new OpenApiValidator("openapi.yaml");
+
+    @Test
+    public void testGeneratedSpecValidatesLikeTheYamlSpec() throws Exception {
+        CompiledSpec compiledSpec = generateAndLoad();
+        OpenApiValidator generated = new OpenApiValidator(compiledSpec);
+
+        GeneratorOptions options = new GeneratorOptions();
+        options.setSeed(11);
+        options.setMutationRate(0.5);
+        for (GeneratedExchange exchange : new PayloadGenerator(openApiValidator.openApiHelper.openApi3, options).generate(200)) {
+            Assert.assertEquals(exchange.toString(),
+                    String.valueOf(openApiValidator.validateRequest(exchange.getRequestURI(), exchange.getMethod(), exchange.getRequest(), ValidationReport.UNLIMITED)),
+                    String.valueOf(generated.validateRequest(exchange.getRequestURI(), exchange.getMethod(), exchange.getRequest(), ValidationReport.UNLIMITED)));
+            Assert.assertEquals(exchange.toString(),
+                    String.valueOf(openApiValidator.validateResponse(exchange.getRequestURI(), exchange.getMethod(), exchange.getStatusCode(), exchange.getResponse(), ValidationReport.UNLIMITED)),
+                    String.valueOf(generated.validateResponse(exchange.getRequestURI(), exchange.getMethod(), exchange.getStatusCode(), exchange.getResponse(), ValidationReport.UNLIMITED)));
+        }
+    }
+
+    @Test
+    public void testGeneratedRouter() throws Exception {
+        CompiledSpec compiledSpec = generateAndLoad();
+        for (String uri : List.of("/v1/pets", "/v1/PETS", "/v1/pets/12", "/v1/pets/12/toys", "/v1/owners", "/v1", "/v2/pets")) {
+            NormalisedPath request = new ApiNormalisedPath(uri, openApiValidator.openApiHelper.basePath);
+            String expected = openApiValidator.openApiHelper.findMatchingApiPath(request).map(NormalisedPath::original).orElse(null);
+            Assert.assertEquals(uri, expected, compiledSpec.findPath(request.parts()));
+        }
+    }
+
+    @Test
+    public void testGeneratedSchemas() throws Exception {
+        CompiledSpec compiledSpec = generateAndLoad();
+        CompiledSchema pet = compiledSpec.getSchema("/components/schemas/Pet");
+        Assert.assertNotNull(pet);
+        Assert.assertNotNull(compiledSpec.getSchema("/paths/~1pets/get/responses/200/content/application~1json/schema"));
+        Assert.assertNull(compiledSpec.getSchema("/components/schemas/Unknown"));
+        CompiledSchema.Failure failure = new CompiledSchema.Failure();
+        Assert.assertTrue(pet.validate(new ObjectMapper().readTree("{\"id\":1,\"name\":\"cat\"}"), failure));
+        Assert.assertFalse(pet.validate(new ObjectMapper().readTree("{\"id\":1}"), failure));
+        Assert.assertEquals("required", failure.getKeyword());
+    }
+
+    @Test
+    public void testUsage() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Assert.assertEquals(CodegenTool.EXIT_ERROR, CodegenTool.run(new String[]{"--spec", "openapi.yaml"},
+                new PrintStream(new ByteArrayOutputStream()), new PrintStream(err)));
+        Assert.assertTrue(err.toString().startsWith("Usage"));
+    }
+
+    private CompiledSpec generateAndLoad() throws Exception {
+        Path sources = folder.newFolder("generated-sources").toPath();
+        Path classes = folder.newFolder("classes").toPath();
+        Path spec = new File(getClass().getClassLoader().getResource("config/openapi.yaml").toURI()).toPath();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(CodegenTool.EXIT_GENERATED, CodegenTool.run(new String[]{"--spec", spec.toString(),
+                "--package", "com.example.api", "--class", "PetstoreSpec", "--output", sources.toString()},
+                new PrintStream(out), System.err));
+        Assert.assertTrue(out.toString(StandardCharsets.UTF_8.name()).startsWith("Generated"));
+
+        List<String> files;
+        try (Stream<Path> walk = Files.walk(sources)) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).map(Path::toString).collect(Collectors.toList());
+        }
+        Assert.assertTrue(files.contains(sources.resolve("com/example/api/PetstoreSpec.java").toString()));
+        List<String> arguments = new ArrayList<>(List.of("-d", classes.toString(), "-classpath", classPath()));
+        arguments.addAll(files);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader());
+        return (CompiledSpec) loader.loadClass("com.example.api.PetstoreSpec").getDeclaredConstructor().newInstance();
+    }
+
+    private static String classPath() throws Exception {
+        List<String> entries = new ArrayList<>();
+        for (Class<?> type : new Class<?>[]{CompiledSpec.class, JsonNode.class, TreeNode.class}) {
+            entries.add(new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+}
@@ -0,0 +1,67 @@
+package com.mservicetech.openapi.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MpmcRingBufferTest {
+
+    @Test
+    public void testOfferPoll() {
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(3);
+        Assert.assertEquals(4, buffer.capacity());
+        Assert.assertNull(buffer.poll());
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                Assert.assertTrue(buffer.offer(i));
+            }
+            Assert.assertFalse(buffer.offer(4));
+            Assert.assertEquals(4, buffer.size());
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals(Integer.valueOf(i), buffer.poll());
+            }
+            Assert.assertTrue(buffer.isEmpty());
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersAndConsumers() throws InterruptedException {
+        MpmcRingBuffer<Long> buffer = new MpmcRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong received = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                for (long i = 1; i <= perProducer; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < 3; c++) {
+            threads.add(new Thread(() -> {
+                while (received.get() < (long) producers * perProducer) {
+                    Long value = buffer.poll();
+                    if (value != null) {
+                        sum.addAndGet(value);
+                        received.incrementAndGet();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+        Assert.assertEquals((long) producers * perProducer, received.get());
+        Assert.assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+    }
+}
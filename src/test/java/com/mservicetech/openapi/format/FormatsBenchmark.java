@@ -0,0 +1,66 @@
+package com.mservicetech.openapi.format;
+
+import com.networknt.schema.Format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Compare the scanners with the formats of the schema engine on the values of {@link FormatsTest}. Run the main
+ * method; the result is the average time of one check in nanoseconds.
+ */
+public class FormatsBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS = 500_000;
+    private static final String[] FORMATS = {Formats.DATE_TIME, Formats.DATE, Formats.UUID, Formats.IPV4, Formats.IPV6, Formats.EMAIL};
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %12s %12s%n", "format", "engine ns", "scanner ns");
+        for (String name : FORMATS) {
+            String[] values = values(name);
+            Format engine = FormatsTest.engineFormat(name);
+            double engineTime = 0;
+            double scannerTime = 0;
+            // the first round warms up
+            for (int round = 0; round <= ROUNDS; round++) {
+                double e = time(values, v -> engine.matches(null, v));
+                double s = time(values, v -> Formats.matches(name, v));
+                if (round > 0) {
+                    engineTime += e;
+                    scannerTime += s;
+                }
+            }
+            System.out.printf("%-10s %12.1f %12.1f%n", name, engineTime / ROUNDS, scannerTime / ROUNDS);
+        }
+    }
+
+    private static double time(String[] values, Predicate<String> check) {
+        int matches = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (check.test(values[i % values.length])) {
+                matches++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (matches < 0) {
+            // keeps the results alive
+            System.out.println(matches);
+        }
+        return (double) elapsed / ITERATIONS;
+    }
+
+    private static String[] values(String format) {
+        List<String> values = new ArrayList<>();
+        for (String[][] table : new String[][][]{FormatsTest.VALID, FormatsTest.INVALID}) {
+            for (String[] cases : table) {
+                if (cases[0].equals(format)) {
+                    values.addAll(Arrays.asList(cases).subList(1, cases.length));
+                }
+            }
+        }
+        return values.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,130 @@
+package com.mservicetech.openapi.format;
+
+import com.networknt.schema.Format;
+import com.networknt.schema.JsonMetaSchema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class FormatsTest {
+    static final String[][] VALID = {
+            {Formats.DATE_TIME, "2024-02-29T13:45:00.123+01:00", "1998-12-31T23:59:60Z", "1998-12-31T15:59:60.123-08:00",
+                    "2024-01-01t00:00:00z", "2024-01-01 00:00:00Z", "0000-01-01T00:00:00.000000001-23:59"},
+            {Formats.DATE, "2024-02-29", "2000-02-29", "0000-01-01", "2023-12-31"},
+            {Formats.UUID, "f81d4fae-7dec-11d0-a765-00a0c91e6bf6", "F81D4FAE-7DEC-11D0-A765-00A0C91E6BF6",
+                    "00000000-0000-0000-0000-000000000000"},
+            {Formats.IPV4, "192.168.0.1", "0.0.0.0", "255.255.255.255", "10.0.10.100"},
+            {Formats.IPV6, "::", "::1", "1::", "2001:db8::ff00:42:8329", "::ffff:192.0.2.128", "1:2:3:4:5:6:7:8",
+                    "1:2:3:4:5:6:1.2.3.4", "1:2:3:4:5:6:7::", "FFFF::abcd"},
+            {Formats.EMAIL, "joe@example.com", "joe.bloggs@example.com", "\"joe bloggs\"@example.com", "joe@[192.0.2.1]",
+                    "joe@[IPv6:2001:db8::1]", "joe@example", "joe+tag@example.co.uk", "o'hara@example.com"},
+            {Formats.INT32, "0", "2147483647", "-2147483648", "+1", "007", "-0"},
+            {Formats.INT64, "0", "9223372036854775807", "-9223372036854775808", "00000000000000000000001"},
+    };
+    static final String[][] INVALID = {
+            {Formats.DATE_TIME, "", "1998-12-31T22:59:60Z", "2023-02-29T00:00:00Z", "2024-01-01T00:00:00", "2024-01-01T24:00:00Z",
+                    "2024-01-01T00:60:00Z", "2024-01-01T00:00:00.Z", "2024-01-01T00:00:00+0100", "2024-13-01T00:00:00Z",
+                    "2024-01-01T00:00:00+24:00", "2024-01-01X00:00:00Z", "2024-01-01T00:00:00Z ", "2024-01-01T0a:00:00Z",
+                    "2024-01-01T00:00:00+01:0a", "2024-01-01T00:00:00.1"},
+            {Formats.DATE, "", "2023-02-29", "1900-02-29", "2024-04-31", "2024-00-01", "2024-01-00", "2024-1-01",
+                    "2024-01-01x", "2024/01/01", "\uff12024-01-01"},
+            {Formats.UUID, "", "f81d4fae7dec11d0a76500a0c91e6bf6", "f81d4fae-7dec-11d0-a765-00a0c91e6bf",
+                    "g81d4fae-7dec-11d0-a765-00a0c91e6bf6", "f81d4fae-7dec-11d0-a765_00a0c91e6bf6",
+                    "{f81d4fae-7dec-11d0-a765-00a0c91e6bf}"},
+            {Formats.IPV4, "", "256.1.1.1", "01.1.1.1", "1.1.1", "1.1.1.1.", "1.1.1.1 ", " 1.1.1.1", "1..1.1", "1.1.1.1000",
+                    "a.b.c.d", "1.1.1.-1"},
+            {Formats.IPV6, "", ":", ":::", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7", "1::2::3", ":1::", "1:", "1:2:3:4:5:6:7:1.2.3.4",
+                    "fe80::1%eth0", "12345::", "::1.2.3", " ::1", "::g", "::256.0.0.1"},
+            {Formats.EMAIL, "", ".joe@example.com", "joe.@example.com", "jo..e@example.com", "joe@-example.com",
+                    "joe@example-.com", "joe@exa_mple.com", "joe", "@example.com", "joe@", "joe@example..com", "joe@@example.com",
+                    "\"joe@example.com", "joe@[192.0.2.1", "joe@[IPv6:1::2::3]", "jo e@example.com",
+                    "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa@example.com"},
+            {Formats.INT32, "", "-", "+", "2147483648", "-2147483649", "1.0", "1e3", " 1", "0x10", "99999999999"},
+            {Formats.INT64, "", "9223372036854775808", "-9223372036854775809", "18446744073709551616", "1_000"},
+    };
+    /** the formats the scanners read as the engine does, leap seconds and non-ascii mailboxes aside */
+    private static final String[] SAME_AS_ENGINE = {Formats.DATE, Formats.UUID, Formats.IPV4, Formats.IPV6};
+
+    @Test
+    public void testValid() {
+        for (String[] cases : VALID) {
+            for (int i = 1; i < cases.length; i++) {
+                Assert.assertTrue(cases[0] + " '" + cases[i] + "'", Formats.matches(cases[0], cases[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        for (String[] cases : INVALID) {
+            for (int i = 1; i < cases.length; i++) {
+                Assert.assertFalse(cases[0] + " '" + cases[i] + "'", Formats.matches(cases[0], cases[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testIntegersSameAsParse() {
+        SplittableRandom random = new SplittableRandom(40);
+        String[] values = {"2147483647", "2147483648", "-2147483648", "-2147483649", "9223372036854775807",
+                "9223372036854775808", "-9223372036854775808", "-9223372036854775809", "0", "-"};
+        for (int i = 0; i < 10_000; i++) {
+            String value = values[random.nextInt(values.length)];
+            // change one character of a value near a limit
+            StringBuilder b = new StringBuilder(value);
+            if (random.nextBoolean()) {
+                b.setCharAt(random.nextInt(b.length()), "0123456789+-".charAt(random.nextInt(12)));
+            }
+            String s = b.toString();
+            Assert.assertEquals(s, parses(s, true), Formats.isInt32(s));
+            Assert.assertEquals(s, parses(s, false), Formats.isInt64(s));
+        }
+    }
+
+    @Test
+    public void testSameAsEngine() {
+        for (String format : SAME_AS_ENGINE) {
+            Format engine = engineFormat(format);
+            for (String[][] table : new String[][][]{VALID, INVALID}) {
+                for (String[] cases : table) {
+                    if (!cases[0].equals(format)) {
+                        continue;
+                    }
+                    for (int i = 1; i < cases.length; i++) {
+                        Assert.assertEquals(format + " '" + cases[i] + "'", engine.matches(null, cases[i]), Formats.matches(format, cases[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupportedFormat() {
+        Assert.assertFalse(Formats.isSupported("hostname"));
+        Assert.assertFalse(Formats.isSupported(null));
+        Assert.assertTrue(Formats.matches("hostname", "not a host"));
+    }
+
+    static Format engineFormat(String name) {
+        for (Format format : JsonMetaSchema.COMMON_BUILTIN_FORMATS) {
+            if (format.getName().equals(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static boolean parses(String s, boolean int32) {
+        try {
+            if (int32) {
+                Integer.parseInt(s);
+            } else {
+                Long.parseLong(s);
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
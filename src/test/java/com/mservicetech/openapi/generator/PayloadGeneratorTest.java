@@ -0,0 +1,75 @@
+package com.mservicetech.openapi.generator;
+
+import com.mservicetech.openapi.validation.OpenApiValidator;
+import com.mservicetech.openapi.validation.ValidationError;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class PayloadGeneratorTest {
+
+    private final OpenApiValidator openApiValidator = new OpenApiValidator("openapi.yaml");
+
+    @Test
+    public void testValidExchanges() {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setSeed(42);
+        for (GeneratedExchange exchange : new PayloadGenerator(openApiValidator.openApiHelper.openApi3, options).generate(200)) {
+            Assert.assertTrue(exchange.isValid());
+            ValidationError requestError = openApiValidator.validateRequest(exchange.getRequestURI(), exchange.getMethod(), exchange.getRequest());
+            Assert.assertNull(exchange + " " + requestError, requestError);
+            ValidationError responseError = openApiValidator.validateResponse(exchange.getRequestURI(), exchange.getMethod(),
+                    exchange.getStatusCode(), exchange.getResponse());
+            Assert.assertNull(exchange + " " + responseError, responseError);
+        }
+    }
+
+    @Test
+    public void testMutatedExchanges() {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setSeed(7);
+        options.setMutationRate(1.0);
+        int mutated = 0;
+        for (GeneratedExchange exchange : new PayloadGenerator(openApiValidator.openApiHelper.openApi3, options).generate(200)) {
+            if (exchange.isValid()) {
+                continue;
+            }
+            mutated++;
+            ValidationError error = exchange.isResponseMutated()
+                    ? openApiValidator.validateResponse(exchange.getRequestURI(), exchange.getMethod(), exchange.getStatusCode(), exchange.getResponse())
+                    : openApiValidator.validateRequest(exchange.getRequestURI(), exchange.getMethod(), exchange.getRequest());
+            Assert.assertNotNull(exchange.toString(), error);
+        }
+        Assert.assertEquals(200, mutated);
+    }
+
+    @Test
+    public void testDeterministic() {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setSeed(1234);
+        options.setMutationRate(0.3);
+        options.setMaxArrayLength(20);
+        List<GeneratedExchange> first = new PayloadGenerator(openApiValidator.openApiHelper.openApi3, options).generate(20);
+        List<GeneratedExchange> second = new PayloadGenerator(openApiValidator.openApiHelper.openApi3, options).generate(20);
+        for (int i = 0; i < first.size(); i++) {
+            Assert.assertEquals(first.get(i).toString(), second.get(i).toString());
+            Assert.assertEquals(first.get(i).getRequest().getRequestBody(), second.get(i).getRequest().getRequestBody());
+            Assert.assertEquals(first.get(i).getRequest().getQueryParameters(), second.get(i).getRequest().getQueryParameters());
+            Assert.assertEquals(first.get(i).getResponse().getContent(), second.get(i).getResponse().getContent());
+        }
+        options.setSeed(1235);
+        List<GeneratedExchange> other = new PayloadGenerator(openApiValidator.openApiHelper.openApi3, options).generate(20);
+        Assert.assertNotEquals(first.get(0).getResponse().getContent(), other.get(0).getResponse().getContent());
+    }
+
+    @Test
+    public void testStringSize() {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setMaxStringLength(1000);
+        options.setOptionalRate(1.0);
+        GeneratedExchange exchange = new PayloadGenerator(openApiValidator.openApiHelper.openApi3, options).generate("post", "/pets");
+        Assert.assertNotNull(exchange.getRequest().getRequestBody());
+        Assert.assertNull(openApiValidator.validateRequest(exchange.getRequestURI(), exchange.getMethod(), exchange.getRequest()));
+    }
+}
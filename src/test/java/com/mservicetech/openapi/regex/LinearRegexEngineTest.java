@@ -0,0 +1,96 @@
+package com.mservicetech.openapi.regex;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class LinearRegexEngineTest {
+    private static final String[] LINEAR = {
+            "abc", "^abc$", "a|b|", "^(a|ab)(c|bcd)(d*)$", "^[a-c]+\\d{2,3}x?$", "[^a-c\\s]", "^\\w+@\\w+\\.com$",
+            "^(?:[0-9a-f]{8})-[0-9a-f]{4}$", "a.c", "^.$", "^$", "$", "^", "(a*)*b", "(a|aa)+$", "^(a+)+$", "a{0}b",
+            "a{2,}", "a{1,2}?b", "[\\-\\]x]", "[a-]", "\\.\\*\\$", "\\x41\\u00e9", "[\\W\\d]", "\\S\\D",
+            "^[A-Z]{2}-[0-9]{1,5}$", "()", "(|a)+", "\\t\\n\\r\\f", "[^\\n]", "é+", "😀.",
+    };
+    private static final String[] FALLBACK = {
+            "(a)\\1", "(?=a)a", "(?i)abc", "\\bword\\b", "a++", "[a-z&&[^b]]", "\\p{L}", "\\Qa.b\\E", "(?<name>a)", "a{2",
+    };
+    private static final String ALPHABET = "abcdx019@.-_ \n\r\t\u0085 é😀AZ*$";
+
+    @Test
+    public void testSameMatchesAsPattern() {
+        SplittableRandom random = new SplittableRandom(39);
+        LinearRegexEngine engine = new LinearRegexEngine();
+        for (String pattern : LINEAR) {
+            Regex regex = engine.compile(pattern);
+            Assert.assertTrue(pattern, regex instanceof NfaRegex);
+            Pattern expected = Pattern.compile(pattern);
+            for (int i = 0; i < 500; i++) {
+                String input = randomString(random);
+                Assert.assertEquals(pattern + " on '" + input + "'", expected.matcher(input).find(), regex.find(input));
+            }
+            for (String input : new String[]{"", "abc", "aab", "ab\r\n", "a\n", "\r\n", "a\r", "aaaaaaaaaaaaaaaaaaaaaaaaaaaa!",
+                    "AB-12345", "x@y.com", "deadbeef-0000", "a ", "😀x"}) {
+                Assert.assertEquals(pattern + " on '" + input + "'", expected.matcher(input).find(), regex.find(input));
+            }
+        }
+    }
+
+    @Test
+    public void testFallbackToBudgetedPattern() {
+        LinearRegexEngine engine = new LinearRegexEngine();
+        for (String pattern : FALLBACK) {
+            Regex regex;
+            try {
+                regex = engine.compile(pattern);
+            } catch (PatternSyntaxException e) {
+                // also rejected by Pattern
+                continue;
+            }
+            Assert.assertTrue(pattern, regex instanceof BudgetedRegex);
+        }
+        Assert.assertTrue(engine.compile("(a)\\1").find("xaa"));
+        Assert.assertFalse(engine.compile("(a)\\1").find("xab"));
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testInvalidPattern() {
+        new LinearRegexEngine().compile("a(b");
+    }
+
+    @Test
+    public void testCatastrophicPatterns() {
+        String input = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa!";
+        LinearRegexEngine engine = new LinearRegexEngine();
+        // linear: the nested quantifiers do not backtrack
+        long start = System.nanoTime();
+        Assert.assertFalse(engine.compile("^(a+)+$").find(input));
+        Assert.assertFalse(engine.compile("^(a|aa)+$").find(input));
+        Assert.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        // a back reference is backtracked within the budget and fails closed
+        Regex budgeted = engine.compile("^(a+)+\\1$");
+        Assert.assertTrue(budgeted instanceof BudgetedRegex);
+        start = System.nanoTime();
+        Assert.assertFalse(budgeted.find(input));
+        Assert.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        Assert.assertTrue(budgeted.find("aa"));
+    }
+
+    @Test
+    public void testRepetitionLimit() {
+        Assert.assertTrue(new LinearRegexEngine().compile("(a{50}){100}") instanceof NfaRegex);
+        Assert.assertTrue(new LinearRegexEngine().compile("(a{1000}){1000}") instanceof BudgetedRegex);
+    }
+
+    private static String randomString(SplittableRandom random) {
+        StringBuilder b = new StringBuilder();
+        int length = random.nextInt(12);
+        int[] codePoints = ALPHABET.codePoints().toArray();
+        for (int i = 0; i < length; i++) {
+            b.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.mservicetech.openapi.replay;
+
+import com.mservicetech.openapi.validation.OpenApiValidator;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class ReplayToolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String VALID_GET = "{\"method\":\"GET\",\"url\":\"http://localhost:8080/v1/pets/1222\","
+            + "\"headers\":{},\"status\":200,\"responseHeaders\":{\"Content-Type\":\"application/json\"},"
+            + "\"responseBody\":{\"id\":1,\"name\":\"cat\"}}";
+    private static final String INVALID_RESPONSE = "{\"method\":\"GET\",\"url\":\"/v1/pets/1222\",\"status\":200,"
+            + "\"responseHeaders\":{\"Content-Type\":\"application/json\"},\"responseBody\":{\"name\":\"cat\"}}";
+    private static final String INVALID_PATH = "{\"method\":\"GET\",\"url\":\"/v1/pets/123456\"}";
+    private static final String LIST = "{\"method\":\"GET\",\"url\":\"/v1/pets?limit=10&names=a&names=b\"}";
+    private static final String MISSING_QUERY = "{\"method\":\"GET\",\"url\":\"/v1/pets\"}";
+    private static final String UNMATCHED = "{\"method\":\"GET\",\"url\":\"/v1/owners\"}";
+
+    @Test
+    public void testNdjsonReplay() throws IOException {
+        Path capture = write("capture.ndjson", String.join("\n", VALID_GET, INVALID_RESPONSE, "", INVALID_PATH,
+                LIST, MISSING_QUERY, UNMATCHED, "not json") + "\n");
+        ReplayValidator replay = new ReplayValidator(new OpenApiValidator("openapi.yaml"), 3);
+        // small chunks so that every chunk boundary falls inside a line
+        replay.setChunkSize(50);
+        ReplayStatistics statistics = replay.replay(List.of(capture));
+
+        Assert.assertEquals(6, statistics.getExchanges());
+        Assert.assertEquals(1, statistics.getParseErrors());
+        Assert.assertEquals(Files.size(capture), statistics.getBytes());
+        Map<String, ReplayStatistics.OperationStatistics> operations = statistics.getOperations();
+        ReplayStatistics.OperationStatistics showPet = operations.get("GET /pets/{petId}");
+        Assert.assertEquals(3, showPet.getRequests());
+        Assert.assertEquals(1, showPet.getRequestFailures());
+        Assert.assertEquals(2, showPet.getResponses());
+        Assert.assertEquals(1, showPet.getResponseFailures());
+        Assert.assertEquals(2, operations.get("GET /pets").getRequests());
+        Assert.assertEquals(1, operations.get("GET /pets").getRequestFailures());
+        Assert.assertEquals(1, operations.get(ReplayStatistics.UNMATCHED).getRequestFailures());
+        Assert.assertEquals(Map.entry("ERR11004", 2L), statistics.getTopErrorCodes(10).get(0));
+    }
+
+    @Test
+    public void testHarReplay() throws IOException {
+        String har = "{\"log\":{\"version\":\"1.2\",\"entries\":["
+                + "{\"request\":{\"method\":\"DELETE\",\"url\":\"https://host/v1/pets/1\",\"headers\":[{\"name\":\"key\",\"value\":\"abc\"}]},"
+                + "\"response\":{\"status\":0}},"
+                + "{\"request\":{\"method\":\"DELETE\",\"url\":\"https://host/v1/pets/1\",\"headers\":[]},"
+                + "\"response\":{\"status\":0}},"
+                + "{\"request\":{\"method\":\"POST\",\"url\":\"https://host/v1/pets\",\"headers\":[],"
+                + "\"postData\":{\"mimeType\":\"application/json\",\"text\":\"{\\\"id\\\":1,\\\"name\\\":\\\"cat\\\"}\"}},"
+                + "\"response\":{\"status\":201,\"headers\":[],\"content\":{\"mimeType\":\"application/json\",\"text\":\"\"}}}"
+                + "]}}";
+        Path capture = write("traffic.har", har);
+        ReplayStatistics statistics = new ReplayValidator(new OpenApiValidator("openapi.yaml"), 2).replay(List.of(capture));
+        Assert.assertEquals(3, statistics.getExchanges());
+        Assert.assertEquals(1, statistics.getOperations().get("DELETE /pets/{petId}").getRequestFailures());
+        Assert.assertEquals(1, statistics.getOperations().get("POST /pets").getResponses());
+        Assert.assertEquals(1, statistics.getFailures());
+        Assert.assertEquals("ERR11017", statistics.getTopErrorCodes(1).get(0).getKey());
+    }
+
+    @Test
+    public void testCommandLine() throws IOException {
+        Path capture = write("capture.ndjson", VALID_GET + "\n" + LIST + "\n");
+        File spec = new File(getClass().getClassLoader().getResource("config/openapi.yaml").getFile());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exit = ReplayTool.run(new String[]{"--spec", spec.getPath(), "--threads", "2", capture.toString()},
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+        Assert.assertEquals(ReplayTool.EXIT_VALID, exit);
+        String report = out.toString(StandardCharsets.UTF_8);
+        Assert.assertTrue(report, report.startsWith("Replayed 2 exchanges"));
+        Assert.assertTrue(report, report.contains("GET /pets/{petId}"));
+
+        Assert.assertEquals(ReplayTool.EXIT_ERROR, ReplayTool.run(new String[]{capture.toString()},
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8)));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path path = folder.newFile(name).toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AdaptiveStageOrderTest {
+
+    @Test
+    public void testDefaultOrderWithoutData() {
+        AdaptiveStageOrder order = new AdaptiveStageOrder();
+        order.recompute();
+        Assert.assertArrayEquals(ValidationStage.DEFAULT_ORDER, order.getOrder());
+    }
+
+    @Test
+    public void testCheapFailingStageFirst() {
+        AdaptiveStageOrder order = new AdaptiveStageOrder();
+        for (int i = 0; i < 100; i++) {
+            order.record(ValidationStage.PATH, 100, false);
+            order.record(ValidationStage.QUERY, 100, false);
+            order.record(ValidationStage.HEADER, 200, i % 2 == 0);
+            order.record(ValidationStage.COOKIE, 100, false);
+            order.record(ValidationStage.BODY, 100_000, i % 2 == 0);
+        }
+        order.recompute();
+        Assert.assertEquals(0.5, order.getFailureRate(ValidationStage.HEADER), 0.0001);
+        Assert.assertEquals(200, order.getAverageNanos(ValidationStage.HEADER), 0.0001);
+        Assert.assertArrayEquals(new ValidationStage[]{ValidationStage.HEADER, ValidationStage.BODY,
+                ValidationStage.PATH, ValidationStage.QUERY, ValidationStage.COOKIE}, order.getOrder());
+    }
+
+    @Test
+    public void testOrderFollowsTraffic() {
+        AdaptiveStageOrder order = new AdaptiveStageOrder();
+        for (int i = 0; i < 100; i++) {
+            order.record(ValidationStage.QUERY, 100, true);
+            order.record(ValidationStage.COOKIE, 100, false);
+        }
+        order.recompute();
+        Assert.assertEquals(ValidationStage.QUERY, order.getOrder()[0]);
+        for (int window = 0; window < 20; window++) {
+            for (int i = 0; i < 100; i++) {
+                order.record(ValidationStage.QUERY, 100, false);
+                order.record(ValidationStage.COOKIE, 100, true);
+            }
+            order.recompute();
+        }
+        Assert.assertEquals(ValidationStage.COOKIE, order.getOrder()[0]);
+    }
+
+    @Test
+    public void testValidatorRejectsWithLearnedOrder() {
+        OpenApiValidator validator = new OpenApiValidator("openapi.yaml");
+        validator.setAdaptiveOrdering(true);
+        Assert.assertEquals(List.of(ValidationStage.DEFAULT_ORDER), validator.getStageOrder("/pets/1", "delete"));
+
+        RequestEntity requestEntity = new RequestEntity();
+        Map<String, Object> pathMap = new HashMap<>();
+        pathMap.put("petId", "1");
+        requestEntity.setPathParameters(pathMap);
+        requestEntity.setHeaderParameters(new HashMap<>());
+        for (int i = 0; i < 50; i++) {
+            ValidationError error = validator.validateRequest("/pets/1", "delete", requestEntity);
+            Assert.assertEquals("ERR11017", error.getCode());
+        }
+        validator.getOperationPlan("/pets/1", "delete").getStageOrder().recompute();
+        Assert.assertEquals(ValidationStage.HEADER, validator.getStageOrder("/pets/1", "delete").get(0));
+
+        // a valid request still runs every stage
+        Map<String, Object> headerMap = new HashMap<>();
+        headerMap.put("key", "abc");
+        requestEntity.setHeaderParameters(headerMap);
+        Assert.assertNull(validator.validateRequest("/pets/1", "delete", requestEntity));
+        pathMap.put("petId", 1);
+        Assert.assertEquals("ERR11004", validator.validateRequest("/pets/1", "delete", requestEntity).getCode());
+    }
+}
@@ -0,0 +1,352 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.generator.GeneratedExchange;
+import com.mservicetech.openapi.generator.GeneratorOptions;
+import com.mservicetech.openapi.generator.PayloadGenerator;
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SchemaValidatorsConfig;
+import com.networknt.schema.SpecVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Differential tests of the compiled schemas against the generic engine.
+ */
+public class CompiledSchemaTest {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    static final JsonNode COMPONENTS = read("{\"schemas\":{"
+            + "\"Pet\":{\"type\":\"object\",\"required\":[\"id\",\"name\"],\"properties\":{\"id\":{\"type\":\"integer\",\"format\":\"int64\"},"
+            + "\"name\":{\"type\":\"string\",\"minLength\":1},\"tag\":{\"type\":\"string\",\"nullable\":true}}},"
+            + "\"Node\":{\"type\":\"object\",\"properties\":{\"value\":{\"type\":\"number\"},\"children\":{\"type\":\"array\",\"items\":{\"$ref\":\"#/components/schemas/Node\"}}}},"
+            + "\"Cat\":{\"type\":\"object\",\"required\":[\"kind\",\"lives\"],\"properties\":{\"kind\":{\"type\":\"string\"},\"lives\":{\"type\":\"integer\"}}},"
+            + "\"Dog\":{\"type\":\"object\",\"required\":[\"kind\",\"bark\"],\"properties\":{\"kind\":{\"type\":\"string\"},\"bark\":{\"type\":\"boolean\"}}}}}");
+    private static final String PET_VARIANTS = "{\"oneOf\":[{\"$ref\":\"#/components/schemas/Cat\"},{\"$ref\":\"#/components/schemas/Dog\"}],"
+            + "\"discriminator\":{\"propertyName\":\"kind\",\"mapping\":{\"cat\":\"#/components/schemas/Cat\"}}}";
+
+    static final String[] SCHEMAS = {
+            "{\"type\":\"string\",\"minLength\":2,\"maxLength\":4}",
+            "{\"type\":\"string\",\"enum\":[\"a\",\"b\",\"\\u00e9\\n\\\"\"],\"nullable\":true}",
+            "{\"enum\":[\"x\",\"y\"]}",
+            "{\"type\":\"integer\",\"minimum\":-3,\"maximum\":7}",
+            "{\"type\":\"number\",\"exclusiveMinimum\":0,\"exclusiveMaximum\":2.5}",
+            "{\"type\":[\"string\",\"integer\"],\"minLength\":1,\"minimum\":1}",
+            "{\"minLength\":2,\"minimum\":3,\"maxItems\":1,\"required\":[\"a\"]}",
+            "{\"type\":\"boolean\"}",
+            "{\"type\":\"object\",\"additionalProperties\":false,\"required\":[\"a\",\"z\"],\"properties\":{\"a\":{\"type\":\"integer\"},\"b\":{}}}",
+            "{\"type\":\"object\",\"additionalProperties\":{\"type\":\"string\"},\"minProperties\":1,\"maxProperties\":3,\"properties\":{\"a\":{\"type\":\"integer\"}}}",
+            "{\"type\":\"object\",\"properties\":{\"a\":false,\"b\":true}}",
+            "{\"type\":\"array\",\"minItems\":1,\"maxItems\":3,\"items\":{\"type\":\"integer\",\"maximum\":5}}",
+            "{\"type\":\"array\",\"items\":{\"$ref\":\"#/components/schemas/Pet\"}}",
+            "{\"$ref\":\"#/components/schemas/Pet\"}",
+            "{\"$ref\":\"#/components/schemas/Node\"}",
+            "{\"$ref\":\"#/components/schemas/Pet\",\"maxProperties\":2}",
+            "{\"type\":\"object\",\"nullable\":true,\"description\":\"annotations only\",\"x-internal\":true,\"example\":{}}",
+            "{\"oneOf\":[{\"type\":\"integer\"},{\"type\":\"number\",\"maximum\":2}]}",
+            "{\"anyOf\":[{\"type\":\"string\",\"minLength\":2},{\"type\":\"integer\"}]}",
+            "{\"type\":\"object\",\"required\":[\"a\"],\"properties\":{\"a\":{\"oneOf\":[{\"type\":\"integer\"},{\"type\":\"string\"},{\"$ref\":\"#/components/schemas/Pet\"}]}}}",
+            "{\"type\":\"array\",\"items\":{\"anyOf\":[{\"$ref\":\"#/components/schemas/Pet\"},{\"type\":\"array\",\"maxItems\":1}]}}",
+    };
+
+    private static final String[] UNSUPPORTED = {
+            "{\"type\":\"string\",\"pattern\":\"^a\"}",
+            "{\"allOf\":[{\"type\":\"string\"}]}",
+            "{\"type\":\"number\",\"exclusiveMinimum\":true,\"minimum\":1}",
+            "{\"enum\":[1,2]}",
+            "{\"type\":\"array\",\"uniqueItems\":true}",
+            "{\"type\":\"object\",\"properties\":{\"a\":{\"not\":{}}}}",
+            "{\"$ref\":\"other.yaml#/Pet\"}",
+            "{\"$ref\":\"#/components/schemas/Pet\",\"nullable\":true}",
+            "{\"oneOf\":[{\"type\":\"integer\"}],\"nullable\":true}",
+            "{\"anyOf\":[]}",
+            "{\"oneOf\":[{\"$ref\":\"#/components/schemas/Cat\"}],\"discriminator\":{\"propertyName\":\"kind\",\"mapping\":{\"dog\":\"Dog\"}}}",
+    };
+
+    private static final String[] VALUES = {
+            "null", "true", "0", "1", "1.0", "1.5", "-3", "-4", "2.5", "7", "8", "5", "6", "\"\"", "\"a\"", "\"ab\"", "\"abcde\"",
+            "\"\\uD83D\\uDE00\\uD83D\\uDE00\"", "\"x\"", "\"\\u00e9\\n\\\"\"", "[]", "[1]", "[1,2,3,4]", "[\"a\"]", "[6]", "{}",
+            "{\"a\":1}", "{\"a\":\"1\"}", "{\"a\":1,\"z\":null}", "{\"a\":1,\"z\":2,\"c\":3}", "{\"b\":{\"any\":[]}}",
+            "{\"a\":1,\"b\":\"x\",\"c\":\"y\",\"d\":\"z\"}", "{\"id\":1,\"name\":\"cat\"}", "{\"id\":1,\"name\":\"\"}",
+            "{\"id\":1.0,\"name\":\"cat\",\"tag\":null}", "{\"id\":\"1\",\"name\":\"cat\"}", "{\"name\":\"cat\"}",
+            "[{\"id\":1,\"name\":\"cat\"},{\"id\":2}]", "{\"value\":1,\"children\":[{\"value\":2,\"children\":[{\"value\":\"3\"}]}]}",
+            "{\"value\":1,\"children\":[{\"children\":[]}]}",
+    };
+
+    @Test
+    public void testDifferentialTable() {
+        for (String schema : SCHEMAS) {
+            JsonNode schemaNode = read(schema);
+            CompiledSchema compiled = SchemaCompiler.compile(schemaNode, COMPONENTS);
+            Assert.assertNotNull(schema, compiled);
+            JsonSchema generic = generic(schemaNode);
+            for (String value : VALUES) {
+                assertSameResult(schema, compiled, generic, read(value));
+            }
+        }
+    }
+
+    @Test
+    public void testDifferentialRandom() {
+        SplittableRandom random = new SplittableRandom(20240611L);
+        for (String schema : SCHEMAS) {
+            JsonNode schemaNode = read(schema);
+            CompiledSchema compiled = SchemaCompiler.compile(schemaNode, COMPONENTS);
+            JsonSchema generic = generic(schemaNode);
+            for (int i = 0; i < 300; i++) {
+                assertSameResult(schema, compiled, generic, randomValue(random, 3));
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupportedKeywords() {
+        for (String schema : UNSUPPORTED) {
+            try {
+                SchemaCompiler.generateSource("test", "Unsupported", false, read(schema), COMPONENTS);
+                Assert.fail(schema);
+            } catch (SchemaCompiler.UnsupportedSchemaException e) {
+                Assert.assertNull(SchemaCompiler.compile(read(schema), COMPONENTS));
+            }
+        }
+    }
+
+    @Test
+    public void testFailureLocation() {
+        CompiledSchema compiled = SchemaCompiler.compile(read("{\"type\":\"array\",\"items\":{\"$ref\":\"#/components/schemas/Pet\"}}"), COMPONENTS);
+        CompiledSchema.Failure failure = new CompiledSchema.Failure();
+        Assert.assertFalse(compiled.validate(read("[{\"id\":1,\"name\":\"cat\"},{\"id\":2,\"name\":7}]"), failure));
+        Assert.assertEquals("type", failure.getKeyword());
+        Assert.assertEquals("$[1].name", failure.location(new JsonNodePath(new SchemaValidatorsConfig().getPathType())).toString());
+    }
+
+    @Test
+    public void testDiscriminatorDispatch() {
+        CompiledSchema compiled = SchemaCompiler.compile(read(PET_VARIANTS), COMPONENTS);
+        Assert.assertNotNull(compiled);
+        CompiledSchema.Failure failure = new CompiledSchema.Failure();
+        Assert.assertTrue(compiled.validate(read("{\"kind\":\"cat\",\"lives\":9}"), failure));
+        // implicit mapping by the name of the component
+        Assert.assertTrue(compiled.validate(read("{\"kind\":\"Dog\",\"bark\":true}"), failure));
+        // every branch is evaluated as by the generic engine, a value matching both branches is invalid
+        Assert.assertFalse(compiled.validate(read("{\"kind\":\"cat\",\"lives\":9,\"bark\":true}"), failure));
+        Assert.assertEquals("oneOf", failure.getKeyword());
+        Assert.assertNull(failure.getVariant());
+        // and a value the selected branch rejects is valid against the other one
+        failure = new CompiledSchema.Failure();
+        Assert.assertTrue(compiled.validate(read("{\"kind\":\"cat\",\"bark\":true}"), failure));
+        // no mapping for the value or no property, every branch is evaluated
+        Assert.assertTrue(compiled.validate(read("{\"kind\":\"bird\",\"lives\":1}"), failure));
+        Assert.assertFalse(compiled.validate(read("{\"lives\":1}"), failure));
+        Assert.assertEquals("oneOf", failure.getKeyword());
+        Assert.assertNull(failure.getVariant());
+
+        JsonNode value = read("[{\"kind\":\"cat\",\"lives\":\"x\"}]");
+        failure = new CompiledSchema.Failure();
+        CompiledSchema array = SchemaCompiler.compile(read("{\"type\":\"array\",\"items\":" + PET_VARIANTS + "}"), COMPONENTS);
+        Assert.assertFalse(array.validate(value, failure));
+        Assert.assertEquals("type", failure.getKeyword());
+        Assert.assertEquals("#/components/schemas/Cat", failure.getVariant());
+        JsonNodePath root = new JsonNodePath(new SchemaValidatorsConfig().getPathType());
+        Assert.assertEquals("$[0].lives", failure.location(root).toString());
+        Assert.assertEquals("$[0]", failure.variantLocation(root).toString());
+        Assert.assertEquals(value.get(0), failure.variantNode(value));
+    }
+
+    @Test
+    public void testDiscriminatorSameVerdict() throws InterruptedException {
+        String[] schemas = {PET_VARIANTS, PET_VARIANTS.replace("oneOf", "anyOf")};
+        String[] bodies = {"{\"kind\":\"cat\",\"lives\":9}", "{\"kind\":\"cat\",\"lives\":9,\"bark\":true}",
+                "{\"kind\":\"cat\",\"bark\":true}", "{\"kind\":\"Dog\",\"bark\":true}", "{\"kind\":\"bird\",\"lives\":1}",
+                "{\"lives\":1}", "{\"kind\":\"cat\",\"lives\":\"x\"}", "[]"};
+        for (String schema : schemas) {
+            CompiledSchema compiled = SchemaCompiler.compile(read(schema), COMPONENTS);
+            JsonSchema generic = generic(read(schema));
+            for (String body : bodies) {
+                assertSameResult(schema, compiled, generic, read(body));
+            }
+        }
+
+        // the verdict of a validator does not change when the compiler thread is done
+        OpenApiValidator validator = petValidator();
+        validator.setCompiledOperations(List.of("addPet"));
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType("application/json");
+        requestEntity.setRequestBody(bodies[1]);
+        boolean before = validator.validateRequest("/pets", "post", requestEntity, ValidationReport.UNLIMITED).isValid();
+        awaitCompiled(validator, "/pets", "post");
+        Assert.assertFalse(before);
+        Assert.assertFalse(validator.validateRequest("/pets", "post", requestEntity, ValidationReport.UNLIMITED).isValid());
+        requestEntity.setRequestBody(bodies[2]);
+        Assert.assertTrue(validator.validateRequest("/pets", "post", requestEntity, ValidationReport.UNLIMITED).isValid());
+    }
+
+    @Test
+    public void testDiscriminatorErrorsOfSelectedBranch() throws InterruptedException {
+        OpenApiValidator validator = petValidator();
+        validator.setCompiledOperations(List.of("addPet"));
+        awaitCompiled(validator, "/pets", "post");
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType("application/json");
+        requestEntity.setRequestBody("{\"kind\":\"cat\",\"lives\":\"x\"}");
+        ValidationReport report = validator.validateRequest("/pets", "post", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(report.toString(), 1, report.getErrors().size());
+        Assert.assertEquals("/body/lives", report.getFirstError().getPointer());
+        Assert.assertTrue(report.toString(), report.toString().contains("string found, integer expected"));
+
+        requestEntity.setRequestBody("{\"lives\":1}");
+        report = validator.validateRequest("/pets", "post", requestEntity, ValidationReport.UNLIMITED);
+        // without the property every branch is reported
+        Assert.assertEquals(report.toString(), 4, report.getErrors().size());
+    }
+
+    @Test
+    public void testCompiledOperationsReportSameErrors() {
+        OpenApiValidator generic = new OpenApiValidator("openapi.yaml");
+        OpenApiValidator compiled = new OpenApiValidator("openapi.yaml");
+        compiled.setCompiledOperations(List.of("*"));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setSeed(99);
+        options.setMutationRate(0.5);
+        for (GeneratedExchange exchange : new PayloadGenerator(generic.openApiHelper.openApi3, options).generate(200)) {
+            Assert.assertTrue(compiled.getOperationPlan(exchange.getRequestURI(), exchange.getMethod()).isCompiled());
+            Assert.assertEquals(exchange.toString(),
+                    String.valueOf(generic.validateRequest(exchange.getRequestURI(), exchange.getMethod(), exchange.getRequest(), ValidationReport.UNLIMITED)),
+                    String.valueOf(compiled.validateRequest(exchange.getRequestURI(), exchange.getMethod(), exchange.getRequest(), ValidationReport.UNLIMITED)));
+            Assert.assertEquals(exchange.toString(),
+                    String.valueOf(generic.validateResponse(exchange.getRequestURI(), exchange.getMethod(), exchange.getStatusCode(), exchange.getResponse(), ValidationReport.UNLIMITED)),
+                    String.valueOf(compiled.validateResponse(exchange.getRequestURI(), exchange.getMethod(), exchange.getStatusCode(), exchange.getResponse(), ValidationReport.UNLIMITED)));
+        }
+    }
+
+    @Test
+    public void testCompiledOperationCodeOnly() {
+        OpenApiValidator validator = new OpenApiValidator("openapi.yaml");
+        validator.setErrorDetail(ErrorDetail.CODE_ONLY);
+        validator.setCompiledOperations(List.of("createPets"));
+        Assert.assertTrue(validator.getOperationPlan("/v1/pets", "post").isCompiled());
+        Assert.assertFalse(validator.getOperationPlan("/v1/pets", "get").isCompiled());
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setRequestBody("{\"id\":1,\"name\":7}");
+        requestEntity.setContentType("application/json");
+        ValidationError error = validator.validateRequest("/v1/pets", "post", requestEntity);
+        Assert.assertEquals("ERR11004", error.getCode());
+        Assert.assertEquals("/body/name", error.getPointer());
+        validator.setCompiledOperations(List.of());
+        Assert.assertFalse(validator.getOperationPlan("/v1/pets", "post").isCompiled());
+    }
+
+    @Test
+    public void testCompiledInBackground() throws InterruptedException {
+        OpenApiValidator validator = new OpenApiValidator("openapi.yaml");
+        validator.setCompiledOperations(List.of("createPets"));
+        com.networknt.oas.model.Schema schema = validator.getOperationPlan("/v1/pets", "post").getRequestBodySchema(ContentType.JSON);
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setRequestBody("{\"id\":1,\"name\":7}");
+        requestEntity.setContentType("application/json");
+        // the generic engine validates while the schema is compiled
+        Assert.assertEquals("/body/name", validator.validateRequest("/v1/pets", "post", requestEntity).getPointer());
+        awaitCompiled(validator, "/v1/pets", "post");
+        Assert.assertNotNull(validator.schemaValidator.getParseShape(schema));
+        Assert.assertEquals("/body/name", validator.validateRequest("/v1/pets", "post", requestEntity).getPointer());
+    }
+
+    private static OpenApiValidator petValidator() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: pets, version: '1'}\n"
+                + "paths:\n"
+                + "  /pets:\n"
+                + "    post:\n"
+                + "      operationId: addPet\n"
+                + "      requestBody:\n"
+                + "        content:\n"
+                + "          application/json:\n"
+                + "            schema: " + PET_VARIANTS + "\n"
+                + "      responses:\n"
+                + "        '201': {description: created}\n"
+                + "components:\n"
+                + "  schemas: " + COMPONENTS.get("schemas") + "\n";
+        return new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Wait for the compiler thread to compile the json request body schema of an operation.
+     */
+    private static void awaitCompiled(OpenApiValidator validator, String path, String method) throws InterruptedException {
+        com.networknt.oas.model.Schema schema = validator.getOperationPlan(path, method).getRequestBodySchema(ContentType.JSON);
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (validator.schemaValidator.getParseShape(schema) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void assertSameResult(String schema, CompiledSchema compiled, JsonSchema generic, JsonNode value) {
+        boolean expected = generic.validate(value).isEmpty();
+        Assert.assertEquals(schema + " " + value, expected, compiled.validate(value, new CompiledSchema.Failure()));
+    }
+
+    private static JsonSchema generic(JsonNode schema) {
+        SchemaValidatorsConfig config = new SchemaValidatorsConfig();
+        config.setTypeLoose(false);
+        config.setHandleNullableField(true);
+        ObjectNode root = schema.deepCopy();
+        root.set("components", COMPONENTS);
+        return JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012).getSchema(root, config);
+    }
+
+    static JsonNode randomValue(SplittableRandom random, int depth) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        String[] names = {"a", "b", "c", "z", "id", "name", "tag", "value", "children"};
+        switch (random.nextInt(depth > 0 ? 9 : 7)) {
+            case 0:
+                return factory.nullNode();
+            case 1:
+                return factory.booleanNode(random.nextBoolean());
+            case 2:
+                return factory.numberNode(random.nextInt(-5, 10));
+            case 3:
+                return factory.numberNode(random.nextInt(-10, 20) / 2.0);
+            case 4:
+                return factory.numberNode(random.nextLong());
+            case 5:
+            case 6:
+                StringBuilder text = new StringBuilder();
+                int length = random.nextInt(6);
+                for (int i = 0; i < length; i++) {
+                    text.append(random.nextInt(4) == 0 ? "😀" : String.valueOf((char) ('a' + random.nextInt(26))));
+                }
+                return factory.textNode(random.nextInt(5) == 0 ? "x" : text.toString());
+            case 7:
+                ArrayNode array = factory.arrayNode();
+                for (int i = random.nextInt(5); i > 0; i--) {
+                    array.add(randomValue(random, depth - 1));
+                }
+                return array;
+            default:
+                ObjectNode object = factory.objectNode();
+                for (int i = random.nextInt(5); i > 0; i--) {
+                    object.set(names[random.nextInt(names.length)], randomValue(random, depth - 1));
+                }
+                return object;
+        }
+    }
+
+    private static JsonNode read(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(json, e);
+        }
+    }
+}
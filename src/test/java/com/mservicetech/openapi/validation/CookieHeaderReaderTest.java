@@ -0,0 +1,55 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class CookieHeaderReaderTest {
+
+    @Test
+    public void testOnlyDeclaredCookies() {
+        CookieHeaderReader reader = new CookieHeaderReader(List.of("sid", "lang"));
+        Assert.assertEquals(Map.of("sid", "31d4", "lang", "\"en US\""),
+                reader.read("_ga=GA1.2.3; sid=31d4;lang = \"en US\" ;xsid=1"));
+        Assert.assertEquals(Map.of("sid", "", "lang", "en"), reader.read("sid=; sid=2; noValue; =x; lang=en; lang=fr"));
+        Assert.assertEquals(Map.of(), reader.read(""));
+        Assert.assertEquals(Map.of("sid", "a=b"), reader.read("sidx=1;sid=a=b"));
+    }
+
+    @Test(timeout = 2000)
+    public void testNamesWithoutValues() {
+        String header = "a;".repeat(400_000) + "sid=31d4";
+        Assert.assertEquals(Map.of("sid", "31d4"), new CookieHeaderReader(List.of("sid", "lang")).read(header));
+    }
+
+    @Test
+    public void testValidateCookieHeader() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: cookies, version: '1'}\n"
+                + "paths:\n"
+                + "  /cart:\n"
+                + "    parameters:\n"
+                + "      - {name: sid, in: cookie, required: true, schema: {type: string, maxLength: 4}}\n"
+                + "    get:\n"
+                + "      parameters:\n"
+                + "        - {name: items, in: cookie, schema: {type: integer}}\n"
+                + "      responses:\n"
+                + "        '200': {description: cart}\n";
+        OpenApiValidator validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setCookieHeader("_ga=GA1.2.3; sid=31d4; items=3");
+        Assert.assertNull(validator.validateRequest("/cart", "get", requestEntity));
+        requestEntity.setCookieHeader("_ga=GA1.2.3; sid=31d4e; items=x");
+        ValidationReport report = validator.validateRequest("/cart", "get", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(report.toString(), 2, report.getErrors().size());
+        Assert.assertEquals("/cookie/sid", report.getErrors().get(0).getPointer());
+        Assert.assertEquals("/cookie/items", report.getErrors().get(1).getPointer());
+        requestEntity.setCookieHeader("_ga=GA1.2.3");
+        Assert.assertEquals("ERR11001", validator.validateRequest("/cart", "get", requestEntity).getCode());
+    }
+}
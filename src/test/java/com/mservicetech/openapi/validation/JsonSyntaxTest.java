@@ -0,0 +1,90 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonSyntaxTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testWellFormed() {
+        String[] bodies = {
+                "{}",
+                "[]",
+                "{\"id\": 1, \"name\": \"cat\", \"tags\": [\"a\", \"b\"], \"owner\": null}",
+                "[1, -0.5, 2e10, 3E-2, true, false, null, \"\\u00e9\\n\"]",
+                "{\"nested\": {\"a\": [[], {}, [{\"b\": {}}]]}}",
+                "{\"a\": 1} trailing content is ignored by the object mapper"
+        };
+        for (String body : bodies) {
+            Assert.assertTrue(body, JsonSyntax.isWellFormed(body));
+        }
+    }
+
+    @Test
+    public void testMalformed() {
+        String[] bodies = {
+                "",
+                "1",
+                "\"text\"",
+                "{",
+                "{\"a\": 1",
+                "{\"a\" 1}",
+                "{a: 1}",
+                "{\"a\": 1,}",
+                "[1, 2,]",
+                "[01]",
+                "[1.]",
+                "[-]",
+                "[tru]",
+                "[\"tab\tinside\"]",
+                "[\"\\x\"]",
+                "[\"\\u12g4\"]",
+                "{\"a\": 1]",
+                "[1}",
+                "[1 2]"
+        };
+        for (String body : bodies) {
+            Assert.assertFalse(body, JsonSyntax.isWellFormed(body));
+        }
+    }
+
+    @Test
+    public void testAgreesWithObjectMapper() {
+        String[] bodies = {"{\"a\": [1, 2, {\"b\": \"c\"}]}", "[1, 2,]", "{\"a\": 01}", "[\"\\/\"]"};
+        for (String body : bodies) {
+            boolean parsed;
+            try {
+                objectMapper.readValue(body, Object.class);
+                parsed = true;
+            } catch (Exception e) {
+                parsed = false;
+            }
+            Assert.assertEquals(body, parsed, JsonSyntax.isWellFormed(body));
+        }
+    }
+
+    @Test
+    public void testNestingDepthLimit() {
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            deep.append('[');
+        }
+        for (int i = 0; i < 5000; i++) {
+            deep.append(']');
+        }
+        Assert.assertFalse(JsonSyntax.isWellFormed(deep.toString()));
+
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            nested.append(i % 2 == 0 ? "{\"a\":" : "[");
+        }
+        nested.append("1");
+        for (int i = 199; i >= 0; i--) {
+            nested.append(i % 2 == 0 ? "}" : "]");
+        }
+        Assert.assertTrue(JsonSyntax.isWellFormed(nested.toString()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class LoadControllerTest {
+
+    private double load;
+
+    @Test
+    public void testStepDownAndRecover() {
+        LoadController controller = new LoadController(0, () -> load, 0.8);
+        load = 0.9;
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.NO_RESPONSE, controller.getLevel());
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.NO_OPTIONAL_BODY, controller.getLevel());
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.NO_OPTIONAL_BODY, controller.getLevel());
+
+        // inside the hysteresis band the level holds
+        load = 0.7;
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.NO_OPTIONAL_BODY, controller.getLevel());
+
+        load = 0.4;
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.NO_RESPONSE, controller.getLevel());
+        Assert.assertEquals(0.5, controller.getPressure(), 0.0001);
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.FULL, controller.getLevel());
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.FULL, controller.getLevel());
+    }
+
+    @Test
+    public void testLatencyObjective() {
+        LoadController controller = LoadController.latency(1, TimeUnit.MILLISECONDS);
+        controller.setInterval(1, TimeUnit.HOURS);
+        long now = System.nanoTime();
+        controller.record(now - TimeUnit.MILLISECONDS.toNanos(3));
+        controller.record(now - TimeUnit.MILLISECONDS.toNanos(3));
+        controller.evaluate();
+        Assert.assertTrue(controller.getPressure() > 1.0);
+        Assert.assertEquals(ValidationLevel.NO_RESPONSE, controller.getLevel());
+
+        // no traffic in the last interval is no pressure
+        controller.evaluate();
+        Assert.assertEquals(0.0, controller.getPressure(), 0.0);
+        Assert.assertEquals(ValidationLevel.FULL, controller.getLevel());
+    }
+
+    @Test
+    public void testSteadyOverloadHoldsLevel() {
+        LoadController controller = LoadController.latency(2, TimeUnit.MILLISECONDS);
+        controller.setInterval(1, TimeUnit.HOURS);
+        // skipping the response validation cuts the latency from 3 to 1 ms, below the recovery ratio
+        long[] latencyMicros = {3000, 1000, 1000};
+        for (int i = 0; i < 10; i++) {
+            runInterval(controller, latencyMicros[controller.getLevel().ordinal()]);
+            Assert.assertEquals("interval " + i, ValidationLevel.NO_RESPONSE, controller.getLevel());
+        }
+
+        // the load goes away: the same requests take a third of the time, 1 ms with the full validation
+        runInterval(controller, 300);
+        Assert.assertEquals(ValidationLevel.FULL, controller.getLevel());
+        runInterval(controller, 1000);
+        Assert.assertEquals(ValidationLevel.FULL, controller.getLevel());
+    }
+
+    private static void runInterval(LoadController controller, long latencyMicros) {
+        long now = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            controller.record(now - TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        }
+        controller.evaluate();
+    }
+
+    @Test
+    public void testCpuLoad() {
+        LoadController controller = LoadController.cpuLoad(1.0);
+        controller.evaluate();
+        Assert.assertTrue(controller.getPressure() >= 0.0);
+    }
+
+    @Test
+    public void testValidatorSheddingLevels() {
+        OpenApiValidator validator = new OpenApiValidator("openapi.yaml");
+        LoadController controller = new LoadController(0, () -> load, 0.5);
+        controller.setInterval(1, TimeUnit.HOURS);
+        validator.setLoadController(controller);
+        Assert.assertEquals(ValidationLevel.FULL, validator.getValidationLevel());
+
+        ResponseEntity responseEntity = new ResponseEntity();
+        responseEntity.setContentType("application/json");
+        responseEntity.setContent("not json");
+        RequestEntity invalidBody = new RequestEntity();
+        invalidBody.setRequestBody("{\"id\": \"abc\"}");
+        invalidBody.setContentType("application/json");
+        RequestEntity missingQuery = new RequestEntity();
+        missingQuery.setQueryParameters(new HashMap<>());
+
+        Assert.assertNotNull(validator.validateResponse("/pets/1222", "get", "200", responseEntity));
+        Assert.assertNotNull(validator.validateRequest("/pets", "post", invalidBody));
+
+        load = 1.0;
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.NO_RESPONSE, validator.getValidationLevel());
+        Assert.assertTrue(validator.validateResponse("/pets/1222", "get", "200", responseEntity, 1).isSkipped());
+        Assert.assertNotNull(validator.validateRequest("/pets", "post", invalidBody));
+
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.NO_OPTIONAL_BODY, validator.getValidationLevel());
+        Assert.assertNull(validator.validateRequest("/pets", "post", invalidBody));
+        // parameters are always checked
+        Assert.assertEquals("ERR11000", validator.validateRequest("/pets", "get", missingQuery).getCode());
+
+        load = 0.0;
+        controller.evaluate();
+        controller.evaluate();
+        Assert.assertEquals(ValidationLevel.FULL, validator.getValidationLevel());
+        Assert.assertNotNull(validator.validateRequest("/pets", "post", invalidBody));
+    }
+}
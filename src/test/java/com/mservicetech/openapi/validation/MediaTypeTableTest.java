@@ -0,0 +1,82 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+public class MediaTypeTableTest {
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: media types, version: '1'}\n"
+                + "paths:\n"
+                + "  /pets:\n"
+                + "    post:\n"
+                + "      requestBody:\n"
+                + "        content:\n"
+                + "          application/json: {schema: {type: object, required: [name]}}\n"
+                + "          application/vnd.pet+json: {schema: {type: object, required: [id]}}\n"
+                + "          text/*: {schema: {type: string}}\n"
+                + "          '*/*': {schema: {type: array}}\n"
+                + "      responses:\n"
+                + "        '400':\n"
+                + "          description: problem\n"
+                + "          content:\n"
+                + "            application/json; charset=utf-8: {schema: {type: object, required: [title]}}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testSpecificity() {
+        OperationPlan plan = validator.getOperationPlan("/pets", "post");
+        Assert.assertEquals("object", plan.getRequestBodySchema(ContentType.of("application/json")).getType());
+        Assert.assertEquals("[name]", plan.getRequestBodySchema(ContentType.of("Application/JSON; charset=UTF-8")).getRequiredFields().toString());
+        Assert.assertEquals("[id]", plan.getRequestBodySchema(ContentType.of("application/vnd.pet+json")).getRequiredFields().toString());
+        Assert.assertEquals("[name]", plan.getRequestBodySchema(ContentType.of("application/problem+json")).getRequiredFields().toString());
+        Assert.assertEquals("string", plan.getRequestBodySchema(ContentType.of("text/plain")).getType());
+        Assert.assertEquals("array", plan.getRequestBodySchema(ContentType.of("image/png")).getType());
+    }
+
+    @Test
+    public void testParseContentType() {
+        ContentType contentType = ContentType.of(" application/Problem+JSON ;charset=utf-8");
+        Assert.assertEquals("application/problem+json", contentType.getMediaType());
+        Assert.assertEquals("application", contentType.getType());
+        Assert.assertEquals("application/json", contentType.getSuffixType());
+        Assert.assertTrue(contentType.isJson());
+        Assert.assertSame(contentType, ContentType.of(" application/Problem+JSON ;charset=utf-8"));
+        Assert.assertFalse(ContentType.of("application/jsonp").isJson());
+        Assert.assertNull(ContentType.of("text/plain").getSuffixType());
+    }
+
+    @Test
+    public void testValidateJsonVariants() {
+        Assert.assertNull(validator.validateRequest("/pets", "post", request("application/json; charset=utf-8", "{\"name\": \"cat\"}")));
+        Assert.assertNotNull(validator.validateRequest("/pets", "post", request("application/json; charset=utf-8", "{}")));
+        Assert.assertNull(validator.validateRequest("/pets", "post", request("application/vnd.pet+json", "{\"id\": 1}")));
+        Assert.assertNotNull(validator.validateRequest("/pets", "post", request("application/vnd.pet+json", "{\"name\": \"cat\"}")));
+        // not json, the body is not parsed
+        Assert.assertNull(validator.validateRequest("/pets", "post", request("text/plain", "cat")));
+
+        ResponseEntity responseEntity = new ResponseEntity();
+        responseEntity.setContentType("application/problem+json");
+        responseEntity.setContent("{\"title\": \"bad\"}");
+        Assert.assertNull(validator.validateResponse("/pets", "post", "400", responseEntity));
+        responseEntity.setContent("{}");
+        Assert.assertNotNull(validator.validateResponse("/pets", "post", "400", responseEntity));
+    }
+
+    private static RequestEntity request(String contentType, String body) {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType(contentType);
+        requestEntity.setRequestBody(body);
+        return requestEntity;
+    }
+}
@@ -0,0 +1,203 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class MultipartReaderTest {
+    private static final String BOUNDARY = "----form7MA4YWxk";
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=\"" + BOUNDARY + "\"";
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: uploads, version: '1'}\n"
+                + "paths:\n"
+                + "  /uploads:\n"
+                + "    post:\n"
+                + "      requestBody:\n"
+                + "        required: true\n"
+                + "        content:\n"
+                + "          multipart/form-data:\n"
+                + "            schema:\n"
+                + "              type: object\n"
+                + "              required: [metadata, file]\n"
+                + "              additionalProperties: false\n"
+                + "              properties:\n"
+                + "                metadata: {type: object, required: [title]}\n"
+                + "                count: {type: integer, maximum: 10}\n"
+                + "                tags: {type: array, items: {type: string, maxLength: 5}}\n"
+                + "                file: {type: string, format: binary, maxLength: 1048576}\n"
+                + "                log: {type: string, format: binary}\n"
+                + "            encoding:\n"
+                + "              metadata: {contentType: application/json}\n"
+                + "              file: {contentType: 'image/png, image/jpeg'}\n"
+                + "      responses:\n"
+                + "        '201': {description: created}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testReadParts() throws IOException {
+        String body = "preamble\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n"
+                + "\r\n"
+                + "a\r\n--not the boundary\r\n"
+                + "--" + BOUNDARY + "  \r\n"
+                + "content-disposition: form-data; name=\"file\"; filename=\"a;b.png\"\r\n"
+                + "Content-Type: image/png\r\n"
+                + "\r\n"
+                + "PNG\r\n"
+                + "--" + BOUNDARY + "--\r\n"
+                + "epilogue";
+        // one byte at a time, so every delimiter straddles the reads
+        MultipartReader reader = new MultipartReader(new OneByteInputStream(body), BOUNDARY);
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals("title", reader.getName());
+        Assert.assertNull(reader.getFileName());
+        Assert.assertNull(reader.getContentType());
+        Assert.assertEquals("a\r\n--not the boundary", new String(reader.readFully(100), StandardCharsets.UTF_8));
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals("file", reader.getName());
+        Assert.assertEquals("a;b.png", reader.getFileName());
+        Assert.assertEquals("image/png", reader.getHeader("content-type"));
+        Assert.assertNull(reader.readFully(2));
+        Assert.assertFalse(reader.next());
+        Assert.assertFalse(reader.next());
+
+        MultipartReader truncated = new MultipartReader(new ByteArrayInputStream(
+                ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nvalue").getBytes(StandardCharsets.UTF_8)), BOUNDARY);
+        Assert.assertTrue(truncated.next());
+        Assert.assertThrows(IOException.class, truncated::skip);
+    }
+
+    @Test
+    public void testValidateParts() {
+        String metadata = part("metadata", null, "application/json", "{\"title\": \"cat\"}");
+        String file = part("file", "cat.png", "image/png", "PNG");
+        Assert.assertTrue(validate(metadata + file + part("count", null, null, "3")
+                + part("tags", null, null, "a") + part("tags", null, null, "b")).isValid());
+
+        Assert.assertEquals("/body/metadata", validate(part("metadata", null, "application/json", "{}") + file).getErrors().get(0).getPointer());
+        ValidationError error = validate(part("metadata", null, "application/json", "{") + file).getErrors().get(0);
+        Assert.assertEquals("ERR11003", error.getCode());
+        Assert.assertEquals("/body/metadata", error.getPointer());
+        Assert.assertEquals("ERR11003", validate(part("metadata", null, "application/json", "") + file).getErrors().get(0).getCode());
+        error = validate(metadata + part("file", "cat.txt", "text/plain", "PNG")).getErrors().get(0);
+        Assert.assertEquals("ERR10015", error.getCode());
+        Assert.assertEquals("/body/file", error.getPointer());
+        Assert.assertEquals("/body/file", validate(metadata).getErrors().get(0).getPointer());
+        Assert.assertEquals("/body/count", validate(metadata + file + part("count", null, null, "11")).getErrors().get(0).getPointer());
+        Assert.assertEquals("/body/tags/1", validate(metadata + file
+                + part("tags", null, null, "a") + part("tags", null, null, "long tag")).getErrors().get(0).getPointer());
+        Assert.assertEquals("/body/other", validate(metadata + file + part("other", null, null, "x")).getErrors().get(0).getPointer());
+
+        validator.setMaxFieldPartSize(8);
+        try {
+            Assert.assertEquals("ERR10068", validate(part("metadata", null, "application/json", "{\"title\": \"cat\"}") + file).getErrors().get(0).getCode());
+        } finally {
+            validator.setMaxFieldPartSize(64 * 1024);
+        }
+
+        RequestEntity noBoundary = new RequestEntity();
+        noBoundary.setContentType("multipart/form-data");
+        noBoundary.setRequestBody(metadata + file + "--" + BOUNDARY + "--\r\n");
+        Assert.assertEquals("ERR10015", validator.validateRequest("/uploads", "post", noBoundary).getCode());
+        RequestEntity truncated = new RequestEntity();
+        truncated.setContentType(CONTENT_TYPE);
+        truncated.setRequestBody(metadata + "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"cat.png\"\r\nContent-Type: image/png\r\n\r\nPNG");
+        error = validator.validateRequest("/uploads", "post", truncated);
+        Assert.assertEquals("ERR11407", error.getCode());
+        Assert.assertEquals("/body", error.getPointer());
+        truncated.setRequestBody(metadata + "--" + BOUNDARY + "garbage\r\n");
+        Assert.assertEquals("ERR11407", validator.validateRequest("/uploads", "post", truncated).getCode());
+        RequestEntity missing = new RequestEntity();
+        missing.setContentType(CONTENT_TYPE);
+        Assert.assertEquals("ERR11014", validator.validateRequest("/uploads", "post", missing).getCode());
+    }
+
+    @Test
+    public void testStreamFiles() {
+        String metadata = part("metadata", null, "application/json", "{\"title\": \"cat\"}");
+        // the log has no size limit and is never held in memory
+        long size = 64L * 1024 * 1024;
+        InputStream body = new SequenceInputStream(new SequenceInputStream(
+                new ByteArrayInputStream((metadata + part("file", "cat.png", "image/png", "PNG")
+                        + "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"log\"; filename=\"app.log\"\r\n\r\n").getBytes(StandardCharsets.UTF_8)),
+                new RepeatedInputStream(size)),
+                new ByteArrayInputStream(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8)));
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType(CONTENT_TYPE);
+        requestEntity.setRequestBodyStream(body);
+        Assert.assertNull(validator.validateRequest("/uploads", "post", requestEntity));
+
+        InputStream tooLarge = new SequenceInputStream(new SequenceInputStream(
+                new ByteArrayInputStream((metadata + "--" + BOUNDARY
+                        + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"cat.png\"\r\nContent-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8)),
+                new RepeatedInputStream(2 * 1024 * 1024)),
+                new ByteArrayInputStream(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8)));
+        requestEntity.setRequestBodyStream(tooLarge);
+        ValidationError error = validator.validateRequest("/uploads", "post", requestEntity);
+        Assert.assertEquals("ERR11004", error.getCode());
+        Assert.assertEquals("/body/file", error.getPointer());
+    }
+
+    private static ValidationReport validate(String parts) {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType(CONTENT_TYPE);
+        requestEntity.setRequestBody(parts + "--" + BOUNDARY + "--\r\n");
+        return validator.validateRequest("/uploads", "post", requestEntity, 10);
+    }
+
+    private static String part(String name, String fileName, String contentType, String content) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"" + (fileName == null ? "" : "; filename=\"" + fileName + "\"") + "\r\n"
+                + (contentType == null ? "" : "Content-Type: " + contentType + "\r\n")
+                + "\r\n" + content + "\r\n";
+    }
+
+    private static final class OneByteInputStream extends ByteArrayInputStream {
+        OneByteInputStream(String s) {
+            super(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+
+    private static final class RepeatedInputStream extends InputStream {
+        private long remaining;
+
+        RepeatedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            return remaining-- > 0 ? '-' : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            Arrays.fill(b, off, off + n, (byte) '-');
+            remaining -= n;
+            return n;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mservicetech.openapi.common.RequestEntity;
 import com.mservicetech.openapi.common.ResponseEntity;
+import com.mservicetech.openapi.regex.LinearRegexEngine;
 
 import com.networknt.status.Status;
 import org.junit.Assert;
@@ -13,6 +14,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
@@ -47,6 +49,16 @@ public class OpenApiValidatorTest {
         Assert.assertEquals( status3.getCode(), "ERR10007");
     }
 
+    @Test
+    public void testMethodNotAllowed() {
+        Status status = openApiValidator.validateRequestPath("/pets/1111", "patch", null);
+        Assert.assertNotNull(status);
+        Assert.assertEquals( status.getCode(), "ERR10008");
+        status = openApiValidator.validateResponsePath("/pets/1111", "put", "200", new ResponseEntity());
+        Assert.assertNotNull(status);
+        Assert.assertEquals( status.getCode(), "ERR10008");
+    }
+
     @Test
     public void testRequestBody() {
         InputStream in = this.getClass().getClassLoader().getResourceAsStream("json/req1.json");
@@ -113,6 +125,36 @@ public class OpenApiValidatorTest {
         //{"statusCode":400,"code":"ERR10015","message":"CONTENT_TYPE_MISMATCH","description":"Either the Content-Type header application/json does not match the body, or the body was serialized incorrectly.","severity":"ERROR"}
     }
 
+    @Test
+    public void testRequestBodyMalformed() {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setRequestBody("{\"id\": 1, \"name\": \"cat\"");
+        requestEntity.setContentType("application/json");
+        Status status = openApiValidator.validateRequestPath("/pets", "post", requestEntity);
+        Assert.assertNotNull(status);
+        Assert.assertEquals( status.getCode(), "ERR10015");
+        requestEntity.setRequestBody("id=1");
+        status = openApiValidator.validateRequestPath("/pets", "post", requestEntity);
+        Assert.assertNotNull(status);
+        Assert.assertEquals( status.getCode(), "ERR10015");
+    }
+
+    @Test
+    public void testRequestBodyMalformedLong() {
+        StringBuilder body = new StringBuilder("{\"id\": 1, \"name\": \"");
+        while (body.length() <= OpenApiValidator.JSON_PRESCAN_MAX_LENGTH) {
+            body.append("cat");
+        }
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setRequestBody(body.append("\"").toString());
+        requestEntity.setContentType("application/json");
+        Status status = openApiValidator.validateRequestPath("/pets", "post", requestEntity);
+        Assert.assertNotNull(status);
+        Assert.assertEquals( status.getCode(), "ERR10015");
+        requestEntity.setRequestBody(body.append("}").toString());
+        Assert.assertNull(openApiValidator.validateRequestPath("/pets", "post", requestEntity));
+    }
+
     @Test
     public void testRequestBodyNull() {
         String req = null;
@@ -459,6 +501,16 @@ public class OpenApiValidatorTest {
         // {"statusCode":400,"code":"ERR11018","message":"VALIDATOR_RESPONSE_CONTENT_UNEXPECTED","description":"No response body content or schema is expected for get on path /pets/{petId}.","severity":"ERROR"}
     }
 
+    @Test
+    public void testResponseBodyMalformed() {
+        ResponseEntity responseEntity = new ResponseEntity();
+        responseEntity.setContentType("application/json");
+        responseEntity.setContent("[{\"id\": 1, \"name\": \"cat\"},]");
+        Status status = openApiValidator.validateResponsePath("/pets", "get", "200", responseEntity);
+        Assert.assertNotNull(status);
+        Assert.assertEquals(status.getCode(), "ERR11018");
+    }
+
     @Test
     public void testResponsePath() {
         InputStream in = this.getClass().getClassLoader().getResourceAsStream("json/req1.json");
@@ -503,4 +555,114 @@ public class OpenApiValidatorTest {
         // {"statusCode":400,"code":"ERR11004","message":"VALIDATOR_SCHEMA","description":"Schema Validation Error - $: string found, integer expected","severity":"ERROR"}
     }
 
+    @Test
+    public void testLinearRegexEngine() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: codes, version: '1'}\n"
+                + "paths:\n"
+                + "  /codes:\n"
+                + "    post:\n"
+                + "      parameters:\n"
+                + "        - {name: code, in: query, schema: {type: string, pattern: '^[A-Z]{2}-[0-9]{1,5}$'}}\n"
+                + "      requestBody:\n"
+                + "        content:\n"
+                + "          application/json:\n"
+                + "            schema:\n"
+                + "              type: object\n"
+                + "              properties:\n"
+                + "                name: {type: string, pattern: '^(a+)+$'}\n"
+                + "      responses:\n"
+                + "        '201': {description: created}\n";
+        OpenApiValidator jdk = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+        OpenApiValidator linear = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+        linear.setRegexEngine(new LinearRegexEngine());
+        Assert.assertTrue(linear.getRegexEngine() instanceof LinearRegexEngine);
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType("application/json");
+        for (String code : new String[]{"AB-12345", "AB-123456", "ab-1"}) {
+            for (String name : new String[]{"aaa", "aab"}) {
+                Map<String, Object> query = new HashMap<>();
+                query.put("code", code);
+                requestEntity.setQueryParameters(query);
+                requestEntity.setRequestBody("{\"name\":\"" + name + "\"}");
+                Assert.assertEquals(code + " " + name, jdk.validateRequest("/codes", "post", requestEntity, ValidationReport.UNLIMITED).toString(),
+                        linear.validateRequest("/codes", "post", requestEntity, ValidationReport.UNLIMITED).toString());
+            }
+        }
+        // backtracks exponentially with the default engine
+        requestEntity.setQueryParameters(new HashMap<>());
+        requestEntity.setRequestBody("{\"name\":\"aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa!\"}");
+        long start = System.nanoTime();
+        ValidationReport report = linear.validateRequest("/codes", "post", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        Assert.assertEquals("/body/name", report.getFirstError().getPointer());
+
+        linear.setRegexEngine(null);
+        Assert.assertNull(linear.getRegexEngine());
+    }
+
+    @Test
+    public void testFormatAssertions() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: hosts, version: '1'}\n"
+                + "paths:\n"
+                + "  /hosts/{hostId}:\n"
+                + "    put:\n"
+                + "      operationId: putHost\n"
+                + "      parameters:\n"
+                + "        - {name: hostId, in: path, required: true, schema: {type: string, format: uuid}}\n"
+                + "        - {name: limit, in: query, schema: {type: integer, format: int32}}\n"
+                + "      requestBody:\n"
+                + "        content:\n"
+                + "          application/json:\n"
+                + "            schema:\n"
+                + "              type: object\n"
+                + "              properties:\n"
+                + "                address: {type: string, format: ipv4}\n"
+                + "                updated: {type: string, format: date-time}\n"
+                + "                size: {type: integer, format: int64}\n"
+                + "                tags: {type: array, items: {format: email}}\n"
+                + "      responses:\n"
+                + "        '200': {description: updated}\n";
+        OpenApiValidator generic = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+        OpenApiValidator compiled = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+        compiled.setCompiledOperations(java.util.List.of("putHost"));
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType("application/json");
+        Map<String, Object> path = new HashMap<>();
+        path.put("hostId", "1");
+        requestEntity.setPathParameters(path);
+        Map<String, Object> query = new HashMap<>();
+        query.put("limit", "2147483648");
+        requestEntity.setQueryParameters(query);
+        requestEntity.setRequestBody("{\"address\":\"10.0.0.256\",\"updated\":\"2024-02-30T00:00:00Z\",\"size\":1,\"tags\":[\"a@b.c\"]}");
+        // the formats are annotations by default
+        ValidationReport defaultReport = generic.validateRequest("/hosts/1", "put", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertTrue(defaultReport.toString(), defaultReport.getErrors().isEmpty());
+        Assert.assertTrue(compiled.validateRequest("/hosts/1", "put", requestEntity, ValidationReport.UNLIMITED).getErrors().isEmpty());
+
+        generic.setFormatAssertions(true);
+        compiled.setFormatAssertions(true);
+        Assert.assertTrue(generic.isFormatAssertions());
+        ValidationReport report = generic.validateRequest("/hosts/1", "put", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(report.toString(), 4, report.getErrors().size());
+        Assert.assertEquals("/path/hostId", report.getErrors().get(0).getPointer());
+        Assert.assertEquals("/query/limit", report.getErrors().get(1).getPointer());
+        Assert.assertTrue(report.toString(), report.toString().contains("must be a valid RFC 4122 UUID"));
+        Assert.assertTrue(report.toString(), report.toString().contains("must be a valid 32 bit integer"));
+        Assert.assertEquals(report.toString(), compiled.validateRequest("/hosts/1", "put", requestEntity, ValidationReport.UNLIMITED).toString());
+
+        path.put("hostId", "F81D4FAE-7DEC-11D0-A765-00A0C91E6BF6");
+        query.put("limit", "2147483647");
+        for (String body : new String[]{"{\"address\":\"10.0.0.255\",\"updated\":\"2024-02-29T00:00:00Z\",\"size\":9223372036854775807,\"tags\":[\"a@b.c\"]}",
+                "{\"size\":9223372036854775808}", "{\"tags\":[\"a@b.c\",\"a.b.c\",1]}"}) {
+            requestEntity.setRequestBody(body);
+            String expected = generic.validateRequest("/hosts/1", "put", requestEntity, ValidationReport.UNLIMITED).toString();
+            Assert.assertEquals(body, expected, compiled.validateRequest("/hosts/1", "put", requestEntity, ValidationReport.UNLIMITED).toString());
+        }
+        requestEntity.setRequestBody("{\"size\":9223372036854775808}");
+        report = compiled.validateRequest("/hosts/1", "put", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals("/body/size", report.getFirstError().getPointer());
+    }
+
 }
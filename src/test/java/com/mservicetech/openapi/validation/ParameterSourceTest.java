@@ -0,0 +1,139 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.ParameterSource;
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class ParameterSourceTest {
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: sources, version: '1'}\n"
+                + "paths:\n"
+                + "  /pets/{petId}:\n"
+                + "    get:\n"
+                + "      parameters:\n"
+                + "        - {name: petId, in: path, required: true, schema: {type: integer}}\n"
+                + "        - {name: limit, in: query, schema: {type: integer}}\n"
+                + "        - {name: color, in: query, style: deepObject, required: true, schema: {type: object, additionalProperties: {type: integer}}}\n"
+                + "        - {name: X-Trace, in: header, required: true, schema: {type: string, maxLength: 4}}\n"
+                + "        - {name: sid, in: cookie, schema: {type: string, maxLength: 4}}\n"
+                + "      responses:\n"
+                + "        '200':\n"
+                + "          description: pet\n"
+                + "          headers:\n"
+                + "            X-Rate-Limit: {required: true, schema: {type: integer}}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testRequestSources() {
+        List<String> lookups = new ArrayList<>();
+        Map<String, String> query = Map.of("limit", "10", "color[R]", "1", "utm_source", "mail");
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setPathSource(Map.of("petId", "42")::get);
+        requestEntity.setQuerySource(new ParameterSource() {
+            @Override
+            public Object get(String name) {
+                lookups.add(name);
+                return query.get(name);
+            }
+
+            @Override
+            public Iterable<String> getNames() {
+                return query.keySet();
+            }
+        });
+        requestEntity.setHeaderSource(name -> "X-Trace".equalsIgnoreCase(name) ? "abc" : null);
+        requestEntity.setCookieSource(name -> null);
+        Assert.assertNull(validator.validateRequest("/pets/42", "get", requestEntity));
+        // only the declared parameters are looked up
+        Assert.assertFalse(lookups.contains("utm_source"));
+
+        requestEntity.setHeaderSource(name -> "abcde");
+        requestEntity.setCookieSource(name -> "sid".equals(name) ? "abcde" : null);
+        ValidationReport report = validator.validateRequest("/pets/42", "get", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(report.toString(), 2, report.getErrors().size());
+        Assert.assertEquals("/header/X-Trace", report.getErrors().get(0).getPointer());
+        Assert.assertEquals("/cookie/sid", report.getErrors().get(1).getPointer());
+
+        // a source without names has no deepObject keys
+        requestEntity.setQuerySource(query::get);
+        requestEntity.setHeaderSource(name -> "abc");
+        Assert.assertEquals("ERR11000", validator.validateRequest("/pets/42", "get", requestEntity).getCode());
+    }
+
+    @Test
+    public void testMapSettersAdapt() {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setQueryParameters(Map.of("limit", "10"));
+        Assert.assertEquals("10", requestEntity.getQuerySource().get("limit"));
+        requestEntity.setQuerySource(name -> null);
+        Assert.assertNull(requestEntity.getQueryParameters());
+        requestEntity.setQueryParameters(null);
+        Assert.assertNull(requestEntity.getQuerySource());
+    }
+
+    @Test
+    public void testResponseHeaderSource() {
+        ResponseEntity responseEntity = new ResponseEntity();
+        responseEntity.setHeaderSource(name -> "x-rate-limit".equalsIgnoreCase(name) ? "100" : null);
+        Assert.assertNull(validator.validateResponse("/pets/42", "get", "200", responseEntity));
+        responseEntity.setHeaderSource(name -> null);
+        Assert.assertEquals("ERR11020", validator.validateResponse("/pets/42", "get", "200", responseEntity).getCode());
+        responseEntity.setHeaders(Map.of("x-RATE-limit", "x"));
+        Assert.assertEquals("/header/X-Rate-Limit", validator.validateResponse("/pets/42", "get", "200", responseEntity).getPointer());
+    }
+
+    @Test
+    public void testHeadersIgnoreCase() {
+        int[] indexed = new int[1];
+        Map<String, Object> headers = new HashMap<>() {
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+                indexed[0]++;
+                return super.entrySet();
+            }
+        };
+        headers.put("x-TRACE", "abc");
+        headers.put("Accept", "*/*");
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setPathParameters(Map.of("petId", "42"));
+        requestEntity.setQueryParameters(Map.of("color[R]", "1"));
+        requestEntity.setHeaderParameters(headers);
+        Assert.assertNull(validator.validateRequest("/pets/42", "get", requestEntity));
+        Assert.assertEquals(1, indexed[0]);
+        ParameterSource source = ParameterSource.ofHeaders(headers);
+        Assert.assertEquals("abc", source.get("X-Trace"));
+        Assert.assertEquals("*/*", source.get("accept"));
+        Assert.assertNull(source.get("Content-Type"));
+        Assert.assertEquals(2, indexed[0]);
+
+        // names as declared or in lower case are found without the index
+        headers.clear();
+        headers.put("X-Trace", "abc");
+        Assert.assertNull(validator.validateRequest("/pets/42", "get", requestEntity));
+        headers.remove("X-Trace");
+        headers.put("x-trace", "abc");
+        Assert.assertNull(validator.validateRequest("/pets/42", "get", requestEntity));
+        Assert.assertEquals(2, indexed[0]);
+
+        Map<String, Object> ignoreCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        ignoreCase.put("x-TRACE", "abc");
+        Assert.assertEquals("abc", ParameterSource.ofHeaders(ignoreCase).get("X-Trace"));
+    }
+}
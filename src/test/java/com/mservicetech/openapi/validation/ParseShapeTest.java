@@ -0,0 +1,65 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class ParseShapeTest {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testUnconstrainedValuesAreSkipped() throws Exception {
+        String schema = "{\"type\":\"object\",\"properties\":{\"id\":{\"type\":\"integer\"},\"metadata\":{\"description\":\"any\"},"
+                + "\"tags\":{\"type\":\"array\"},\"labels\":{\"type\":\"object\",\"additionalProperties\":{\"type\":\"string\"}},"
+                + "\"extra\":{\"type\":\"object\"}}}";
+        JsonNode body = parse(schema, "{\"id\":1,\"metadata\":{\"a\":[1,{\"b\":2}]},\"tags\":[1,{\"x\":2}],"
+                + "\"labels\":{\"k\":\"v\"},\"extra\":{\"y\":{\"z\":1}},\"other\":[true]}");
+        Assert.assertEquals(mapper.readTree("{\"id\":1,\"metadata\":null,\"tags\":[null,null],\"labels\":{\"k\":\"v\"},"
+                + "\"extra\":{\"y\":null},\"other\":null}"), body);
+    }
+
+    @Test
+    public void testReferences() throws Exception {
+        // recursive schema, every level is read
+        String tree = "{\"value\":1,\"children\":[{\"value\":2,\"children\":[{\"value\":\"3\",\"name\":{}}]}]}";
+        Assert.assertEquals(mapper.readTree("{\"value\":1,\"children\":[{\"value\":2,\"children\":[{\"value\":\"3\",\"name\":null}]}]}"),
+                parse("{\"$ref\":\"#/components/schemas/Node\"}", tree));
+        // a $ref with another keyword is read completely
+        String pet = "{\"id\":1,\"name\":\"cat\",\"owner\":{\"name\":\"x\"}}";
+        Assert.assertEquals(mapper.readTree(pet), parse("{\"$ref\":\"#/components/schemas/Pet\",\"maxProperties\":2}", pet));
+        Assert.assertEquals(mapper.readTree("{\"id\":1,\"name\":\"cat\",\"owner\":null}"),
+                parse("{\"$ref\":\"#/components/schemas/Pet\"}", pet));
+    }
+
+    @Test
+    public void testSameResultAsFullParsing() throws Exception {
+        SplittableRandom random = new SplittableRandom(20240612L);
+        for (String schema : CompiledSchemaTest.SCHEMAS) {
+            JsonNode schemaNode = mapper.readTree(schema);
+            CompiledSchema compiled = SchemaCompiler.compile(schemaNode, CompiledSchemaTest.COMPONENTS);
+            ParseShape shape = ParseShape.of(schemaNode, CompiledSchemaTest.COMPONENTS);
+            for (int i = 0; i < 300; i++) {
+                JsonNode value = CompiledSchemaTest.randomValue(random, 3);
+                JsonNode shaped = read(shape, mapper.writeValueAsString(value));
+                Assert.assertEquals(schema + " " + value, compiled.validate(value, new CompiledSchema.Failure()),
+                        compiled.validate(shaped, new CompiledSchema.Failure()));
+            }
+        }
+    }
+
+    private static JsonNode parse(String schema, String json) throws Exception {
+        return read(ParseShape.of(mapper.readTree(schema), CompiledSchemaTest.COMPONENTS), json);
+    }
+
+    private static JsonNode read(ParseShape shape, String json) throws Exception {
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            parser.nextToken();
+            return shape.read(parser, JsonNodeFactory.instance);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class PathParametersTest {
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: path, version: '1'}\n"
+                + "servers:\n"
+                + "  - url: http://localhost/v1\n"
+                + "paths:\n"
+                + "  /owners/{owner}/pets/{petId}:\n"
+                + "    get:\n"
+                + "      parameters:\n"
+                + "        - {name: owner, in: path, required: true, schema: {type: string, maxLength: 8}}\n"
+                + "        - {name: petId, in: path, required: true, schema: {type: integer}}\n"
+                + "      responses:\n"
+                + "        '200': {description: pet}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testCapturedOffsets() {
+        String uri = "/v1/owners/J%C3%BCrgen+M/pets/42/";
+        PathParameters parameters = validator.getPathParameters(uri, "get");
+        Assert.assertEquals(uri, parameters.getPath());
+        Assert.assertEquals("J%C3%BCrgen+M", uri.substring(parameters.getStart("owner"), parameters.getEnd("owner")));
+        Assert.assertEquals("42", uri.substring(parameters.getStart("petId"), parameters.getEnd("petId")));
+        Assert.assertEquals(-1, parameters.getStart("name"));
+        // a '+' in a path is not a space
+        Assert.assertEquals(Map.of("owner", "Jürgen+M", "petId", "42"), parameters);
+        Assert.assertNull(validator.getPathParameters(uri, "post"));
+        Assert.assertNull(validator.getPathParameters("/v1/owners/joe", "get"));
+    }
+
+    @Test
+    public void testValidateWithCapturedValues() {
+        Assert.assertNull(validator.validateRequest("/v1/owners/joe/pets/42", "get", new RequestEntity()));
+        ValidationReport report = validator.validateRequest("/v1/owners/joe%20bloggs/pets/x", "get", new RequestEntity(), ValidationReport.UNLIMITED);
+        Assert.assertEquals(report.toString(), 2, report.getErrors().size());
+        Assert.assertEquals("/path/owner", report.getErrors().get(0).getPointer());
+        Assert.assertEquals("/path/petId", report.getErrors().get(1).getPointer());
+    }
+
+    @Test
+    public void testCallerValuesFirst() {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setPathParameters(Map.of("owner", "joe"));
+        ValidationError error = validator.validateRequest("/v1/owners/joe/pets/42", "get", requestEntity);
+        Assert.assertEquals("ERR11108", error.getCode());
+    }
+}
@@ -0,0 +1,135 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class QueryParameterDeserializerTest {
+    private static final String NAMES = "{type: array, items: {type: string, maxLength: 4}}";
+    private static final String COLOR = "{type: object, properties: {R: {type: integer}, G: {type: integer}}, additionalProperties: false}";
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: styles, version: '1'}\n"
+                + "paths:\n"
+                + "  /colors:\n"
+                + "    get:\n"
+                + "      parameters:\n"
+                + "        - {name: form, in: query, explode: false, schema: " + NAMES + "}\n"
+                + "        - {name: space, in: query, style: spaceDelimited, explode: false, schema: " + NAMES + "}\n"
+                + "        - {name: pipe, in: query, style: pipeDelimited, explode: false, schema: " + NAMES + "}\n"
+                + "        - {name: exploded, in: query, explode: true, schema: " + NAMES + "}\n"
+                + "        - {name: formObject, in: query, explode: false, schema: " + COLOR + "}\n"
+                + "        - {name: pipeObject, in: query, style: pipeDelimited, explode: false, schema: " + COLOR + "}\n"
+                + "        - {name: explodedObject, in: query, explode: true, schema: {type: object, properties: {B: {type: integer}}}}\n"
+                + "        - {name: deep, in: query, style: deepObject, required: true, schema: " + COLOR + "}\n"
+                + "      responses:\n"
+                + "        '200': {description: colors}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testDelimitedArrays() {
+        assertValid("form", "ab,cd,");
+        assertInvalid("form", "ab,abcde", "/query/form/1");
+        assertValid("form", List.of("ab,cd"));
+        assertValid("space", "ab cd");
+        assertInvalid("space", "ab,cd ef", "/query/space/0");
+        assertValid("pipe", "ab|cd");
+        assertInvalid("pipe", "ab|cd|abcde", "/query/pipe/2");
+    }
+
+    @Test
+    public void testExplodedArray() {
+        assertValid("exploded", List.of("ab", "cd"));
+        assertValid("exploded", "ab,c");
+        assertInvalid("exploded", List.of("ab", "abcde"), "/query/exploded/1");
+        assertInvalid("exploded", "abcde", "/query/exploded/0");
+    }
+
+    @Test
+    public void testDelimitedObjects() {
+        assertValid("formObject", "R,100,G,200");
+        assertInvalid("formObject", "R,100,G,x", "/query/formObject/G");
+        assertInvalid("formObject", "R,100,X,1", "/query/formObject");
+        assertValid("pipeObject", "R|1|R|2");
+        assertInvalid("pipeObject", "R|x|R|2|G", "/query/pipeObject/G");
+    }
+
+    @Test
+    public void testExplodedObjects() {
+        Map<String, Object> query = new HashMap<>();
+        query.put("deep[R]", "1");
+        query.put("deep[G]", "2");
+        query.put("B", "3");
+        query.put("utm_source", "mail");
+        Assert.assertTrue(validate(query).getErrors().isEmpty());
+        query.put("B", "x");
+        query.put("deep[X]", "3");
+        ValidationReport report = validate(query);
+        Assert.assertEquals(report.toString(), 2, report.getErrors().size());
+        Assert.assertEquals("/query/explodedObject/B", report.getErrors().get(0).getPointer());
+        Assert.assertEquals("/query/deep", report.getErrors().get(1).getPointer());
+
+        query.remove("deep[R]");
+        query.remove("deep[G]");
+        query.remove("deep[X]");
+        report = validate(query);
+        Assert.assertEquals("ERR11000", report.getErrors().get(1).getCode());
+    }
+
+    @Test
+    public void testSplitList() {
+        QueryParameterDeserializer.SplitList list = QueryParameterDeserializer.SplitList.split("a||bc|", '|');
+        Assert.assertEquals(Arrays.asList("a", "", "bc", ""), list);
+        Assert.assertEquals(List.of(""), QueryParameterDeserializer.SplitList.split("", ','));
+        Map<String, String> map = new QueryParameterDeserializer.PairMap(QueryParameterDeserializer.SplitList.split("a,1,b,2,a,3,c", ','));
+        Assert.assertEquals(Map.of("a", "3", "b", "2", "c", ""), map);
+        Assert.assertEquals("[a, b, c]", map.keySet().toString());
+    }
+
+    @Test(timeout = 2000)
+    public void testManyPairs() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            value.append(i == 0 ? "" : ",").append('k').append(i).append(",v");
+        }
+        Map<String, String> map = new QueryParameterDeserializer.PairMap(QueryParameterDeserializer.SplitList.split(value.toString(), ','));
+        Assert.assertEquals(100_000, map.size());
+        Assert.assertEquals("v", map.get("k99999"));
+    }
+
+    private static void assertValid(String name, Object value) {
+        ValidationReport report = validate(query(name, value));
+        Assert.assertTrue(name + " " + value + " " + report, report.getErrors().isEmpty());
+    }
+
+    private static void assertInvalid(String name, Object value, String pointer) {
+        ValidationReport report = validate(query(name, value));
+        Assert.assertEquals(name + " " + value + " " + report, 1, report.getErrors().size());
+        Assert.assertEquals(pointer, report.getFirstError().getPointer());
+    }
+
+    private static Map<String, Object> query(String name, Object value) {
+        Map<String, Object> query = new HashMap<>();
+        query.put("deep[R]", "1");
+        query.put(name, value);
+        return query;
+    }
+
+    private static ValidationReport validate(Map<String, Object> query) {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setQueryParameters(query);
+        return validator.validateRequest("/colors", "get", requestEntity, ValidationReport.UNLIMITED);
+    }
+}
@@ -0,0 +1,85 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class QueryStringReaderTest {
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: query, version: '1'}\n"
+                + "paths:\n"
+                + "  /pets:\n"
+                + "    get:\n"
+                + "      parameters:\n"
+                + "        - {name: limit, in: query, required: true, schema: {type: integer, maximum: 100}}\n"
+                + "        - {name: names, in: query, explode: false, schema: {type: array, items: {type: string, maxLength: 4}}}\n"
+                + "        - {name: tag, in: query, explode: true, schema: {type: array, items: {type: string, maxLength: 3}}}\n"
+                + "        - {name: color, in: query, style: deepObject, schema: {type: object, additionalProperties: {type: integer}}}\n"
+                + "      responses:\n"
+                + "        '200': {description: pets}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testOnlyDeclaredKeys() {
+        QueryStringReader reader = new QueryStringReader(List.of("limit", "name tag", "café"), List.of("color["));
+        Map<String, Object> query = reader.read("?limit=10&utm_source=mail&name+tag=a%2Bb+c&caf%C3%A9=%E2%82%AC"
+                + "&color%5BR%5D=1&color[G]=2&color[=3&colors=4&limit2=5&=6&limit");
+        Assert.assertEquals(Map.of("limit", List.of("10", ""), "name tag", "a+b c", "café", "€",
+                "color[R]", "1", "color[G]", "2"), query);
+        Assert.assertEquals(Map.of("café", "café"), reader.read("café=café&&"));
+        Assert.assertTrue(reader.read("").isEmpty());
+        QueryStringReader.Values values = reader.read("limit=1&utm%20source=mail&b&color[=3");
+        Assert.assertEquals(3, values.getUndeclaredCount());
+        Assert.assertEquals("utm source", values.getFirstUndeclared());
+        Assert.assertNull(reader.read("limit=1").getFirstUndeclared());
+    }
+
+    @Test(timeout = 2000)
+    public void testKeysWithoutValues() {
+        // every '=' search stops at the end of its pair, a quadratic scan of 800 KB takes seconds
+        String query = "a&".repeat(400_000) + "limit=10";
+        Assert.assertEquals(Map.of("limit", "10"), new QueryStringReader(List.of("limit"), List.of()).read(query));
+    }
+
+    @Test
+    public void testDecode() {
+        for (String value : new String[]{"plain", "a+b", "%41%62%2f", "%E2%82%AC%F0%9F%90%B1", "€🐱", "%C3"}) {
+            Assert.assertEquals(value, URLDecoder.decode(value, StandardCharsets.UTF_8), QueryStringReader.decode(value, 0, value.length()));
+        }
+        // a malformed escape is kept
+        Assert.assertEquals("100%", QueryStringReader.decode("100%", 0, 4));
+        Assert.assertEquals("%zz%4", QueryStringReader.decode("%zz%4", 0, 5));
+    }
+
+    @Test
+    public void testSameReportAsQueryParameters() {
+        String[] queries = {"limit=10&names=Max,Luna&tag=a&tag=b&color[R]=1",
+                "limit=1000&names=Max%2CLunatic&tag=abcd&color%5BR%5D=x", "names=Max", "limit=10&other=%zz"};
+        for (String query : queries) {
+            RequestEntity raw = new RequestEntity();
+            raw.setQueryString(query);
+            RequestEntity parsed = new RequestEntity();
+            parsed.setQueryParameters(new QueryStringReader(List.of("limit", "names", "tag", "other"), List.of("color[")).read(query));
+            Assert.assertEquals(query, validate(parsed).toString(), validate(raw).toString());
+        }
+        RequestEntity raw = new RequestEntity();
+        raw.setQueryString("limit=1000&names=Max%2CLunatic&tag=abcd&color%5BR%5D=x");
+        Assert.assertEquals(4, validate(raw).getErrors().size());
+    }
+
+    private static ValidationReport validate(RequestEntity requestEntity) {
+        return validator.validateRequest("/pets", "get", requestEntity, ValidationReport.UNLIMITED);
+    }
+}
@@ -0,0 +1,81 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResponseSamplingTest {
+
+    private OpenApiValidator openApiValidator;
+    private ResponseEntity malformed;
+
+    @Before
+    public void setUp() {
+        openApiValidator = new OpenApiValidator("openapi.yaml");
+        malformed = new ResponseEntity();
+        malformed.setContentType("application/json");
+        malformed.setContent("not json");
+    }
+
+    @Test
+    public void testSampledOut() {
+        ResponseSampling sampling = new ResponseSampling(0.0);
+        openApiValidator.setResponseSampling(sampling);
+        for (int i = 0; i < 10; i++) {
+            ValidationReport report = openApiValidator.validateResponse("/pets/1222", "get", "200", malformed, 1);
+            Assert.assertTrue(report.isValid());
+            Assert.assertTrue(report.isSkipped());
+        }
+        Assert.assertEquals(10, sampling.getSampledOut());
+        Assert.assertEquals(0, sampling.getValidated());
+    }
+
+    @Test
+    public void testErrorStatusAlwaysValidated() {
+        ResponseSampling sampling = new ResponseSampling(0.0);
+        openApiValidator.setResponseSampling(sampling);
+        ValidationReport report = openApiValidator.validateResponse("/pets/1222", "get", "500", malformed, 1);
+        Assert.assertFalse(report.isSkipped());
+        Assert.assertEquals("ERR11018", report.getFirstError().getCode());
+        Assert.assertEquals(1, sampling.getValidated());
+
+        sampling.setAlwaysValidateErrors(false);
+        Assert.assertTrue(openApiValidator.validateResponse("/pets/1222", "get", "500", malformed, 1).isSkipped());
+        Assert.assertEquals(1, sampling.getSampledOut());
+    }
+
+    @Test
+    public void testOperationRate() {
+        ResponseSampling sampling = new ResponseSampling(0.0);
+        sampling.setOperationRate("showPetById", 1.0);
+        sampling.setOperationRate("post /pets", 1.0);
+        openApiValidator.setResponseSampling(sampling);
+        Assert.assertEquals(Double.valueOf(1.0), sampling.getOperationRate("POST /pets"));
+
+        Assert.assertEquals("ERR11018", openApiValidator.validateResponsePath("/pets/1222", "get", "200", malformed).getCode());
+        Assert.assertEquals("ERR11018", openApiValidator.validateResponsePath("/pets", "post", "201", malformed).getCode());
+        Assert.assertNull(openApiValidator.validateResponsePath("/pets", "get", "200", malformed));
+        Assert.assertEquals(2, sampling.getValidated());
+        Assert.assertEquals(1, sampling.getSampledOut());
+
+        sampling.removeOperationRate("showPetById");
+        Assert.assertNull(openApiValidator.validateResponsePath("/pets/1222", "get", "200", malformed));
+    }
+
+    @Test
+    public void testRate() {
+        ResponseSampling sampling = new ResponseSampling(0.25);
+        openApiValidator.setResponseSampling(sampling);
+        for (int i = 0; i < 4000; i++) {
+            openApiValidator.validateResponse("/pets/1222", "get", "200", malformed);
+        }
+        Assert.assertEquals(4000, sampling.getValidated() + sampling.getSampledOut());
+        Assert.assertTrue(sampling.getValidated() > 700 && sampling.getValidated() < 1300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new ResponseSampling(1.5);
+    }
+}
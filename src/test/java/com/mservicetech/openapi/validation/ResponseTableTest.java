@@ -0,0 +1,80 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class ResponseTableTest {
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: responses, version: '1'}\n"
+                + "paths:\n"
+                + "  /pets:\n"
+                + "    get:\n"
+                + "      responses:\n"
+                + "        '200':\n"
+                + "          description: pets\n"
+                + "          content:\n"
+                + "            application/json: {schema: {type: array}}\n"
+                + "        '204': {description: none}\n"
+                + "        '2XX':\n"
+                + "          description: other success\n"
+                + "          headers:\n"
+                + "            X-Request-Id: {required: true, schema: {type: string}}\n"
+                + "          content:\n"
+                + "            application/json: {schema: {type: object}}\n"
+                + "        4XX:\n"
+                + "          description: client error\n"
+                + "          content:\n"
+                + "            application/json: {schema: {type: object, required: [code]}}\n"
+                + "        default:\n"
+                + "          description: error\n"
+                + "          content:\n"
+                + "            application/json: {schema: {type: object, required: [message]}}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testLookupOrder() {
+        ResponseTable responses = validator.getOperationPlan("/pets", "get").getResponses();
+        Assert.assertEquals("200", responses.get("200").getStatusCode());
+        Assert.assertEquals("2XX", responses.get("201").getStatusCode());
+        Assert.assertEquals("204", responses.get("204").getStatusCode());
+        Assert.assertEquals("4XX", responses.get("404").getStatusCode());
+        Assert.assertEquals("default", responses.get("500").getStatusCode());
+        Assert.assertEquals("default", responses.get("99").getStatusCode());
+        Assert.assertEquals("2XX", responses.get("2XX").getStatusCode());
+        Assert.assertNull(responses.get("204").getSchema("application/json"));
+        Assert.assertNull(responses.get("200").getSchema("text/plain"));
+        Assert.assertNull(responses.get("200").getSchema(null));
+    }
+
+    @Test
+    public void testValidateRanges() {
+        Assert.assertNull(validator.validateResponse("/pets", "get", "200", response("[]", Map.of())));
+        Assert.assertNull(validator.validateResponse("/pets", "get", "201", response("{}", Map.of("x-request-id", "1"))));
+        Assert.assertEquals("ERR11020", validator.validateResponse("/pets", "get", "201", response("{}", Map.of())).getCode());
+        Assert.assertNotNull(validator.validateResponse("/pets", "get", "201", response("[]", Map.of("X-Request-Id", "1"))));
+        Assert.assertNull(validator.validateResponse("/pets", "get", "204", response(null, Map.of())));
+        Assert.assertNull(validator.validateResponse("/pets", "get", "404", response("{\"code\": 1}", Map.of())));
+        Assert.assertNotNull(validator.validateResponse("/pets", "get", "404", response("{\"message\": \"x\"}", Map.of())));
+        Assert.assertNull(validator.validateResponse("/pets", "get", "503", response("{\"message\": \"x\"}", Map.of())));
+        Assert.assertNotNull(validator.validateResponse("/pets", "get", "503", response("{\"code\": 1}", Map.of())));
+    }
+
+    private static ResponseEntity response(String content, Map<String, ?> headers) {
+        ResponseEntity responseEntity = new ResponseEntity();
+        responseEntity.setContentType("application/json");
+        responseEntity.setContent(content);
+        responseEntity.setHeaders(headers);
+        return responseEntity;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ShadowResponseValidatorTest {
+
+    private final OpenApiValidator openApiValidator = new OpenApiValidator("openapi.yaml");
+
+    @Test
+    public void testViolationsReported() {
+        List<String> violations = new CopyOnWriteArrayList<>();
+        try (ShadowResponseValidator shadow = new ShadowResponseValidator(openApiValidator, 16, 2,
+                (response, report) -> violations.add(response + " " + report.getFirstError().getCode()))) {
+            ResponseEntity valid = new ResponseEntity();
+            valid.setContentType("application/json");
+            valid.setContent("{\"id\": 1, \"name\": \"cat\"}");
+            Assert.assertTrue(shadow.submit("/pets/1222", "get", "200", valid));
+            Assert.assertTrue(shadow.submit("/pets/1222", "get", "200", null, "application/json",
+                    "{\"name\": \"cat\"}".getBytes(StandardCharsets.UTF_8)));
+
+            Assert.assertTrue(shadow.drain(10, TimeUnit.SECONDS));
+            Assert.assertEquals(2, shadow.getValidated());
+            Assert.assertEquals(1, shadow.getViolations());
+            Assert.assertEquals(List.of("get /pets/1222 200 ERR11004"), violations);
+        }
+    }
+
+    @Test
+    public void testDropPolicy() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> seen = new CopyOnWriteArrayList<>();
+        ShadowResponseValidator shadow = new ShadowResponseValidator(openApiValidator, 2, 1, (response, report) -> {
+            seen.add(response.getContent());
+            blocked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            Assert.assertTrue(shadow.submit("/pets/1222", "get", "200", invalid("0")));
+            Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+            // the worker is busy, the buffer holds 2 responses
+            Assert.assertTrue(shadow.submit("/pets/1222", "get", "200", invalid("1")));
+            Assert.assertTrue(shadow.submit("/pets/1222", "get", "200", invalid("2")));
+            Assert.assertFalse(shadow.submit("/pets/1222", "get", "200", invalid("3")));
+            Assert.assertEquals(1, shadow.getDropped());
+
+            shadow.setDropPolicy(ShadowResponseValidator.DropPolicy.DROP_OLDEST);
+            Assert.assertTrue(shadow.submit("/pets/1222", "get", "200", invalid("4")));
+            Assert.assertEquals(2, shadow.getDropped());
+
+            release.countDown();
+            Assert.assertTrue(shadow.drain(10, TimeUnit.SECONDS));
+            Assert.assertEquals(List.of("[0]", "[2]", "[4]"), seen);
+            Assert.assertEquals(5, shadow.getSubmitted());
+        } finally {
+            release.countDown();
+            shadow.close();
+        }
+        Assert.assertFalse(shadow.submit("/pets/1222", "get", "200", invalid("5")));
+    }
+
+    @Test
+    public void testIdleWorkersBlock() throws InterruptedException {
+        try (ShadowResponseValidator shadow = new ShadowResponseValidator(openApiValidator, 16, 2, (response, report) -> { })) {
+            for (int round = 0; round < 2; round++) {
+                // with nothing queued the workers block instead of waking up to poll
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (!workersBlocked() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                Assert.assertTrue(workersBlocked());
+                Assert.assertTrue(shadow.submit("/pets/1222", "get", "200", invalid(String.valueOf(round))));
+                Assert.assertTrue(shadow.drain(10, TimeUnit.SECONDS));
+                Assert.assertEquals(round + 1, shadow.getViolations());
+            }
+        }
+    }
+
+    private static boolean workersBlocked() {
+        int blocked = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("openapi-shadow-validator-")) {
+                if (thread.getState() != Thread.State.WAITING) {
+                    return false;
+                }
+                blocked++;
+            }
+        }
+        return blocked >= 2;
+    }
+
+    private static ResponseEntity invalid(String marker) {
+        ResponseEntity entity = new ResponseEntity();
+        entity.setContentType("application/json");
+        entity.setContent("[" + marker + "]");
+        return entity;
+    }
+}
@@ -0,0 +1,111 @@
+package com.mservicetech.openapi.validation;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mservicetech.openapi.common.RequestEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class UrlEncodedFormTest {
+    private static OpenApiValidator validator;
+
+    @BeforeClass
+    public static void setUp() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: forms, version: '1'}\n"
+                + "paths:\n"
+                + "  /pets:\n"
+                + "    post:\n"
+                + "      requestBody:\n"
+                + "        content:\n"
+                + "          application/x-www-form-urlencoded:\n"
+                + "            schema:\n"
+                + "              type: object\n"
+                + "              required: [name]\n"
+                + "              properties:\n"
+                + "                name: {type: string, maxLength: 16}\n"
+                + "                age: {type: integer, minimum: 0}\n"
+                + "                tags: {type: array, items: {type: string}}\n"
+                + "                ids: {type: array, items: {type: integer}}\n"
+                + "                color: {type: object, properties: {R: {type: integer}, G: {type: integer}}}\n"
+                + "            encoding:\n"
+                + "              ids: {style: form, explode: false}\n"
+                + "              color: {style: deepObject}\n"
+                + "      responses:\n"
+                + "        '201': {description: created}\n";
+        validator = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testRead() {
+        UrlEncodedForm form = validator.getOperationPlan("/pets", "post").getUrlEncodedForm(ContentType.of("application/x-www-form-urlencoded"));
+        UrlEncodedForm.Body body = form.read("name=Max+Power&age=7&other=skipped&tags=a&tags=b%26c&ids=1,2,x&color%5BR%5D=100&color[G]=200");
+        ObjectNode values = body.values;
+        Assert.assertEquals("{\"name\":\"Max Power\",\"age\":7,\"tags\":[\"a\",\"b&c\"],\"ids\":[1,2,\"x\"],"
+                + "\"color\":{\"R\":100,\"G\":200}}", values.toString());
+        Assert.assertTrue(values.get("age").isIntegralNumber());
+        // the schema allows additional properties
+        Assert.assertNull(body.undeclared);
+        Assert.assertEquals("[\"a\"]", form.read("tags=a").values.get("tags").toString());
+        // not a json number, kept as text
+        Assert.assertTrue(form.read("age=+7").values.get("age").isTextual());
+        Assert.assertTrue(form.read("age=1e999999999").values.get("age").isBigDecimal());
+    }
+
+    @Test
+    public void testValidate() {
+        Assert.assertNull(validator.validateRequest("/pets", "post", request("name=Max&age=7&tags=a&ids=1,2&color[R]=1")));
+        Assert.assertEquals("/body/age", validator.validateRequest("/pets", "post", request("name=Max&age=x")).getPointer());
+        Assert.assertEquals("/body/ids/1", validator.validateRequest("/pets", "post", request("name=Max&ids=1,a")).getPointer());
+        Assert.assertEquals("/body/color/G", validator.validateRequest("/pets", "post", request("name=Max&color[G]=green")).getPointer());
+        Assert.assertEquals("ERR11004", validator.validateRequest("/pets", "post", request("age=7")).getCode());
+        Assert.assertEquals("/body/name", validator.validateRequest("/pets", "post", request("name=" + "x".repeat(17))).getPointer());
+    }
+
+    @Test
+    public void testValidateCompiled() {
+        validator.setCompiledOperations(List.of("POST /pets"));
+        try {
+            Assert.assertNull(validator.validateRequest("/pets", "post", request("name=Max&age=7&tags=a&ids=1,2&color[R]=1")));
+            Assert.assertEquals("/body/age", validator.validateRequest("/pets", "post", request("name=Max&age=-1")).getPointer());
+            Assert.assertEquals("/body/ids/1", validator.validateRequest("/pets", "post", request("name=Max&ids=1,a")).getPointer());
+        } finally {
+            validator.setCompiledOperations(List.of());
+        }
+    }
+
+    @Test
+    public void testNoAdditionalProperties() {
+        String spec = "openapi: 3.0.0\n"
+                + "info: {title: forms, version: '1'}\n"
+                + "paths:\n"
+                + "  /login:\n"
+                + "    post:\n"
+                + "      requestBody:\n"
+                + "        content:\n"
+                + "          application/x-www-form-urlencoded:\n"
+                + "            schema:\n"
+                + "              type: object\n"
+                + "              additionalProperties: false\n"
+                + "              properties:\n"
+                + "                user: {type: string}\n"
+                + "      responses:\n"
+                + "        '200': {description: logged in}\n";
+        OpenApiValidator strict = new OpenApiValidator(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(strict.validateRequest("/login", "post", request("user=max")));
+        ValidationError error = strict.validateRequest("/login", "post", request("user=max&is%20admin=true&role=root"));
+        Assert.assertEquals("ERR11004", error.getCode());
+        Assert.assertEquals("/body/is admin", error.getPointer());
+    }
+
+    private static RequestEntity request(String body) {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType("application/x-www-form-urlencoded; charset=UTF-8");
+        requestEntity.setRequestBody(body);
+        return requestEntity;
+    }
+}
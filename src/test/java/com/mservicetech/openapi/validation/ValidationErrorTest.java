@@ -0,0 +1,66 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import com.networknt.status.Status;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ValidationErrorTest {
+
+    static OpenApiValidator openApiValidator;
+
+    @BeforeClass
+    public static void setUp() {
+        openApiValidator = new OpenApiValidator("openapi.yaml");
+    }
+
+    private ValidationError validateMissingId(ErrorDetail detail) {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setRequestBody("{\"name\": \"cat\"}");
+        requestEntity.setContentType("application/json");
+        OpenApiValidator validator = new OpenApiValidator("openapi.yaml");
+        validator.setErrorDetail(detail);
+        return validator.validateRequest("/pets", "post", requestEntity);
+    }
+
+    @Test
+    public void testCodeOnly() {
+        ValidationError error = validateMissingId(ErrorDetail.CODE_ONLY);
+        Assert.assertNotNull(error);
+        Assert.assertEquals("ERR11004", error.getCode());
+        Assert.assertEquals(0, error.getArguments().length);
+        Assert.assertEquals(400, error.getStatusCode());
+        Assert.assertEquals("VALIDATOR_SCHEMA", error.getMessage());
+        Assert.assertNull(error.getDescription());
+        Status status = error.toStatus();
+        Assert.assertEquals("ERR11004", status.getCode());
+        Assert.assertEquals(400, status.getStatusCode());
+    }
+
+    @Test
+    public void testSummary() {
+        ValidationError error = validateMissingId(ErrorDetail.SUMMARY);
+        Assert.assertNotNull(error);
+        Assert.assertEquals("Schema Validation Error - $: required", error.getDescription());
+    }
+
+    @Test
+    public void testFull() {
+        ValidationError error = validateMissingId(ErrorDetail.FULL);
+        Assert.assertNotNull(error);
+        Assert.assertEquals("Schema Validation Error - $: required property 'id' not found", error.getDescription());
+        Assert.assertSame(error.toStatus(), error.toStatus());
+    }
+
+    @Test
+    public void testStatusApiMatchesError() {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setContentType("application/json");
+        Status status = openApiValidator.validateRequestPath("/pets", "post", requestEntity);
+        ValidationError error = openApiValidator.validateRequest("/pets", "post", requestEntity);
+        Assert.assertEquals(status.getCode(), error.getCode());
+        Assert.assertEquals(status.getDescription(), error.getDescription());
+        Assert.assertNull(ValidationError.toStatus(null));
+    }
+}
@@ -0,0 +1,111 @@
+package com.mservicetech.openapi.validation;
+
+import com.mservicetech.openapi.common.RequestEntity;
+import com.mservicetech.openapi.common.ResponseEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ValidationReportTest {
+
+    static OpenApiValidator openApiValidator;
+
+    @BeforeClass
+    public static void setUp() {
+        openApiValidator = new OpenApiValidator("openapi.yaml");
+    }
+
+    private RequestEntity invalidQuery() {
+        RequestEntity requestEntity = new RequestEntity();
+        Map<String, Object> queryMap = new HashMap<>();
+        queryMap.put("limit", "abc");
+        queryMap.put("includeCode", "yes");
+        queryMap.put("names", "Maximillian,Luna");
+        requestEntity.setQueryParameters(queryMap);
+        return requestEntity;
+    }
+
+    private List<String> pointers(ValidationReport report) {
+        return report.getErrors().stream().map(ValidationError::getPointer).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testCollectAllQueryErrors() {
+        ValidationReport report = openApiValidator.validateRequest("/pets", "get", invalidQuery(), ValidationReport.UNLIMITED);
+        Assert.assertFalse(report.isValid());
+        Assert.assertEquals(List.of("/query/limit", "/query/includeCode", "/query/names/0"), pointers(report));
+        report.getErrors().forEach(e -> Assert.assertEquals("ERR11004", e.getCode()));
+    }
+
+    @Test
+    public void testErrorBudget() {
+        ValidationReport report = openApiValidator.validateRequest("/pets", "get", invalidQuery(), 2);
+        Assert.assertEquals(2, report.getErrors().size());
+        Assert.assertTrue(report.isFull());
+
+        report = openApiValidator.validateRequest("/pets", "get", invalidQuery(), 1);
+        Assert.assertEquals(1, report.getErrors().size());
+        Assert.assertEquals("/query/limit", report.getFirstError().getPointer());
+        Assert.assertEquals(report.getFirstError().getDescription(),
+                openApiValidator.validateRequestPath("/pets", "get", invalidQuery()).getDescription());
+    }
+
+    @Test
+    public void testCollectAllBodyErrors() {
+        RequestEntity requestEntity = new RequestEntity();
+        requestEntity.setRequestBody("{\"id\": \"abc\", \"tag\": 1}");
+        requestEntity.setContentType("application/json");
+        ValidationReport report = openApiValidator.validateRequest("/pets", "post", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(3, report.getErrors().size());
+        Assert.assertTrue(pointers(report).containsAll(List.of("/body", "/body/id", "/body/tag")));
+
+        // fail fast in the schema engine
+        report = openApiValidator.validateRequest("/pets", "post", requestEntity, 1);
+        Assert.assertEquals(1, report.getErrors().size());
+    }
+
+    @Test
+    public void testParametersAndBody() {
+        RequestEntity requestEntity = new RequestEntity();
+        Map<String, Object> pathMap = new HashMap<>();
+        pathMap.put("petId", "123456");
+        requestEntity.setPathParameters(pathMap);
+        requestEntity.setHeaderParameters(new HashMap<>());
+        ValidationReport report = openApiValidator.validateRequest("/pets/{petId}", "delete", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(List.of("/header/key"), pointers(report));
+        Assert.assertEquals("ERR11017", report.getFirstError().getCode());
+    }
+
+    @Test
+    public void testMissingRequiredAfterSchemaErrors() {
+        RequestEntity requestEntity = new RequestEntity();
+        Map<String, Object> queryMap = new HashMap<>();
+        queryMap.put("includeCode", "yes");
+        requestEntity.setQueryParameters(queryMap);
+        ValidationReport report = openApiValidator.validateRequest("/pets", "get", requestEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(List.of("/query/includeCode", "/query/limit"), pointers(report));
+        Assert.assertEquals("ERR11000", report.getErrors().get(1).getCode());
+    }
+
+    @Test
+    public void testResponseReport() {
+        ResponseEntity responseEntity = new ResponseEntity();
+        Map<String, Object> headerMap = new HashMap<>();
+        headerMap.put("x-rate-limit", "abc");
+        responseEntity.setHeaders(headerMap);
+        responseEntity.setContentType("application/json");
+        responseEntity.setContent("[{\"id\": \"1\", \"name\": \"cat\"}, {\"name\": \"dog\"}]");
+        ValidationReport report = openApiValidator.validateResponse("/pets", "get", "200", responseEntity, ValidationReport.UNLIMITED);
+        Assert.assertEquals(List.of("/header/X-Rate-Limit", "/body/0/id", "/body/1"), pointers(report));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBudget() {
+        new ValidationReport(0, ErrorDetail.FULL);
+    }
+}